@@ -0,0 +1,39 @@
+package com.demo.carparkinglot.benchmarks;
+
+import com.demo.carparkinglot.enums.SlotStoreTypeEnum;
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.slots.CompactSlotStore;
+import com.demo.carparkinglot.models.slots.ObjectSlotStore;
+import com.demo.carparkinglot.models.slots.SlotLockLeases;
+import com.demo.carparkinglot.models.slots.SlotStore;
+import com.demo.carparkinglot.models.vehicles.Car;
+
+final class BenchmarkLots {
+
+    private BenchmarkLots() {
+    }
+
+    // Builds a lot and parks vehicles with licenses parkedLicense(0..n) until occupancyPercent of it is taken
+    static ParkingLot createLot(int lotSize, int shards, SlotStoreTypeEnum slotStoreType, int occupancyPercent) {
+        SlotStore slotStore = SlotStoreTypeEnum.COMPACT.equals(slotStoreType)
+                ? new CompactSlotStore(lotSize) : new ObjectSlotStore(lotSize);
+        // Leases are drained by expireLockLeases between iterations instead of piling up for a minute each
+        ParkingLot parkingLot = new ParkingLot("benchmark", slotStore, shards, new SlotLockLeases(lotSize, 1, 1));
+        long vehiclesToPark = parkedVehicles(lotSize, occupancyPercent);
+        for (long i = 0; i < vehiclesToPark; i++) {
+            String license = parkedLicense(i);
+            ParkingSlot parkingSlot = parkingLot.getAvailableParkingSlot(license).orElseThrow();
+            parkingLot.parkVehicle(new Car(license), parkingSlot);
+        }
+        return parkingLot;
+    }
+
+    static long parkedVehicles(int lotSize, int occupancyPercent) {
+        return (long) lotSize * occupancyPercent / 100;
+    }
+
+    static String parkedLicense(long i) {
+        return "BM-" + i;
+    }
+}
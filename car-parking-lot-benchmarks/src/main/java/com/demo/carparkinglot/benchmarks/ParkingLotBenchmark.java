@@ -0,0 +1,130 @@
+package com.demo.carparkinglot.benchmarks;
+
+import com.demo.carparkinglot.enums.SlotStoreTypeEnum;
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.vehicles.Car;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of ParkingLot across lot sizes, occupancy levels, slot stores and shard counts. Every parameter is
+ * crossed with every other, narrow a run down with -p, e.g. -p lotSize=1000000 -p occupancyPercent=99.
+ * Thread count is a JMH option rather than a parameter, run with -t or through ThreadScalingRunner.
+ * <p>
+ * Write paths are measured as cycles that leave the lot as they found it (lock + release, lock + park + unpark),
+ * so occupancy stays at its parameter for the whole run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// 10M slot lots at 99% occupancy hold ~10M parked cars
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ParkingLotBenchmark {
+    private static final int SAMPLES = 1 << 16;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    private int lotSize;
+
+    @Param({"0", "50", "99"})
+    private int occupancyPercent;
+
+    @Param({"OBJECT", "COMPACT"})
+    private SlotStoreTypeEnum slotStore;
+
+    @Param({"1", "16"})
+    private int shards;
+
+    private ParkingLot parkingLot;
+    private long[] slotIds;
+    // Half parked licenses, half licenses that were never parked
+    private String[] licenses;
+
+    @State(Scope.Thread)
+    public static class Vehicle {
+        private Car car;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threadParams) {
+            car = new Car("BM-THREAD-" + threadParams.getThreadIndex());
+            cursor = threadParams.getThreadIndex() * 7919;
+        }
+
+        int nextSample() {
+            return cursor++ & (SAMPLES - 1);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parkingLot = BenchmarkLots.createLot(lotSize, shards, slotStore, occupancyPercent);
+        long parkedVehicles = BenchmarkLots.parkedVehicles(lotSize, occupancyPercent);
+        SplittableRandom random = new SplittableRandom(42);
+        slotIds = new long[SAMPLES];
+        licenses = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            slotIds[i] = random.nextLong(1, lotSize + 1L);
+            licenses[i] = parkedVehicles > 0 && random.nextBoolean()
+                    ? BenchmarkLots.parkedLicense(random.nextLong(parkedVehicles)) : "BM-NEVER-PARKED-" + i;
+        }
+    }
+
+    // The application does this on a timer, here no lock is held in between iterations so nothing is reclaimed
+    @TearDown(Level.Iteration)
+    public void expireLockLeases() {
+        parkingLot.expireLockLeases(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public Optional<ParkingSlot> getAvailableParkingSlot(Vehicle vehicle) {
+        Optional<ParkingSlot> parkingSlot = parkingLot.getAvailableParkingSlot(vehicle.car.getLicensePlateNo());
+        parkingSlot.ifPresent(slot -> parkingLot.releaseLock(slot, vehicle.car.getLicensePlateNo()));
+        return parkingSlot;
+    }
+
+    @Benchmark
+    public ParkingSlot parkVehicleAndUnparkVehicle(Vehicle vehicle) {
+        String license = vehicle.car.getLicensePlateNo();
+        Optional<ParkingSlot> lockedSlot = parkingLot.getAvailableParkingSlot(license);
+        if (lockedSlot.isEmpty()) {
+            return null;
+        }
+        ParkingSlot parkedSlot = parkingLot.parkVehicle(vehicle.car, lockedSlot.get());
+        parkingLot.unparkVehicle(parkedSlot, license);
+        return parkedSlot;
+    }
+
+    @Benchmark
+    public Optional<ParkingSlot> getSlotById(Vehicle vehicle) {
+        return parkingLot.getSlotById(slotIds[vehicle.nextSample()]);
+    }
+
+    @Benchmark
+    public long getTotalAvailableSlots() {
+        return parkingLot.getTotalAvailableSlots();
+    }
+
+    @Benchmark
+    public boolean isVehicleAlreadyParked(Vehicle vehicle) {
+        return parkingLot.isVehicleAlreadyParked(licenses[vehicle.nextSample()]);
+    }
+}
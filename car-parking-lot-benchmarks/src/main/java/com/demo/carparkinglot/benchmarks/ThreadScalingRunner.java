@@ -0,0 +1,43 @@
+package com.demo.carparkinglot.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Runs the selected benchmarks once per thread count and writes one JSON result file per count:
+ * {@code java -cp target/benchmarks.jar com.demo.carparkinglot.benchmarks.ThreadScalingRunner 1,2,4,8 [JMH options]}.
+ * Thread counts default to 1, 2, 4 ... up to the number of cores. Any other arguments are regular JMH options.
+ */
+public class ThreadScalingRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        boolean threadCountsGiven = args.length > 0 && args[0].matches("\\d+(,\\d+)*");
+        int[] threadCounts = threadCountsGiven
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : defaultThreadCounts(Runtime.getRuntime().availableProcessors());
+        CommandLineOptions jmhOptions = new CommandLineOptions(
+                threadCountsGiven ? Arrays.copyOfRange(args, 1, args.length) : args);
+        for (int threads : threadCounts) {
+            new Runner(new OptionsBuilder()
+                    .parent(jmhOptions)
+                    .threads(threads)
+                    .result("jmh-result-" + threads + "-threads.json")
+                    .resultFormat(ResultFormatType.JSON)
+                    .build()).run();
+        }
+    }
+
+    private static int[] defaultThreadCounts(int cores) {
+        int[] threadCounts = new int[32 - Integer.numberOfLeadingZeros(cores) + (Integer.bitCount(cores) == 1 ? 0 : 1)];
+        for (int i = 0; i < threadCounts.length; i++) {
+            threadCounts[i] = Math.min(1 << i, cores);
+        }
+        return threadCounts;
+    }
+}
@@ -0,0 +1,112 @@
+package com.demo.carparkinglot.benchmarks;
+
+import com.demo.carparkinglot.enums.SlotStoreTypeEnum;
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.journal.GroupCommitJournal;
+import com.demo.carparkinglot.models.journal.JournalRecord;
+import com.demo.carparkinglot.models.slots.SlotStore;
+import com.demo.carparkinglot.models.vehicles.Car;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop load test of the blocking request path, park then unpark with each waiting for its journal group
+ * commit, comparing a Tomcat-sized platform thread pool against a virtual thread per request:
+ * {@code java -cp target/benchmarks.jar com.demo.carparkinglot.benchmarks.BlockingPathLoadRunner [clients]
+ * [requestsPerClient] [platformThreads]}, defaulting to 10000 clients, 20 requests each and 200 threads.
+ * <p>
+ * Every client is a virtual thread sending its next request once the previous one is answered, so latency includes
+ * the time a request waits for a free server thread. Only built by the java21 profile.
+ */
+public class BlockingPathLoadRunner {
+    private static final long COMMIT_INTERVAL_MICROS = 1000L;
+    private static final int JOURNAL_MAX_BATCH_SIZE = 256;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int platformThreads = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        System.out.printf("%,d clients, %,d requests each%n", clients, requestsPerClient);
+        try (ExecutorService platformPool = Executors.newFixedThreadPool(platformThreads)) {
+            run(platformThreads + " platform threads", platformPool, clients, requestsPerClient);
+        }
+        try (ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            run("virtual thread per request", virtualThreads, clients, requestsPerClient);
+        }
+    }
+
+    private static void run(String mode, ExecutorService serverThreads, int clients, int requestsPerClient)
+            throws IOException, InterruptedException, ExecutionException {
+        // One slot per client, a client only ever holds one, so every park finds a free slot
+        ParkingLot parkingLot = BenchmarkLots.createLot(clients, 16, SlotStoreTypeEnum.COMPACT, 0);
+        Path journalFile = Files.createTempFile("blocking-path", ".journal");
+        long[][] latencies = new long[clients][requestsPerClient];
+        long elapsedNanos;
+        try (GroupCommitJournal journal = GroupCommitJournal.open(journalFile, COMMIT_INTERVAL_MICROS, JOURNAL_MAX_BATCH_SIZE);
+             ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            long startNanos = System.nanoTime();
+            Future<?>[] futures = new Future<?>[clients];
+            for (int client = 0; client < clients; client++) {
+                String license = BenchmarkLots.parkedLicense(client);
+                long[] clientLatencies = latencies[client];
+                futures[client] = clientThreads.submit(() -> {
+                    ParkingSlot parkedSlot = null;
+                    for (int request = 0; request < requestsPerClient; request++) {
+                        long requestStartNanos = System.nanoTime();
+                        ParkingSlot slotToUnpark = parkedSlot;
+                        parkedSlot = serverThreads.submit(() -> Objects.isNull(slotToUnpark)
+                                ? park(parkingLot, journal, license)
+                                : unpark(parkingLot, journal, slotToUnpark, license)).get();
+                        clientLatencies[request] = System.nanoTime() - requestStartNanos;
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsedNanos = System.nanoTime() - startNanos;
+            System.out.printf("%s: %,d group commits%n", mode, journal.getCommittedBatches());
+        } finally {
+            Files.deleteIfExists(journalFile);
+        }
+        report(mode, latencies, elapsedNanos);
+    }
+
+    private static ParkingSlot park(ParkingLot parkingLot, GroupCommitJournal journal, String license) {
+        ParkingSlot parkedSlot = parkingLot.parkVehicle(new Car(license),
+                parkingLot.getAvailableParkingSlot(license).orElseThrow());
+        journal.append(JournalRecord.vehicleParked(SlotStore.toSlotIndex(parkedSlot.getId()),
+                parkedSlot.getParkedOn().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), license)).join();
+        return parkedSlot;
+    }
+
+    // Returns null so the client parks again with its next request
+    private static ParkingSlot unpark(ParkingLot parkingLot, GroupCommitJournal journal, ParkingSlot parkedSlot, String license) {
+        parkingLot.unparkVehicle(parkedSlot, license);
+        journal.append(JournalRecord.vehicleUnparked(
+                SlotStore.toSlotIndex(parkedSlot.getId()), System.currentTimeMillis(), license)).join();
+        return null;
+    }
+
+    private static void report(String mode, long[][] latencies, long elapsedNanos) {
+        long[] sorted = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%s: %,.0f requests/s, latency p50: %.2fms p99: %.2fms max: %.2fms%n", mode,
+                sorted.length * 1e9 / elapsedNanos, percentileMillis(sorted, 0.50),
+                percentileMillis(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -7,15 +7,15 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
-import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 
 
 @EnableCaching
 @EnableAspectJAutoProxy
+@EnableScheduling
 @EnableMethodSecurity(securedEnabled = true)
-@EnableWebSecurity
 @SpringBootApplication
 @RequiredArgsConstructor
 public class CarParkingLotApplication implements CommandLineRunner {
@@ -1,5 +1,8 @@
 package com.demo.carparkinglot.configuration;
 
+import com.demo.carparkinglot.enums.SlotStoreTypeEnum;
+import com.demo.carparkinglot.models.layout.GridLayout;
+import com.demo.carparkinglot.models.slots.SlotLockLeases;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -12,4 +15,19 @@ import org.springframework.context.annotation.Configuration;
 public class ParkingLotConfig {
     private String name;
     private int slots;
+    private int shards = 1;
+    private SlotStoreTypeEnum slotStore = SlotStoreTypeEnum.OBJECT;
+    // Only used by the mapped slot store
+    private String slotStoreFile = "data/parking-lot.slots";
+    // Most vehicles a single batch park or unpark request may carry
+    private int maxBatchSize = 100;
+    // Lots created at runtime live in memory, these bound what POST /parking-lots can allocate
+    private int maxSlotsPerLot = 1_000_000;
+    private int maxParkingLots = 64;
+    private long lockLeaseMillis = SlotLockLeases.DEFAULT_LEASE_MILLIS;
+    private long lockLeaseTickMillis = SlotLockLeases.DEFAULT_TICK_MILLIS;
+    // Servlet availability streams are closed after this long, clients reconnect
+    private long availabilityStreamTimeoutMillis = 3_600_000L;
+    // Where the slots and gates are, park requests then get the free slot nearest to their gate
+    private GridLayout layout = new GridLayout();
 }
@@ -0,0 +1,62 @@
+package com.demo.carparkinglot.configuration;
+
+import com.demo.carparkinglot.configuration.params.SecurityConfigParams;
+import com.demo.carparkinglot.enums.ApiAuthModeEnum;
+import com.demo.carparkinglot.filters.ApiTokenWebFilter;
+import com.demo.carparkinglot.services.ApiTokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
+import org.springframework.security.web.server.util.matcher.PathPatternParserServerWebExchangeMatcher;
+
+// Reactive counterpart of SpringSecurityConfig, same user and rules
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveSecurityConfig {
+    private final SecurityConfigParams securityConfigParams;
+
+    @Bean
+    @Order(1)
+    @ConditionalOnProperty(prefix = "security", name = "api-auth", havingValue = "token")
+    public SecurityWebFilterChain apiTokenWebFilterChain(ServerHttpSecurity http, ApiTokenService apiTokenService) {
+        return http.securityMatcher(new PathPatternParserServerWebExchangeMatcher(SpringSecurityConfig.API_PATH_PATTERN))
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .requestCache(cache -> cache.requestCache(NoOpServerRequestCache.getInstance()))
+                .authorizeExchange(exchange -> exchange.anyExchange().authenticated())
+                .addFilterAt(new ApiTokenWebFilter(apiTokenService), SecurityWebFiltersOrder.AUTHENTICATION)
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .build();
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .authorizeExchange(exchange -> exchange.anyExchange().authenticated())
+                .formLogin(Customizer.withDefaults());
+        if (securityConfigParams.getApiAuth() == ApiAuthModeEnum.TOKEN) {
+            http.httpBasic(Customizer.withDefaults());
+        }
+        return http.build();
+    }
+
+    @Bean
+    public MapReactiveUserDetailsService reactiveUserDetailsService() {
+        return new MapReactiveUserDetailsService(SpringSecurityConfig.configuredUser(securityConfigParams));
+    }
+}
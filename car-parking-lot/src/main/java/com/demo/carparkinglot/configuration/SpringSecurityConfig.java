@@ -1,39 +1,85 @@
 package com.demo.carparkinglot.configuration;
 
 import com.demo.carparkinglot.configuration.params.SecurityConfigParams;
+import com.demo.carparkinglot.enums.ApiAuthModeEnum;
 import com.demo.carparkinglot.enums.UserRoleEnum;
+import com.demo.carparkinglot.filters.ApiTokenFilter;
+import com.demo.carparkinglot.services.ApiTokenService;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.NullSecurityContextRepository;
 
 @Configuration
+@EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class SpringSecurityConfig {
+    // Paths of the stateless token chain, on either web stack
+    static final String API_PATH_PATTERN = "/api/**";
+
     private final SecurityConfigParams securityConfigParams;
 
+    // api-auth: token, /api/** is authenticated by bearer token alone. No session is created or looked up and no
+    // password is checked, 401 instead of a redirect to the login page
+    @Bean
+    @Order(1)
+    @ConditionalOnProperty(prefix = "security", name = "api-auth", havingValue = "token")
+    public SecurityFilterChain apiTokenFilterChain(HttpSecurity http, ApiTokenService apiTokenService) throws Exception {
+        http.securityMatcher(API_PATH_PATTERN)
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .securityContext(context -> context.securityContextRepository(new NullSecurityContextRepository()))
+                .requestCache(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(req -> req.anyRequest().authenticated())
+                .addFilterBefore(new ApiTokenFilter(apiTokenService), UsernamePasswordAuthenticationFilter.class)
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        // Error dispatches forwarded from the stateless /api/** chain carry no session, the request that failed was
+        // already authorized there
         http.csrf(AbstractHttpConfigurer::disable)
-                .authorizeHttpRequests(req -> req.anyRequest().authenticated())
+                .authorizeHttpRequests(req -> req.dispatcherTypeMatchers(DispatcherType.ERROR).permitAll()
+                        .anyRequest().authenticated())
                 .formLogin(Customizer.withDefaults());
+        // Machine clients get their token from POST /auth/token with basic auth, the only password check they need
+        if (securityConfigParams.getApiAuth() == ApiAuthModeEnum.TOKEN) {
+            http.httpBasic(Customizer.withDefaults());
+        }
         return http.build();
     }
 
     @Bean
     public UserDetailsService userDetailsService() {
-        UserDetails user = User.withDefaultPasswordEncoder()
+        return new InMemoryUserDetailsManager(configuredUser(securityConfigParams));
+    }
+
+    // The one user of either web stack
+    static UserDetails configuredUser(SecurityConfigParams securityConfigParams) {
+        return User.withDefaultPasswordEncoder()
                 .username(securityConfigParams.getUsername())
                 .password(securityConfigParams.getPassword())
                 .roles(UserRoleEnum.USER.name())
                 .build();
-        return new InMemoryUserDetailsManager(user);
     }
 }
@@ -0,0 +1,24 @@
+package com.demo.carparkinglot.configuration.params;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "cluster")
+public class ClusterConfigParams {
+    private boolean enabled;
+    // Base URL the other nodes reach this node at, one of nodes
+    private String selfUrl;
+    // Base URLs of every node, this one included
+    private List<String> nodes = List.of();
+    // Points of each node on the hash ring
+    private int virtualNodes;
+    // Connecting to the owner and waiting for its response headers
+    private long forwardTimeoutMillis;
+}
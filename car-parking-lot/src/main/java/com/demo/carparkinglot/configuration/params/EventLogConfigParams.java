@@ -0,0 +1,21 @@
+package com.demo.carparkinglot.configuration.params;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "event-log")
+public class EventLogConfigParams {
+    private boolean enabled;
+    private String file = "data/parking-events.log";
+    // Events the writer may fall behind by before new ones are dropped, a power of two
+    private int ringCapacity = 65536;
+    // How long the writer sleeps once the ring is drained
+    private long drainIntervalMicros = 1000;
+    private long maxFileBytes = 64L * 1024 * 1024;
+    private int maxRolledFiles = 5;
+}
@@ -0,0 +1,18 @@
+package com.demo.carparkinglot.configuration.params;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "journal")
+public class JournalConfigParams {
+    private boolean enabled;
+    private String file = "data/parking-lot.journal";
+    // How long the first record of a batch waits for more records before the batch is committed
+    private long commitIntervalMicros = 1000;
+    private int maxBatchSize = 256;
+}
@@ -10,5 +10,12 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 @ConfigurationProperties(prefix = "rate-limit-config")
 public class RateLimitConfigParams {
+    // Per remote address
     private int maxRequestPerMinute;
+    // Per /24 IPv4 or /64 IPv6 subnet
+    private int maxSubnetRequestPerMinute;
+    // Whole service
+    private int maxGlobalRequestPerSecond;
+    // Size of the subnet bucket table, a power of two
+    private int subnetBuckets;
 }
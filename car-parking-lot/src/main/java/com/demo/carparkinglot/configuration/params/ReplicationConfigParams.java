@@ -0,0 +1,28 @@
+package com.demo.carparkinglot.configuration.params;
+
+import com.demo.carparkinglot.enums.ReplicationRoleEnum;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "replication")
+public class ReplicationConfigParams {
+    private ReplicationRoleEnum role = ReplicationRoleEnum.NONE;
+    // Base URL of the primary, followers only
+    private String primaryUrl;
+    // Hosts of the followers, the primary lets their journal reads past its rate limit
+    private List<String> followerHosts = List.of();
+    // How long a caught up follower waits before asking the primary again
+    private long pollIntervalMillis = 100;
+    // Most journal bytes one fetch carries
+    private int maxFetchBytes = 1_048_576;
+    private long fetchTimeoutMillis = 5000;
+    // Followers refuse reads when they last caught up with the primary longer ago than this
+    private long maxStalenessMillis = 5000;
+}
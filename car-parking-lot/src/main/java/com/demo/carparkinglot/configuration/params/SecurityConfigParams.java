@@ -1,5 +1,6 @@
 package com.demo.carparkinglot.configuration.params;
 
+import com.demo.carparkinglot.enums.ApiAuthModeEnum;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -12,4 +13,8 @@ import org.springframework.context.annotation.Configuration;
 public class SecurityConfigParams {
     private String username;
     private String password;
+    private ApiAuthModeEnum apiAuth = ApiAuthModeEnum.SESSION;
+    // Base64, at least 32 bytes once decoded, tokens signed with it stay valid until it changes
+    private String tokenSecret;
+    private long tokenTtlSeconds;
 }
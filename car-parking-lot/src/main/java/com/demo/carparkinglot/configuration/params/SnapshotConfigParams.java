@@ -0,0 +1,16 @@
+package com.demo.carparkinglot.configuration.params;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "snapshot")
+public class SnapshotConfigParams {
+    private boolean enabled;
+    private String file = "data/parking-lot.snapshot";
+    private long intervalMillis = 60000;
+}
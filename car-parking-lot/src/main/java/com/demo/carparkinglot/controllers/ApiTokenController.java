@@ -0,0 +1,24 @@
+package com.demo.carparkinglot.controllers;
+
+import com.demo.carparkinglot.exchanges.response.ApiTokenResponseDto;
+import com.demo.carparkinglot.services.ApiTokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Outside /api/**, so callers authenticate with their password (basic auth or the login session) to get a token
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "security", name = "api-auth", havingValue = "token")
+@RequiredArgsConstructor
+public class ApiTokenController {
+    private final ApiTokenService apiTokenService;
+
+    @PostMapping("/auth/token")
+    public ApiTokenResponseDto issueToken(Authentication authentication) {
+        return apiTokenService.issueToken(authentication.getName());
+    }
+}
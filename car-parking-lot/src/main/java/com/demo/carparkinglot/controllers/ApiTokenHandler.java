@@ -0,0 +1,26 @@
+package com.demo.carparkinglot.controllers;
+
+import com.demo.carparkinglot.services.ApiTokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+
+// Reactive counterpart of ApiTokenController
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(prefix = "security", name = "api-auth", havingValue = "token")
+@RequiredArgsConstructor
+public class ApiTokenHandler {
+    private final ApiTokenService apiTokenService;
+
+    public Mono<ServerResponse> issueToken(ServerRequest request) {
+        return request.principal().map(Principal::getName).map(apiTokenService::issueToken)
+                .flatMap(responseDto -> ServerResponse.ok().bodyValue(responseDto));
+    }
+}
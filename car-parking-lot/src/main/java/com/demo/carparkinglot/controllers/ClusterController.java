@@ -0,0 +1,52 @@
+package com.demo.carparkinglot.controllers;
+
+import com.demo.carparkinglot.exchanges.response.ClusterResponseDto;
+import com.demo.carparkinglot.services.ClusterService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+// Members of the cluster, a node added or removed on one node is passed on to the others
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "cluster", name = "enabled", havingValue = "true")
+@RequestMapping("/api/v1/cluster")
+@RequiredArgsConstructor
+public class ClusterController {
+    private final ClusterService clusterService;
+
+    @GetMapping
+    public ResponseEntity<ClusterResponseDto> getCluster() {
+        return new ResponseEntity<>(clusterService.getCluster(), HttpStatus.OK);
+    }
+
+    @PostMapping("/nodes")
+    public ResponseEntity<ClusterResponseDto> addNode(@RequestParam String url, HttpServletRequest request) {
+        ClusterResponseDto responseDto = new ClusterResponseDto();
+        HttpStatus httpStatus = clusterService.addNode(url, isFromPeer(request),
+                request.getHeader(HttpHeaders.AUTHORIZATION), responseDto);
+        return new ResponseEntity<>(responseDto, httpStatus);
+    }
+
+    @DeleteMapping("/nodes")
+    public ResponseEntity<ClusterResponseDto> removeNode(@RequestParam String url, HttpServletRequest request) {
+        ClusterResponseDto responseDto = new ClusterResponseDto();
+        HttpStatus httpStatus = clusterService.removeNode(url, isFromPeer(request),
+                request.getHeader(HttpHeaders.AUTHORIZATION), responseDto);
+        return new ResponseEntity<>(responseDto, httpStatus);
+    }
+
+    private boolean isFromPeer(HttpServletRequest request) {
+        return clusterService.isForwardedByPeer(request.getRemoteAddr(), request.getHeader(ClusterService.FORWARDED_HEADER));
+    }
+}
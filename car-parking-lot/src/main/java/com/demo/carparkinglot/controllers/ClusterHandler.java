@@ -0,0 +1,63 @@
+package com.demo.carparkinglot.controllers;
+
+import com.demo.carparkinglot.exchanges.response.ClusterResponseDto;
+import com.demo.carparkinglot.services.ClusterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+
+// Reactive counterpart of ClusterController
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(prefix = "cluster", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ClusterHandler {
+    private final ClusterService clusterService;
+
+    public Mono<ServerResponse> getCluster(ServerRequest request) {
+        return ServerResponse.ok().bodyValue(clusterService.getCluster());
+    }
+
+    public Mono<ServerResponse> addNode(ServerRequest request) {
+        return changeMembership(request, true);
+    }
+
+    public Mono<ServerResponse> removeNode(ServerRequest request) {
+        return changeMembership(request, false);
+    }
+
+    // Passing the change on waits for the other nodes, so it runs off the event loop
+    private Mono<ServerResponse> changeMembership(ServerRequest request, boolean add) {
+        String url = request.queryParam("url").orElse(null);
+        if (Objects.isNull(url)) {
+            return ServerResponse.badRequest().build();
+        }
+        boolean fromPeer = isFromPeer(request);
+        String authorization = request.headers().firstHeader(HttpHeaders.AUTHORIZATION);
+        return Mono.fromCallable(() -> {
+                    ClusterResponseDto responseDto = new ClusterResponseDto();
+                    HttpStatus httpStatus = add
+                            ? clusterService.addNode(url, fromPeer, authorization, responseDto)
+                            : clusterService.removeNode(url, fromPeer, authorization, responseDto);
+                    return ServerResponse.status(httpStatus).bodyValue(responseDto);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(response -> response);
+    }
+
+    private boolean isFromPeer(ServerRequest request) {
+        InetSocketAddress remoteAddress = request.remoteAddress().orElse(null);
+        String remoteAddr = Objects.isNull(remoteAddress) ? "" : remoteAddress.getAddress().getHostAddress();
+        return clusterService.isForwardedByPeer(remoteAddr, request.headers().firstHeader(ClusterService.FORWARDED_HEADER));
+    }
+}
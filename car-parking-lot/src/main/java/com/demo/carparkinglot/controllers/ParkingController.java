@@ -2,70 +2,94 @@ package com.demo.carparkinglot.controllers;
 
 import com.demo.carparkinglot.enums.SlotAssignmentMessageEnum;
 import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.exceptions.ParkingLotNotFoundException;
 import com.demo.carparkinglot.exchanges.response.SlotInfoResponseDto;
+import com.demo.carparkinglot.exchanges.response.SlotOccupancyResponseDto;
 import com.demo.carparkinglot.exchanges.response.VehicleParkingResponseDto;
 import com.demo.carparkinglot.exchanges.response.VehicleUnParkingResponseDto;
 import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.events.SlotStatusSubscription;
+import com.demo.carparkinglot.models.slots.OccupancySnapshot;
+import com.demo.carparkinglot.models.vehicles.LicensePlates;
+import com.demo.carparkinglot.repositories.ParkingLotRepository;
+import com.demo.carparkinglot.services.AvailabilityStreamService;
 import com.demo.carparkinglot.services.ParkingLotService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.Duration;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Slf4j
 @RestController
-@RequestMapping("/api/v1/parking-lot")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+// The original single lot routes keep serving the configured lot
+@RequestMapping({"/api/v1/parking-lot", "/api/v1/parking-lots/{lotId}"})
 @RequiredArgsConstructor
 public class ParkingController {
+    static final String SLOT_STATUS_EVENT = "slot-status";
+    static final String LICENSE_PLATE_REQUIRED = "License plate is required";
+
     private final ParkingLotService parkingLotService;
+    private final AvailabilityStreamService availabilityStreamService;
 
+    // gate names the entrance or exit the slot should be nearest to, lots without a layout take none
     @PostMapping("/park")
-    public ResponseEntity<VehicleParkingResponseDto> parkVehicle(@RequestBody String licensePlateNo) {
-        log.info("Received request to park vehicle having license plate: {}", licensePlateNo);
+    public ResponseEntity<VehicleParkingResponseDto> parkVehicle(@PathVariable(required = false) String lotId, @RequestBody String licensePlate,
+                                                                 @RequestParam(required = false) String gate) {
+        lotId = lotIdOrDefault(lotId);
+        String licensePlateNo = LicensePlates.normalize(licensePlate);
         VehicleParkingResponseDto responseDto = new VehicleParkingResponseDto();
         // Check if vehicle is already parked
         HttpStatus httpStatus;
-        if (parkingLotService.isVehicleAlreadyParked(licensePlateNo)) {
+        if (LicensePlates.isBlank(licensePlateNo)) {
+            httpStatus = HttpStatus.BAD_REQUEST;
+            responseDto.setMessage(LICENSE_PLATE_REQUIRED);
+        } else if (parkingLotService.isVehicleAlreadyParked(lotId, licensePlateNo)) {
             httpStatus = HttpStatus.BAD_REQUEST;
             responseDto.setMessage("Vehicle already parked having license plate: " + licensePlateNo);
         } else {
-            httpStatus = parkingLotService.parkVehicle(licensePlateNo, responseDto);
+            httpStatus = parkingLotService.parkVehicle(lotId, licensePlateNo, gate, responseDto);
         }
         responseDto.setVehicleParked(HttpStatus.OK.equals(httpStatus));
         return new ResponseEntity<>(responseDto, httpStatus);
     }
 
     @PostMapping("/unpark")
-    public ResponseEntity<VehicleUnParkingResponseDto> unparkVehicle(@RequestBody String licensePlateNo) {
-        log.info("Received request to unpark vehicle for licensePlate: {}", licensePlateNo);
+    public ResponseEntity<VehicleUnParkingResponseDto> unparkVehicle(@PathVariable(required = false) String lotId, @RequestBody String licensePlate) {
+        lotId = lotIdOrDefault(lotId);
+        String licensePlateNo = LicensePlates.normalize(licensePlate);
         VehicleUnParkingResponseDto responseDto = new VehicleUnParkingResponseDto();
+        if (LicensePlates.isBlank(licensePlateNo)) {
+            responseDto.setMessage(LICENSE_PLATE_REQUIRED);
+            return new ResponseEntity<>(responseDto, HttpStatus.BAD_REQUEST);
+        }
         HttpStatus httpStatus = HttpStatus.OK;
+        // Outside the try, an unknown lot is a 404 and not a server error
+        Optional<ParkingSlot> parkingSlotOpt = parkingLotService.findVehicleParkingSlotByLicenseNo(lotId, licensePlateNo);
         try {
-            Optional<ParkingSlot> parkingSlotOpt = parkingLotService.findVehicleParkingSlotByLicenseNo(licensePlateNo);
             if (parkingSlotOpt.isPresent()) {
                 ParkingSlot parkingSlot = parkingSlotOpt.get();
                 LocalDateTime parkedOn = parkingSlot.getParkedOn();
                 // Unpark vehicle
-                parkingLotService.unparkVehicle(parkingSlot, licensePlateNo);
-                // Update response
-                responseDto.setSlotId(parkingSlot.getId());
-                responseDto.setParkingTime(parkedOn);
-                responseDto.setUnParkingTime(LocalDateTime.now());
-                responseDto.setLicensePlate(licensePlateNo);
-                responseDto.setTotalDurationParked(Duration.between(
-                        responseDto.getParkingTime(), responseDto.getUnParkingTime()));
-                responseDto.setMessage("Vehicle unparked!");
-                log.info("Vehicle unparked from slot: {}", parkingSlot.getId());
+                parkingLotService.unparkVehicle(lotId, parkingSlot, licensePlateNo);
+                ParkingLotService.fillUnparkedResponseDto(parkingSlot, parkedOn, licensePlateNo, responseDto);
             } else {
                 responseDto.setMessage("No parked vehicle found having license plate: " + licensePlateNo);
                 httpStatus = HttpStatus.BAD_REQUEST;
@@ -78,36 +102,111 @@ public class ParkingController {
         return new ResponseEntity<>(responseDto, httpStatus);
     }
 
+    // Per-vehicle results in request order, a vehicle that could not be parked does not fail the batch
+    @PostMapping("/park/batch")
+    public ResponseEntity<List<VehicleParkingResponseDto>> parkVehicles(@PathVariable(required = false) String lotId,
+                                                                        @RequestBody List<String> licensePlateNos,
+                                                                        @RequestParam(required = false) String gate) {
+        if (licensePlateNos.size() > parkingLotService.getMaxBatchSize()) {
+            log.info("Rejected batch of {} vehicles, max batch size: {}", licensePlateNos.size(), parkingLotService.getMaxBatchSize());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (LicensePlates.anyBlank(licensePlateNos)) {
+            log.info("Rejected batch of {} vehicles having a null or blank license plate", licensePlateNos.size());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(parkingLotService.parkVehicles(
+                lotIdOrDefault(lotId), LicensePlates.normalize(licensePlateNos), gate), HttpStatus.OK);
+    }
+
+    @PostMapping("/unpark/batch")
+    public ResponseEntity<List<VehicleUnParkingResponseDto>> unparkVehicles(@PathVariable(required = false) String lotId,
+                                                                            @RequestBody List<String> licensePlateNos) {
+        if (licensePlateNos.size() > parkingLotService.getMaxBatchSize()) {
+            log.info("Rejected batch of {} vehicles, max batch size: {}", licensePlateNos.size(), parkingLotService.getMaxBatchSize());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (LicensePlates.anyBlank(licensePlateNos)) {
+            log.info("Rejected batch of {} vehicles having a null or blank license plate", licensePlateNos.size());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(parkingLotService.unparkVehicles(
+                    lotIdOrDefault(lotId), LicensePlates.normalize(licensePlateNos)), HttpStatus.OK);
+        } catch (ParkingLotNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Exception occurred while unParking batch of vehicles, ex: {}", e.toString());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Pushes a slot-status event per slot transition instead of clients polling, see SlotStatusSubscription
+    @GetMapping(value = "/slot/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSlotStatus(@PathVariable(required = false) String lotId) {
+        String streamedLotId = lotIdOrDefault(lotId);
+        SseEmitter emitter = new SseEmitter(availabilityStreamService.getStreamTimeoutMillis());
+        SlotStatusSubscription subscription = availabilityStreamService.subscribe(streamedLotId, delta -> {
+            try {
+                emitter.send(SseEmitter.event().name(SLOT_STATUS_EVENT).data(delta, MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        emitter.onCompletion(() -> availabilityStreamService.unsubscribe(subscription));
+        emitter.onTimeout(() -> availabilityStreamService.unsubscribe(subscription));
+        emitter.onError(e -> availabilityStreamService.unsubscribe(subscription));
+        try {
+            emitter.send(SseEmitter.event().name(SLOT_STATUS_EVENT)
+                    .data(availabilityStreamService.currentAvailability(streamedLotId), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            availabilityStreamService.unsubscribe(subscription);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    // Read endpoints answer from one occupancy snapshot and tag the response with its version, Spring answers a
+    // matching If-None-Match with 304 itself
     @GetMapping("/slot/{slotId}")
-    public ResponseEntity<SlotInfoResponseDto> getSlotStatus(@PathVariable Long slotId) {
+    public ResponseEntity<SlotInfoResponseDto> getSlotStatus(@PathVariable(required = false) String lotId, @PathVariable Long slotId) {
         SlotInfoResponseDto responseDto = new SlotInfoResponseDto();
-        Optional<ParkingSlot> parkingSlotOpt = parkingLotService.findSlotById(slotId);
-        HttpStatus httpStatus = HttpStatus.OK;
-        if (parkingSlotOpt.isPresent()) {
-            ParkingSlot parkingSlot = parkingSlotOpt.get();
-            log.info("SlotStatus: {}", parkingSlot);
-            responseDto.setSlotId(parkingSlot.getId());
-            if (SlotStatusEnum.OCCUPIED.equals(parkingSlot.getSlotStatusEnum())) {
-                responseDto.setParkedOn(parkingSlot.getParkedOn());
-                responseDto.setLicensePlate(parkingSlot.getVehicle().getLicensePlateNo());
-                responseDto.setTotalDurationParked(Duration.between(parkingSlot.getParkedOn(), LocalDateTime.now()));
-            }
-            responseDto.setSlotStatus(parkingSlot.getSlotStatusEnum());
-            responseDto.setMessage("Slot found having slotId: " + slotId);
-        } else {
-            responseDto.setMessage("Slot not found having slotId: " + slotId);
-            httpStatus = HttpStatus.BAD_REQUEST;
+        OccupancySnapshot occupancySnapshot = parkingLotService.getOccupancySnapshot(lotIdOrDefault(lotId));
+        HttpStatus httpStatus = ParkingLotService.fillSlotInfoResponseDto(occupancySnapshot, slotId, responseDto);
+        if (HttpStatus.OK.equals(httpStatus)) {
+            return ResponseEntity.ok().eTag(occupancySnapshot.getVersionTag()).body(responseDto);
         }
         return new ResponseEntity<>(responseDto, httpStatus);
     }
 
+    // exact=true recounts slot statuses instead of reading the occupancy snapshot, use it sparingly on large lots
     @GetMapping("/slot/total-available")
-    public ResponseEntity<Long> getTotalAvailableSlotsInParkingLot() {
-        return new ResponseEntity<>(parkingLotService.getTotalAvailableSlotsInParkingLot(), HttpStatus.OK);
+    public ResponseEntity<Long> getTotalAvailableSlotsInParkingLot(
+            @PathVariable(required = false) String lotId, @RequestParam(defaultValue = "false") boolean exact) {
+        if (exact) {
+            return new ResponseEntity<>(parkingLotService.getTotalAvailableSlotsInParkingLot(lotIdOrDefault(lotId), true), HttpStatus.OK);
+        }
+        OccupancySnapshot occupancySnapshot = parkingLotService.getOccupancySnapshot(lotIdOrDefault(lotId));
+        return ResponseEntity.ok().eTag(occupancySnapshot.getVersionTag())
+                .body(occupancySnapshot.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+    }
+
+    @GetMapping("/slot/occupancy")
+    public ResponseEntity<SlotOccupancyResponseDto> getSlotOccupancy(
+            @PathVariable(required = false) String lotId, @RequestParam(defaultValue = "false") boolean exact) {
+        SlotOccupancyResponseDto responseDto = parkingLotService.getSlotOccupancy(lotIdOrDefault(lotId), exact);
+        if (Objects.isNull(responseDto.getVersion())) {
+            return new ResponseEntity<>(responseDto, HttpStatus.OK);
+        }
+        return ResponseEntity.ok().eTag(responseDto.getVersion()).body(responseDto);
     }
 
     @GetMapping("/slot/total-capacity")
-    public ResponseEntity<Long> getTotalSlotsInParkingLot() {
-        return new ResponseEntity<>(parkingLotService.getTotalSlotsInParkingLot(), HttpStatus.OK);
+    public ResponseEntity<Long> getTotalSlotsInParkingLot(@PathVariable(required = false) String lotId) {
+        return new ResponseEntity<>(parkingLotService.getTotalSlotsInParkingLot(lotIdOrDefault(lotId)), HttpStatus.OK);
+    }
+
+    private static String lotIdOrDefault(String lotId) {
+        return Objects.isNull(lotId) ? ParkingLotRepository.DEFAULT_LOT_ID : lotId;
     }
 }
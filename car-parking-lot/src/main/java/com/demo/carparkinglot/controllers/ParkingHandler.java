@@ -0,0 +1,211 @@
+package com.demo.carparkinglot.controllers;
+
+import com.demo.carparkinglot.enums.SlotAssignmentMessageEnum;
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.exceptions.ParkingLotNotFoundException;
+import com.demo.carparkinglot.exchanges.response.SlotInfoResponseDto;
+import com.demo.carparkinglot.exchanges.response.SlotOccupancyResponseDto;
+import com.demo.carparkinglot.exchanges.response.SlotStatusDeltaDto;
+import com.demo.carparkinglot.exchanges.response.VehicleParkingResponseDto;
+import com.demo.carparkinglot.exchanges.response.VehicleUnParkingResponseDto;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.events.SlotStatusSubscription;
+import com.demo.carparkinglot.models.slots.OccupancySnapshot;
+import com.demo.carparkinglot.models.vehicles.LicensePlates;
+import com.demo.carparkinglot.repositories.ParkingLotRepository;
+import com.demo.carparkinglot.services.AvailabilityStreamService;
+import com.demo.carparkinglot.services.ParkingLotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reactive counterpart of {@link ParkingController}, same operations and responses. Slot allocation is lock-free
+ * and in memory, the only wait is the journal commit, which these handlers take as a future instead of blocking
+ * on it, so event loop threads are never blocked.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ParkingHandler {
+    private static final ParameterizedTypeReference<List<String>> LICENSE_PLATES = new ParameterizedTypeReference<>() {
+    };
+
+    private final ParkingLotService parkingLotService;
+    private final AvailabilityStreamService availabilityStreamService;
+
+    public Mono<ServerResponse> parkVehicle(ServerRequest request) {
+        String lotId = lotIdOf(request);
+        String gate = request.queryParam("gate").orElse(null);
+        return request.bodyToMono(String.class).map(LicensePlates::normalize).flatMap(licensePlateNo -> {
+            VehicleParkingResponseDto responseDto = new VehicleParkingResponseDto();
+            if (LicensePlates.isBlank(licensePlateNo)) {
+                responseDto.setMessage(ParkingController.LICENSE_PLATE_REQUIRED);
+                return respond(HttpStatus.BAD_REQUEST, responseDto);
+            }
+            if (parkingLotService.isVehicleAlreadyParked(lotId, licensePlateNo)) {
+                responseDto.setMessage("Vehicle already parked having license plate: " + licensePlateNo);
+                return respond(HttpStatus.BAD_REQUEST, responseDto);
+            }
+            return fromJournalCommit(parkingLotService.parkVehicleAsync(lotId, licensePlateNo, gate, responseDto))
+                    .flatMap(httpStatus -> {
+                        responseDto.setVehicleParked(HttpStatus.OK.equals(httpStatus));
+                        return respond(httpStatus, responseDto);
+                    });
+        });
+    }
+
+    public Mono<ServerResponse> unparkVehicle(ServerRequest request) {
+        String lotId = lotIdOf(request);
+        return request.bodyToMono(String.class).map(LicensePlates::normalize).flatMap(licensePlateNo -> {
+            VehicleUnParkingResponseDto responseDto = new VehicleUnParkingResponseDto();
+            if (LicensePlates.isBlank(licensePlateNo)) {
+                responseDto.setMessage(ParkingController.LICENSE_PLATE_REQUIRED);
+                return respond(HttpStatus.BAD_REQUEST, responseDto);
+            }
+            Optional<ParkingSlot> parkingSlotOpt = parkingLotService.findVehicleParkingSlotByLicenseNo(lotId, licensePlateNo);
+            if (parkingSlotOpt.isEmpty()) {
+                responseDto.setMessage("No parked vehicle found having license plate: " + licensePlateNo);
+                return respond(HttpStatus.BAD_REQUEST, responseDto);
+            }
+            ParkingSlot parkingSlot = parkingSlotOpt.get();
+            LocalDateTime parkedOn = parkingSlot.getParkedOn();
+            return Mono.defer(() -> fromJournalCommit(parkingLotService.unparkVehicleAsync(lotId, parkingSlot, licensePlateNo)))
+                    .then(Mono.fromSupplier(() -> {
+                        ParkingLotService.fillUnparkedResponseDto(parkingSlot, parkedOn, licensePlateNo, responseDto);
+                        return HttpStatus.OK;
+                    }))
+                    .onErrorResume(e -> {
+                        log.error("Exception occurred while unParking vehicle, ex: {}", e.toString());
+                        responseDto.setMessage(SlotAssignmentMessageEnum.INTERNAL_SERVER_ERROR.getMessage());
+                        return Mono.just(HttpStatus.INTERNAL_SERVER_ERROR);
+                    })
+                    .flatMap(httpStatus -> respond(httpStatus, responseDto));
+        });
+    }
+
+    public Mono<ServerResponse> parkVehicles(ServerRequest request) {
+        String lotId = lotIdOf(request);
+        String gate = request.queryParam("gate").orElse(null);
+        return request.bodyToMono(LICENSE_PLATES).map(LicensePlates::normalize).flatMap(licensePlateNos -> {
+            if (licensePlateNos.size() > parkingLotService.getMaxBatchSize() || LicensePlates.anyBlank(licensePlateNos)) {
+                return ServerResponse.badRequest().build();
+            }
+            return fromJournalCommit(parkingLotService.parkVehiclesAsync(lotId, licensePlateNos, gate))
+                    .flatMap(responseDtos -> respond(HttpStatus.OK, responseDtos));
+        });
+    }
+
+    public Mono<ServerResponse> unparkVehicles(ServerRequest request) {
+        String lotId = lotIdOf(request);
+        return request.bodyToMono(LICENSE_PLATES).map(LicensePlates::normalize).flatMap(licensePlateNos -> {
+            if (licensePlateNos.size() > parkingLotService.getMaxBatchSize() || LicensePlates.anyBlank(licensePlateNos)) {
+                return ServerResponse.badRequest().build();
+            }
+            return Mono.defer(() -> fromJournalCommit(parkingLotService.unparkVehiclesAsync(lotId, licensePlateNos)))
+                    .flatMap(responseDtos -> respond(HttpStatus.OK, responseDtos))
+                    .onErrorResume(e -> !(e instanceof ParkingLotNotFoundException), e -> {
+                        log.error("Exception occurred while unParking batch of vehicles, ex: {}", e.toString());
+                        return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                    });
+        });
+    }
+
+    // Deltas wait in the subscription until the client has demand, so a slow client gets the latest state only
+    public Mono<ServerResponse> streamSlotStatus(ServerRequest request) {
+        String lotId = lotIdOf(request);
+        // Fails an unknown lot before the stream response is committed
+        SlotStatusDeltaDto currentAvailability = availabilityStreamService.currentAvailability(lotId);
+        Flux<ServerSentEvent<SlotStatusDeltaDto>> events = Flux.create(sink -> {
+            sink.next(toEvent(currentAvailability));
+            SlotStatusSubscription subscription = availabilityStreamService.subscribe(lotId,
+                    task -> Schedulers.parallel().schedule(task), () -> sink.requestedFromDownstream() > 0,
+                    delta -> sink.next(toEvent(delta)));
+            sink.onRequest(requested -> subscription.signal());
+            sink.onDispose(() -> availabilityStreamService.unsubscribe(subscription));
+        });
+        return ServerResponse.ok().contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(events, new ParameterizedTypeReference<ServerSentEvent<SlotStatusDeltaDto>>() {
+                });
+    }
+
+    public Mono<ServerResponse> getSlotStatus(ServerRequest request) {
+        long slotId;
+        try {
+            slotId = Long.parseLong(request.pathVariable("slotId"));
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+        SlotInfoResponseDto responseDto = new SlotInfoResponseDto();
+        OccupancySnapshot occupancySnapshot = parkingLotService.getOccupancySnapshot(lotIdOf(request));
+        HttpStatus httpStatus = ParkingLotService.fillSlotInfoResponseDto(occupancySnapshot, slotId, responseDto);
+        if (!HttpStatus.OK.equals(httpStatus)) {
+            return respond(httpStatus, responseDto);
+        }
+        return respondVersioned(request, occupancySnapshot.getVersionTag(), responseDto);
+    }
+
+    public Mono<ServerResponse> getTotalAvailableSlotsInParkingLot(ServerRequest request) {
+        if (isExact(request)) {
+            return respond(HttpStatus.OK, parkingLotService.getTotalAvailableSlotsInParkingLot(lotIdOf(request), true));
+        }
+        OccupancySnapshot occupancySnapshot = parkingLotService.getOccupancySnapshot(lotIdOf(request));
+        return respondVersioned(request, occupancySnapshot.getVersionTag(),
+                occupancySnapshot.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+    }
+
+    public Mono<ServerResponse> getSlotOccupancy(ServerRequest request) {
+        SlotOccupancyResponseDto responseDto = parkingLotService.getSlotOccupancy(lotIdOf(request), isExact(request));
+        return Objects.isNull(responseDto.getVersion())
+                ? respond(HttpStatus.OK, responseDto) : respondVersioned(request, responseDto.getVersion(), responseDto);
+    }
+
+    public Mono<ServerResponse> getTotalSlotsInParkingLot(ServerRequest request) {
+        return respond(HttpStatus.OK, parkingLotService.getTotalSlotsInParkingLot(lotIdOf(request)));
+    }
+
+    private static ServerSentEvent<SlotStatusDeltaDto> toEvent(SlotStatusDeltaDto delta) {
+        return ServerSentEvent.builder(delta).event(ParkingController.SLOT_STATUS_EVENT).build();
+    }
+
+    // Journal futures complete on the journal writer thread, hop off it so responses are not written from there
+    private static <T> Mono<T> fromJournalCommit(CompletableFuture<T> commit) {
+        return Mono.fromFuture(commit).publishOn(Schedulers.parallel());
+    }
+
+    // The original single lot routes keep serving the configured lot
+    private static String lotIdOf(ServerRequest request) {
+        return request.pathVariables().getOrDefault("lotId", ParkingLotRepository.DEFAULT_LOT_ID);
+    }
+
+    private static boolean isExact(ServerRequest request) {
+        return request.queryParam("exact").map(Boolean::parseBoolean).orElse(false);
+    }
+
+    private static Mono<ServerResponse> respond(HttpStatus httpStatus, Object body) {
+        return ServerResponse.status(httpStatus).bodyValue(body);
+    }
+
+    // Tagged with the occupancy snapshot version. Spring MVC answers If-None-Match from the ETag, functional endpoints ask
+    private static Mono<ServerResponse> respondVersioned(ServerRequest request, String versionTag, Object body) {
+        return request.checkNotModified(versionTag)
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(versionTag).bodyValue(body)));
+    }
+}
@@ -0,0 +1,37 @@
+package com.demo.carparkinglot.controllers;
+
+import com.demo.carparkinglot.exchanges.request.ParkingLotRequestDto;
+import com.demo.carparkinglot.exchanges.response.ParkingLotResponseDto;
+import com.demo.carparkinglot.services.ParkingLotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// Registry of parking lots, each lot is then served under /api/v1/parking-lots/{lotId} by ParkingController
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/parking-lots")
+@RequiredArgsConstructor
+public class ParkingLotsController {
+    private final ParkingLotService parkingLotService;
+
+    @PostMapping
+    public ResponseEntity<ParkingLotResponseDto> createParkingLot(@RequestBody ParkingLotRequestDto requestDto) {
+        ParkingLotResponseDto responseDto = new ParkingLotResponseDto();
+        HttpStatus httpStatus = parkingLotService.createParkingLot(requestDto, responseDto);
+        return new ResponseEntity<>(responseDto, httpStatus);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ParkingLotResponseDto>> getParkingLots() {
+        return new ResponseEntity<>(parkingLotService.getParkingLots(), HttpStatus.OK);
+    }
+}
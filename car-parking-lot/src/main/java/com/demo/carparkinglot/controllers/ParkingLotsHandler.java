@@ -0,0 +1,32 @@
+package com.demo.carparkinglot.controllers;
+
+import com.demo.carparkinglot.exchanges.request.ParkingLotRequestDto;
+import com.demo.carparkinglot.exchanges.response.ParkingLotResponseDto;
+import com.demo.carparkinglot.services.ParkingLotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+// Reactive counterpart of ParkingLotsController
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ParkingLotsHandler {
+    private final ParkingLotService parkingLotService;
+
+    public Mono<ServerResponse> createParkingLot(ServerRequest request) {
+        return request.bodyToMono(ParkingLotRequestDto.class).flatMap(requestDto -> {
+            ParkingLotResponseDto responseDto = new ParkingLotResponseDto();
+            HttpStatus httpStatus = parkingLotService.createParkingLot(requestDto, responseDto);
+            return ServerResponse.status(httpStatus).bodyValue(responseDto);
+        });
+    }
+
+    public Mono<ServerResponse> getParkingLots(ServerRequest request) {
+        return ServerResponse.ok().bodyValue(parkingLotService.getParkingLots());
+    }
+}
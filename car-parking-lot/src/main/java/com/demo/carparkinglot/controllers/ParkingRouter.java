@@ -0,0 +1,69 @@
+package com.demo.carparkinglot.controllers;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.util.function.Consumer;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ParkingRouter {
+
+    // Same paths as ParkingController, the fixed slot paths come before /slot/{slotId} since the first match wins
+    @Bean
+    public RouterFunction<ServerResponse> parkingRoutes(ParkingHandler parkingHandler) {
+        Consumer<RouterFunctions.Builder> lotRoutes = builder -> builder
+                .POST("/park", parkingHandler::parkVehicle)
+                .POST("/unpark", parkingHandler::unparkVehicle)
+                .POST("/park/batch", parkingHandler::parkVehicles)
+                .POST("/unpark/batch", parkingHandler::unparkVehicles)
+                .GET("/slot/total-available", parkingHandler::getTotalAvailableSlotsInParkingLot)
+                .GET("/slot/occupancy", parkingHandler::getSlotOccupancy)
+                .GET("/slot/total-capacity", parkingHandler::getTotalSlotsInParkingLot)
+                .GET("/slot/stream", parkingHandler::streamSlotStatus)
+                .GET("/slot/{slotId}", parkingHandler::getSlotStatus);
+        return RouterFunctions.route()
+                .path("/api/v1/parking-lot", lotRoutes)
+                .path("/api/v1/parking-lots/{lotId}", lotRoutes)
+                .build();
+    }
+
+    // Same paths as ParkingLotsController
+    @Bean
+    public RouterFunction<ServerResponse> parkingLotsRoutes(ParkingLotsHandler parkingLotsHandler) {
+        return RouterFunctions.route()
+                .POST("/api/v1/parking-lots", parkingLotsHandler::createParkingLot)
+                .GET("/api/v1/parking-lots", parkingLotsHandler::getParkingLots)
+                .build();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> replicationRoutes(ReplicationHandler replicationHandler) {
+        return RouterFunctions.route()
+                .GET("/api/v1/replication", replicationHandler::getStatus)
+                .GET("/api/v1/replication/journal", replicationHandler::readJournal)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cluster", name = "enabled", havingValue = "true")
+    public RouterFunction<ServerResponse> clusterRoutes(ClusterHandler clusterHandler) {
+        return RouterFunctions.route()
+                .GET("/api/v1/cluster", clusterHandler::getCluster)
+                .POST("/api/v1/cluster/nodes", clusterHandler::addNode)
+                .DELETE("/api/v1/cluster/nodes", clusterHandler::removeNode)
+                .build();
+    }
+
+    // Same path as ApiTokenController
+    @Bean
+    @ConditionalOnProperty(prefix = "security", name = "api-auth", havingValue = "token")
+    public RouterFunction<ServerResponse> apiTokenRoutes(ApiTokenHandler apiTokenHandler) {
+        return RouterFunctions.route().POST("/auth/token", apiTokenHandler::issueToken).build();
+    }
+}
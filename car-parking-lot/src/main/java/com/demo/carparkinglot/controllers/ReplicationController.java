@@ -0,0 +1,38 @@
+package com.demo.carparkinglot.controllers;
+
+import com.demo.carparkinglot.exchanges.response.ReplicationStatusResponseDto;
+import com.demo.carparkinglot.services.ReplicationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+// Replication lag of a follower, and the journal a primary ships to its followers
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/replication")
+@RequiredArgsConstructor
+public class ReplicationController {
+    private final ReplicationService replicationService;
+
+    @GetMapping
+    public ResponseEntity<ReplicationStatusResponseDto> getStatus() {
+        return new ResponseEntity<>(replicationService.getStatus(), HttpStatus.OK);
+    }
+
+    // The committed position is read after the records, so the follower knows whether more is waiting
+    @GetMapping("/journal")
+    public ResponseEntity<byte[]> readJournal(@RequestParam long from, @RequestParam(required = false) Integer maxBytes) {
+        byte[] records = replicationService.readJournal(from, maxBytes);
+        long committedPosition = replicationService.getCommittedPosition();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(ReplicationService.COMMITTED_POSITION_HEADER, String.valueOf(committedPosition))
+                .body(records);
+    }
+}
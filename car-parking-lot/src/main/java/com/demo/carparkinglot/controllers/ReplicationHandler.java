@@ -0,0 +1,41 @@
+package com.demo.carparkinglot.controllers;
+
+import com.demo.carparkinglot.services.ReplicationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Reactive counterpart of ReplicationController
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReplicationHandler {
+    private final ReplicationService replicationService;
+
+    public Mono<ServerResponse> getStatus(ServerRequest request) {
+        return ServerResponse.ok().bodyValue(replicationService.getStatus());
+    }
+
+    // Reads the journal file, so off the event loop
+    public Mono<ServerResponse> readJournal(ServerRequest request) {
+        long from;
+        Integer maxBytes;
+        try {
+            from = Long.parseLong(request.queryParam("from").orElseThrow());
+            maxBytes = request.queryParam("maxBytes").map(Integer::valueOf).orElse(null);
+        } catch (RuntimeException e) {
+            return ServerResponse.badRequest().build();
+        }
+        return Mono.fromCallable(() -> replicationService.readJournal(from, maxBytes))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(records -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header(ReplicationService.COMMITTED_POSITION_HEADER, String.valueOf(replicationService.getCommittedPosition()))
+                        .bodyValue(records));
+    }
+}
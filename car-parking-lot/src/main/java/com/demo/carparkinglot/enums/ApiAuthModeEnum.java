@@ -0,0 +1,6 @@
+package com.demo.carparkinglot.enums;
+
+public enum ApiAuthModeEnum {
+    SESSION, // Form login, each client holds a servlet or WebSession
+    TOKEN    // /api/** takes HMAC signed bearer tokens and keeps no session, tokens are issued by POST /auth/token
+}
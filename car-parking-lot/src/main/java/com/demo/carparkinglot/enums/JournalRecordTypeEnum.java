@@ -0,0 +1,7 @@
+package com.demo.carparkinglot.enums;
+
+public enum JournalRecordTypeEnum {
+    VEHICLE_PARKED,
+    VEHICLE_UNPARKED,
+    LOCK_RELEASED
+}
@@ -0,0 +1,13 @@
+package com.demo.carparkinglot.enums;
+
+public enum ParkingEventTypeEnum {
+    SLOT_LOCKED,
+    LOCK_RELEASED,
+    LOCK_EXPIRED,
+    VEHICLE_PARKED,
+    VEHICLE_UNPARKED,
+    RATE_LIMIT_PASSED,
+    RATE_LIMITED,
+    // Written by the event log itself, subject holds how many events were dropped since the last one
+    EVENTS_DROPPED
+}
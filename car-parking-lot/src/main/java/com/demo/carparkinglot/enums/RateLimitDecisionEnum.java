@@ -0,0 +1,8 @@
+package com.demo.carparkinglot.enums;
+
+public enum RateLimitDecisionEnum {
+    ADMITTED,
+    CLIENT_LIMITED, // The remote address used up its own limit
+    SUBNET_LIMITED, // The /24 or /64 the remote address belongs to used up its limit
+    GLOBAL_LIMITED  // Admitting it would exceed what the whole service may take
+}
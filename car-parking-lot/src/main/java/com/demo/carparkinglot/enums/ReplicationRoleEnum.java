@@ -0,0 +1,7 @@
+package com.demo.carparkinglot.enums;
+
+public enum ReplicationRoleEnum {
+    NONE,
+    PRIMARY,  // Serves its journal to followers at GET /api/v1/replication/journal
+    FOLLOWER  // Tails the journal of replication.primary-url into its own lot and serves reads of it
+}
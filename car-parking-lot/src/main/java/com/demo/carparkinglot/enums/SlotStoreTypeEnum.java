@@ -0,0 +1,7 @@
+package com.demo.carparkinglot.enums;
+
+public enum SlotStoreTypeEnum {
+    OBJECT,  // One ParkingSlot object per slot
+    COMPACT, // Slot state kept in primitive arrays, ParkingSlot objects are created on demand
+    MAPPED   // Slot state kept in a memory-mapped file that survives restarts
+}
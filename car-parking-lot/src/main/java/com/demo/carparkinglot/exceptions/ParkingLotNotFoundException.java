@@ -0,0 +1,12 @@
+package com.demo.carparkinglot.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// Answered as 404 by both the servlet and the reactive stack
+public class ParkingLotNotFoundException extends ResponseStatusException {
+
+    public ParkingLotNotFoundException(String lotId) {
+        super(HttpStatus.NOT_FOUND, "Parking lot not found having lotId: " + lotId);
+    }
+}
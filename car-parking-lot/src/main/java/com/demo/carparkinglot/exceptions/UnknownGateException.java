@@ -0,0 +1,12 @@
+package com.demo.carparkinglot.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// Answered as 400 by both the servlet and the reactive stack
+public class UnknownGateException extends ResponseStatusException {
+
+    public UnknownGateException(String lotId, String gate) {
+        super(HttpStatus.BAD_REQUEST, "Parking lot having lotId: " + lotId + " has no gate: " + gate);
+    }
+}
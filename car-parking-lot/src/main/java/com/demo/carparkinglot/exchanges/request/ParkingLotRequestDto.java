@@ -0,0 +1,21 @@
+package com.demo.carparkinglot.exchanges.request;
+
+import com.demo.carparkinglot.enums.SlotStoreTypeEnum;
+import com.demo.carparkinglot.models.layout.GridLayout;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class ParkingLotRequestDto {
+    private String lotId;
+    private String name;
+    private int slots;
+    private int shards = 1;
+    // object or compact, runtime lots live in memory
+    private SlotStoreTypeEnum slotStore = SlotStoreTypeEnum.OBJECT;
+    // Optional, with gates the lot hands out the free slot nearest to the gate a vehicle comes through
+    private GridLayout layout;
+}
@@ -0,0 +1,14 @@
+package com.demo.carparkinglot.exchanges.response;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString(exclude = "token")
+public class ApiTokenResponseDto {
+    private String token;
+    private String tokenType;
+    private long expiresAtEpochSeconds;
+}
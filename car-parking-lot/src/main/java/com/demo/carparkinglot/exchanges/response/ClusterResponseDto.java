@@ -0,0 +1,21 @@
+package com.demo.carparkinglot.exchanges.response;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+public class ClusterResponseDto {
+    private String selfUrl;
+    private List<String> nodes;
+    private int virtualNodes;
+    // Lots held by this node that the ring now assigns to other nodes
+    private List<String> lotsOwnedElsewhere;
+    // Nodes a membership change could not be passed on to, unreachable or refusing it
+    private List<String> nodesNotUpdated;
+    private String message;
+}
@@ -0,0 +1,19 @@
+package com.demo.carparkinglot.exchanges.response;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class ParkingLotResponseDto {
+    private String lotId;
+    private String name;
+    private long totalSlots;
+    private long availableSlots;
+    private int shards;
+    // Journaled and snapshotted, only the configured lot is
+    private boolean durable;
+    private String message;
+}
@@ -0,0 +1,25 @@
+package com.demo.carparkinglot.exchanges.response;
+
+import com.demo.carparkinglot.enums.ReplicationRoleEnum;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class ReplicationStatusResponseDto {
+    private ReplicationRoleEnum role;
+    private String primaryUrl;
+    // Journal position committed on the primary, as of the last fetch on followers
+    private Long primaryCommittedPosition;
+    // Followers only, from here on down
+    private Long appliedPosition;
+    private Long appliedRecords;
+    private Long lagBytes;
+    // Since the follower last caught up with the primary, every write committed before then is reflected in its
+    // reads. Null until it first caught up
+    private Long stalenessMillis;
+    private Boolean servingReads;
+    private String lastError;
+}
@@ -0,0 +1,19 @@
+package com.demo.carparkinglot.exchanges.response;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class SlotOccupancyResponseDto {
+    private long totalSlots;
+    private long availableSlots;
+    private long lockedSlots;
+    private long occupiedSlots;
+    private boolean exact;
+    private long reclaimedLockLeases;
+    // Version of the occupancy snapshot the counts were read from, null for exact counts
+    private String version;
+}
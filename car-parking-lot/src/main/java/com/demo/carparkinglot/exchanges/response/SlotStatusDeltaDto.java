@@ -0,0 +1,16 @@
+package com.demo.carparkinglot.exchanges.response;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class SlotStatusDeltaDto {
+    // Both null on the first event of a stream, which only carries the current available count
+    private Long slotId;
+    private SlotStatusEnum slotStatus;
+    private long availableSlots;
+}
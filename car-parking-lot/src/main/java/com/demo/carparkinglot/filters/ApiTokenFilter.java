@@ -0,0 +1,36 @@
+package com.demo.carparkinglot.filters;
+
+import com.demo.carparkinglot.services.ApiTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Objects;
+
+// Authenticates requests of the stateless /api/** security chain by their bearer token. Not a bean, so it only
+// runs inside that chain instead of being registered for every request
+@RequiredArgsConstructor
+public class ApiTokenFilter extends OncePerRequestFilter {
+    private final ApiTokenService apiTokenService;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request, HttpServletResponse response, FilterChain filterChain
+    ) throws ServletException, IOException {
+        Authentication authentication = apiTokenService.authenticateBearer(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (Objects.nonNull(authentication)) {
+            SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+            securityContext.setAuthentication(authentication);
+            SecurityContextHolder.setContext(securityContext);
+        }
+        filterChain.doFilter(request, response);
+    }
+}
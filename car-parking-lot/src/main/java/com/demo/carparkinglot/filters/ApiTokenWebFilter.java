@@ -0,0 +1,29 @@
+package com.demo.carparkinglot.filters;
+
+import com.demo.carparkinglot.services.ApiTokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+
+// Reactive counterpart of ApiTokenFilter, likewise not a bean
+@RequiredArgsConstructor
+public class ApiTokenWebFilter implements WebFilter {
+    private final ApiTokenService apiTokenService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Authentication authentication = apiTokenService.authenticateBearer(
+                exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        if (Objects.isNull(authentication)) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+    }
+}
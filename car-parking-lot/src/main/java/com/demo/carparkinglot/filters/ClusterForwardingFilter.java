@@ -0,0 +1,147 @@
+package com.demo.carparkinglot.filters;
+
+import com.demo.carparkinglot.models.RequestVerdict;
+import com.demo.carparkinglot.services.ClusterService;
+import com.demo.carparkinglot.services.RequestFilterService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+// Hands requests for lots owned by another node to that node and relays its response, see ClusterService. Runs
+// before security, the owner authenticates the forwarded bearer token itself
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "cluster", name = "enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class ClusterForwardingFilter extends OncePerRequestFilter {
+    private final ClusterService clusterService;
+    private final RequestFilterService requestFilterService;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request, HttpServletResponse response, FilterChain filterChain
+    ) throws ServletException, IOException {
+        String path = FilterAdapters.pathOf(request);
+        String lotId = ClusterService.lotIdOfPath(path);
+        HttpServletRequest servedRequest = request;
+        byte[] body = null;
+        if (Objects.isNull(lotId) && ClusterService.isLotCreation(request.getMethod(), path)) {
+            body = request.getInputStream().readAllBytes();
+            lotId = ClusterService.lotIdOfBody(body);
+            servedRequest = new CachedBodyRequest(request, body);
+        }
+        RequestVerdict verdict = requestFilterService.route(
+                lotId, request.getRemoteAddr(), request.getHeader(ClusterService.FORWARDED_HEADER));
+        if (verdict.isForwarded()) {
+            forward(request, response, verdict.forwardTo(), Objects.isNull(body) ? request.getInputStream().readAllBytes() : body);
+        } else if (!FilterAdapters.answer(response, verdict)) {
+            filterChain.doFilter(servedRequest, response);
+        }
+    }
+
+    private void forward(HttpServletRequest request, HttpServletResponse response, String owner, byte[] body)
+            throws IOException {
+        HttpResponse<InputStream> forwarded;
+        try {
+            forwarded = clusterService.getHttpClient().send(
+                    clusterService.forwardRequest(owner, request.getMethod(), FilterAdapters.pathAndQueryOf(request), body,
+                            ClusterService.forwardedRequestHeaders(request::getHeader)),
+                    HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("Forwarding to owner node: {} failed, ex: {}", owner, e.toString());
+            FilterAdapters.answer(response, RequestFilterService.ownerUnreachable(owner));
+            return;
+        }
+        response.setStatus(forwarded.statusCode());
+        forwarded.headers().map().forEach((name, values) -> {
+            if (ClusterService.isRelayedResponseHeader(name)) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        // Flushed as it arrives, so availability streams are relayed event by event
+        try (InputStream forwardedBody = forwarded.body()) {
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read; (read = forwardedBody.read(buffer)) != -1; ) {
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+        }
+    }
+
+    // Lot creation bodies are read to find the owner, the controller reads them again when this node is the owner
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Body is already read");
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = Objects.isNull(getCharacterEncoding())
+                    ? StandardCharsets.UTF_8 : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.demo.carparkinglot.filters;
+
+import com.demo.carparkinglot.models.RequestVerdict;
+import com.demo.carparkinglot.services.ClusterService;
+import com.demo.carparkinglot.services.RequestFilterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Objects;
+
+// Reactive counterpart of ClusterForwardingFilter, the owner is called without blocking the event loop
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(prefix = "cluster", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ClusterForwardingWebFilter implements WebFilter {
+    private final ClusterService clusterService;
+    private final RequestFilterService requestFilterService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = FilterAdapters.pathOf(request);
+        String lotId = ClusterService.lotIdOfPath(path);
+        if (Objects.nonNull(lotId)) {
+            return route(exchange, chain, lotId);
+        }
+        if (ClusterService.isLotCreation(request.getMethod().name(), path)) {
+            // Lot creation bodies are read to find the owner, and replayed when this node is the owner
+            return readBody(request).flatMap(body -> {
+                ServerHttpRequest replayed = new ServerHttpRequestDecorator(request) {
+                    @Override
+                    public Flux<DataBuffer> getBody() {
+                        return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+                    }
+                };
+                return route(exchange.mutate().request(replayed).build(), chain, ClusterService.lotIdOfBody(body));
+            });
+        }
+        return chain.filter(exchange);
+    }
+
+    private Mono<Void> route(ServerWebExchange exchange, WebFilterChain chain, String lotId) {
+        ServerHttpRequest request = exchange.getRequest();
+        RequestVerdict verdict = requestFilterService.route(lotId, FilterAdapters.remoteAddressOf(request),
+                request.getHeaders().getFirst(ClusterService.FORWARDED_HEADER));
+        if (verdict.isForwarded()) {
+            return readBody(request).flatMap(body -> forward(exchange, verdict.forwardTo(), body));
+        }
+        return FilterAdapters.answerOrContinue(exchange, chain, verdict);
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, String owner, byte[] body) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        HttpRequest forwardRequest = clusterService.forwardRequest(owner, request.getMethod().name(),
+                FilterAdapters.pathAndQueryOf(request), body, ClusterService.forwardedRequestHeaders(request.getHeaders()::getFirst));
+        return Mono.fromFuture(() -> clusterService.getHttpClient().sendAsync(forwardRequest, HttpResponse.BodyHandlers.ofPublisher()))
+                .onErrorResume(IOException.class, e -> {
+                    log.warn("Forwarding to owner node: {} failed, ex: {}", owner, e.toString());
+                    return FilterAdapters.answer(response, RequestFilterService.ownerUnreachable(owner)).then(Mono.empty());
+                })
+                .flatMap(forwarded -> {
+                    response.setStatusCode(HttpStatusCode.valueOf(forwarded.statusCode()));
+                    forwarded.headers().map().forEach((name, values) -> {
+                        if (ClusterService.isRelayedResponseHeader(name)) {
+                            response.getHeaders().addAll(name, values);
+                        }
+                    });
+                    // Flushed as it arrives, so availability streams are relayed event by event
+                    return response.writeAndFlushWith(JdkFlowAdapter.flowPublisherToFlux(forwarded.body())
+                            .map(buffers -> Flux.fromIterable(buffers).map(response.bufferFactory()::wrap)));
+                });
+    }
+
+    private static Mono<byte[]> readBody(ServerHttpRequest request) {
+        return DataBufferUtils.join(request.getBody()).map(buffer -> {
+            byte[] body = new byte[buffer.readableByteCount()];
+            buffer.read(body);
+            DataBufferUtils.release(buffer);
+            return body;
+        }).defaultIfEmpty(new byte[0]);
+    }
+}
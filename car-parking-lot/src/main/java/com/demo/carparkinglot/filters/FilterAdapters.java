@@ -0,0 +1,72 @@
+package com.demo.carparkinglot.filters;
+
+import com.demo.carparkinglot.models.RequestVerdict;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+// Reads what RequestFilterService decides on from requests of either web stack, and carries out verdicts that
+// answer or pass on the request. Forwarding is left to the cluster forwarding filters
+final class FilterAdapters {
+
+    private FilterAdapters() {
+    }
+
+    static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    static String pathOf(ServerHttpRequest request) {
+        return request.getPath().pathWithinApplication().value();
+    }
+
+    // The request URI as received, context path included
+    static String pathAndQueryOf(HttpServletRequest request) {
+        return Objects.isNull(request.getQueryString())
+                ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+    }
+
+    static String pathAndQueryOf(ServerHttpRequest request) {
+        URI uri = request.getURI();
+        return Objects.isNull(uri.getRawQuery()) ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+    }
+
+    static String remoteAddressOf(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return Objects.isNull(remoteAddress) ? "" : remoteAddress.getAddress().getHostAddress();
+    }
+
+    // true when the verdict answered the request, the filter chain then stops
+    static boolean answer(HttpServletResponse response, RequestVerdict verdict) throws IOException {
+        verdict.headers().forEach(response::setHeader);
+        if (!verdict.isAnswered()) {
+            return false;
+        }
+        response.setStatus(verdict.status().value());
+        response.getWriter().write(verdict.message());
+        return true;
+    }
+
+    static Mono<Void> answerOrContinue(ServerWebExchange exchange, WebFilterChain chain, RequestVerdict verdict) {
+        ServerHttpResponse response = exchange.getResponse();
+        verdict.headers().forEach(response.getHeaders()::set);
+        return verdict.isAnswered() ? answer(response, verdict) : chain.filter(exchange);
+    }
+
+    static Mono<Void> answer(ServerHttpResponse response, RequestVerdict verdict) {
+        response.setStatusCode(verdict.status());
+        DataBuffer body = response.bufferFactory().wrap(verdict.message().getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(body));
+    }
+}
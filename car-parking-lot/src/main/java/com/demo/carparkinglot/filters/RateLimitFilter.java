@@ -1,39 +1,35 @@
 package com.demo.carparkinglot.filters;
 
-import com.demo.carparkinglot.services.RateLimitService;
+import com.demo.carparkinglot.services.ClusterService;
+import com.demo.carparkinglot.services.RequestFilterService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
-import org.springframework.http.HttpStatus;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
-@Slf4j
+// See RequestFilterService.rateLimit
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Order(Ordered.HIGHEST_PRECEDENCE)
 @RequiredArgsConstructor
 public class RateLimitFilter extends OncePerRequestFilter {
-    private final RateLimitService rateLimitService;
+    private final RequestFilterService requestFilterService;
 
     @Override
     protected void doFilterInternal(
             HttpServletRequest request, HttpServletResponse response, FilterChain filterChain
     ) throws ServletException, IOException {
-        String remoteAddr = request.getRemoteAddr();
-        if (rateLimitService.isRateExceeded(remoteAddr)) {
-            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            response.getWriter().write("Too many requests");
-            log.info("Too many requests for ip: {}", remoteAddr);
-            return;
+        if (!FilterAdapters.answer(response, requestFilterService.rateLimit(
+                request.getRemoteAddr(), request.getHeader(ClusterService.FORWARDED_HEADER), FilterAdapters.pathOf(request)))) {
+            filterChain.doFilter(request, response);
         }
-        log.debug("RateLimit filter pass for remoteAddr: {}", remoteAddr);
-        filterChain.doFilter(request, response);
     }
 }
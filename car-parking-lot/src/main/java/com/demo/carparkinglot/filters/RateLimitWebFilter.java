@@ -0,0 +1,30 @@
+package com.demo.carparkinglot.filters;
+
+import com.demo.carparkinglot.services.ClusterService;
+import com.demo.carparkinglot.services.RequestFilterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// Reactive counterpart of RateLimitFilter
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class RateLimitWebFilter implements WebFilter {
+    private final RequestFilterService requestFilterService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        return FilterAdapters.answerOrContinue(exchange, chain, requestFilterService.rateLimit(FilterAdapters.remoteAddressOf(request),
+                request.getHeaders().getFirst(ClusterService.FORWARDED_HEADER), FilterAdapters.pathOf(request)));
+    }
+}
@@ -0,0 +1,36 @@
+package com.demo.carparkinglot.filters;
+
+import com.demo.carparkinglot.services.RequestFilterService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Lot reads and writes of a follower, see RequestFilterService.replica
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "replication", name = "role", havingValue = "follower")
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class ReplicaFilter extends OncePerRequestFilter {
+    private final RequestFilterService requestFilterService;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request, HttpServletResponse response, FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (!FilterAdapters.answer(response, requestFilterService.replica(
+                request.getMethod(), FilterAdapters.pathOf(request), FilterAdapters.pathAndQueryOf(request)))) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.demo.carparkinglot.filters;
+
+import com.demo.carparkinglot.services.RequestFilterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// Reactive counterpart of ReplicaFilter
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(prefix = "replication", name = "role", havingValue = "follower")
+@RequiredArgsConstructor
+public class ReplicaWebFilter implements WebFilter {
+    private final RequestFilterService requestFilterService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        return FilterAdapters.answerOrContinue(exchange, chain, requestFilterService.replica(
+                request.getMethod().name(), FilterAdapters.pathOf(request), FilterAdapters.pathAndQueryOf(request)));
+    }
+}
@@ -1,16 +1,38 @@
 package com.demo.carparkinglot.models;
 
+import com.demo.carparkinglot.enums.ParkingEventTypeEnum;
 import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.events.ParkingEvent;
+import com.demo.carparkinglot.models.events.ParkingEventRecorder;
+import com.demo.carparkinglot.models.events.SlotStatusListener;
+import com.demo.carparkinglot.models.journal.SlotJournal;
+import com.demo.carparkinglot.models.layout.SlotLayout;
+import com.demo.carparkinglot.models.slots.NearestFreeSlotIndex;
+import com.demo.carparkinglot.models.slots.ObjectSlotStore;
+import com.demo.carparkinglot.models.slots.OccupancySnapshot;
+import com.demo.carparkinglot.models.slots.ShardOccupancySnapshot;
+import com.demo.carparkinglot.models.slots.OccupiedSlotIndex;
+import com.demo.carparkinglot.models.slots.SlotLockLeases;
+import com.demo.carparkinglot.models.slots.SlotOccupancyCounters;
+import com.demo.carparkinglot.models.slots.SlotStore;
 import com.demo.carparkinglot.models.vehicles.Car;
+import com.demo.carparkinglot.models.vehicles.LicensePlates;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Map;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 @Slf4j
 @Getter
@@ -18,76 +40,386 @@ import java.util.concurrent.ConcurrentHashMap;
 @ToString
 public class ParkingLot {
     private final String name;
-    private final Map<Long, ParkingSlot> unoccupiedParkingSlots = new ConcurrentHashMap<>();
-    private final Map<String, ParkingSlot> occupiedParkingSlots = new ConcurrentHashMap<>();
+    @ToString.Exclude
+    private final SlotStore slotStore;
     private final long totalSlots;
+    // Slot index i refers to slot id i + 1, each shard owns a contiguous range of slot indexes
+    private final ParkingLotShard[] shards;
+    // Null unless the lot knows where its slots and gates are
+    @ToString.Exclude
+    private final SlotLayout slotLayout;
+    // Hands out the free slot nearest to a gate in place of the shards' free stacks, which are then left unused
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private final NearestFreeSlotIndex nearestFreeSlots;
+    @ToString.Exclude
+    private final SlotOccupancyCounters occupancyCounters;
+    @ToString.Exclude
+    private final SlotLockLeases slotLockLeases;
+    // Read endpoints are served from these, composed on read. Each transition publishes its slot to the snapshot of
+    // its shard before the slot can be claimed, found or expired by anyone else, so versions of one slot are
+    // published in the order its transitions happened, and only transitions of the same shard race to publish
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private final AtomicReferenceArray<ShardOccupancySnapshot> shardOccupancySnapshots;
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private final long occupancyIncarnation;
+    // Claimed slots the slot store refused to lock, e.g. for a license it can't hold
+    @ToString.Exclude
+    private final LongAdder slotLockFailures = new LongAdder();
+    // Told about every slot transition after it happened
+    @ToString.Exclude
+    private volatile SlotStatusListener slotStatusListener = SlotStatusListener.NONE;
+    // Records lock, park and unpark events in place of logging them on the request thread
+    @ToString.Exclude
+    private volatile ParkingEventRecorder eventRecorder = ParkingEventRecorder.NONE;
 
     public ParkingLot(String name, long totalSlots) {
+        this(name, totalSlots, 1);
+    }
+
+    public ParkingLot(String name, long totalSlots, int noOfShards) {
+        this(name, new ObjectSlotStore(Math.toIntExact(totalSlots)), noOfShards);
+    }
+
+    public ParkingLot(String name, SlotStore slotStore, int noOfShards) {
+        this(name, slotStore, noOfShards, new SlotLockLeases(slotStore.getTotalSlots(),
+                SlotLockLeases.DEFAULT_LEASE_MILLIS, SlotLockLeases.DEFAULT_TICK_MILLIS));
+    }
+
+    public ParkingLot(String name, SlotStore slotStore, int noOfShards, SlotLockLeases slotLockLeases) {
+        this(name, slotStore, noOfShards, slotLockLeases, null);
+    }
+
+    public ParkingLot(String name, SlotStore slotStore, int noOfShards, SlotLockLeases slotLockLeases, SlotLayout slotLayout) {
+        if (Objects.nonNull(slotLayout) && slotLayout.getTotalSlots() != slotStore.getTotalSlots()) {
+            throw new IllegalArgumentException("Layout of: " + slotLayout.getTotalSlots() + " slots for a lot of: "
+                    + slotStore.getTotalSlots() + " slots");
+        }
         this.name = name;
-        for (long slotId = 1; slotId <= totalSlots; slotId++) {
-            unoccupiedParkingSlots.put(slotId, new ParkingSlot(slotId));
+        this.slotStore = slotStore;
+        this.totalSlots = slotStore.getTotalSlots();
+        this.shards = createShards(slotStore, noOfShards);
+        this.slotLayout = slotLayout;
+        this.nearestFreeSlots = Objects.isNull(slotLayout) ? null : new NearestFreeSlotIndex(slotLayout,
+                slotIndex -> slotStore.getSlotStatus(slotIndex) == SlotStatusEnum.AVAILABLE);
+        this.occupancyCounters = SlotOccupancyCounters.of(slotStore);
+        this.slotLockLeases = slotLockLeases;
+        OccupancySnapshot occupancySnapshot = OccupancySnapshot.of(slotStore,
+                Arrays.stream(shards).mapToInt(ParkingLotShard::getFirstSlotIndex).toArray());
+        this.occupancyIncarnation = occupancySnapshot.getIncarnation();
+        this.shardOccupancySnapshots = new AtomicReferenceArray<>(shards.length);
+        for (int shardNo = 0; shardNo < shards.length; shardNo++) {
+            shardOccupancySnapshots.set(shardNo, occupancySnapshot.getShardSnapshot(shardNo));
         }
-        this.totalSlots = unoccupiedParkingSlots.size();
-        log.info("ParkingLot created having total slots: {}", totalSlots);
+        restoreOccupiedParkingSlots();
+        log.info("ParkingLot created having total slots: {} shards: {} slotStore: {} gates: {}",
+                totalSlots, shards.length, slotStore.getClass().getSimpleName(),
+                Objects.isNull(slotLayout) ? 0 : slotLayout.getGates().size());
     }
 
-    public synchronized Optional<ParkingSlot> getAvailableParkingSlot(String licenseNo) {
-        Optional<ParkingSlot> parkingSlotOpt = unoccupiedParkingSlots.values()
-                .stream()
-                .filter(ParkingSlot::isAvailable).findFirst();
-        parkingSlotOpt.ifPresent(s -> {
-            s.lockSlot(licenseNo);
-            log.info("Slot: {} locked by vehicle having license plate: {}", s.getId(), licenseNo);
-        });
-        return parkingSlotOpt;
+    public Optional<ParkingSlot> getAvailableParkingSlot(String licenseNo) {
+        return getAvailableParkingSlot(licenseNo, null);
     }
 
-    public void releaseLock(ParkingSlot parkingSlot) {
-        if (parkingSlot.getSlotStatusEnum() == SlotStatusEnum.LOCKED) {
-            parkingSlot.setSlotStatusEnum(SlotStatusEnum.AVAILABLE);
-            log.info("Released lock on parking slot: {}", parkingSlot.getId());
+    // Locks the free slot nearest to the gate when the lot has a layout, null gate meaning its first gate
+    public Optional<ParkingSlot> getAvailableParkingSlot(String licenseNo, String gate) {
+        int gateNo = gateNoOf(gate);
+        int slotIndex = Objects.isNull(nearestFreeSlots) ? claimFreeSlotIndex(licenseNo) : nearestFreeSlots.claimNearest(gateNo);
+        if (slotIndex < 0) {
+            return Optional.empty();
         }
+        lockClaimedSlot(slotIndex, licenseNo);
+        occupancyCounters.onSlotLocked();
+        publishSlot(slotIndex, SlotStatusEnum.LOCKED, licenseNo, 0L);
+        slotLockLeases.grant(slotIndex, licenseNo, System.currentTimeMillis());
+        slotStatusListener.onSlotStatusChanged(slotIndex, SlotStatusEnum.LOCKED);
+        eventRecorder.record(ParkingEventTypeEnum.SLOT_LOCKED, slotIndex, ParkingEvent.licenseSubject(licenseNo));
+        return Optional.of(slotStore.getSlot(slotIndex));
     }
 
-    public ParkingSlot parkVehicle(Car car, ParkingSlot parkingSlot) {
-        if (parkingSlot.isLocked() && car.getLicensePlateNo().equals(parkingSlot.getSlotLockVehicleLicenceNumber())) {
-            parkingSlot.setSlotStatusEnum(SlotStatusEnum.OCCUPIED);
-            parkingSlot.setVehicle(car);
-            parkingSlot.setVehicleParkingTimestamp();
-            unoccupiedParkingSlots.remove(parkingSlot.getId());
-            occupiedParkingSlots.put(car.getLicensePlateNo(), parkingSlot);
-            return parkingSlot;
+    private int claimFreeSlotIndex(String licenseNo) {
+        // Start at the license's home shard and steal from the following shards once it is full
+        int homeShardNo = homeShardNo(licenseNo);
+        for (int i = 0; i < shards.length; i++) {
+            // Popping the free stack hands this caller exclusive ownership of the slot, no scan or monitor needed
+            int slotIndex = shards[(homeShardNo + i) % shards.length].claimFreeSlotIndex();
+            if (slotIndex >= 0) {
+                return slotIndex;
+            }
+        }
+        return -1;
+    }
+
+    public List<Optional<ParkingSlot>> getAvailableParkingSlots(List<String> licenseNos) {
+        return getAvailableParkingSlots(licenseNos, null);
+    }
+
+    // Claims slots for a whole batch with one free stack pop per shard visited, starting at the home shard of the
+    // first license, or nearest to the gate first when the lot has a layout. Result i belongs to licenseNos[i] and
+    // is empty once the lot ran out of slots.
+    public List<Optional<ParkingSlot>> getAvailableParkingSlots(List<String> licenseNos, String gate) {
+        int gateNo = gateNoOf(gate);
+        List<Optional<ParkingSlot>> lockedSlots = new ArrayList<>(licenseNos.size());
+        if (licenseNos.isEmpty()) {
+            return lockedSlots;
+        }
+        int[] slotIndexes = new int[licenseNos.size()];
+        int claimed = 0;
+        if (Objects.nonNull(nearestFreeSlots)) {
+            claimed = nearestFreeSlots.claimNearest(gateNo, slotIndexes, 0, slotIndexes.length);
         } else {
-            throw new UnsupportedOperationException("You can't parking vehicle in a slot not locked by you...");
+            int homeShardNo = homeShardNo(licenseNos.get(0));
+            for (int i = 0; i < shards.length && claimed < slotIndexes.length; i++) {
+                ParkingLotShard shard = shards[(homeShardNo + i) % shards.length];
+                claimed += shard.claimFreeSlotIndexes(slotIndexes, claimed, slotIndexes.length - claimed);
+            }
         }
+        long nowMillis = System.currentTimeMillis();
+        for (int i = 0; i < licenseNos.size(); i++) {
+            if (i >= claimed) {
+                lockedSlots.add(Optional.empty());
+                continue;
+            }
+            int slotIndex = slotIndexes[i];
+            try {
+                lockClaimedSlot(slotIndex, licenseNos.get(i));
+            } catch (RuntimeException e) {
+                log.warn("Could not lock slot: {} for license: {}, ex: {}", toSlotId(slotIndex), licenseNos.get(i), e.toString());
+                lockedSlots.add(Optional.empty());
+                continue;
+            }
+            occupancyCounters.onSlotLocked();
+            publishSlot(slotIndex, SlotStatusEnum.LOCKED, licenseNos.get(i), 0L);
+            slotLockLeases.grant(slotIndex, licenseNos.get(i), nowMillis);
+            slotStatusListener.onSlotStatusChanged(slotIndex, SlotStatusEnum.LOCKED);
+            eventRecorder.record(ParkingEventTypeEnum.SLOT_LOCKED, slotIndex, ParkingEvent.licenseSubject(licenseNos.get(i)));
+            lockedSlots.add(Optional.of(slotStore.getSlot(slotIndex)));
+        }
+        return lockedSlots;
     }
 
-    public Optional<ParkingSlot> getParkingSlotByLicenseNo(String licenseNo) {
-        if (occupiedParkingSlots.containsKey(licenseNo)) {
-            return Optional.of(occupiedParkingSlots.get(licenseNo));
+    private void lockClaimedSlot(int slotIndex, String licenseNo) {
+        try {
+            slotStore.lockSlot(slotIndex, licenseNo);
+        } catch (RuntimeException e) {
+            // A store refusing the lock (e.g. a license it can't hold) must not leak the claimed slot
+            releaseSlot(slotIndex);
+            slotLockFailures.increment();
+            throw e;
         }
-        return Optional.empty();
+    }
+
+    // Returns false when the slot is not locked for licenseNo, e.g. its lease already expired. The lease is the
+    // ownership of the lock: only whoever takes it out releases the lock, so releasing after a park, after an expiry or
+    // once the slot was locked for someone else is a no-op
+    public boolean releaseLock(ParkingSlot parkingSlot, String licenseNo) {
+        int slotIndex = toSlotIndex(parkingSlot.getId());
+        if (slotLockLeases.end(slotIndex, licenseNo) && slotStore.releaseLock(slotIndex)) {
+            occupancyCounters.onLockReleased();
+            publishSlot(slotIndex, SlotStatusEnum.AVAILABLE, null, 0L);
+            releaseSlot(slotIndex);
+            slotStatusListener.onSlotStatusChanged(slotIndex, SlotStatusEnum.AVAILABLE);
+            eventRecorder.record(ParkingEventTypeEnum.LOCK_RELEASED, slotIndex, ParkingEvent.NO_SUBJECT);
+            return true;
+        }
+        return false;
+    }
+
+    // Returns locks whose lease ran out before the vehicle was parked or the lock released back to the free set
+    public int expireLockLeases(long nowMillis) {
+        return slotLockLeases.expire(nowMillis, slotIndex -> {
+            if (slotStore.releaseLock(slotIndex)) {
+                occupancyCounters.onLockReleased();
+                publishSlot(slotIndex, SlotStatusEnum.AVAILABLE, null, 0L);
+                releaseSlot(slotIndex);
+                slotStatusListener.onSlotStatusChanged(slotIndex, SlotStatusEnum.AVAILABLE);
+                eventRecorder.record(ParkingEventTypeEnum.LOCK_EXPIRED, slotIndex, ParkingEvent.NO_SUBJECT);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public long getReclaimedLockLeases() {
+        return slotLockLeases.getReclaimedLeases();
+    }
+
+    public ParkingSlot parkVehicle(Car car, ParkingSlot parkingSlot) {
+        return await(parkVehicle(car, parkingSlot, SlotJournal.NONE));
+    }
+
+    // Parks right away and completes once the park is journaled. A park the journal failed to take is taken back out
+    // of the lot before the future fails, so it never stays unacknowledged
+    public CompletableFuture<ParkingSlot> parkVehicle(Car car, ParkingSlot parkingSlot, SlotJournal slotJournal) {
+        int slotIndex = toSlotIndex(parkingSlot.getId());
+        String licenseNo = car.getLicensePlateNo();
+        slotStore.occupySlot(slotIndex, car);
+        slotLockLeases.end(slotIndex, licenseNo);
+        occupancyCounters.onSlotOccupied();
+        ParkingSlot parkedSlot = slotStore.getSlot(slotIndex);
+        long parkedOnEpochMillis = parkedSlot.getParkedOn().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        publishSlot(slotIndex, SlotStatusEnum.OCCUPIED, licenseNo, parkedOnEpochMillis);
+        // Appended before the license maps to the slot, so the unpark of this vehicle is always journaled after it
+        CompletableFuture<Void> journaled = slotJournal.vehicleParked(slotIndex, parkedOnEpochMillis, licenseNo);
+        long licenseKey = LicensePlates.pack(licenseNo);
+        occupiedParkingSlots(licenseNo).put(licenseKey, licenseNo, slotIndex);
+        slotStatusListener.onSlotStatusChanged(slotIndex, SlotStatusEnum.OCCUPIED);
+        eventRecorder.record(ParkingEventTypeEnum.VEHICLE_PARKED, slotIndex, ParkingEvent.licenseSubject(licenseKey, licenseNo));
+        return journaled.handle((ignored, e) -> {
+            if (Objects.nonNull(e)) {
+                vacateUnjournaledSlot(slotIndex, licenseNo);
+                throw e instanceof CompletionException completionException ? completionException : new CompletionException(e);
+            }
+            return parkedSlot;
+        });
+    }
+
+    // An unpark of the vehicle that got in before the journal failed already vacated the slot
+    private void vacateUnjournaledSlot(int slotIndex, String licenseNo) {
+        try {
+            if (isOccupiedBy(slotIndex, licenseNo)) {
+                vacateSlot(slotIndex, licenseNo);
+                releaseSlot(slotIndex);
+                slotStatusListener.onSlotStatusChanged(slotIndex, SlotStatusEnum.AVAILABLE);
+            }
+        } catch (UnsupportedOperationException e) {
+            log.warn("Unjournaled park of license: {} in slot: {} was unparked meanwhile", licenseNo, toSlotId(slotIndex));
+        }
+    }
+
+    public Optional<ParkingSlot> getParkingSlotByLicenseNo(String licenseNo) {
+        int slotIndex = occupiedParkingSlots(licenseNo).get(LicensePlates.pack(licenseNo), licenseNo);
+        return slotIndex == OccupiedSlotIndex.NO_SLOT ? Optional.empty() : Optional.of(slotStore.getSlot(slotIndex));
     }
 
     public void unparkVehicle(ParkingSlot parkingSlot, String licenseNo) {
-        if (parkingSlot.isOccupied() &&
-                occupiedParkingSlots.containsKey(licenseNo)) {
-            parkingSlot.unlockSlot(licenseNo);
-            occupiedParkingSlots.remove(licenseNo);
-            unoccupiedParkingSlots.put(parkingSlot.getId(), parkingSlot);
-        } else {
+        await(unparkVehicle(parkingSlot, licenseNo, SlotJournal.NONE));
+    }
+
+    // Journals the unpark first and vacates the slot once it is durable, so an unpark the journal failed to take leaves
+    // the vehicle parked, and the slot can't be handed to the next vehicle before its unpark is appended
+    public CompletableFuture<Void> unparkVehicle(ParkingSlot parkingSlot, String licenseNo, SlotJournal slotJournal) {
+        int slotIndex = toSlotIndex(parkingSlot.getId());
+        if (!isOccupiedBy(slotIndex, licenseNo)) {
             throw new UnsupportedOperationException(
                     String.format("You can't unpark vehicle in a slot which is not occupied or occupied by some other user. Current slot status: %s slotId: %s licenseNo: %s",
-                            parkingSlot.getSlotStatusEnum(), parkingSlot.getId(), licenseNo));
+                            slotStore.getSlotStatus(slotIndex), parkingSlot.getId(), licenseNo));
         }
+        return slotJournal.vehicleUnparked(slotIndex, System.currentTimeMillis(), licenseNo).thenRun(() -> {
+            vacateSlot(slotIndex, licenseNo);
+            releaseSlot(slotIndex);
+            slotStatusListener.onSlotStatusChanged(slotIndex, SlotStatusEnum.AVAILABLE);
+        });
+    }
+
+    public boolean[] unparkVehicles(List<ParkingSlot> parkingSlots, List<String> licenseNos) {
+        return await(unparkVehicles(parkingSlots, licenseNos, SlotJournal.NONE));
+    }
+
+    // Unparks parkingSlots[i] for licenseNos[i], pushing the vacated slots back with one free stack push per shard.
+    // Result i tells whether vehicle i was unparked, a slot not occupied by that license is left untouched. Like a
+    // single unpark, only slots whose unpark is durable are vacated: an item the journal failed, or that another
+    // request unparked meanwhile, is reported as not unparked and the rest of the batch still goes through
+    public CompletableFuture<boolean[]> unparkVehicles(List<ParkingSlot> parkingSlots, List<String> licenseNos,
+                                                       SlotJournal slotJournal) {
+        boolean[] unparked = new boolean[parkingSlots.size()];
+        CompletableFuture<?>[] journaled = new CompletableFuture[parkingSlots.size()];
+        long unparkedOnEpochMillis = System.currentTimeMillis();
+        for (int i = 0; i < parkingSlots.size(); i++) {
+            int slotIndex = toSlotIndex(parkingSlots.get(i).getId());
+            if (isOccupiedBy(slotIndex, licenseNos.get(i))) {
+                journaled[i] = slotJournal.vehicleUnparked(slotIndex, unparkedOnEpochMillis, licenseNos.get(i));
+                unparked[i] = true;
+            }
+        }
+        return CompletableFuture.allOf(Arrays.stream(journaled).filter(Objects::nonNull).toArray(CompletableFuture[]::new))
+                .handle((ignored, e) -> {
+                    int[] vacatedSlotIndexes = new int[parkingSlots.size()];
+                    int vacated = 0;
+                    for (int i = 0; i < parkingSlots.size(); i++) {
+                        if (!unparked[i]) {
+                            continue;
+                        }
+                        int slotIndex = toSlotIndex(parkingSlots.get(i).getId());
+                        try {
+                            journaled[i].join();
+                            vacateSlot(slotIndex, licenseNos.get(i));
+                            vacatedSlotIndexes[vacated++] = slotIndex;
+                        } catch (RuntimeException itemException) {
+                            unparked[i] = false;
+                            log.warn("Could not unpark license: {} from slot: {} in batch, ex: {}",
+                                    licenseNos.get(i), toSlotId(slotIndex), itemException.toString());
+                        }
+                    }
+                    releaseSlots(vacatedSlotIndexes, vacated);
+                    for (int i = 0; i < vacated; i++) {
+                        slotStatusListener.onSlotStatusChanged(vacatedSlotIndexes[i], SlotStatusEnum.AVAILABLE);
+                    }
+                    return unparked;
+                });
+    }
+
+    private boolean isOccupiedBy(int slotIndex, String licenseNo) {
+        return slotStore.getSlotStatus(slotIndex) == SlotStatusEnum.OCCUPIED
+                && occupiedParkingSlots(licenseNo).get(LicensePlates.pack(licenseNo), licenseNo) == slotIndex;
+    }
+
+    // Leaves returning the slot to the free set and telling the listener to the caller, batches do both once
+    private void vacateSlot(int slotIndex, String licenseNo) {
+        slotStore.unlockSlot(slotIndex, licenseNo);
+        occupancyCounters.onSlotVacated();
+        publishSlot(slotIndex, SlotStatusEnum.AVAILABLE, null, 0L);
+        long licenseKey = LicensePlates.pack(licenseNo);
+        occupiedParkingSlots(licenseNo).remove(licenseKey, licenseNo, slotIndex);
+        eventRecorder.record(ParkingEventTypeEnum.VEHICLE_UNPARKED, slotIndex, ParkingEvent.licenseSubject(licenseKey, licenseNo));
+    }
+
+    // Followers apply the parks and unparks of their primary's journal through these instead of claiming slots.
+    // Records of a slot are journaled in the order its transitions happened, so a park finding the slot taken by
+    // another vehicle, or the vehicle parked elsewhere, is older than the lot's state, i.e. a chunk applied again.
+    // Like JournalReplayer they skip those. Follower lots serve reads only, so their free stacks are left as they are
+    public void applyVehicleParked(int slotIndex, String licenseNo, long parkedOnEpochMillis) {
+        long licenseKey = LicensePlates.pack(licenseNo);
+        OccupiedSlotIndex occupiedParkingSlots = occupiedParkingSlots(licenseNo);
+        if (Objects.nonNull(occupantOf(slotIndex)) || occupiedParkingSlots.contains(licenseKey, licenseNo)) {
+            return;
+        }
+        slotStore.restoreOccupiedSlot(slotIndex, licenseNo, parkedOnEpochMillis);
+        occupancyCounters.onSlotLocked();
+        occupancyCounters.onSlotOccupied();
+        publishSlot(slotIndex, SlotStatusEnum.OCCUPIED, licenseNo, parkedOnEpochMillis);
+        occupiedParkingSlots.put(licenseKey, licenseNo, slotIndex);
+        slotStatusListener.onSlotStatusChanged(slotIndex, SlotStatusEnum.OCCUPIED);
+    }
+
+    public void applyVehicleUnparked(int slotIndex, String licenseNo) {
+        if (!licenseNo.equals(occupantOf(slotIndex))) {
+            return;
+        }
+        slotStore.unlockSlot(slotIndex, licenseNo);
+        occupancyCounters.onSlotVacated();
+        publishSlot(slotIndex, SlotStatusEnum.AVAILABLE, null, 0L);
+        occupiedParkingSlots(licenseNo).remove(LicensePlates.pack(licenseNo), licenseNo, slotIndex);
+        slotStatusListener.onSlotStatusChanged(slotIndex, SlotStatusEnum.AVAILABLE);
     }
 
     public Optional<ParkingSlot> getSlotById(Long slotId) {
-        ParkingSlot parkingSlot = unoccupiedParkingSlots.get(slotId);
-        if (Objects.isNull(parkingSlot)) {
-            return occupiedParkingSlots.values().stream().filter(s -> s.getId().equals(slotId)).findFirst();
+        if (slotId < 1 || slotId > totalSlots) {
+            return Optional.empty();
         }
-        return Optional.of(parkingSlot);
+        return Optional.of(slotStore.getSlot(toSlotIndex(slotId)));
+    }
+
+    // Latest published version of every shard, read one after the other, so consistent per shard only, see
+    // OccupancySnapshot. Never changes under the reader. O(shards)
+    public OccupancySnapshot getOccupancySnapshot() {
+        ShardOccupancySnapshot[] shardSnapshots = new ShardOccupancySnapshot[shards.length];
+        for (int shardNo = 0; shardNo < shardSnapshots.length; shardNo++) {
+            shardSnapshots[shardNo] = shardOccupancySnapshots.get(shardNo);
+        }
+        return OccupancySnapshot.compose(occupancyIncarnation, shardSnapshots);
     }
 
     public long getTotalSlotsInParkingLot() {
@@ -95,10 +427,175 @@ public class ParkingLot {
     }
 
     public long getTotalAvailableSlots() {
-        return unoccupiedParkingSlots.values().stream().filter(ParkingSlot::isAvailable).count();
+        return getTotalAvailableSlots(false);
+    }
+
+    // exact recounts slot statuses from the slot store instead of reading the maintained counter, O(total slots)
+    public long getTotalAvailableSlots(boolean exact) {
+        return getTotalSlotsHavingStatus(SlotStatusEnum.AVAILABLE, exact);
+    }
+
+    public long getTotalSlotsHavingStatus(SlotStatusEnum slotStatus, boolean exact) {
+        if (exact) {
+            return slotStore.countSlotsHavingStatus(slotStatus);
+        }
+        return switch (slotStatus) {
+            case AVAILABLE -> occupancyCounters.getAvailableSlots();
+            case LOCKED -> occupancyCounters.getLockedSlots();
+            case OCCUPIED -> occupancyCounters.getOccupiedSlots();
+        };
     }
 
     public boolean isVehicleAlreadyParked(String licensePlateNo) {
-        return occupiedParkingSlots.containsKey(licensePlateNo);
+        return occupiedParkingSlots(licensePlateNo).contains(LicensePlates.pack(licensePlateNo), licensePlateNo);
+    }
+
+    public int getNoOfShards() {
+        return shards.length;
+    }
+
+    // Null always names a gate, the first one of lots having a layout
+    public boolean hasGate(String gate) {
+        return Objects.isNull(gate) || Objects.nonNull(slotLayout) && slotLayout.gateNoOf(gate) >= 0;
+    }
+
+    public long getSlotLockFailures() {
+        return slotLockFailures.sum();
+    }
+
+    public long getOutstandingLockLeases() {
+        return slotLockLeases.getOutstandingLeases();
+    }
+
+    // Contention counters summed over all shards
+    public long getFreeSlotCasRetries() {
+        long indexCasRetries = Objects.isNull(nearestFreeSlots) ? 0 : nearestFreeSlots.getCasRetries();
+        return indexCasRetries + Arrays.stream(shards).mapToLong(ParkingLotShard::getFreeSlotCasRetries).sum();
+    }
+
+    public long getOccupancyLockWaits() {
+        return Arrays.stream(shards).mapToLong(shard -> shard.getOccupiedParkingSlots().getWriteLockWaits()).sum();
+    }
+
+    public long getOccupancyLockWaitNanos() {
+        return Arrays.stream(shards).mapToLong(shard -> shard.getOccupiedParkingSlots().getWriteLockWaitNanos()).sum();
+    }
+
+    // Transitions of other slots of the shard publish concurrently, a lost race only costs rebuilding the
+    // O(log32 shard slots) path
+    private void publishSlot(int slotIndex, SlotStatusEnum slotStatus, String licenseNo, long parkedOnEpochMillis) {
+        shardOccupancySnapshots.updateAndGet(shardNoOfSlotIndex(slotIndex),
+                snapshot -> snapshot.withSlot(slotIndex, slotStatus, licenseNo, parkedOnEpochMillis));
+    }
+
+    private void releaseSlot(int slotIndex) {
+        if (Objects.nonNull(nearestFreeSlots)) {
+            nearestFreeSlots.release(slotIndex);
+        } else {
+            shards[shardNoOfSlotIndex(slotIndex)].releaseSlotIndex(slotIndex);
+        }
+    }
+
+    private void releaseSlots(int[] slotIndexes, int count) {
+        if (Objects.nonNull(nearestFreeSlots)) {
+            for (int i = 0; i < count; i++) {
+                nearestFreeSlots.release(slotIndexes[i]);
+            }
+            return;
+        }
+        // Sorted, the slots of each shard form one contiguous run
+        Arrays.sort(slotIndexes, 0, count);
+        for (int runStart = 0; runStart < count; ) {
+            ParkingLotShard shard = shards[shardNoOfSlotIndex(slotIndexes[runStart])];
+            int runEnd = runStart + 1;
+            while (runEnd < count && shard.ownsSlotIndex(slotIndexes[runEnd])) {
+                runEnd++;
+            }
+            shard.releaseSlotIndexes(slotIndexes, runStart, runEnd - runStart);
+            runStart = runEnd;
+        }
+    }
+
+    private int gateNoOf(String gate) {
+        if (!hasGate(gate)) {
+            throw new IllegalArgumentException("Unknown gate: " + gate + " of parking lot: " + name);
+        }
+        return Objects.isNull(gate) ? 0 : slotLayout.gateNoOf(gate);
+    }
+
+    private String occupantOf(int slotIndex) {
+        if (slotIndex < 0 || slotIndex >= totalSlots) {
+            throw new IllegalArgumentException("Slot index: " + slotIndex + " outside of the lot of: " + totalSlots + " slots");
+        }
+        return slotStore.getSlotStatus(slotIndex) == SlotStatusEnum.OCCUPIED
+                ? slotStore.getSlotLockVehicleLicenceNumber(slotIndex) : null;
+    }
+
+    // Occupancy is always kept on the license's home shard so lookups never have to search other shards,
+    // even when the slot itself was stolen from a neighbour. String caches its hash, so picking the shard is free.
+    private OccupiedSlotIndex occupiedParkingSlots(String licenseNo) {
+        return shards[homeShardNo(licenseNo)].getOccupiedParkingSlots();
+    }
+
+    private int homeShardNo(String licenseNo) {
+        int hash = licenseNo.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    private int shardNoOfSlotIndex(int slotIndex) {
+        int shardNo = (int) ((long) slotIndex * shards.length / totalSlots);
+        // Integer division can land one shard off at range boundaries
+        while (!shards[shardNo].ownsSlotIndex(slotIndex)) {
+            shardNo += slotIndex < shards[shardNo].getFirstSlotIndex() ? -1 : 1;
+        }
+        return shardNo;
+    }
+
+    // Slot stores that persist their slots can hand over a lot with vehicles already parked
+    private void restoreOccupiedParkingSlots() {
+        if (occupancyCounters.getOccupiedSlots() == 0) {
+            return;
+        }
+        for (int slotIndex = 0; slotIndex < totalSlots; slotIndex++) {
+            if (slotStore.getSlotStatus(slotIndex) == SlotStatusEnum.OCCUPIED) {
+                String licenseNo = slotStore.getSlotLockVehicleLicenceNumber(slotIndex);
+                occupiedParkingSlots(licenseNo).put(LicensePlates.pack(licenseNo), licenseNo, slotIndex);
+            }
+        }
+        log.info("Restored {} parked vehicles from slot store", occupancyCounters.getOccupiedSlots());
+    }
+
+    private static ParkingLotShard[] createShards(SlotStore slotStore, int noOfShards) {
+        int totalSlots = slotStore.getTotalSlots();
+        // Stores start out empty unless they were restored, only then is it worth asking about every slot
+        boolean allSlotsAvailable = slotStore.countSlotsHavingStatus(SlotStatusEnum.AVAILABLE) == totalSlots;
+        int shardCount = Math.max(1, Math.min(noOfShards, totalSlots));
+        ParkingLotShard[] shards = new ParkingLotShard[shardCount];
+        for (int shardNo = 0; shardNo < shardCount; shardNo++) {
+            int firstSlotIndex = (int) ((long) totalSlots * shardNo / shardCount);
+            int nextFirstSlotIndex = (int) ((long) totalSlots * (shardNo + 1) / shardCount);
+            shards[shardNo] = allSlotsAvailable
+                    ? new ParkingLotShard(shardNo, firstSlotIndex, nextFirstSlotIndex - firstSlotIndex)
+                    : new ParkingLotShard(shardNo, firstSlotIndex, nextFirstSlotIndex - firstSlotIndex,
+                    slotIndex -> slotStore.getSlotStatus(slotIndex) == SlotStatusEnum.AVAILABLE);
+        }
+        return shards;
+    }
+
+    // Transitions without a journal complete right away, their failures are rethrown as they were thrown
+    private static <T> T await(CompletableFuture<T> transition) {
+        try {
+            return transition.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static long toSlotId(int slotIndex) {
+        return SlotStore.toSlotId(slotIndex);
+    }
+
+    private static int toSlotIndex(long slotId) {
+        return SlotStore.toSlotIndex(slotId);
     }
 }
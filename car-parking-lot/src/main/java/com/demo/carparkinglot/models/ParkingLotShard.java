@@ -0,0 +1,80 @@
+package com.demo.carparkinglot.models;
+
+import com.demo.carparkinglot.models.slots.FreeSlotStack;
+import com.demo.carparkinglot.models.slots.OccupiedSlotIndex;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.function.IntPredicate;
+
+// A contiguous range of slots with its own free stack, plus the occupancy entries of licenses homed on this shard
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
+public class ParkingLotShard {
+    @ToString.Include
+    private final int shardNo;
+    @ToString.Include
+    private final int firstSlotIndex;
+    @ToString.Include
+    private final int slotCount;
+    @Getter(AccessLevel.NONE)
+    private final FreeSlotStack freeParkingSlots;
+    // License number to slot index
+    private final OccupiedSlotIndex occupiedParkingSlots = new OccupiedSlotIndex();
+
+    public ParkingLotShard(int shardNo, int firstSlotIndex, int slotCount) {
+        this.shardNo = shardNo;
+        this.firstSlotIndex = firstSlotIndex;
+        this.slotCount = slotCount;
+        this.freeParkingSlots = FreeSlotStack.full(slotCount);
+    }
+
+    // isFreeSlotIndex is asked about lot-wide slot indexes, used when the lot is rebuilt from a non-empty slot store
+    public ParkingLotShard(int shardNo, int firstSlotIndex, int slotCount, IntPredicate isFreeSlotIndex) {
+        this.shardNo = shardNo;
+        this.firstSlotIndex = firstSlotIndex;
+        this.slotCount = slotCount;
+        this.freeParkingSlots = FreeSlotStack.of(slotCount, localIndex -> isFreeSlotIndex.test(firstSlotIndex + localIndex));
+    }
+
+    // Returns a claimed lot-wide slot index, or -1 when this shard is full
+    public int claimFreeSlotIndex() {
+        int localIndex = freeParkingSlots.pop();
+        return localIndex < 0 ? -1 : firstSlotIndex + localIndex;
+    }
+
+    public void releaseSlotIndex(int slotIndex) {
+        freeParkingSlots.push(slotIndex - firstSlotIndex);
+    }
+
+    // Claims up to maxCount lot-wide slot indexes into slotIndexes[offset..], returns how many were claimed
+    public int claimFreeSlotIndexes(int[] slotIndexes, int offset, int maxCount) {
+        int claimed = freeParkingSlots.popBatch(slotIndexes, offset, maxCount);
+        for (int i = offset; i < offset + claimed; i++) {
+            slotIndexes[i] += firstSlotIndex;
+        }
+        return claimed;
+    }
+
+    // slotIndexes[offset..offset + count) must all be owned by this shard
+    public void releaseSlotIndexes(int[] slotIndexes, int offset, int count) {
+        int[] localIndexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            localIndexes[i] = slotIndexes[offset + i] - firstSlotIndex;
+        }
+        freeParkingSlots.pushBatch(localIndexes, 0, count);
+    }
+
+    public boolean ownsSlotIndex(int slotIndex) {
+        return slotIndex >= firstSlotIndex && slotIndex < firstSlotIndex + slotCount;
+    }
+
+    public boolean hasFreeSlots() {
+        return !freeParkingSlots.isEmpty();
+    }
+
+    public long getFreeSlotCasRetries() {
+        return freeParkingSlots.getCasRetries();
+    }
+}
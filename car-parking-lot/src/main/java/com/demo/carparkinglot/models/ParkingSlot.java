@@ -6,6 +6,7 @@ import lombok.*;
 
 import java.time.LocalDateTime;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static com.demo.carparkinglot.enums.SlotStatusEnum.LOCKED;
 import static com.demo.carparkinglot.enums.SlotStatusEnum.OCCUPIED;
@@ -15,9 +16,12 @@ import static com.demo.carparkinglot.enums.SlotStatusEnum.OCCUPIED;
 @Setter
 @RequiredArgsConstructor
 public class ParkingSlot {
+    private static final AtomicReferenceFieldUpdater<ParkingSlot, SlotStatusEnum> SLOT_STATUS_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(ParkingSlot.class, SlotStatusEnum.class, "slotStatusEnum");
+
     private final Long id;
     private Vehicle vehicle;
-    private SlotStatusEnum slotStatusEnum = SlotStatusEnum.AVAILABLE; // Initially all slots are available
+    private volatile SlotStatusEnum slotStatusEnum = SlotStatusEnum.AVAILABLE; // Initially all slots are available
     @Getter(AccessLevel.NONE)
     private AtomicReference<String> slotLockLicenseNumberRef = new AtomicReference<>();
     private LocalDateTime parkedOn;
@@ -32,9 +36,31 @@ public class ParkingSlot {
         }
     }
 
+    // Returns true only for the caller that moved the slot from LOCKED back to AVAILABLE
+    public boolean releaseLock() {
+        if (SLOT_STATUS_UPDATER.compareAndSet(this, LOCKED, SlotStatusEnum.AVAILABLE)) {
+            slotLockLicenseNumberRef.set(null);
+            return true;
+        }
+        return false;
+    }
+
+    public void occupySlot(Vehicle vehicle) {
+        if (isLocked() && vehicle.getLicensePlateNo().equals(slotLockLicenseNumberRef.get())) {
+            this.vehicle = vehicle;
+            setVehicleParkingTimestamp();
+            if (SLOT_STATUS_UPDATER.compareAndSet(this, LOCKED, OCCUPIED)) {
+                return;
+            }
+            this.vehicle = null;
+            this.parkedOn = null;
+        }
+        throw new UnsupportedOperationException("You can't parking vehicle in a slot not locked by you...");
+    }
+
     public void unlockSlot(String licenseNo) {
-        if (isOccupied() && licenseNo.equals(slotLockLicenseNumberRef.get())) {
-            this.slotStatusEnum = SlotStatusEnum.AVAILABLE;
+        if (licenseNo.equals(slotLockLicenseNumberRef.get())
+                && SLOT_STATUS_UPDATER.compareAndSet(this, OCCUPIED, SlotStatusEnum.AVAILABLE)) {
             this.vehicle = null;
             this.parkedOn = null;
             slotLockLicenseNumberRef.set(null);
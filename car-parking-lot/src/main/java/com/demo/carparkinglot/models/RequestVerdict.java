@@ -0,0 +1,37 @@
+package com.demo.carparkinglot.models;
+
+import org.springframework.http.HttpStatusCode;
+
+import java.util.Map;
+import java.util.Objects;
+
+// What a request filter does with a request: pass it on, answer it right away or forward it to the node owning its
+// lot. Decided by RequestFilterService for both web stacks, their filters only carry it out. headers are set on the
+// response in every case
+public record RequestVerdict(HttpStatusCode status, String message, Map<String, String> headers, String forwardTo) {
+    public static final RequestVerdict PASS = new RequestVerdict(null, null, Map.of(), null);
+
+    public static RequestVerdict pass(Map<String, String> headers) {
+        return new RequestVerdict(null, null, headers, null);
+    }
+
+    public static RequestVerdict answer(HttpStatusCode status, String message) {
+        return answer(status, message, Map.of());
+    }
+
+    public static RequestVerdict answer(HttpStatusCode status, String message, Map<String, String> headers) {
+        return new RequestVerdict(status, message, headers, null);
+    }
+
+    public static RequestVerdict forward(String node) {
+        return new RequestVerdict(null, null, Map.of(), node);
+    }
+
+    public boolean isAnswered() {
+        return Objects.nonNull(status);
+    }
+
+    public boolean isForwarded() {
+        return Objects.nonNull(forwardTo);
+    }
+}
@@ -0,0 +1,108 @@
+package com.demo.carparkinglot.models.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Consistent hash ring of cluster nodes. Each node is placed at virtualNodes points of a 64-bit ring and a key is
+ * owned by the node of the first point at or after the hash of the key, wrapping around. With many points per node
+ * keys spread evenly over the nodes, and adding or removing a node only moves the keys of the arcs that node gains
+ * or loses, about 1/n of them, instead of rehashing every key as hash modulo node count would.
+ * <p>
+ * Immutable, a membership change builds a new ring, so lookups binary search a sorted long array of points, with the
+ * owning node of each point in a parallel int array, without locking. Nodes are sorted first, so every node builds
+ * the same ring from the same members whatever order they were configured in.
+ */
+public final class ConsistentHashRing {
+    private final List<String> nodes;
+    private final int virtualNodes;
+    private final long[] points;
+    private final int[] owners;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("Ring needs nodes and virtual nodes, nodes: " + nodes
+                    + " virtualNodes: " + virtualNodes);
+        }
+        this.nodes = List.copyOf(new TreeSet<>(nodes));
+        this.virtualNodes = virtualNodes;
+        int pointCount = this.nodes.size() * virtualNodes;
+        long[] unsortedPoints = new long[pointCount];
+        Integer[] order = new Integer[pointCount];
+        for (int node = 0; node < this.nodes.size(); node++) {
+            for (int virtualNode = 0; virtualNode < virtualNodes; virtualNode++) {
+                int point = node * virtualNodes + virtualNode;
+                unsortedPoints[point] = hash(this.nodes.get(node) + "#" + virtualNode);
+                order[point] = point;
+            }
+        }
+        // Colliding points go to the lower node, so the tie is broken the same way on every node
+        Arrays.sort(order, Comparator.<Integer>comparingLong(point -> unsortedPoints[point]).thenComparingInt(point -> point));
+        this.points = new long[pointCount];
+        this.owners = new int[pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            points[i] = unsortedPoints[order[i]];
+            owners[i] = order[i] / virtualNodes;
+        }
+    }
+
+    public String ownerOf(String key) {
+        int i = Arrays.binarySearch(points, hash(key));
+        if (i < 0) {
+            i = -i - 1;
+            if (i == points.length) {
+                i = 0;
+            }
+        } else {
+            // binarySearch finds any of equal points, ownership goes to the first of them
+            while (i > 0 && points[i - 1] == points[i]) {
+                i--;
+            }
+        }
+        return nodes.get(owners[i]);
+    }
+
+    public ConsistentHashRing withNode(String node) {
+        List<String> newNodes = new ArrayList<>(nodes);
+        newNodes.add(node);
+        return new ConsistentHashRing(newNodes, virtualNodes);
+    }
+
+    public ConsistentHashRing withoutNode(String node) {
+        List<String> newNodes = new ArrayList<>(nodes);
+        newNodes.remove(node);
+        return new ConsistentHashRing(newNodes, virtualNodes);
+    }
+
+    public boolean contains(String node) {
+        return nodes.contains(node);
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    // FNV-1a over the chars, then the murmur3 finalizer. FNV alone leaves keys sharing a prefix, such as the points
+    // of one node, close together on the ring
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,65 @@
+package com.demo.carparkinglot.models.events;
+
+import com.demo.carparkinglot.enums.ParkingEventTypeEnum;
+import com.demo.carparkinglot.models.vehicles.LicensePlates;
+
+/**
+ * An event read back from the event log. The subject is a packed license plate (see {@link LicensePlates#pack})
+ * when positive, a remote IPv4 address for rate limit events, or the flagged hash code of a license or address
+ * that does not pack, so recording an event never has to copy or format a string.
+ */
+public record ParkingEvent(long sequence, long epochMillis, ParkingEventTypeEnum type, int slotIndex, long subject) {
+    public static final int NO_SLOT = -1;
+    public static final long NO_SUBJECT = 0L;
+    private static final long HASHED = Long.MIN_VALUE;
+
+    public static long licenseSubject(String licenseNo) {
+        return licenseSubject(LicensePlates.pack(licenseNo), licenseNo);
+    }
+
+    // licenseKey is LicensePlates.pack(licenseNo), for callers that already have it
+    public static long licenseSubject(long licenseKey, String licenseNo) {
+        return licenseKey == LicensePlates.UNPACKED ? hashed(licenseNo) : licenseKey;
+    }
+
+    public static long addressSubject(String remoteAddress) {
+        long address = 0;
+        int octets = 0;
+        int octet = -1;
+        for (int i = 0; i <= remoteAddress.length(); i++) {
+            char ch = i < remoteAddress.length() ? remoteAddress.charAt(i) : '.';
+            if (ch >= '0' && ch <= '9' && octet < 256) {
+                octet = Math.max(octet, 0) * 10 + ch - '0';
+            } else if (ch == '.' && octet >= 0 && octet < 256 && octets < 4) {
+                address = address << 8 | octet;
+                octets++;
+                octet = -1;
+            } else {
+                return hashed(remoteAddress);
+            }
+        }
+        return octets == 4 ? address : hashed(remoteAddress);
+    }
+
+    // null when the subject is not a packed license plate
+    public String licensePlateNo() {
+        return isLicenseEvent() && subject > 0 ? LicensePlates.unpack(subject) : null;
+    }
+
+    // null when the subject is not an IPv4 address
+    public String remoteAddress() {
+        if (isLicenseEvent() || subject < 0 || type == ParkingEventTypeEnum.EVENTS_DROPPED) {
+            return null;
+        }
+        return (subject >>> 24 & 0xFF) + "." + (subject >>> 16 & 0xFF) + "." + (subject >>> 8 & 0xFF) + "." + (subject & 0xFF);
+    }
+
+    private boolean isLicenseEvent() {
+        return type != ParkingEventTypeEnum.RATE_LIMIT_PASSED && type != ParkingEventTypeEnum.RATE_LIMITED
+                && type != ParkingEventTypeEnum.EVENTS_DROPPED;
+    }
+
+    private static long hashed(String value) {
+        return HASHED | (value.hashCode() & 0xFFFFFFFFL);
+    }
+}
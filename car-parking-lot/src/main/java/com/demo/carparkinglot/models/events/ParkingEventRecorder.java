@@ -0,0 +1,13 @@
+package com.demo.carparkinglot.models.events;
+
+import com.demo.carparkinglot.enums.ParkingEventTypeEnum;
+
+// Called on request threads in place of logging each event, so it must neither block nor format anything
+@FunctionalInterface
+public interface ParkingEventRecorder {
+    ParkingEventRecorder NONE = (type, slotIndex, subject) -> {
+    };
+
+    // slotIndex is -1 for events not about a slot, subject is one of ParkingEvent's licenseSubject or addressSubject
+    void record(ParkingEventTypeEnum type, int slotIndex, long subject);
+}
@@ -0,0 +1,251 @@
+package com.demo.carparkinglot.models.events;
+
+import com.demo.carparkinglot.enums.ParkingEventTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Event log that keeps logging off request threads. Recording an event claims the next sequence of a bounded
+ * ring with a CAS, copies three longs into its entry and publishes the entry, nothing is allocated, formatted or
+ * locked. A single writer thread drains published entries in sequence order and appends them to a rolling file
+ * as fixed-size records.
+ * <p>
+ * When the writer falls a whole ring behind, events are dropped instead of making requests wait, and the writer
+ * notes how many in an {@link ParkingEventTypeEnum#EVENTS_DROPPED} record.
+ * <p>
+ * File records are {@value #RECORD_BYTES} bytes, big endian: long sequence, long epoch millis, long subject,
+ * int type, int slot index. Once the file would grow past its max size it is renamed to file.1, file.1 to file.2
+ * and so on, keeping at most maxRolledFiles of them.
+ */
+@Slf4j
+public class RingBufferEventLog implements ParkingEventRecorder, Closeable {
+    public static final int RECORD_BYTES = 32;
+    private static final ParkingEventTypeEnum[] TYPES = ParkingEventTypeEnum.values();
+    // epoch millis, subject, type << 32 | slot index
+    private static final int ENTRY_FIELDS = 3;
+    private static final int DRAIN_BATCH = 1024;
+
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxRolledFiles;
+    private final long drainIntervalNanos;
+    private final int mask;
+    private final long[] entries;
+    // Sequence + 1 of the event last published in each entry
+    private final AtomicLongArray publishedSequences;
+    private final AtomicLong claimedSequence = new AtomicLong();
+    // Every sequence below this has been copied out by the writer, so its entry can be reused
+    private volatile long drainedSequence;
+    private final LongAdder droppedEvents = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closed;
+    private FileChannel channel;
+    private long fileBytes;
+
+    private RingBufferEventLog(Path file, FileChannel channel, int capacity, long drainIntervalMicros,
+                               long maxFileBytes, int maxRolledFiles) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.fileBytes = channel.size();
+        this.maxFileBytes = maxFileBytes;
+        this.maxRolledFiles = maxRolledFiles;
+        this.drainIntervalNanos = TimeUnit.MICROSECONDS.toNanos(drainIntervalMicros);
+        this.mask = capacity - 1;
+        this.entries = new long[capacity * ENTRY_FIELDS];
+        this.publishedSequences = new AtomicLongArray(capacity);
+        this.writer = new Thread(this::drainEvents, "event-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // capacity must be a power of two, it bounds how far the writer may fall behind before events are dropped
+    public static RingBufferEventLog open(Path file, int capacity, long drainIntervalMicros,
+                                          long maxFileBytes, int maxRolledFiles) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1 || capacity > (Integer.MAX_VALUE >> 2)
+                || drainIntervalMicros < 0 || maxFileBytes < RECORD_BYTES * DRAIN_BATCH || maxRolledFiles < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid event log capacity: %s drain interval: %sus max file bytes: %s rolled files: %s",
+                    capacity, drainIntervalMicros, maxFileBytes, maxRolledFiles));
+        }
+        try {
+            if (Objects.nonNull(file.getParent())) {
+                Files.createDirectories(file.getParent());
+            }
+            return new RingBufferEventLog(file, openForAppend(file), capacity, drainIntervalMicros,
+                    maxFileBytes, maxRolledFiles);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open event log: " + file, e);
+        }
+    }
+
+    // Reads every whole record of one event log file, returns the number of events read
+    public static long readAll(Path file, Consumer<ParkingEvent> consumer) {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * DRAIN_BATCH);
+            long events = 0;
+            while (channel.read(buffer) > 0 || buffer.position() > 0) {
+                buffer.flip();
+                if (buffer.remaining() < RECORD_BYTES) {
+                    break;
+                }
+                while (buffer.remaining() >= RECORD_BYTES) {
+                    long sequence = buffer.getLong();
+                    long epochMillis = buffer.getLong();
+                    long subject = buffer.getLong();
+                    ParkingEventTypeEnum type = TYPES[buffer.getInt()];
+                    consumer.accept(new ParkingEvent(sequence, epochMillis, type, buffer.getInt(), subject));
+                    events++;
+                }
+                buffer.compact();
+            }
+            return events;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read event log: " + file, e);
+        }
+    }
+
+    @Override
+    public void record(ParkingEventTypeEnum type, int slotIndex, long subject) {
+        long sequence;
+        do {
+            sequence = claimedSequence.get();
+            if (closed || sequence - drainedSequence > mask) {
+                droppedEvents.increment();
+                return;
+            }
+        } while (!claimedSequence.compareAndSet(sequence, sequence + 1));
+        int entry = (int) sequence & mask;
+        int fields = entry * ENTRY_FIELDS;
+        entries[fields] = System.currentTimeMillis();
+        entries[fields + 1] = subject;
+        entries[fields + 2] = (long) type.ordinal() << 32 | (slotIndex & 0xFFFFFFFFL);
+        publishedSequences.setRelease(entry, sequence + 1);
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    // Sequence of the next event the writer will drain, every event before it has left the ring
+    public long getDrainedSequence() {
+        return drainedSequence;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // Writes whatever was recorded before closing the file
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void drainEvents() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_BYTES * (DRAIN_BATCH + 1));
+        long nextSequence = 0;
+        long reportedDrops = 0;
+        while (true) {
+            // Read before draining, so everything recorded before close() is still written
+            boolean closing = closed;
+            buffer.clear();
+            int drained = 0;
+            while (drained < DRAIN_BATCH) {
+                int entry = (int) nextSequence & mask;
+                if (publishedSequences.getAcquire(entry) != nextSequence + 1) {
+                    break;
+                }
+                int fields = entry * ENTRY_FIELDS;
+                buffer.putLong(nextSequence).putLong(entries[fields]).putLong(entries[fields + 1])
+                        .putInt((int) (entries[fields + 2] >>> 32)).putInt((int) entries[fields + 2]);
+                nextSequence++;
+                drained++;
+            }
+            drainedSequence = nextSequence;
+            long drops = droppedEvents.sum();
+            if (drops > reportedDrops) {
+                buffer.putLong(nextSequence).putLong(System.currentTimeMillis()).putLong(drops - reportedDrops)
+                        .putInt(ParkingEventTypeEnum.EVENTS_DROPPED.ordinal()).putInt(ParkingEvent.NO_SLOT);
+                reportedDrops = drops;
+            }
+            if (buffer.position() > 0) {
+                write(buffer.flip());
+            } else if (closing) {
+                return;
+            } else {
+                LockSupport.parkNanos(drainIntervalNanos);
+            }
+        }
+    }
+
+    private void write(ByteBuffer buffer) {
+        try {
+            if (fileBytes + buffer.remaining() > maxFileBytes) {
+                roll();
+            }
+            while (buffer.hasRemaining()) {
+                fileBytes += channel.write(buffer);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Nothing waits on these events, losing a batch beats stopping the writer
+            log.error("Could not write {} events to: {}, ex: {}", buffer.remaining() / RECORD_BYTES, file, e.toString());
+        }
+    }
+
+    private void roll() throws IOException {
+        channel.close();
+        for (int rolled = maxRolledFiles; rolled > 1; rolled--) {
+            Path older = rolledFile(rolled - 1);
+            if (Files.exists(older)) {
+                Files.move(older, rolledFile(rolled), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxRolledFiles > 0) {
+            Files.move(file, rolledFile(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        channel = openForAppend(file);
+        fileBytes = 0;
+    }
+
+    Path rolledFile(int rolled) {
+        return file.resolveSibling(file.getFileName() + "." + rolled);
+    }
+
+    // Drops a partial record a crash may have left at the end of the file, so the records appended stay aligned
+    private static FileChannel openForAppend(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        long tornBytes = channel.size() % RECORD_BYTES;
+        if (tornBytes > 0) {
+            channel.truncate(channel.size() - tornBytes);
+        }
+        return channel;
+    }
+}
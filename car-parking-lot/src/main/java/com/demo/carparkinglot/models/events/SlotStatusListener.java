@@ -0,0 +1,12 @@
+package com.demo.carparkinglot.models.events;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+
+// Called by ParkingLot on the thread making each slot transition, right after it happened, so it must not block
+@FunctionalInterface
+public interface SlotStatusListener {
+    SlotStatusListener NONE = (slotIndex, slotStatus) -> {
+    };
+
+    void onSlotStatusChanged(int slotIndex, SlotStatusEnum slotStatus);
+}
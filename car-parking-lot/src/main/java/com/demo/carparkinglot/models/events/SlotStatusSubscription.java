@@ -0,0 +1,92 @@
+package com.demo.carparkinglot.models.events;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Coalescing slot status feed of one client. Only the latest status of each changed slot is kept until the client
+ * takes it, so a slow client skips intermediate states instead of building up a backlog, and what is pending never
+ * exceeds one entry per slot. Slots are delivered in the order they first changed since their last delivery.
+ * <p>
+ * Publishing only records the change and signals; delivery runs on the drain executor, one drain at a time per
+ * subscription, and pauses whenever the client has no demand until {@link #signal()} is called again.
+ */
+@Slf4j
+public class SlotStatusSubscription {
+    private final Map<Integer, SlotStatusEnum> latestStatuses = new ConcurrentHashMap<>();
+    private final Queue<Integer> changedSlotIndexes = new ConcurrentLinkedQueue<>();
+    // Signals not yet seen by the drain, only the signal taking it from 0 schedules one
+    private final AtomicInteger pendingSignals = new AtomicInteger();
+    private final Executor drainExecutor;
+    private final BooleanSupplier hasDemand;
+    private final SlotStatusListener consumer;
+    private volatile boolean cancelled;
+
+    public SlotStatusSubscription(Executor drainExecutor, BooleanSupplier hasDemand, SlotStatusListener consumer) {
+        this.drainExecutor = drainExecutor;
+        this.hasDemand = hasDemand;
+        this.consumer = consumer;
+    }
+
+    public void offer(int slotIndex, SlotStatusEnum slotStatus) {
+        if (cancelled) {
+            return;
+        }
+        // The slot is queued only when it had nothing pending, otherwise its pending status is just replaced
+        if (Objects.isNull(latestStatuses.put(slotIndex, slotStatus))) {
+            changedSlotIndexes.add(slotIndex);
+        }
+        signal();
+    }
+
+    // Also called when the client asks for more
+    public void signal() {
+        if (pendingSignals.getAndIncrement() == 0) {
+            drainExecutor.execute(this::drain);
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        changedSlotIndexes.clear();
+        latestStatuses.clear();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getPendingSlots() {
+        return latestStatuses.size();
+    }
+
+    private void drain() {
+        int signals = pendingSignals.get();
+        try {
+            do {
+                Integer slotIndex;
+                while (!cancelled && hasDemand.getAsBoolean() && Objects.nonNull(slotIndex = changedSlotIndexes.poll())) {
+                    SlotStatusEnum slotStatus = latestStatuses.remove(slotIndex);
+                    if (Objects.nonNull(slotStatus)) {
+                        consumer.onSlotStatusChanged(slotIndex, slotStatus);
+                    }
+                }
+                // Signals that arrived meanwhile may have queued slots or demand this pass did not see yet
+                signals = pendingSignals.addAndGet(-signals);
+            } while (signals != 0);
+        } catch (RuntimeException e) {
+            // A client that can't take deltas is gone, later signals must not start another drain
+            cancel();
+            log.info("Slot status subscription cancelled, delta could not be delivered, ex: {}", e.toString());
+        }
+    }
+}
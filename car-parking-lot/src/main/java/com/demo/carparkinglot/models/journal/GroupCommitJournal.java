@@ -0,0 +1,352 @@
+package com.demo.carparkinglot.models.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Append-only journal file with group commit. Appending only enqueues the record, a single writer thread drains
+ * whatever has queued up (at most maxBatchSize records, waiting at most the commit interval after the first one),
+ * writes the batch with one write and makes it durable with one fsync. Every record of the batch completes its
+ * future after that fsync, so concurrent requests share the cost of a single fsync.
+ */
+@Slf4j
+public class GroupCommitJournal implements Closeable {
+    private static final long POLL_MILLIS = 100L;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long commitIntervalNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingAppend> pendingAppends = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+    // Set once a failed batch could not be cut off the file, nothing can be appended after it anymore
+    private volatile boolean broken;
+    // Written by the writer thread only
+    private volatile long committedBatches;
+    private volatile long committedRecords;
+    // End of the last durable batch, a snapshot taken after reading it reflects every record before it
+    private volatile long committedPosition;
+    private ByteBuffer batchBuffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    private record PendingAppend(JournalRecord record, CompletableFuture<Void> committed) {
+    }
+
+    private GroupCommitJournal(Path file, FileChannel channel, long committedPosition,
+                               long commitIntervalMicros, int maxBatchSize) {
+        if (commitIntervalMicros < 0 || maxBatchSize < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid journal commit interval: %sus max batch size: %s", commitIntervalMicros, maxBatchSize));
+        }
+        this.file = file;
+        this.channel = channel;
+        this.committedPosition = committedPosition;
+        this.commitIntervalNanos = TimeUnit.MICROSECONDS.toNanos(commitIntervalMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.writer = new Thread(this::commitBatches, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Opens the journal for appending, dropping a torn record left at its tail by a crash
+    public static GroupCommitJournal open(Path file, long commitIntervalMicros, int maxBatchSize) {
+        return open(file, 0, journalRecord -> {
+        }, commitIntervalMicros, maxBatchSize);
+    }
+
+    // Replays the records from replayFromPosition on, typically the position covered by the last snapshot, then
+    // opens the journal for appending right after the last intact record
+    public static GroupCommitJournal open(Path file, long replayFromPosition, Consumer<JournalRecord> replayConsumer,
+                                          long commitIntervalMicros, int maxBatchSize) {
+        try {
+            if (Objects.nonNull(file.getParent())) {
+                Files.createDirectories(file.getParent());
+            }
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (replayFromPosition > channel.size()) {
+                log.warn("Journal: {} ends at: {} before replay position: {}, nothing to replay",
+                        file, channel.size(), replayFromPosition);
+                replayFromPosition = channel.size();
+            }
+            long validLength = read(channel, replayFromPosition, replayConsumer);
+            if (validLength < channel.size()) {
+                log.warn("Truncating torn journal tail of {} bytes in: {}", channel.size() - validLength, file);
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+            channel.position(validLength);
+            return new GroupCommitJournal(file, channel, validLength, commitIntervalMicros, maxBatchSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open journal: " + file, e);
+        }
+    }
+
+    // Replays every intact record of a journal file, returns the number of records read
+    public static long readAll(Path file, Consumer<JournalRecord> consumer) {
+        return readAll(file, 0, consumer);
+    }
+
+    public static long readAll(Path file, long fromPosition, Consumer<JournalRecord> consumer) {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] records = new long[1];
+            read(channel, fromPosition, record -> {
+                consumer.accept(record);
+                records[0]++;
+            });
+            return records[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read journal: " + file, e);
+        }
+    }
+
+    // Whole records from fromPosition up to the committed position, at most maxBytes of them unless the first record
+    // alone is larger, so followers never see a record the primary could still lose. fromPosition must be a record
+    // boundary, such as the end of a previous read. Positional reads run alongside the writer thread
+    public byte[] readCommitted(long fromPosition, int maxBytes) throws IOException {
+        return readCommitted(fromPosition, committedPosition, maxBytes);
+    }
+
+    // Like readCommitted, stopping at toPosition, a record boundary at or before the committed position
+    public byte[] readCommitted(long fromPosition, long toPosition, int maxBytes) throws IOException {
+        long committed = committedPosition;
+        if (toPosition > committed || fromPosition < 0 || fromPosition > toPosition) {
+            throw new IllegalArgumentException("Journal positions: " + fromPosition + " to: " + toPosition
+                    + " outside of committed: " + committed);
+        }
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(JournalRecord.LENGTH_BYTES);
+        long end = fromPosition;
+        while (end < toPosition) {
+            lengthBuffer.clear();
+            readFully(channel, lengthBuffer, end);
+            int bodyLength = lengthBuffer.flip().getInt();
+            long recordEnd = end + JournalRecord.LENGTH_BYTES + bodyLength + JournalRecord.CHECKSUM_BYTES;
+            if (bodyLength <= 0 || recordEnd > toPosition) {
+                throw new IllegalArgumentException("Journal position: " + fromPosition + " is not a record boundary");
+            }
+            if (recordEnd - fromPosition > maxBytes && end > fromPosition) {
+                break;
+            }
+            end = recordEnd;
+        }
+        byte[] records = new byte[Math.toIntExact(end - fromPosition)];
+        readFully(channel, ByteBuffer.wrap(records), fromPosition);
+        return records;
+    }
+
+    // Decodes records read by readCommitted, returns the number of records decoded
+    public static long decode(ByteBuffer records, Consumer<JournalRecord> consumer) {
+        long decoded = 0;
+        while (records.hasRemaining()) {
+            if (records.remaining() < JournalRecord.LENGTH_BYTES + JournalRecord.CHECKSUM_BYTES) {
+                throw new IllegalArgumentException("Torn journal record at: " + records.position());
+            }
+            int bodyLength = records.getInt();
+            if (bodyLength <= 0 || records.remaining() < bodyLength + JournalRecord.CHECKSUM_BYTES) {
+                throw new IllegalArgumentException("Torn journal record at: " + (records.position() - JournalRecord.LENGTH_BYTES));
+            }
+            ByteBuffer body = records.slice(records.position(), bodyLength);
+            if (JournalRecord.checksum(body.duplicate()) != records.getInt(records.position() + bodyLength)) {
+                throw new IllegalArgumentException("Corrupt journal record at: " + (records.position() - JournalRecord.LENGTH_BYTES));
+            }
+            consumer.accept(JournalRecord.decodeBody(body));
+            records.position(records.position() + bodyLength + JournalRecord.CHECKSUM_BYTES);
+            decoded++;
+        }
+        return decoded;
+    }
+
+    // Completes once the record is durable, or exceptionally when the batch could not be written. A record that can't
+    // be encoded fails here on its own, instead of failing every record of the batch it would have been written with
+    public CompletableFuture<Void> append(JournalRecord record) {
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        int licenseLength = record.licenseLength();
+        if (closed) {
+            committed.completeExceptionally(new IllegalStateException("Journal is closed: " + file));
+        } else if (licenseLength > JournalRecord.MAX_LICENSE_BYTES) {
+            committed.completeExceptionally(new IllegalArgumentException(
+                    "License plate too long for journal record: " + licenseLength + " bytes"));
+        } else {
+            pendingAppends.add(new PendingAppend(record, committed));
+            // The journal may have been closed after the check above, and the writer gone before this append was
+            // queued. Whatever is still queued then fails rather than waiting on a writer that never takes it
+            if (closed || broken) {
+                failPendingAppends(List.of(), new IllegalStateException("Journal is closed: " + file));
+            }
+        }
+        return committed;
+    }
+
+    public long getCommittedBatches() {
+        return committedBatches;
+    }
+
+    public long getCommittedRecords() {
+        return committedRecords;
+    }
+
+    public long getCommittedPosition() {
+        return committedPosition;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // Commits whatever is still pending before closing the file, appends racing the close may fail instead
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Queued after the writer saw an empty queue and stopped
+        failPendingAppends(List.of(), new IllegalStateException("Journal is closed: " + file));
+        channel.close();
+    }
+
+    private void commitBatches() {
+        List<PendingAppend> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!broken && (!closed || !pendingAppends.isEmpty())) {
+                PendingAppend first = pendingAppends.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (Objects.isNull(first)) {
+                    continue;
+                }
+                batch.add(first);
+                long commitDeadline = System.nanoTime() + commitIntervalNanos;
+                while (batch.size() < maxBatchSize) {
+                    // Take what is already queued without waiting, then wait out the commit interval for more
+                    PendingAppend next = pendingAppends.poll();
+                    long remainingNanos = commitDeadline - System.nanoTime();
+                    if (Objects.isNull(next) && remainingNanos > 0) {
+                        next = pendingAppends.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    }
+                    if (Objects.isNull(next)) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+                batch.clear();
+            }
+            if (broken) {
+                failPendingAppends(batch, new IllegalStateException("Journal is closed: " + file));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failPendingAppends(batch, new IllegalStateException("Journal writer interrupted: " + file));
+        }
+    }
+
+    private void commit(List<PendingAppend> batch) {
+        try {
+            ByteBuffer buffer = encode(batch);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            committedPosition = channel.position();
+            committedBatches++;
+            committedRecords += batch.size();
+            batch.forEach(pendingAppend -> pendingAppend.committed().complete(null));
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not commit {} journal records to: {}, ex: {}", batch.size(), file, e.toString());
+            batch.forEach(pendingAppend -> pendingAppend.committed().completeExceptionally(e));
+            truncateToCommittedPosition();
+        }
+    }
+
+    // Part of a failed batch may have reached the file, the next batch would be written after it and be lost to
+    // readers, which stop at the first torn record. Failing to cut it off fails the journal closed
+    private void truncateToCommittedPosition() {
+        try {
+            channel.truncate(committedPosition);
+            channel.position(committedPosition);
+        } catch (IOException e) {
+            log.error("Could not truncate journal: {} to committed position: {}, closing it, ex: {}",
+                    file, committedPosition, e.toString());
+            broken = true;
+            closed = true;
+        }
+    }
+
+    private ByteBuffer encode(List<PendingAppend> batch) {
+        int batchSize = 0;
+        for (PendingAppend pendingAppend : batch) {
+            batchSize += pendingAppend.record().encodedSize();
+        }
+        if (batchBuffer.capacity() < batchSize) {
+            batchBuffer = ByteBuffer.allocateDirect(Integer.highestOneBit(batchSize) << 1);
+        }
+        batchBuffer.clear();
+        batch.forEach(pendingAppend -> pendingAppend.record().encode(batchBuffer));
+        return batchBuffer.flip();
+    }
+
+    private void failPendingAppends(List<PendingAppend> batch, RuntimeException e) {
+        batch.forEach(pendingAppend -> pendingAppend.committed().completeExceptionally(e));
+        PendingAppend pendingAppend;
+        while (Objects.nonNull(pendingAppend = pendingAppends.poll())) {
+            pendingAppend.committed().completeExceptionally(e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Journal ends before position: " + (position + buffer.limit()));
+            }
+        }
+    }
+
+    // Reads records from fromPosition up to the first torn or corrupt one, returns where it stopped
+    private static long read(FileChannel channel, long fromPosition, Consumer<JournalRecord> consumer) throws IOException {
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(JournalRecord.LENGTH_BYTES);
+        long position = fromPosition;
+        long size = channel.size();
+        while (position + JournalRecord.LENGTH_BYTES <= size) {
+            lengthBuffer.clear();
+            channel.read(lengthBuffer, position);
+            int bodyLength = lengthBuffer.flip().getInt();
+            long recordEnd = position + JournalRecord.LENGTH_BYTES + bodyLength + JournalRecord.CHECKSUM_BYTES;
+            if (bodyLength <= 0 || recordEnd > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(bodyLength + JournalRecord.CHECKSUM_BYTES);
+            while (body.hasRemaining()) {
+                channel.read(body, position + JournalRecord.LENGTH_BYTES + body.position());
+            }
+            body.flip();
+            int checksum = body.getInt(bodyLength);
+            if (JournalRecord.checksum(body.duplicate().limit(bodyLength)) != checksum) {
+                break;
+            }
+            consumer.accept(JournalRecord.decodeBody(body.limit(bodyLength)));
+            position = recordEnd;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,79 @@
+package com.demo.carparkinglot.models.journal;
+
+import com.demo.carparkinglot.enums.JournalRecordTypeEnum;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * A single park, unpark or lock release event. Encoded as
+ * {@code int bodyLength | byte type | int slotIndex | long epochMillis | short licenseLength | license | int crc32c},
+ * the checksum covering the body, so a torn write at the tail of the journal is detected on read.
+ */
+public record JournalRecord(JournalRecordTypeEnum type, int slotIndex, long epochMillis, String licenseNo) {
+    private static final JournalRecordTypeEnum[] TYPES = JournalRecordTypeEnum.values();
+    static final int LENGTH_BYTES = Integer.BYTES;
+    static final int CHECKSUM_BYTES = Integer.BYTES;
+    private static final int FIXED_BODY_BYTES = Byte.BYTES + Integer.BYTES + Long.BYTES + Short.BYTES;
+    static final int MAX_LICENSE_BYTES = Short.MAX_VALUE;
+
+    public static JournalRecord vehicleParked(int slotIndex, long parkedOnEpochMillis, String licenseNo) {
+        return new JournalRecord(JournalRecordTypeEnum.VEHICLE_PARKED, slotIndex, parkedOnEpochMillis, licenseNo);
+    }
+
+    public static JournalRecord vehicleUnparked(int slotIndex, long unparkedOnEpochMillis, String licenseNo) {
+        return new JournalRecord(JournalRecordTypeEnum.VEHICLE_UNPARKED, slotIndex, unparkedOnEpochMillis, licenseNo);
+    }
+
+    public static JournalRecord lockReleased(int slotIndex, long releasedOnEpochMillis) {
+        return new JournalRecord(JournalRecordTypeEnum.LOCK_RELEASED, slotIndex, releasedOnEpochMillis, null);
+    }
+
+    // UTF-8 length of the license, GroupCommitJournal rejects records whose license doesn't fit the short length field
+    public int licenseLength() {
+        return licenseBytes().length;
+    }
+
+    public int encodedSize() {
+        return LENGTH_BYTES + bodySize(licenseBytes().length) + CHECKSUM_BYTES;
+    }
+
+    public void encode(ByteBuffer buffer) {
+        byte[] license = licenseBytes();
+        int bodyStart = buffer.position() + LENGTH_BYTES;
+        buffer.putInt(bodySize(license.length));
+        buffer.put((byte) type.ordinal());
+        buffer.putInt(slotIndex);
+        buffer.putLong(epochMillis);
+        buffer.putShort((short) license.length);
+        buffer.put(license);
+        buffer.putInt(checksum(buffer.duplicate().position(bodyStart).limit(buffer.position())));
+    }
+
+    // Decodes a body whose checksum was already verified
+    static JournalRecord decodeBody(ByteBuffer body) {
+        JournalRecordTypeEnum type = TYPES[body.get()];
+        int slotIndex = body.getInt();
+        long epochMillis = body.getLong();
+        byte[] license = new byte[body.getShort()];
+        body.get(license);
+        return new JournalRecord(type, slotIndex, epochMillis,
+                license.length == 0 ? null : new String(license, StandardCharsets.UTF_8));
+    }
+
+    static int checksum(ByteBuffer body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private byte[] licenseBytes() {
+        return Objects.isNull(licenseNo) ? new byte[0] : licenseNo.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int bodySize(int licenseLength) {
+        return FIXED_BODY_BYTES + licenseLength;
+    }
+}
@@ -0,0 +1,75 @@
+package com.demo.carparkinglot.models.journal;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.slots.SlotStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Applies a journal tail to a slot store restored from a snapshot. Records are bucketed by contiguous slot range
+ * while the journal is read, then every range is applied on its own core. Records of one slot always land in the
+ * same range in journal order, and applying them is idempotent, so a snapshot that already reflects some records
+ * of the tail ends in the same state.
+ * <p>
+ * The records of a slot are journaled in the order its transitions happened, a park always follows the unpark of the
+ * previous vehicle. A park finding its slot occupied can only come from a snapshot taken after it, and is skipped.
+ */
+public class JournalReplayer implements Consumer<JournalRecord> {
+    private final SlotStore slotStore;
+    private final int totalSlots;
+    private final List<List<JournalRecord>> slotRangeRecords;
+
+    public JournalReplayer(SlotStore slotStore, int noOfSlotRanges) {
+        this.slotStore = slotStore;
+        this.totalSlots = slotStore.getTotalSlots();
+        int slotRanges = Math.max(1, Math.min(noOfSlotRanges, totalSlots));
+        this.slotRangeRecords = new ArrayList<>(slotRanges);
+        for (int slotRange = 0; slotRange < slotRanges; slotRange++) {
+            slotRangeRecords.add(new ArrayList<>());
+        }
+    }
+
+    @Override
+    public void accept(JournalRecord journalRecord) {
+        if (journalRecord.slotIndex() < 0 || journalRecord.slotIndex() >= totalSlots) {
+            throw new IllegalStateException("Journal record for slot outside of the lot: " + journalRecord);
+        }
+        int slotRange = (int) ((long) journalRecord.slotIndex() * slotRangeRecords.size() / totalSlots);
+        slotRangeRecords.get(slotRange).add(journalRecord);
+    }
+
+    // Returns the number of records applied
+    public long replay() {
+        IntStream.range(0, slotRangeRecords.size()).parallel()
+                .forEach(slotRange -> slotRangeRecords.get(slotRange).forEach(this::apply));
+        long appliedRecords = slotRangeRecords.stream().mapToLong(List::size).sum();
+        slotRangeRecords.forEach(List::clear);
+        return appliedRecords;
+    }
+
+    private void apply(JournalRecord journalRecord) {
+        int slotIndex = journalRecord.slotIndex();
+        boolean occupied = slotStore.getSlotStatus(slotIndex) == SlotStatusEnum.OCCUPIED;
+        String occupiedBy = occupied ? slotStore.getSlotLockVehicleLicenceNumber(slotIndex) : null;
+        switch (journalRecord.type()) {
+            case VEHICLE_PARKED -> {
+                // Taken by another vehicle, the snapshot is already past this park and the unpark that follows it
+                if (!occupied) {
+                    slotStore.restoreOccupiedSlot(slotIndex, journalRecord.licenseNo(), journalRecord.epochMillis());
+                }
+            }
+            case VEHICLE_UNPARKED -> {
+                if (Objects.equals(journalRecord.licenseNo(), occupiedBy)) {
+                    slotStore.unlockSlot(slotIndex, occupiedBy);
+                }
+            }
+            // Locks are not recovered, their releases only matter to anyone auditing the journal
+            case LOCK_RELEASED -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.demo.carparkinglot.models.journal;
+
+import java.util.concurrent.CompletableFuture;
+
+// Called by ParkingLot while the transition still owns its slot, before anyone else can reach the slot, so records of
+// one slot are appended in the order its transitions happened. Returned futures complete once the record is durable
+public interface SlotJournal {
+    SlotJournal NONE = new SlotJournal() {
+        @Override
+        public CompletableFuture<Void> vehicleParked(int slotIndex, long parkedOnEpochMillis, String licenseNo) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> vehicleUnparked(int slotIndex, long unparkedOnEpochMillis, String licenseNo) {
+            return CompletableFuture.completedFuture(null);
+        }
+    };
+
+    CompletableFuture<Void> vehicleParked(int slotIndex, long parkedOnEpochMillis, String licenseNo);
+
+    CompletableFuture<Void> vehicleUnparked(int slotIndex, long unparkedOnEpochMillis, String licenseNo);
+}
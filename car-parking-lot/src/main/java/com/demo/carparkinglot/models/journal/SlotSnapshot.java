@@ -0,0 +1,122 @@
+package com.demo.carparkinglot.models.journal;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.slots.SlotStore;
+import com.demo.carparkinglot.models.vehicles.Vehicle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact snapshot of the occupied slots of a lot together with the journal position it covers. Only occupied
+ * slots are written, so its size follows occupancy rather than lot size:
+ * {@code magic | version | totalSlots | journalPosition | createdOn}, then {@code slotIndex | parkedOn | license}
+ * per occupied slot, ended by slot index -1 and a CRC32C of everything before it.
+ * <p>
+ * The slot store written must hold exactly the journal up to the journal position, records before it that it does not
+ * reflect would be lost on restore. A live slot store does not, its transitions are applied before or after they are
+ * committed, so journaled lots are snapshotted from a store the journal was replayed into instead.
+ */
+public final class SlotSnapshot {
+    private static final int MAGIC = 0x504B534E; // "PKSN"
+    private static final int FORMAT_VERSION = 1;
+    private static final int END_OF_SLOTS = -1;
+
+    private SlotSnapshot() {
+    }
+
+    // Written to a temporary file that replaces the previous snapshot only once complete, returns the slots written
+    public static long write(Path file, SlotStore slotStore, long journalPosition) {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        long occupiedSlots = 0;
+        try {
+            if (Objects.nonNull(file.getParent())) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileOutputStream fileOutputStream = new FileOutputStream(tempFile.toFile())) {
+                CheckedOutputStream checkedOutputStream = new CheckedOutputStream(
+                        new BufferedOutputStream(fileOutputStream, 64 * 1024), new CRC32C());
+                DataOutputStream out = new DataOutputStream(checkedOutputStream);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(slotStore.getTotalSlots());
+                out.writeLong(journalPosition);
+                out.writeLong(System.currentTimeMillis());
+                for (int slotIndex = 0; slotIndex < slotStore.getTotalSlots(); slotIndex++) {
+                    if (slotStore.getSlotStatus(slotIndex) != SlotStatusEnum.OCCUPIED) {
+                        continue;
+                    }
+                    ParkingSlot parkingSlot = slotStore.getSlot(slotIndex);
+                    Vehicle vehicle = parkingSlot.getVehicle();
+                    LocalDateTime parkedOn = parkingSlot.getParkedOn();
+                    // Vacated between the status check and the read
+                    if (Objects.isNull(vehicle) || Objects.isNull(parkedOn)) {
+                        continue;
+                    }
+                    byte[] license = vehicle.getLicensePlateNo().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(slotIndex);
+                    out.writeLong(parkedOn.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                    out.writeShort(license.length);
+                    out.write(license);
+                    occupiedSlots++;
+                }
+                out.writeInt(END_OF_SLOTS);
+                out.flush();
+                new DataOutputStream(fileOutputStream).writeInt((int) checkedOutputStream.getChecksum().getValue());
+                fileOutputStream.getFD().sync();
+            }
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return occupiedSlots;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write snapshot: " + file, e);
+        }
+    }
+
+    // Parks every vehicle of the snapshot into an empty slot store, returns the journal position to replay from
+    public static long restore(Path file, SlotStore slotStore) {
+        try (DataInputStream fileIn = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            CheckedInputStream checkedInputStream = new CheckedInputStream(fileIn, new CRC32C());
+            DataInputStream in = new DataInputStream(checkedInputStream);
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("Not a version " + FORMAT_VERSION + " snapshot: " + file);
+            }
+            int totalSlots = in.readInt();
+            if (totalSlots != slotStore.getTotalSlots()) {
+                throw new IllegalStateException(String.format(
+                        "Snapshot: %s has %s slots, lot has %s", file, totalSlots, slotStore.getTotalSlots()));
+            }
+            long journalPosition = in.readLong();
+            in.readLong(); // createdOn
+            int slotIndex;
+            while ((slotIndex = in.readInt()) != END_OF_SLOTS) {
+                long parkedOnEpochMillis = in.readLong();
+                byte[] license = new byte[in.readShort()];
+                in.readFully(license);
+                slotStore.restoreOccupiedSlot(slotIndex, new String(license, StandardCharsets.UTF_8), parkedOnEpochMillis);
+            }
+            int checksum = (int) checkedInputStream.getChecksum().getValue();
+            if (fileIn.readInt() != checksum) {
+                throw new IllegalStateException("Corrupt snapshot: " + file);
+            }
+            return journalPosition;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read snapshot: " + file, e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.demo.carparkinglot.models.layout;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// An entrance or exit of a lot, x and y in metres on its floor
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class Gate {
+    private String name;
+    private int floor;
+    private double x;
+    private double y;
+}
@@ -0,0 +1,46 @@
+package com.demo.carparkinglot.models.layout;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Slots laid out in slot id order, floor after floor, each floor in rows of slotsPerRow. Lengths are in metres
+@Getter
+@Setter
+@ToString
+public class GridLayout {
+    private int floors = 1;
+    private int slotsPerRow = 50;
+    private double slotWidth = 2.5;
+    // Distance between the aisles of two neighbouring rows
+    private double rowSpacing = 6.0;
+    // Distance the ramps add per floor between a gate and a slot
+    private double floorChange = 40.0;
+    // Without gates the lot hands out slots in no particular order
+    private List<Gate> gates = new ArrayList<>();
+
+    public boolean hasGates() {
+        return gates != null && !gates.isEmpty();
+    }
+
+    public SlotLayout toSlotLayout(int totalSlots) {
+        if (floors < 1 || slotsPerRow < 1 || !(slotWidth > 0) || !(rowSpacing > 0)) {
+            throw new IllegalArgumentException("Invalid layout, floors: " + floors + " slotsPerRow: " + slotsPerRow
+                    + " slotWidth: " + slotWidth + " rowSpacing: " + rowSpacing);
+        }
+        int slotsPerFloor = (int) Math.max(1, ((long) totalSlots + floors - 1) / floors);
+        int[] slotFloors = new int[totalSlots];
+        float[] xs = new float[totalSlots];
+        float[] ys = new float[totalSlots];
+        for (int slotIndex = 0; slotIndex < totalSlots; slotIndex++) {
+            int slotOnFloor = slotIndex % slotsPerFloor;
+            slotFloors[slotIndex] = slotIndex / slotsPerFloor;
+            xs[slotIndex] = (float) ((slotOnFloor % slotsPerRow + 0.5) * slotWidth);
+            ys[slotIndex] = (float) (slotOnFloor / slotsPerRow * rowSpacing);
+        }
+        return new SlotLayout(slotFloors, xs, ys, gates, floorChange);
+    }
+}
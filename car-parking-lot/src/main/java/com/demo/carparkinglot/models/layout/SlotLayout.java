@@ -0,0 +1,78 @@
+package com.demo.carparkinglot.models.layout;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Where every slot of a lot is, its floor and its position on that floor, and where the gates of the lot are.
+ * Immutable, slot i of the arrays is slot index i of the lot.
+ * <p>
+ * The distance from a gate to a slot is what a driver covers between them: the aisles run along the axes, so
+ * |dx| + |dy| on the floor, plus floorChange for each floor of ramp in between. Positions are floats, a slot is
+ * metres wide, so centimetre precision is plenty and it halves the memory of very large lots.
+ */
+public final class SlotLayout {
+    private final int[] floors;
+    private final float[] xs;
+    private final float[] ys;
+    private final List<Gate> gates;
+    private final double floorChange;
+
+    public SlotLayout(int[] floors, float[] xs, float[] ys, List<Gate> gates, double floorChange) {
+        if (xs.length != floors.length || ys.length != floors.length) {
+            throw new IllegalArgumentException("Slot floors and positions differ in length");
+        }
+        if (Objects.isNull(gates) || gates.isEmpty() || !(floorChange >= 0)) {
+            throw new IllegalArgumentException("Layout needs gates and a floor change of 0 or more, floorChange: " + floorChange);
+        }
+        Set<String> gateNames = new HashSet<>();
+        for (Gate gate : gates) {
+            if (Objects.isNull(gate.getName()) || !gateNames.add(gate.getName())) {
+                throw new IllegalArgumentException("Gates need distinct names, gates: " + gates);
+            }
+        }
+        this.floors = floors;
+        this.xs = xs;
+        this.ys = ys;
+        this.gates = List.copyOf(gates);
+        this.floorChange = floorChange;
+    }
+
+    public int getTotalSlots() {
+        return floors.length;
+    }
+
+    public List<Gate> getGates() {
+        return gates;
+    }
+
+    // -1 when the lot has no such gate
+    public int gateNoOf(String gateName) {
+        for (int gateNo = 0; gateNo < gates.size(); gateNo++) {
+            if (gates.get(gateNo).getName().equals(gateName)) {
+                return gateNo;
+            }
+        }
+        return -1;
+    }
+
+    public int getFloor(int slotIndex) {
+        return floors[slotIndex];
+    }
+
+    public double getX(int slotIndex) {
+        return xs[slotIndex];
+    }
+
+    public double getY(int slotIndex) {
+        return ys[slotIndex];
+    }
+
+    public double distance(int gateNo, int slotIndex) {
+        Gate gate = gates.get(gateNo);
+        return Math.abs(xs[slotIndex] - gate.getX()) + Math.abs(ys[slotIndex] - gate.getY())
+                + Math.abs(floors[slotIndex] - gate.getFloor()) * floorChange;
+    }
+}
@@ -0,0 +1,46 @@
+package com.demo.carparkinglot.models.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket of permits per period evaluated with the generic cell rate algorithm. A bucket is a single long,
+ * the theoretical arrival time of the next permit, so taking a permit is one CAS and nothing is allocated. A bucket
+ * holding 0 (or any time in the past) is full, so buckets need no initialisation and idle ones no refilling.
+ * <p>
+ * Permits come back one at a time every period / permits instead of all at once at the end of the period, a
+ * client spending its whole burst waits that long for the next permit rather than the whole period.
+ */
+public final class CellRateLimit {
+    // Time between two permits
+    private final long emissionIntervalNanos;
+    // A permit is granted while the arrival time it leads to stays within this of now
+    private final long burstNanos;
+
+    public CellRateLimit(int permits, Duration period) {
+        if (permits < 1 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException(String.format("Invalid rate limit: %s permits per %s", permits, period));
+        }
+        this.emissionIntervalNanos = period.toNanos() / permits;
+        this.burstNanos = emissionIntervalNanos * permits;
+    }
+
+    // nowNanos must not go backwards and must be >= 0, see HierarchicalRateLimiter
+    public boolean tryAcquire(AtomicLong bucket, long nowNanos) {
+        while (true) {
+            long arrivalNanos = bucket.get();
+            long nextArrivalNanos = Math.max(arrivalNanos, nowNanos) + emissionIntervalNanos;
+            if (nextArrivalNanos - nowNanos > burstNanos) {
+                return false;
+            }
+            if (bucket.compareAndSet(arrivalNanos, nextArrivalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    // Gives back a permit taken by tryAcquire
+    public void release(AtomicLong bucket) {
+        bucket.addAndGet(-emissionIntervalNanos);
+    }
+}
@@ -0,0 +1,154 @@
+package com.demo.carparkinglot.models.ratelimit;
+
+import com.demo.carparkinglot.enums.RateLimitDecisionEnum;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Layered rate limit: a request is admitted only when its client, the /24 (IPv4) or /64 (IPv6) subnet of the
+ * client and the service as a whole all have a permit left. Layers are checked from the narrowest to the global
+ * one, so a flooding client is turned away without touching the shared buckets, and permits taken from the
+ * narrower layers are given back when a wider one refuses, so clients are not charged for the overload of others.
+ * <p>
+ * Subnet buckets live in a fixed table indexed by a hash of the subnet prefix, parsed straight from the address
+ * string. Subnets sharing an entry share a limit, which can only make the limit stricter, and the table never
+ * grows or needs evicting. Client buckets are owned by the caller, which keeps them in a bounded cache. Deciding
+ * allocates nothing.
+ */
+public class HierarchicalRateLimiter {
+    // Fibonacci hashing, spreads subnets differing in their last bits over the whole table
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final int IPV6_GROUPS = 8;
+    private static final int IPV6_PREFIX_GROUPS = 4;
+
+    private final CellRateLimit clientLimit;
+    private final CellRateLimit subnetLimit;
+    private final CellRateLimit globalLimit;
+    private final AtomicLong[] subnetBuckets;
+    private final int subnetShift;
+    private final AtomicLong globalBucket = new AtomicLong();
+    // Bucket times are taken relative to this, so a fresh bucket holding 0 is always in the past
+    private final long originNanos = System.nanoTime();
+
+    // subnetBuckets must be a power of two
+    public HierarchicalRateLimiter(CellRateLimit clientLimit, CellRateLimit subnetLimit, CellRateLimit globalLimit,
+                                   int subnetBuckets) {
+        if (subnetBuckets < 2 || Integer.bitCount(subnetBuckets) != 1) {
+            throw new IllegalArgumentException("Unsupported number of subnet buckets: " + subnetBuckets);
+        }
+        this.clientLimit = clientLimit;
+        this.subnetLimit = subnetLimit;
+        this.globalLimit = globalLimit;
+        this.subnetBuckets = new AtomicLong[subnetBuckets];
+        for (int i = 0; i < subnetBuckets; i++) {
+            this.subnetBuckets[i] = new AtomicLong();
+        }
+        this.subnetShift = 64 - Integer.numberOfTrailingZeros(subnetBuckets);
+    }
+
+    // clientBucket is the caller's bucket of remoteAddress, a new AtomicLong for a client not seen before
+    public RateLimitDecisionEnum tryAcquire(AtomicLong clientBucket, String remoteAddress) {
+        return tryAcquire(clientBucket, remoteAddress, System.nanoTime() - originNanos);
+    }
+
+    RateLimitDecisionEnum tryAcquire(AtomicLong clientBucket, String remoteAddress, long nowNanos) {
+        if (!clientLimit.tryAcquire(clientBucket, nowNanos)) {
+            return RateLimitDecisionEnum.CLIENT_LIMITED;
+        }
+        AtomicLong subnetBucket = subnetBuckets[(int) ((subnetKey(remoteAddress) * GOLDEN_RATIO) >>> subnetShift)];
+        if (!subnetLimit.tryAcquire(subnetBucket, nowNanos)) {
+            clientLimit.release(clientBucket);
+            return RateLimitDecisionEnum.SUBNET_LIMITED;
+        }
+        if (!globalLimit.tryAcquire(globalBucket, nowNanos)) {
+            subnetLimit.release(subnetBucket);
+            clientLimit.release(clientBucket);
+            return RateLimitDecisionEnum.GLOBAL_LIMITED;
+        }
+        return RateLimitDecisionEnum.ADMITTED;
+    }
+
+    // The /24 of an IPv4 address, the /64 of an IPv6 address, the hash code of anything that doesn't parse
+    static long subnetKey(String remoteAddress) {
+        return remoteAddress.indexOf(':') < 0 ? ipv4Subnet(remoteAddress) : ipv6Subnet(remoteAddress);
+    }
+
+    private static long ipv4Subnet(String remoteAddress) {
+        long address = 0;
+        int octets = 0;
+        int octet = -1;
+        for (int i = 0; i <= remoteAddress.length(); i++) {
+            char ch = i < remoteAddress.length() ? remoteAddress.charAt(i) : '.';
+            if (ch >= '0' && ch <= '9' && octet < 256) {
+                octet = Math.max(octet, 0) * 10 + ch - '0';
+            } else if (ch == '.' && octet >= 0 && octet < 256 && octets < 4) {
+                address = address << 8 | octet;
+                octets++;
+                octet = -1;
+            } else {
+                return remoteAddress.hashCode();
+            }
+        }
+        return octets == 4 ? address >>> 8 : remoteAddress.hashCode();
+    }
+
+    // Only the first four groups are parsed, a "::" among them stands for as many zero groups as the address lacks
+    private static long ipv6Subnet(String remoteAddress) {
+        int end = remoteAddress.indexOf('%');
+        end = end < 0 ? remoteAddress.length() : end;
+        int gap = remoteAddress.indexOf("::");
+        int missingGroups = 0;
+        if (gap >= 0) {
+            int groupsAfterGap = gap + 2 < end ? 1 : 0;
+            boolean embeddedIpv4 = false;
+            for (int i = gap + 2; i < end; i++) {
+                char ch = remoteAddress.charAt(i);
+                groupsAfterGap += ch == ':' ? 1 : 0;
+                embeddedIpv4 |= ch == '.';
+            }
+            // An embedded IPv4 address takes the place of two groups
+            groupsAfterGap += embeddedIpv4 ? 1 : 0;
+            int groupsBeforeGap = 0;
+            for (int i = 0; i < gap; i++) {
+                groupsBeforeGap += remoteAddress.charAt(i) == ':' ? 1 : 0;
+            }
+            groupsBeforeGap += gap > 0 ? 1 : 0;
+            missingGroups = IPV6_GROUPS - groupsBeforeGap - groupsAfterGap;
+        }
+        long prefix = 0;
+        int groups = 0;
+        int group = 0;
+        int digits = 0;
+        for (int i = 0; i < end && groups < IPV6_PREFIX_GROUPS; i++) {
+            char ch = remoteAddress.charAt(i);
+            int digit = Character.digit(ch, 16);
+            if (digit >= 0 && digits < 4) {
+                group = group << 4 | digit;
+                digits++;
+            } else if (ch == ':' && i == gap) {
+                if (i > 0) {
+                    prefix = prefix << 16 | group;
+                    groups++;
+                }
+                for (int zero = 0; zero < missingGroups && groups < IPV6_PREFIX_GROUPS; zero++, groups++) {
+                    prefix <<= 16;
+                }
+                group = 0;
+                digits = 0;
+                i++;
+            } else if (ch == ':' && digits > 0) {
+                prefix = prefix << 16 | group;
+                groups++;
+                group = 0;
+                digits = 0;
+            } else {
+                return remoteAddress.hashCode();
+            }
+        }
+        if (groups < IPV6_PREFIX_GROUPS && digits > 0) {
+            prefix = prefix << 16 | group;
+            groups++;
+        }
+        return groups == IPV6_PREFIX_GROUPS && missingGroups >= 0 ? prefix : remoteAddress.hashCode();
+    }
+}
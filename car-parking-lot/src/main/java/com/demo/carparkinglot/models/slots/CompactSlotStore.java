@@ -0,0 +1,153 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.vehicles.Car;
+import com.demo.carparkinglot.models.vehicles.Vehicle;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Struct-of-arrays slot store: one status byte, one parked-on epoch milli and one license reference per slot,
+ * 13 bytes a slot in the arrays with compressed references, instead of a few hundred for a ParkingSlot object graph.
+ * Locked and occupied slots also keep their license String alive, some 50 bytes more for a short plate. ParkingSlot
+ * instances handed out by this store are detached views built on demand.
+ * <p>
+ * Licenses are written after the status CAS that hands the slot to their holder, so they are stored with release
+ * and read with acquire access: a reader finding a license sees the whole String. A released slot clears its
+ * license only while it is still the one it released, the next holder may have stored its own already.
+ */
+public class CompactSlotStore implements SlotStore {
+    private static final VarHandle SLOT_STATUSES = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle SLOT_LOCK_LICENSE_NUMBERS = MethodHandles.arrayElementVarHandle(String[].class);
+    private static final SlotStatusEnum[] SLOT_STATUS_VALUES = SlotStatusEnum.values();
+    private static final byte AVAILABLE = (byte) SlotStatusEnum.AVAILABLE.ordinal();
+    private static final byte LOCKED = (byte) SlotStatusEnum.LOCKED.ordinal();
+    private static final byte OCCUPIED = (byte) SlotStatusEnum.OCCUPIED.ordinal();
+
+    // Status transitions are CASed, the other arrays are written by the lock holder around them. parkedOn is only
+    // read while the slot is occupied, so it is left behind when the slot is vacated
+    private final byte[] slotStatuses;
+    private final long[] parkedOnEpochMillis;
+    private final String[] slotLockLicenseNumbers;
+
+    public CompactSlotStore(int totalSlots) {
+        // AVAILABLE is ordinal 0, so freshly allocated arrays already describe an empty lot
+        this.slotStatuses = new byte[totalSlots];
+        this.parkedOnEpochMillis = new long[totalSlots];
+        this.slotLockLicenseNumbers = new String[totalSlots];
+    }
+
+    @Override
+    public int getTotalSlots() {
+        return slotStatuses.length;
+    }
+
+    @Override
+    public ParkingSlot getSlot(int slotIndex) {
+        ParkingSlot parkingSlot = new ParkingSlot(SlotStore.toSlotId(slotIndex));
+        SlotStatusEnum slotStatus = getSlotStatus(slotIndex);
+        String licenseNo = licenseOf(slotIndex);
+        parkingSlot.setSlotStatusEnum(slotStatus);
+        parkingSlot.setSlotLockLicenseNumberRef(new AtomicReference<>(licenseNo));
+        if (slotStatus == SlotStatusEnum.OCCUPIED) {
+            // Only cars can be parked today, so the vehicle type does not need to be stored
+            parkingSlot.setVehicle(new Car(licenseNo));
+            parkingSlot.setParkedOn(LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(parkedOnEpochMillis[slotIndex]), ZoneId.systemDefault()));
+        }
+        return parkingSlot;
+    }
+
+    @Override
+    public SlotStatusEnum getSlotStatus(int slotIndex) {
+        return SLOT_STATUS_VALUES[statusOf(slotIndex)];
+    }
+
+    @Override
+    public String getSlotLockVehicleLicenceNumber(int slotIndex) {
+        return licenseOf(slotIndex);
+    }
+
+    @Override
+    public void lockSlot(int slotIndex, String licenseNo) {
+        if (SLOT_STATUSES.compareAndSet(slotStatuses, slotIndex, AVAILABLE, LOCKED)) {
+            SLOT_LOCK_LICENSE_NUMBERS.setRelease(slotLockLicenseNumbers, slotIndex, licenseNo);
+        } else {
+            throw new UnsupportedOperationException(
+                    String.format("Cannot lock slot: %s having status: %s, slotLockedBy: %s",
+                            SlotStore.toSlotId(slotIndex), getSlotStatus(slotIndex), licenseOf(slotIndex)));
+        }
+    }
+
+    @Override
+    public boolean releaseLock(int slotIndex) {
+        String licenseNo = licenseOf(slotIndex);
+        if (SLOT_STATUSES.compareAndSet(slotStatuses, slotIndex, LOCKED, AVAILABLE)) {
+            clearLicense(slotIndex, licenseNo);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void occupySlot(int slotIndex, Vehicle vehicle) {
+        if (statusOf(slotIndex) == LOCKED && vehicle.getLicensePlateNo().equals(licenseOf(slotIndex))) {
+            parkedOnEpochMillis[slotIndex] = System.currentTimeMillis();
+            if (SLOT_STATUSES.compareAndSet(slotStatuses, slotIndex, LOCKED, OCCUPIED)) {
+                return;
+            }
+        }
+        throw new UnsupportedOperationException("You can't parking vehicle in a slot not locked by you...");
+    }
+
+    @Override
+    public void unlockSlot(int slotIndex, String licenseNo) {
+        String slotLockLicenseNo = licenseOf(slotIndex);
+        if (licenseNo.equals(slotLockLicenseNo)
+                && SLOT_STATUSES.compareAndSet(slotStatuses, slotIndex, OCCUPIED, AVAILABLE)) {
+            clearLicense(slotIndex, slotLockLicenseNo);
+        } else {
+            throw new UnsupportedOperationException(
+                    String.format("Can not unlock slot: %s slotStatus: %s slotLockedBy: %s",
+                            SlotStore.toSlotId(slotIndex), getSlotStatus(slotIndex), slotLockLicenseNo));
+        }
+    }
+
+    @Override
+    public void restoreOccupiedSlot(int slotIndex, String licenseNo, long parkedOnEpochMillis) {
+        lockSlot(slotIndex, licenseNo);
+        this.parkedOnEpochMillis[slotIndex] = parkedOnEpochMillis;
+        SLOT_STATUSES.setRelease(slotStatuses, slotIndex, OCCUPIED);
+    }
+
+    @Override
+    public long countSlotsHavingStatus(SlotStatusEnum slotStatus) {
+        byte status = (byte) slotStatus.ordinal();
+        long count = 0;
+        for (int slotIndex = 0; slotIndex < slotStatuses.length; slotIndex++) {
+            if (statusOf(slotIndex) == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private byte statusOf(int slotIndex) {
+        return (byte) SLOT_STATUSES.getAcquire(slotStatuses, slotIndex);
+    }
+
+    private String licenseOf(int slotIndex) {
+        return (String) SLOT_LOCK_LICENSE_NUMBERS.getAcquire(slotLockLicenseNumbers, slotIndex);
+    }
+
+    // Compares references, a lock taken since by the same vehicle may still lose its license, and then its occupy
+    private void clearLicense(int slotIndex, String licenseNo) {
+        SLOT_LOCK_LICENSE_NUMBERS.compareAndSet(slotLockLicenseNumbers, slotIndex, licenseNo, null);
+    }
+}
@@ -0,0 +1,132 @@
+package com.demo.carparkinglot.models.slots;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+/**
+ * Lock-free stack of free slot indexes (Treiber stack). Links are kept in a plain int array and the head packs
+ * a version stamp with the top index, so claiming or releasing a slot is a single CAS and is safe against ABA.
+ */
+public class FreeSlotStack {
+    private static final int EMPTY = 0;
+    private static final long INDEX_MASK = 0xFFFFFFFFL;
+
+    // next[i] holds (index + 1) of the node below slot index i, EMPTY at the bottom
+    private final int[] next;
+    // (version << 32) | (top index + 1)
+    private final AtomicLong head = new AtomicLong(EMPTY);
+    // CAS attempts lost to a concurrent pop or push, only touched under contention
+    private final LongAdder casRetries = new LongAdder();
+
+    public FreeSlotStack(int capacity) {
+        if (capacity < 0 || capacity == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported free slot stack capacity: " + capacity);
+        }
+        this.next = new int[capacity];
+    }
+
+    // Creates a stack holding every index in [0, capacity), lowest index on top
+    public static FreeSlotStack full(int capacity) {
+        FreeSlotStack stack = new FreeSlotStack(capacity);
+        for (int index = 0; index < capacity - 1; index++) {
+            stack.next[index] = index + 2;
+        }
+        stack.head.set(capacity == 0 ? EMPTY : 1);
+        return stack;
+    }
+
+    // Creates a stack holding the indexes in [0, capacity) accepted by isFree, lowest index on top
+    public static FreeSlotStack of(int capacity, IntPredicate isFree) {
+        FreeSlotStack stack = new FreeSlotStack(capacity);
+        int top = EMPTY;
+        for (int index = capacity - 1; index >= 0; index--) {
+            if (isFree.test(index)) {
+                stack.next[index] = top;
+                top = index + 1;
+            }
+        }
+        stack.head.set(top);
+        return stack;
+    }
+
+    // Returns a claimed slot index, or -1 when no slot is free
+    public int pop() {
+        while (true) {
+            long currentHead = head.get();
+            int top = (int) (currentHead & INDEX_MASK);
+            if (top == EMPTY) {
+                return -1;
+            }
+            if (head.compareAndSet(currentHead, pack(currentHead, next[top - 1]))) {
+                return top - 1;
+            }
+            casRetries.increment();
+        }
+    }
+
+    public void push(int index) {
+        while (true) {
+            long currentHead = head.get();
+            next[index] = (int) (currentHead & INDEX_MASK);
+            if (head.compareAndSet(currentHead, pack(currentHead, index + 1))) {
+                return;
+            }
+            casRetries.increment();
+        }
+    }
+
+    // Pops up to maxCount indexes into indexes[offset..] with a single CAS, returns how many were popped.
+    // Safe to walk the links below the top: none of them can change without moving the versioned head.
+    public int popBatch(int[] indexes, int offset, int maxCount) {
+        while (true) {
+            long currentHead = head.get();
+            int top = (int) (currentHead & INDEX_MASK);
+            int count = 0;
+            while (top != EMPTY && count < maxCount) {
+                indexes[offset + count++] = top - 1;
+                top = next[top - 1];
+            }
+            if (count == 0 || head.compareAndSet(currentHead, pack(currentHead, top))) {
+                return count;
+            }
+            casRetries.increment();
+        }
+    }
+
+    // Pushes indexes[offset..offset + count) with a single CAS, indexes[offset] ends up on top
+    public void pushBatch(int[] indexes, int offset, int count) {
+        if (count == 0) {
+            return;
+        }
+        for (int i = offset; i < offset + count - 1; i++) {
+            next[indexes[i]] = indexes[i + 1] + 1;
+        }
+        int bottom = indexes[offset + count - 1];
+        while (true) {
+            long currentHead = head.get();
+            next[bottom] = (int) (currentHead & INDEX_MASK);
+            if (head.compareAndSet(currentHead, pack(currentHead, indexes[offset] + 1))) {
+                return;
+            }
+            casRetries.increment();
+        }
+    }
+
+    public boolean isEmpty() {
+        return (head.get() & INDEX_MASK) == EMPTY;
+    }
+
+    public int capacity() {
+        return next.length;
+    }
+
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    private static long pack(long previousHead, int top) {
+        long version = (previousHead >>> 32) + 1;
+        return (version << 32) | (top & INDEX_MASK);
+    }
+}
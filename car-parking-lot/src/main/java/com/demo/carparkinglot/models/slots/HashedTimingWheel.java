@@ -0,0 +1,183 @@
+package com.demo.carparkinglot.models.slots;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: scheduling is an O(1) enqueue from any thread, and each tick only visits the entries
+ * hashed to the current bucket. Entries further away than one revolution carry the number of rounds left.
+ * <p>
+ * Cancelling is an O(1) state change from any thread as well. Buckets are doubly linked lists, so the thread
+ * advancing the wheel unlinks cancelled entries at its next tick instead of holding them until their deadline.
+ */
+public class HashedTimingWheel<T> {
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    private final Bucket<T>[] buckets;
+    // Filled by scheduling threads, moved into buckets by the thread advancing the wheel
+    private final Queue<Timeout<T>> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    // Filled by cancelling threads, unlinked from their buckets by the thread advancing the wheel
+    private final Queue<Timeout<T>> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    // Scheduled, neither cancelled nor expired yet
+    private final LongAdder liveTimeouts = new LongAdder();
+    // Not a monitor, so a virtual thread advancing the wheel never pins its carrier
+    private final ReentrantLock advanceLock = new ReentrantLock();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMillis, int noOfBuckets, long startMillis) {
+        if (tickMillis <= 0 || noOfBuckets <= 0 || Integer.bitCount(noOfBuckets) != 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Tick must be positive and bucket count a power of two, tick: %s buckets: %s",
+                    tickMillis, noOfBuckets));
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.mask = noOfBuckets - 1;
+        this.buckets = new Bucket[noOfBuckets];
+        for (int i = 0; i < noOfBuckets; i++) {
+            buckets[i] = new Bucket<>();
+        }
+    }
+
+    public Timeout<T> schedule(T task, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(this, task, deadlineMillis);
+        liveTimeouts.increment();
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    // Processes every tick that has fully elapsed by nowMillis, handing expired tasks to the consumer.
+    // Tasks expire at tick granularity, at most one tick after their deadline. Returns how many expired.
+    public int advanceTo(long nowMillis, Consumer<T> expiredTaskConsumer) {
+        long elapsedTicks = (nowMillis - startMillis) / tickMillis;
+        int expired = 0;
+        advanceLock.lock();
+        try {
+            unlinkCancelledTimeouts();
+            while (currentTick < elapsedTicks) {
+                transferPendingTimeouts();
+                Bucket<T> bucket = buckets[(int) (currentTick & mask)];
+                Timeout<T> timeout = bucket.head;
+                while (timeout != null) {
+                    Timeout<T> next = timeout.next;
+                    if (timeout.remainingRounds > 0) {
+                        timeout.remainingRounds--;
+                    } else {
+                        bucket.unlink(timeout);
+                        // Loses to a cancel that got in first, the task then must not run
+                        if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                            liveTimeouts.decrement();
+                            expiredTaskConsumer.accept(timeout.task);
+                            expired++;
+                        }
+                    }
+                    timeout = next;
+                }
+                currentTick++;
+            }
+        } finally {
+            advanceLock.unlock();
+        }
+        return expired;
+    }
+
+    // Timeouts neither cancelled nor expired
+    public int size() {
+        return (int) liveTimeouts.sum();
+    }
+
+    private void transferPendingTimeouts() {
+        Timeout<T> timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.state.get() != Timeout.PENDING) {
+                continue;
+            }
+            long deadlineTick = Math.max((timeout.deadlineMillis - startMillis) / tickMillis, currentTick);
+            timeout.remainingRounds = (deadlineTick - currentTick) / buckets.length;
+            buckets[(int) (deadlineTick & mask)].link(timeout);
+        }
+    }
+
+    private void unlinkCancelledTimeouts() {
+        Timeout<T> timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            // Still pending ones are skipped by the transfer instead
+            if (timeout.bucket != null) {
+                timeout.bucket.unlink(timeout);
+            }
+        }
+    }
+
+    public static final class Timeout<T> {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedTimingWheel<T> wheel;
+        private final T task;
+        private final long deadlineMillis;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // Only touched by the thread advancing the wheel
+        private long remainingRounds;
+        private Bucket<T> bucket;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(HashedTimingWheel<T> wheel, T task, long deadlineMillis) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        // Returns false when the task already expired or was cancelled before
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.liveTimeouts.decrement();
+            wheel.cancelledTimeouts.add(this);
+            return true;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        private void link(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void unlink(Timeout<T> timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.vehicles.Car;
+import com.demo.carparkinglot.models.vehicles.Vehicle;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Slot store kept in a memory-mapped file of fixed-size slot records. Every transition writes its record in place,
+ * so the file always holds the current lot and reopening it after a restart only maps it again.
+ * <p>
+ * File layout, little endian: a {@value #HEADER_SIZE} byte header (magic, format version, total slots, record size)
+ * followed by one {@value #RECORD_SIZE} byte record per slot: int status, int license length, long parked-on epoch
+ * millis and up to {@value #MAX_LICENSE_BYTES} bytes of UTF-8 license.
+ * <p>
+ * Records reach the page cache as soon as they are written and survive a process crash. {@link #flush()} forces
+ * them to the device so they also survive an OS crash.
+ */
+@Slf4j
+public class MappedSlotStore implements SlotStore, Flushable {
+    public static final int MAX_LICENSE_BYTES = 48;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 64;
+    // Locked slot taken by the occupy of its lock holder, out of reach of other occupies and of lock expiry while its
+    // parked-on time is written. Reads as locked
+    static final int OCCUPYING = SlotStatusEnum.values().length;
+
+    private static final int MAGIC = 0x504B4C54; // "PKLT"
+    private static final int FORMAT_VERSION = 1;
+    private static final int STATUS_OFFSET = 0;
+    private static final int LICENSE_LENGTH_OFFSET = 4;
+    private static final int PARKED_ON_OFFSET = 8;
+    private static final int LICENSE_OFFSET = 16;
+
+    // Atomic access to the status and license length words of a record, the buffer is direct and records are 8-byte aligned
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final SlotStatusEnum[] SLOT_STATUS_VALUES = SlotStatusEnum.values();
+    private static final int AVAILABLE = SlotStatusEnum.AVAILABLE.ordinal();
+    private static final int LOCKED = SlotStatusEnum.LOCKED.ordinal();
+    private static final int OCCUPIED = SlotStatusEnum.OCCUPIED.ordinal();
+
+    private final Path file;
+    private final int totalSlots;
+    private final MappedByteBuffer records;
+
+    private MappedSlotStore(Path file, int totalSlots, MappedByteBuffer records) {
+        this.file = file;
+        this.totalSlots = totalSlots;
+        this.records = records;
+    }
+
+    // Maps an existing slot file, or creates one describing an empty lot of totalSlots
+    public static MappedSlotStore open(Path file, int totalSlots) {
+        long fileSize = HEADER_SIZE + (long) totalSlots * RECORD_SIZE;
+        if (totalSlots < 0 || fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported mapped slot store size: " + totalSlots);
+        }
+        try {
+            if (Objects.nonNull(file.getParent())) {
+                Files.createDirectories(file.getParent());
+            }
+            boolean existing = Files.exists(file) && Files.size(file) > 0;
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (existing && channel.size() != fileSize) {
+                    throw new IllegalStateException(String.format(
+                            "Slot file: %s has size: %s, expected: %s for %s slots", file, channel.size(), fileSize, totalSlots));
+                }
+                // The mapping stays valid after the channel is closed
+                MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+                records.order(ByteOrder.LITTLE_ENDIAN);
+                MappedSlotStore slotStore = new MappedSlotStore(file, totalSlots, records);
+                if (existing) {
+                    slotStore.checkHeader();
+                    slotStore.releaseStaleLocks();
+                } else {
+                    slotStore.writeHeader();
+                }
+                return slotStore;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map slot file: " + file, e);
+        }
+    }
+
+    @Override
+    public int getTotalSlots() {
+        return totalSlots;
+    }
+
+    @Override
+    public ParkingSlot getSlot(int slotIndex) {
+        ParkingSlot parkingSlot = new ParkingSlot(SlotStore.toSlotId(slotIndex));
+        SlotStatusEnum slotStatus = getSlotStatus(slotIndex);
+        String licenseNo = getSlotLockVehicleLicenceNumber(slotIndex);
+        parkingSlot.setSlotStatusEnum(slotStatus);
+        parkingSlot.setSlotLockLicenseNumberRef(new AtomicReference<>(licenseNo));
+        if (slotStatus == SlotStatusEnum.OCCUPIED) {
+            // Only cars can be parked today, so the vehicle type does not need to be stored
+            parkingSlot.setVehicle(new Car(licenseNo));
+            parkingSlot.setParkedOn(LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(records.getLong(recordOffset(slotIndex) + PARKED_ON_OFFSET)), ZoneId.systemDefault()));
+        }
+        return parkingSlot;
+    }
+
+    @Override
+    public SlotStatusEnum getSlotStatus(int slotIndex) {
+        int status = statusOf(slotIndex);
+        return SLOT_STATUS_VALUES[status == OCCUPYING ? LOCKED : status];
+    }
+
+    @Override
+    public String getSlotLockVehicleLicenceNumber(int slotIndex) {
+        int recordOffset = recordOffset(slotIndex);
+        // Published after the license bytes it covers
+        int licenseLength = (int) INTS.getAcquire(records, recordOffset + LICENSE_LENGTH_OFFSET);
+        if (licenseLength <= 0) {
+            return null;
+        }
+        byte[] license = new byte[licenseLength];
+        records.get(recordOffset + LICENSE_OFFSET, license);
+        return new String(license, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void lockSlot(int slotIndex, String licenseNo) {
+        byte[] license = licenseNo.getBytes(StandardCharsets.UTF_8);
+        if (license.length > MAX_LICENSE_BYTES) {
+            throw new UnsupportedOperationException(String.format(
+                    "License plate: %s is longer than %s bytes", licenseNo, MAX_LICENSE_BYTES));
+        }
+        int recordOffset = recordOffset(slotIndex);
+        if (INTS.compareAndSet(records, recordOffset + STATUS_OFFSET, AVAILABLE, LOCKED)) {
+            records.put(recordOffset + LICENSE_OFFSET, license);
+            INTS.setRelease(records, recordOffset + LICENSE_LENGTH_OFFSET, license.length);
+        } else {
+            throw new UnsupportedOperationException(
+                    String.format("Cannot lock slot: %s having status: %s, slotLockedBy: %s",
+                            SlotStore.toSlotId(slotIndex), getSlotStatus(slotIndex), getSlotLockVehicleLicenceNumber(slotIndex)));
+        }
+    }
+
+    @Override
+    public boolean releaseLock(int slotIndex) {
+        int recordOffset = recordOffset(slotIndex);
+        if (INTS.compareAndSet(records, recordOffset + STATUS_OFFSET, LOCKED, AVAILABLE)) {
+            INTS.setRelease(records, recordOffset + LICENSE_LENGTH_OFFSET, 0);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void occupySlot(int slotIndex, Vehicle vehicle) {
+        int recordOffset = recordOffset(slotIndex);
+        // The license can't change while the slot is taken, so it is checked once the slot is ours. parkedOn is then
+        // written by this occupy alone and published with the status, like restoreOccupiedSlot does
+        if (INTS.compareAndSet(records, recordOffset + STATUS_OFFSET, LOCKED, OCCUPYING)) {
+            if (vehicle.getLicensePlateNo().equals(getSlotLockVehicleLicenceNumber(slotIndex))) {
+                records.putLong(recordOffset + PARKED_ON_OFFSET, System.currentTimeMillis());
+                INTS.setRelease(records, recordOffset + STATUS_OFFSET, OCCUPIED);
+                return;
+            }
+            INTS.setRelease(records, recordOffset + STATUS_OFFSET, LOCKED);
+        }
+        throw new UnsupportedOperationException("You can't parking vehicle in a slot not locked by you...");
+    }
+
+    @Override
+    public void unlockSlot(int slotIndex, String licenseNo) {
+        int recordOffset = recordOffset(slotIndex);
+        if (licenseNo.equals(getSlotLockVehicleLicenceNumber(slotIndex))
+                && INTS.compareAndSet(records, recordOffset + STATUS_OFFSET, OCCUPIED, AVAILABLE)) {
+            records.putLong(recordOffset + PARKED_ON_OFFSET, 0L);
+            INTS.setRelease(records, recordOffset + LICENSE_LENGTH_OFFSET, 0);
+        } else {
+            throw new UnsupportedOperationException(
+                    String.format("Can not unlock slot: %s slotStatus: %s slotLockedBy: %s",
+                            SlotStore.toSlotId(slotIndex), getSlotStatus(slotIndex), getSlotLockVehicleLicenceNumber(slotIndex)));
+        }
+    }
+
+    @Override
+    public void restoreOccupiedSlot(int slotIndex, String licenseNo, long parkedOnEpochMillis) {
+        lockSlot(slotIndex, licenseNo);
+        int recordOffset = recordOffset(slotIndex);
+        records.putLong(recordOffset + PARKED_ON_OFFSET, parkedOnEpochMillis);
+        INTS.setRelease(records, recordOffset + STATUS_OFFSET, OCCUPIED);
+    }
+
+    @Override
+    public long countSlotsHavingStatus(SlotStatusEnum slotStatus) {
+        long count = 0;
+        for (int slotIndex = 0; slotIndex < totalSlots; slotIndex++) {
+            if (getSlotStatus(slotIndex) == slotStatus) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void flush() {
+        records.force();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private int statusOf(int slotIndex) {
+        return (int) INTS.getAcquire(records, recordOffset(slotIndex) + STATUS_OFFSET);
+    }
+
+    private static int recordOffset(int slotIndex) {
+        return HEADER_SIZE + slotIndex * RECORD_SIZE;
+    }
+
+    private void writeHeader() {
+        records.putInt(0, MAGIC);
+        records.putInt(4, FORMAT_VERSION);
+        records.putInt(8, totalSlots);
+        records.putInt(12, RECORD_SIZE);
+        records.force();
+    }
+
+    private void checkHeader() {
+        if (records.getInt(0) != MAGIC || records.getInt(4) != FORMAT_VERSION
+                || records.getInt(8) != totalSlots || records.getInt(12) != RECORD_SIZE) {
+            throw new IllegalStateException(String.format(
+                    "Slot file: %s is not a version %s slot file for %s slots", file, FORMAT_VERSION, totalSlots));
+        }
+    }
+
+    // Locks are only meaningful to the process that took them, their leases did not survive the restart. Neither did
+    // occupies cut short by it, they were never acknowledged
+    private void releaseStaleLocks() {
+        int releasedLocks = 0;
+        for (int slotIndex = 0; slotIndex < totalSlots; slotIndex++) {
+            if (statusOf(slotIndex) == OCCUPYING) {
+                INTS.setRelease(records, recordOffset(slotIndex) + STATUS_OFFSET, LOCKED);
+            }
+            if (releaseLock(slotIndex)) {
+                releasedLocks++;
+            }
+        }
+        if (releasedLocks > 0) {
+            log.warn("Released {} slot locks left in slot file: {}", releasedLocks, file);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.models.layout.SlotLayout;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+/**
+ * Lock-free index of the free slots of a lot by distance from each of its gates, claiming the free slot nearest to a
+ * gate takes a few word reads instead of a scan of the lot. The layout never changes, so every slot is ranked by its
+ * distance from each gate once, when the lot is built, and only its free bit moves afterwards. Per gate, a bitmap in
+ * rank order holds the free slots and a summary bitmap one bit per bitmap word that may be non-zero, so the nearest
+ * free slot is the lowest set bit: one summary word covers 4096 ranks, a full search reads slots / 4096 of them.
+ * <p>
+ * A slot is free for every gate at once, so owning it is decided by a CAS on a single bitmap of claimed slots, in slot
+ * order, which hands the winner exclusive ownership like popping a free stack does. The winner then clears the slot
+ * from the bitmap of each gate, a searcher meanwhile finding it still set loses the claim and moves on to the next
+ * rank. A release sets the gate bits before dropping the claim, so while a slot is claimed only its owner touches its
+ * gate bits and no bit of a claimed slot is ever left set behind.
+ * <p>
+ * Ranks take two ints per slot and gate, on top of one bit per slot and gate for the bitmaps.
+ */
+public final class NearestFreeSlotIndex {
+    private static final int WORD_SHIFT = 6;
+
+    private final int totalSlots;
+    // slotsByRank[gateNo][rank], nearest slot first
+    private final int[][] slotsByRank;
+    // ranksOfSlot[gateNo][slotIndex]
+    private final int[][] ranksOfSlot;
+    // Bit rank of freeRanks[gateNo] is set while slotsByRank[gateNo][rank] is free
+    private final AtomicLongArray[] freeRanks;
+    // Bit w of freeWords[gateNo] is set while word w of freeRanks[gateNo] may have a set bit
+    private final AtomicLongArray[] freeWords;
+    // Bit slotIndex is set while the slot is claimed
+    private final AtomicLongArray claimedSlots;
+    // CAS attempts lost to a concurrent claim or release, only touched under contention
+    private final LongAdder casRetries = new LongAdder();
+
+    // isFreeSlotIndex tells which slots start out free, the others start out claimed
+    public NearestFreeSlotIndex(SlotLayout slotLayout, IntPredicate isFreeSlotIndex) {
+        this.totalSlots = slotLayout.getTotalSlots();
+        int noOfGates = slotLayout.getGates().size();
+        this.slotsByRank = new int[noOfGates][];
+        this.ranksOfSlot = new int[noOfGates][];
+        this.freeRanks = new AtomicLongArray[noOfGates];
+        this.freeWords = new AtomicLongArray[noOfGates];
+        this.claimedSlots = new AtomicLongArray(wordsFor(totalSlots));
+        for (int slotIndex = 0; slotIndex < totalSlots; slotIndex++) {
+            if (!isFreeSlotIndex.test(slotIndex)) {
+                claimedSlots.set(slotIndex >>> WORD_SHIFT, claimedSlots.get(slotIndex >>> WORD_SHIFT) | 1L << slotIndex);
+            }
+        }
+        for (int gateNo = 0; gateNo < noOfGates; gateNo++) {
+            rankSlots(slotLayout, gateNo);
+        }
+    }
+
+    // Returns the claimed slot index nearest to the gate, or -1 when no slot is free
+    public int claimNearest(int gateNo) {
+        int rank = claimRank(gateNo, 0);
+        return rank < 0 ? -1 : slotsByRank[gateNo][rank];
+    }
+
+    // Claims up to maxCount slot indexes into slotIndexes[offset..], nearest first, returns how many were claimed.
+    // Each search resumes after the rank of the previous claim, nearer ranks were all taken a moment ago
+    public int claimNearest(int gateNo, int[] slotIndexes, int offset, int maxCount) {
+        int claimed = 0;
+        int rank = 0;
+        while (claimed < maxCount && (rank = claimRank(gateNo, rank)) >= 0) {
+            slotIndexes[offset + claimed++] = slotsByRank[gateNo][rank++];
+        }
+        return claimed;
+    }
+
+    public void release(int slotIndex) {
+        for (int gateNo = 0; gateNo < slotsByRank.length; gateNo++) {
+            int rank = ranksOfSlot[gateNo][slotIndex];
+            setBit(freeRanks[gateNo], rank);
+            setBit(freeWords[gateNo], rank >>> WORD_SHIFT);
+        }
+        clearBit(claimedSlots, slotIndex);
+    }
+
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    private int claimRank(int gateNo, int fromRank) {
+        int rank = fromRank;
+        while ((rank = nextFreeRank(gateNo, rank)) >= 0) {
+            int slotIndex = slotsByRank[gateNo][rank];
+            if (claimSlot(slotIndex)) {
+                for (int otherGateNo = 0; otherGateNo < slotsByRank.length; otherGateNo++) {
+                    clearRank(otherGateNo, ranksOfSlot[otherGateNo][slotIndex]);
+                }
+                return rank;
+            }
+            rank++;
+        }
+        return -1;
+    }
+
+    // Lowest set rank at or after fromRank, -1 when there is none
+    private int nextFreeRank(int gateNo, int fromRank) {
+        AtomicLongArray ranks = freeRanks[gateNo];
+        int word = fromRank >>> WORD_SHIFT;
+        if (word >= ranks.length()) {
+            return -1;
+        }
+        long bits = ranks.get(word) & -1L << fromRank;
+        if (bits != 0) {
+            return word << WORD_SHIFT | Long.numberOfTrailingZeros(bits);
+        }
+        AtomicLongArray words = freeWords[gateNo];
+        int firstWord = word + 1;
+        for (int summaryWord = firstWord >>> WORD_SHIFT; summaryWord < words.length(); summaryWord++) {
+            long summary = words.get(summaryWord);
+            if (summaryWord == firstWord >>> WORD_SHIFT) {
+                summary &= -1L << firstWord;
+            }
+            for (; summary != 0; summary &= summary - 1) {
+                int candidateWord = summaryWord << WORD_SHIFT | Long.numberOfTrailingZeros(summary);
+                bits = ranks.get(candidateWord);
+                if (bits != 0) {
+                    return candidateWord << WORD_SHIFT | Long.numberOfTrailingZeros(bits);
+                }
+            }
+        }
+        // A clear racing the release of another rank of the same word can drop its summary bit for a moment, so
+        // only the bitmap itself can tell the lot is full. Slots / 64 words, only read when nothing was found
+        for (int candidateWord = firstWord; candidateWord < ranks.length(); candidateWord++) {
+            bits = ranks.get(candidateWord);
+            if (bits != 0) {
+                return candidateWord << WORD_SHIFT | Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return -1;
+    }
+
+    private boolean claimSlot(int slotIndex) {
+        int word = slotIndex >>> WORD_SHIFT;
+        long bit = 1L << slotIndex;
+        while (true) {
+            long bits = claimedSlots.get(word);
+            if ((bits & bit) != 0) {
+                return false;
+            }
+            if (claimedSlots.compareAndSet(word, bits, bits | bit)) {
+                return true;
+            }
+            casRetries.increment();
+        }
+    }
+
+    private void clearRank(int gateNo, int rank) {
+        int word = rank >>> WORD_SHIFT;
+        AtomicLongArray ranks = freeRanks[gateNo];
+        if (clearBit(ranks, rank) == 0) {
+            AtomicLongArray words = freeWords[gateNo];
+            clearBit(words, word);
+            // A rank of the word released in between keeps its summary bit
+            if (ranks.get(word) != 0) {
+                setBit(words, word);
+            }
+        }
+    }
+
+    private void setBit(AtomicLongArray bitmap, int bitNo) {
+        int word = bitNo >>> WORD_SHIFT;
+        long bit = 1L << bitNo;
+        long bits;
+        while (((bits = bitmap.get(word)) & bit) == 0 && !bitmap.compareAndSet(word, bits, bits | bit)) {
+            casRetries.increment();
+        }
+    }
+
+    // Returns the word left after clearing the bit
+    private long clearBit(AtomicLongArray bitmap, int bitNo) {
+        int word = bitNo >>> WORD_SHIFT;
+        long bit = 1L << bitNo;
+        while (true) {
+            long bits = bitmap.get(word);
+            if ((bits & bit) == 0 || bitmap.compareAndSet(word, bits, bits & ~bit)) {
+                return bits & ~bit;
+            }
+            casRetries.increment();
+        }
+    }
+
+    // Sorts (distance, slot index) pairs packed in longs, so ties go to the lower slot and no slot is boxed
+    private void rankSlots(SlotLayout slotLayout, int gateNo) {
+        long[] byDistance = new long[totalSlots];
+        for (int slotIndex = 0; slotIndex < totalSlots; slotIndex++) {
+            long centimetres = Math.min(Integer.MAX_VALUE, Math.round(slotLayout.distance(gateNo, slotIndex) * 100));
+            byDistance[slotIndex] = centimetres << 32 | slotIndex;
+        }
+        Arrays.parallelSort(byDistance);
+        int[] slots = new int[totalSlots];
+        int[] ranks = new int[totalSlots];
+        long[] rankWords = new long[wordsFor(totalSlots)];
+        long[] summaryWords = new long[wordsFor(rankWords.length)];
+        for (int rank = 0; rank < totalSlots; rank++) {
+            int slotIndex = (int) byDistance[rank];
+            slots[rank] = slotIndex;
+            ranks[slotIndex] = rank;
+            if ((claimedSlots.get(slotIndex >>> WORD_SHIFT) & 1L << slotIndex) == 0) {
+                rankWords[rank >>> WORD_SHIFT] |= 1L << rank;
+                summaryWords[rank >>> 2 * WORD_SHIFT] |= 1L << (rank >>> WORD_SHIFT);
+            }
+        }
+        slotsByRank[gateNo] = slots;
+        ranksOfSlot[gateNo] = ranks;
+        freeRanks[gateNo] = new AtomicLongArray(rankWords);
+        freeWords[gateNo] = new AtomicLongArray(summaryWords);
+    }
+
+    private static int wordsFor(int bits) {
+        return (bits + 63) >>> WORD_SHIFT;
+    }
+}
@@ -0,0 +1,74 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.vehicles.Car;
+import com.demo.carparkinglot.models.vehicles.Vehicle;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+public class ObjectSlotStore implements SlotStore {
+    private final ParkingSlot[] parkingSlots;
+
+    public ObjectSlotStore(int totalSlots) {
+        this.parkingSlots = new ParkingSlot[totalSlots];
+        // Allocating millions of slots is the bulk of startup for large lots, spread it over all cores
+        Arrays.parallelSetAll(parkingSlots, slotIndex -> new ParkingSlot(SlotStore.toSlotId(slotIndex)));
+    }
+
+    @Override
+    public int getTotalSlots() {
+        return parkingSlots.length;
+    }
+
+    @Override
+    public ParkingSlot getSlot(int slotIndex) {
+        return parkingSlots[slotIndex];
+    }
+
+    @Override
+    public SlotStatusEnum getSlotStatus(int slotIndex) {
+        return parkingSlots[slotIndex].getSlotStatusEnum();
+    }
+
+    @Override
+    public String getSlotLockVehicleLicenceNumber(int slotIndex) {
+        return parkingSlots[slotIndex].getSlotLockVehicleLicenceNumber();
+    }
+
+    @Override
+    public void lockSlot(int slotIndex, String licenseNo) {
+        parkingSlots[slotIndex].lockSlot(licenseNo);
+    }
+
+    @Override
+    public boolean releaseLock(int slotIndex) {
+        return parkingSlots[slotIndex].releaseLock();
+    }
+
+    @Override
+    public void occupySlot(int slotIndex, Vehicle vehicle) {
+        parkingSlots[slotIndex].occupySlot(vehicle);
+    }
+
+    @Override
+    public void unlockSlot(int slotIndex, String licenseNo) {
+        parkingSlots[slotIndex].unlockSlot(licenseNo);
+    }
+
+    @Override
+    public void restoreOccupiedSlot(int slotIndex, String licenseNo, long parkedOnEpochMillis) {
+        ParkingSlot parkingSlot = parkingSlots[slotIndex];
+        parkingSlot.lockSlot(licenseNo);
+        parkingSlot.occupySlot(new Car(licenseNo));
+        parkingSlot.setParkedOn(LocalDateTime.ofInstant(Instant.ofEpochMilli(parkedOnEpochMillis), ZoneId.systemDefault()));
+    }
+
+    @Override
+    public long countSlotsHavingStatus(SlotStatusEnum slotStatus) {
+        return Arrays.stream(parkingSlots).filter(s -> s.getSlotStatusEnum() == slotStatus).count();
+    }
+}
@@ -0,0 +1,152 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingSlot;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable, versioned view of the slots of a lot and of their per-status counts, the read endpoints are served from
+ * it instead of the live slot store. It is composed of one ShardOccupancySnapshot per shard, each published by the
+ * transitions of its own slots, so writers only ever race within a shard. A reader composes the latest version of
+ * every shard without ever waiting on a writer.
+ * <p>
+ * The view is consistent per shard only. Everything read from one shard, status, vehicle, parking time and counts,
+ * belongs to one version of it, so no slot is seen mid-transition and the counts of every shard, and so of the lot,
+ * add up to the total. The shards are read one after the other though, so a composition may hold one shard as it
+ * was before some transition and another as it was after a later one: the lot as a whole need not have been in
+ * that state at any single point in time.
+ * <p>
+ * The version tag names the version of every shard composed, so two compositions get the same tag only when they
+ * hold the same versions, and so the same slots. It also identifies the lot incarnation, so tags handed out before
+ * a restart never match the versions counted again from 0 after it.
+ */
+public final class OccupancySnapshot {
+    private static final SlotStatusEnum[] SLOT_STATUS_VALUES = SlotStatusEnum.values();
+
+    private final long incarnation;
+    // In slot index order, covering the lot without gaps
+    private final ShardOccupancySnapshot[] shardSnapshots;
+    private final int totalSlots;
+    // Sum of the shard versions, the transitions composed. Different compositions can have the same sum
+    private final long version;
+    // Indexed by SlotStatusEnum ordinal
+    private final long[] slotCounts;
+
+    private OccupancySnapshot(long incarnation, ShardOccupancySnapshot[] shardSnapshots) {
+        this.incarnation = incarnation;
+        this.shardSnapshots = shardSnapshots;
+        long[] slotCounts = new long[SLOT_STATUS_VALUES.length];
+        int totalSlots = 0;
+        long version = 0;
+        for (ShardOccupancySnapshot shardSnapshot : shardSnapshots) {
+            totalSlots += shardSnapshot.getSlotCount();
+            version += shardSnapshot.getVersion();
+            for (SlotStatusEnum slotStatus : SLOT_STATUS_VALUES) {
+                slotCounts[slotStatus.ordinal()] += shardSnapshot.getSlotsHavingStatus(slotStatus);
+            }
+        }
+        this.totalSlots = totalSlots;
+        this.version = version;
+        this.slotCounts = slotCounts;
+    }
+
+    // Version 0 of a lot kept as a single shard, taken from a slot store nobody transitions yet
+    public static OccupancySnapshot of(SlotStore slotStore) {
+        return of(slotStore, new int[]{0});
+    }
+
+    // Version 0 of a lot whose shard i owns the slot indexes from firstSlotIndexes[i] up to the next shard's
+    public static OccupancySnapshot of(SlotStore slotStore, int[] firstSlotIndexes) {
+        ShardOccupancySnapshot[] shardSnapshots = new ShardOccupancySnapshot[firstSlotIndexes.length];
+        for (int shardNo = 0; shardNo < firstSlotIndexes.length; shardNo++) {
+            int nextFirstSlotIndex = shardNo + 1 < firstSlotIndexes.length
+                    ? firstSlotIndexes[shardNo + 1] : slotStore.getTotalSlots();
+            shardSnapshots[shardNo] = ShardOccupancySnapshot.of(slotStore, firstSlotIndexes[shardNo],
+                    nextFirstSlotIndex - firstSlotIndexes[shardNo]);
+        }
+        return new OccupancySnapshot(ThreadLocalRandom.current().nextLong(), shardSnapshots);
+    }
+
+    // Version of the lot incarnation made of the given versions of its shards, in slot index order. The array is
+    // kept, callers hand over one they no longer write to
+    public static OccupancySnapshot compose(long incarnation, ShardOccupancySnapshot[] shardSnapshots) {
+        return new OccupancySnapshot(incarnation, shardSnapshots);
+    }
+
+    // Next version, having the slot in the given state. licenseNo is the lock holder or occupant, null when available
+    public OccupancySnapshot withSlot(int slotIndex, SlotStatusEnum slotStatus, String licenseNo, long parkedOnEpochMillis) {
+        int shardNo = shardNoOf(slotIndex);
+        ShardOccupancySnapshot[] newShardSnapshots = shardSnapshots.clone();
+        newShardSnapshots[shardNo] = shardSnapshots[shardNo].withSlot(slotIndex, slotStatus, licenseNo, parkedOnEpochMillis);
+        return new OccupancySnapshot(incarnation, newShardSnapshots);
+    }
+
+    public long getIncarnation() {
+        return incarnation;
+    }
+
+    public ShardOccupancySnapshot getShardSnapshot(int shardNo) {
+        return shardSnapshots[shardNo];
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Opaque tag naming these shard versions of this lot, fit for an ETag
+    public String getVersionTag() {
+        StringBuilder versionTag = new StringBuilder(Long.toHexString(incarnation)).append('-');
+        for (int shardNo = 0; shardNo < shardSnapshots.length; shardNo++) {
+            if (shardNo > 0) {
+                versionTag.append('.');
+            }
+            versionTag.append(shardSnapshots[shardNo].getVersion());
+        }
+        return versionTag.toString();
+    }
+
+    public int getTotalSlots() {
+        return totalSlots;
+    }
+
+    public long getSlotsHavingStatus(SlotStatusEnum slotStatus) {
+        return slotCounts[slotStatus.ordinal()];
+    }
+
+    public SlotStatusEnum getSlotStatus(int slotIndex) {
+        return shardSnapshots[shardNoOf(slotIndex)].getSlotStatus(slotIndex);
+    }
+
+    public String getSlotLockVehicleLicenceNumber(int slotIndex) {
+        return shardSnapshots[shardNoOf(slotIndex)].getSlotLockVehicleLicenceNumber(slotIndex);
+    }
+
+    // Detached slot built from this version, empty for slot ids outside of the lot
+    public Optional<ParkingSlot> getSlotById(long slotId) {
+        if (slotId < 1 || slotId > totalSlots) {
+            return Optional.empty();
+        }
+        int slotIndex = SlotStore.toSlotIndex(slotId);
+        return Optional.of(shardSnapshots[shardNoOf(slotIndex)].getSlot(slotIndex));
+    }
+
+    // Last shard starting at or before the slot index, O(log shards)
+    private int shardNoOf(int slotIndex) {
+        if (slotIndex < 0 || slotIndex >= totalSlots) {
+            throw new IllegalArgumentException("Slot index: " + slotIndex + " outside of the lot of: " + totalSlots + " slots");
+        }
+        int low = 0;
+        int high = shardSnapshots.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (shardSnapshots[mid].getFirstSlotIndex() <= slotIndex) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
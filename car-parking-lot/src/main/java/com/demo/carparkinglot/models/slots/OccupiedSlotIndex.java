@@ -0,0 +1,193 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.models.vehicles.LicensePlates;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * License to slot index map of parked vehicles. Licenses that pack into a long (see {@link LicensePlates#pack})
+ * live in an open-addressing table of parallel long key and int slot index arrays with linear probing, so an entry
+ * costs 12 bytes of table instead of a map node and a boxed Integer, and a lookup compares longs instead of hashing
+ * and comparing strings. Licenses that don't pack fall back to a ConcurrentHashMap keyed by the license itself.
+ * <p>
+ * Writers hold the write lock of a StampedLock. Readers probe under an optimistic stamp and only take the read lock
+ * when a writer got in between, so lookups don't write shared memory.
+ */
+public class OccupiedSlotIndex {
+    public static final int NO_SLOT = -1;
+    private static final long FREE = LicensePlates.UNPACKED;
+    private static final int MIN_CAPACITY = 16;
+    // Fibonacci hashing, spreads keys of plates sharing a prefix over the whole table
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final StampedLock lock = new StampedLock();
+    private final Map<String, Integer> unpackedLicenses = new ConcurrentHashMap<>();
+    // Write lock acquisitions that had to wait for another writer, and how long they waited in total
+    private final LongAdder writeLockWaits = new LongAdder();
+    private final LongAdder writeLockWaitNanos = new LongAdder();
+    private long[] keys = new long[MIN_CAPACITY];
+    private int[] slotIndexes = new int[MIN_CAPACITY];
+    private int packedEntries;
+
+    // key is LicensePlates.pack(licenseNo), computed once by the caller
+    public int get(long key, String licenseNo) {
+        if (key == LicensePlates.UNPACKED) {
+            return unpackedLicenses.getOrDefault(licenseNo, NO_SLOT);
+        }
+        long stamp = lock.tryOptimisticRead();
+        int slotIndex = find(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                slotIndex = find(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return slotIndex;
+    }
+
+    public boolean contains(long key, String licenseNo) {
+        return get(key, licenseNo) != NO_SLOT;
+    }
+
+    public void put(long key, String licenseNo, int slotIndex) {
+        if (key == LicensePlates.UNPACKED) {
+            unpackedLicenses.put(licenseNo, slotIndex);
+            return;
+        }
+        long stamp = writeLock();
+        try {
+            int mask = keys.length - 1;
+            int i = bucket(key, keys.length);
+            while (keys[i] != FREE && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            slotIndexes[i] = slotIndex;
+            if (keys[i] == FREE) {
+                keys[i] = key;
+                // Keep the table at most 3/4 full so probe sequences stay short
+                if (++packedEntries > keys.length - (keys.length >>> 2)) {
+                    resize(keys.length << 1);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Removes the license only while it still maps to slotIndex
+    public boolean remove(long key, String licenseNo, int slotIndex) {
+        if (key == LicensePlates.UNPACKED) {
+            return unpackedLicenses.remove(licenseNo, slotIndex);
+        }
+        long stamp = writeLock();
+        try {
+            int mask = keys.length - 1;
+            int i = bucket(key, keys.length);
+            while (keys[i] != key) {
+                if (keys[i] == FREE) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            if (slotIndexes[i] != slotIndex) {
+                return false;
+            }
+            // Backward shift deletion, entries probed past the hole move into it so no tombstones are needed
+            int hole = i;
+            for (int j = (hole + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+                int home = bucket(keys[j], keys.length);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    slotIndexes[hole] = slotIndexes[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = FREE;
+            packedEntries--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public long getWriteLockWaits() {
+        return writeLockWaits.sum();
+    }
+
+    public long getWriteLockWaitNanos() {
+        return writeLockWaitNanos.sum();
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return packedEntries + unpackedLicenses.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Uncontended acquisitions don't read the clock
+    private long writeLock() {
+        long stamp = lock.tryWriteLock();
+        if (stamp == 0L) {
+            long startNanos = System.nanoTime();
+            stamp = lock.writeLock();
+            writeLockWaitNanos.add(System.nanoTime() - startNanos);
+            writeLockWaits.increment();
+        }
+        return stamp;
+    }
+
+    // Also called by optimistic readers, which may see the table mid-write, so it must neither throw nor loop forever
+    private int find(long key) {
+        long[] keys = this.keys;
+        int[] slotIndexes = this.slotIndexes;
+        if (keys.length != slotIndexes.length) {
+            return NO_SLOT;
+        }
+        int mask = keys.length - 1;
+        int i = bucket(key, keys.length);
+        for (int probes = 0; probes < keys.length; probes++) {
+            long probedKey = keys[i];
+            if (probedKey == key) {
+                return slotIndexes[i];
+            }
+            if (probedKey == FREE) {
+                return NO_SLOT;
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_SLOT;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldSlotIndexes = slotIndexes;
+        long[] newKeys = new long[capacity];
+        int[] newSlotIndexes = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int j = bucket(oldKeys[i], capacity);
+                while (newKeys[j] != FREE) {
+                    j = (j + 1) & mask;
+                }
+                newKeys[j] = oldKeys[i];
+                newSlotIndexes[j] = oldSlotIndexes[i];
+            }
+        }
+        keys = newKeys;
+        slotIndexes = newSlotIndexes;
+    }
+
+    // capacity is a power of two
+    private static int bucket(long key, int capacity) {
+        return (int) ((key * GOLDEN_RATIO) >>> (64 - Integer.numberOfTrailingZeros(capacity)));
+    }
+}
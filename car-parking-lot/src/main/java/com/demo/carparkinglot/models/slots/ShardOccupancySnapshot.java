@@ -0,0 +1,191 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.vehicles.Car;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable, versioned view of the slots of one shard of a lot, the contiguous range of slot indexes the shard owns,
+ * and of their per-status counts. Each shard publishes its own versions, so transitions of slots in different shards
+ * never race on the same reference, and OccupancySnapshot composes the shards of a lot when it is read.
+ * <p>
+ * Slots are kept in a persistent trie of 32-way nodes over the slot index within the shard, with struct-of-arrays
+ * leaves of 32 slots. A transition builds the next version by copying only the leaf of its slot and the nodes above
+ * it, O(log32 slots), everything else is shared with the previous version. Subtrees of available slots are left out,
+ * so an empty shard costs nothing and a full one about 13 bytes a slot in its leaves, plus the license Strings it
+ * references.
+ */
+public final class ShardOccupancySnapshot {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final SlotStatusEnum[] SLOT_STATUS_VALUES = SlotStatusEnum.values();
+
+    private final int firstSlotIndex;
+    private final int slotCount;
+    private final long version;
+    // Shift of the slot index bits choosing the child of the root, 0 when the root is a leaf
+    private final int rootShift;
+    // Object[] for inner nodes, Leaf for leaves, null for subtrees having only available slots
+    private final Object root;
+    // Indexed by SlotStatusEnum ordinal
+    private final long[] slotCounts;
+
+    private ShardOccupancySnapshot(int firstSlotIndex, int slotCount, long version, int rootShift, Object root,
+                                   long[] slotCounts) {
+        this.firstSlotIndex = firstSlotIndex;
+        this.slotCount = slotCount;
+        this.version = version;
+        this.rootShift = rootShift;
+        this.root = root;
+        this.slotCounts = slotCounts;
+    }
+
+    // Version 0 of the slot indexes firstSlotIndex up to firstSlotIndex + slotCount, taken from a slot store nobody
+    // transitions yet
+    public static ShardOccupancySnapshot of(SlotStore slotStore, int firstSlotIndex, int slotCount) {
+        int rootShift = 0;
+        while ((long) WIDTH << rootShift < slotCount) {
+            rootShift += BITS;
+        }
+        long[] slotCounts = new long[SLOT_STATUS_VALUES.length];
+        slotCounts[SlotStatusEnum.AVAILABLE.ordinal()] = slotCount;
+        Object root = null;
+        for (int i = 0; i < slotCount; i++) {
+            int slotIndex = firstSlotIndex + i;
+            SlotStatusEnum slotStatus = slotStore.getSlotStatus(slotIndex);
+            if (slotStatus == SlotStatusEnum.AVAILABLE) {
+                continue;
+            }
+            long parkedOnEpochMillis = slotStatus == SlotStatusEnum.OCCUPIED
+                    ? slotStore.getSlot(slotIndex).getParkedOn().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+            // Not published yet, so nodes are filled in place instead of copied
+            root = set(root, rootShift, i, slotStatus, slotStore.getSlotLockVehicleLicenceNumber(slotIndex),
+                    parkedOnEpochMillis, false);
+            slotCounts[SlotStatusEnum.AVAILABLE.ordinal()]--;
+            slotCounts[slotStatus.ordinal()]++;
+        }
+        return new ShardOccupancySnapshot(firstSlotIndex, slotCount, 0, rootShift, root, slotCounts);
+    }
+
+    // Next version, having the slot in the given state. licenseNo is the lock holder or occupant, null when available
+    public ShardOccupancySnapshot withSlot(int slotIndex, SlotStatusEnum slotStatus, String licenseNo, long parkedOnEpochMillis) {
+        checkSlotIndex(slotIndex);
+        long[] newSlotCounts = slotCounts.clone();
+        newSlotCounts[getSlotStatus(slotIndex).ordinal()]--;
+        newSlotCounts[slotStatus.ordinal()]++;
+        return new ShardOccupancySnapshot(firstSlotIndex, slotCount, version + 1, rootShift,
+                set(root, rootShift, slotIndex - firstSlotIndex, slotStatus, licenseNo, parkedOnEpochMillis, true),
+                newSlotCounts);
+    }
+
+    public int getFirstSlotIndex() {
+        return firstSlotIndex;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public boolean ownsSlotIndex(int slotIndex) {
+        return slotIndex >= firstSlotIndex && slotIndex - firstSlotIndex < slotCount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getSlotsHavingStatus(SlotStatusEnum slotStatus) {
+        return slotCounts[slotStatus.ordinal()];
+    }
+
+    public SlotStatusEnum getSlotStatus(int slotIndex) {
+        Leaf leaf = leafOf(slotIndex);
+        return leaf == null ? SlotStatusEnum.AVAILABLE : SLOT_STATUS_VALUES[leaf.slotStatuses[(slotIndex - firstSlotIndex) & MASK]];
+    }
+
+    public String getSlotLockVehicleLicenceNumber(int slotIndex) {
+        Leaf leaf = leafOf(slotIndex);
+        return leaf == null ? null : leaf.licenseNumbers[(slotIndex - firstSlotIndex) & MASK];
+    }
+
+    // Detached slot built from this version
+    public ParkingSlot getSlot(int slotIndex) {
+        ParkingSlot parkingSlot = new ParkingSlot(SlotStore.toSlotId(slotIndex));
+        Leaf leaf = leafOf(slotIndex);
+        if (leaf == null) {
+            return parkingSlot;
+        }
+        int i = (slotIndex - firstSlotIndex) & MASK;
+        SlotStatusEnum slotStatus = SLOT_STATUS_VALUES[leaf.slotStatuses[i]];
+        parkingSlot.setSlotStatusEnum(slotStatus);
+        parkingSlot.setSlotLockLicenseNumberRef(new AtomicReference<>(leaf.licenseNumbers[i]));
+        if (slotStatus == SlotStatusEnum.OCCUPIED) {
+            // Only cars can be parked today, so the vehicle type does not need to be kept
+            parkingSlot.setVehicle(new Car(leaf.licenseNumbers[i]));
+            parkingSlot.setParkedOn(LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(leaf.parkedOnEpochMillis[i]), ZoneId.systemDefault()));
+        }
+        return parkingSlot;
+    }
+
+    private Leaf leafOf(int slotIndex) {
+        checkSlotIndex(slotIndex);
+        int shardSlotIndex = slotIndex - firstSlotIndex;
+        Object node = root;
+        for (int shift = rootShift; shift > 0 && node != null; shift -= BITS) {
+            node = ((Object[]) node)[(shardSlotIndex >>> shift) & MASK];
+        }
+        return (Leaf) node;
+    }
+
+    private void checkSlotIndex(int slotIndex) {
+        if (!ownsSlotIndex(slotIndex)) {
+            throw new IllegalArgumentException("Slot index: " + slotIndex + " outside of the shard of: " + slotCount
+                    + " slots from: " + firstSlotIndex);
+        }
+    }
+
+    // Returns the node replacing node, a copy of it unless copy is false. shardSlotIndex counts from the first slot
+    private static Object set(Object node, int shift, int shardSlotIndex, SlotStatusEnum slotStatus, String licenseNo,
+                              long parkedOnEpochMillis, boolean copy) {
+        if (shift == 0) {
+            Leaf leaf = node == null ? new Leaf() : copy ? ((Leaf) node).copy() : (Leaf) node;
+            int i = shardSlotIndex & MASK;
+            leaf.slotStatuses[i] = (byte) slotStatus.ordinal();
+            leaf.licenseNumbers[i] = slotStatus == SlotStatusEnum.AVAILABLE ? null : licenseNo;
+            leaf.parkedOnEpochMillis[i] = slotStatus == SlotStatusEnum.OCCUPIED ? parkedOnEpochMillis : 0L;
+            return leaf;
+        }
+        Object[] children = node == null ? new Object[WIDTH] : copy ? ((Object[]) node).clone() : (Object[]) node;
+        int i = (shardSlotIndex >>> shift) & MASK;
+        children[i] = set(children[i], shift - BITS, shardSlotIndex, slotStatus, licenseNo, parkedOnEpochMillis, copy);
+        return children;
+    }
+
+    // AVAILABLE is ordinal 0, so a fresh leaf holds 32 available slots
+    private static final class Leaf {
+        private final byte[] slotStatuses;
+        private final String[] licenseNumbers;
+        private final long[] parkedOnEpochMillis;
+
+        private Leaf() {
+            this(new byte[WIDTH], new String[WIDTH], new long[WIDTH]);
+        }
+
+        private Leaf(byte[] slotStatuses, String[] licenseNumbers, long[] parkedOnEpochMillis) {
+            this.slotStatuses = slotStatuses;
+            this.licenseNumbers = licenseNumbers;
+            this.parkedOnEpochMillis = parkedOnEpochMillis;
+        }
+
+        private Leaf copy() {
+            return new Leaf(slotStatuses.clone(), licenseNumbers.clone(), parkedOnEpochMillis.clone());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.demo.carparkinglot.models.slots;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+// Every slot lock is granted for a limited time. A lease that expires while its lock is still held is handed
+// to the reclaimer, so slots locked by requests that never reached park or release go back to the free set.
+public class SlotLockLeases {
+    public static final long DEFAULT_LEASE_MILLIS = 60_000L;
+    public static final long DEFAULT_TICK_MILLIS = 100L;
+    private static final int NO_OF_BUCKETS = 512;
+
+    private final long leaseMillis;
+    // Lease of the lock each slot is held by, null once that lock ended. Ending or expiring a lease takes it out with a
+    // CAS, so only one of them gets to release the lock, and a lease whose lock ended never touches a later lock
+    private final AtomicReferenceArray<SlotLease> currentLeases;
+    private final HashedTimingWheel<SlotLease> leaseWheel;
+    private final LongAdder reclaimedLeases = new LongAdder();
+
+    public SlotLockLeases(int totalSlots, long leaseMillis, long tickMillis) {
+        this.leaseMillis = leaseMillis;
+        this.currentLeases = new AtomicReferenceArray<>(totalSlots);
+        this.leaseWheel = new HashedTimingWheel<>(tickMillis, NO_OF_BUCKETS, System.currentTimeMillis());
+    }
+
+    public void grant(int slotIndex, String licenseNo, long nowMillis) {
+        SlotLease lease = new SlotLease(slotIndex, licenseNo);
+        cancel(currentLeases.getAndSet(slotIndex, lease));
+        lease.timeout = leaseWheel.schedule(lease, nowMillis + leaseMillis);
+    }
+
+    // Called by the owner of the lock on park or release, before the slot can be locked again. Returns false when the
+    // slot is not leased to licenseNo, e.g. the lease expired first and the lock belongs to the reclaimer, or the
+    // slot was locked again for another license since
+    public boolean end(int slotIndex, String licenseNo) {
+        SlotLease lease;
+        while ((lease = currentLeases.get(slotIndex)) != null && lease.licenseNo.equals(licenseNo)) {
+            if (currentLeases.compareAndSet(slotIndex, lease, null)) {
+                cancel(lease);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The reclaimer returns true if it took the slot back, i.e. the lock was still held when the lease ran out
+    public int expire(long nowMillis, IntPredicate reclaimer) {
+        int[] reclaimed = new int[1];
+        leaseWheel.advanceTo(nowMillis, lease -> {
+            if (currentLeases.compareAndSet(lease.slotIndex, lease, null) && reclaimer.test(lease.slotIndex)) {
+                reclaimedLeases.increment();
+                reclaimed[0]++;
+            }
+        });
+        return reclaimed[0];
+    }
+
+    public long getReclaimedLeases() {
+        return reclaimedLeases.sum();
+    }
+
+    // Leases of locks still held
+    public int getOutstandingLeases() {
+        return leaseWheel.size();
+    }
+
+    private static void cancel(SlotLease lease) {
+        // Null timeout: the lease is being granted right now, or it already expired
+        if (lease != null && lease.timeout != null) {
+            lease.timeout.cancel();
+        }
+    }
+
+    // Compared by identity, each grant is a lease of its own
+    private static final class SlotLease {
+        private final int slotIndex;
+        private final String licenseNo;
+        private volatile HashedTimingWheel.Timeout<SlotLease> timeout;
+
+        private SlotLease(int slotIndex, String licenseNo) {
+            this.slotIndex = slotIndex;
+            this.licenseNo = licenseNo;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Striped per-status slot counts, moved on every slot transition so reads never have to scan the lot.
+// Each count is exact once transitions quiesce, a read racing with transitions may be off by the in-flight ones.
+public class SlotOccupancyCounters {
+    private final LongAdder availableSlots = new LongAdder();
+    private final LongAdder lockedSlots = new LongAdder();
+    private final LongAdder occupiedSlots = new LongAdder();
+
+    public static SlotOccupancyCounters of(SlotStore slotStore) {
+        SlotOccupancyCounters counters = new SlotOccupancyCounters();
+        counters.availableSlots.add(slotStore.countSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+        counters.lockedSlots.add(slotStore.countSlotsHavingStatus(SlotStatusEnum.LOCKED));
+        counters.occupiedSlots.add(slotStore.countSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+        return counters;
+    }
+
+    public void onSlotLocked() {
+        availableSlots.decrement();
+        lockedSlots.increment();
+    }
+
+    public void onLockReleased() {
+        lockedSlots.decrement();
+        availableSlots.increment();
+    }
+
+    public void onSlotOccupied() {
+        lockedSlots.decrement();
+        occupiedSlots.increment();
+    }
+
+    public void onSlotVacated() {
+        occupiedSlots.decrement();
+        availableSlots.increment();
+    }
+
+    public long getAvailableSlots() {
+        return availableSlots.sum();
+    }
+
+    public long getLockedSlots() {
+        return lockedSlots.sum();
+    }
+
+    public long getOccupiedSlots() {
+        return occupiedSlots.sum();
+    }
+}
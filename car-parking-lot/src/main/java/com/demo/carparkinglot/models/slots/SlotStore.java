@@ -0,0 +1,39 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.vehicles.Vehicle;
+
+// Holds the state of every slot of a lot, addressed by slot index (slot id - 1)
+public interface SlotStore {
+
+    int getTotalSlots();
+
+    // Live slot for stores keeping slot objects, a freshly built view for stores that don't
+    ParkingSlot getSlot(int slotIndex);
+
+    SlotStatusEnum getSlotStatus(int slotIndex);
+
+    String getSlotLockVehicleLicenceNumber(int slotIndex);
+
+    void lockSlot(int slotIndex, String licenseNo);
+
+    boolean releaseLock(int slotIndex);
+
+    void occupySlot(int slotIndex, Vehicle vehicle);
+
+    void unlockSlot(int slotIndex, String licenseNo);
+
+    // Parks a vehicle straight into an available slot, keeping its original parking time. Used by recovery only.
+    void restoreOccupiedSlot(int slotIndex, String licenseNo, long parkedOnEpochMillis);
+
+    long countSlotsHavingStatus(SlotStatusEnum slotStatus);
+
+    static long toSlotId(int slotIndex) {
+        return slotIndex + 1L;
+    }
+
+    static int toSlotIndex(long slotId) {
+        return Math.toIntExact(slotId - 1);
+    }
+}
@@ -0,0 +1,96 @@
+package com.demo.carparkinglot.models.vehicles;
+
+import java.util.List;
+
+/**
+ * License plate normalisation and packing. Plates are normalised once where they enter the application, a
+ * normalised plate of up to {@value #MAX_PACKED_LENGTH} characters from [0-9A-Z-] then packs into a positive long
+ * as base 38 digits 1..37. No digit is 0, so distinct plates always get distinct keys and no key is {@value #UNPACKED}.
+ */
+public final class LicensePlates {
+    public static final long UNPACKED = 0L;
+    // 38^12 - 1 still fits in a positive long
+    public static final int MAX_PACKED_LENGTH = 12;
+    private static final int RADIX = 38;
+
+    private LicensePlates() {
+    }
+
+    // Upper cases the plate and drops whitespace, so "ka 01 ab-1234" and "KA01AB-1234" are the same plate
+    public static String normalize(String licensePlateNo) {
+        if (licensePlateNo == null || isNormalized(licensePlateNo)) {
+            return licensePlateNo;
+        }
+        StringBuilder normalized = new StringBuilder(licensePlateNo.length());
+        for (int i = 0; i < licensePlateNo.length(); i++) {
+            char ch = licensePlateNo.charAt(i);
+            if (!Character.isWhitespace(ch)) {
+                normalized.append(Character.toUpperCase(ch));
+            }
+        }
+        return normalized.toString();
+    }
+
+    public static List<String> normalize(List<String> licensePlateNos) {
+        return licensePlateNos.stream().map(LicensePlates::normalize).toList();
+    }
+
+    // Null, or only whitespace, and so empty once normalized. Such plates are rejected where they enter the application
+    public static boolean isBlank(String licensePlateNo) {
+        return licensePlateNo == null || licensePlateNo.isBlank();
+    }
+
+    public static boolean anyBlank(List<String> licensePlateNos) {
+        return licensePlateNos.stream().anyMatch(LicensePlates::isBlank);
+    }
+
+    // Returns UNPACKED for plates that are too long or hold other characters, those need the plate itself as key
+    public static long pack(String licensePlateNo) {
+        int length = licensePlateNo.length();
+        if (length == 0 || length > MAX_PACKED_LENGTH) {
+            return UNPACKED;
+        }
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = digitOf(licensePlateNo.charAt(i));
+            if (digit == 0) {
+                return UNPACKED;
+            }
+            key = key * RADIX + digit;
+        }
+        return key;
+    }
+
+    public static String unpack(long key) {
+        if (key <= UNPACKED) {
+            throw new IllegalArgumentException("Not a packed license plate: " + key);
+        }
+        StringBuilder licensePlateNo = new StringBuilder(MAX_PACKED_LENGTH);
+        for (; key > 0; key /= RADIX) {
+            int digit = (int) (key % RADIX);
+            licensePlateNo.append(digit <= 10 ? (char) ('0' + digit - 1) : digit <= 36 ? (char) ('A' + digit - 11) : '-');
+        }
+        return licensePlateNo.reverse().toString();
+    }
+
+    private static boolean isNormalized(String licensePlateNo) {
+        for (int i = 0; i < licensePlateNo.length(); i++) {
+            char ch = licensePlateNo.charAt(i);
+            if (Character.isWhitespace(ch) || Character.toUpperCase(ch) != ch) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 1..10 for digits, 11..36 for letters, 37 for '-', 0 for anything that does not pack
+    private static int digitOf(char ch) {
+        if (ch >= '0' && ch <= '9') {
+            return ch - '0' + 1;
+        }
+        if (ch >= 'A' && ch <= 'Z') {
+            return ch - 'A' + 11;
+        }
+        return ch == '-' ? 37 : 0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.demo.carparkinglot.repositories;
+
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.models.slots.MappedSlotStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Parking lot whose slots live in a memory-mapped slot file. Park and unpark write slot records in place,
+// so there is nothing to serialize here, saving only forces the mapped records to the device.
+// Lots created at runtime are kept in memory next to it.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "parking-lot", name = "slot-store", havingValue = "mapped")
+public class MappedParkingLotRepository implements ParkingLotRepository {
+
+    private final Map<String, ParkingLot> parkingLots = new ConcurrentHashMap<>();
+
+    @Override
+    public void saveAndFlush(ParkingLot parkingLot) {
+        if (!(parkingLot.getSlotStore() instanceof MappedSlotStore mappedSlotStore)) {
+            throw new IllegalArgumentException("Parking lot is not backed by a mapped slot store: " + parkingLot.getName());
+        }
+        mappedSlotStore.flush();
+        parkingLots.put(DEFAULT_LOT_ID, parkingLot);
+        log.info("Parking lot: {} persisted in slot file: {}", parkingLot.getName(), mappedSlotStore.getFile());
+    }
+
+    @Override
+    public boolean saveIfAbsent(String lotId, ParkingLot parkingLot) {
+        return parkingLots.putIfAbsent(lotId, parkingLot) == null;
+    }
+
+    @Override
+    public ParkingLot getParkingLot(String lotId) {
+        return parkingLots.get(lotId);
+    }
+
+    @Override
+    public Map<String, ParkingLot> getParkingLots() {
+        return Collections.unmodifiableMap(parkingLots);
+    }
+
+    @PreDestroy
+    public void flush() {
+        ParkingLot parkingLot = parkingLots.get(DEFAULT_LOT_ID);
+        if (Objects.nonNull(parkingLot)) {
+            ((MappedSlotStore) parkingLot.getSlotStore()).flush();
+        }
+    }
+}
@@ -2,9 +2,23 @@ package com.demo.carparkinglot.repositories;
 
 import com.demo.carparkinglot.models.ParkingLot;
 
+import java.util.Map;
+
+// Registry of parking lots by lot id. Each lot has its own shards, free slot stacks and occupied index, looking
+// one up is a ConcurrentHashMap read, so requests for different lots share nothing but this map
 public interface ParkingLotRepository {
+    // The lot configured under parking-lot, the only one journaled, snapshotted or kept in a mapped slot file
+    String DEFAULT_LOT_ID = "default";
 
+    // Registers the configured lot
     void saveAndFlush(ParkingLot parkingLot);
-    ParkingLot getParkingLot();
+
+    // Registers a lot created at runtime, false when the lot id is taken
+    boolean saveIfAbsent(String lotId, ParkingLot parkingLot);
+
+    // null when no lot has this id
+    ParkingLot getParkingLot(String lotId);
+
+    Map<String, ParkingLot> getParkingLots();
 
 }
@@ -1,20 +1,37 @@
 package com.demo.carparkinglot.repositories;
 
 import com.demo.carparkinglot.models.ParkingLot;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The mapped slot store has its own repository, see MappedParkingLotRepository
 @Component
+@ConditionalOnExpression("!'${parking-lot.slot-store:object}'.equalsIgnoreCase('mapped')")
 public class ParkingLotRepositoryImpl implements ParkingLotRepository {
 
-    private ParkingLot parkingLot;
+    private final Map<String, ParkingLot> parkingLots = new ConcurrentHashMap<>();
 
     @Override
     public void saveAndFlush(ParkingLot parkingLot) {
-        this.parkingLot = parkingLot;
+        parkingLots.put(DEFAULT_LOT_ID, parkingLot);
+    }
+
+    @Override
+    public boolean saveIfAbsent(String lotId, ParkingLot parkingLot) {
+        return parkingLots.putIfAbsent(lotId, parkingLot) == null;
+    }
+
+    @Override
+    public ParkingLot getParkingLot(String lotId) {
+        return parkingLots.get(lotId);
     }
 
     @Override
-    public ParkingLot getParkingLot() {
-        return parkingLot;
+    public Map<String, ParkingLot> getParkingLots() {
+        return Collections.unmodifiableMap(parkingLots);
     }
 }
@@ -0,0 +1,104 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.params.SecurityConfigParams;
+import com.demo.carparkinglot.enums.UserRoleEnum;
+import com.demo.carparkinglot.exchanges.response.ApiTokenResponseDto;
+import com.demo.carparkinglot.models.auth.SignedTokens;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+// Issues the bearer tokens of api-auth: token and authenticates /api/** requests carrying them
+@Service
+@ConditionalOnProperty(prefix = "security", name = "api-auth", havingValue = "token")
+public class ApiTokenService {
+    public static final String TOKEN_CACHE = "apiTokens";
+    public static final String TOKEN_TYPE = "Bearer";
+    private static final List<GrantedAuthority> AUTHORITIES =
+            List.of(new SimpleGrantedAuthority("ROLE_" + UserRoleEnum.USER.name()));
+
+    private final SignedTokens signedTokens;
+    private final long tokenTtlSeconds;
+    // Verified token to its authentication, so a client reusing its token costs a map lookup instead of an HMAC.
+    // Only verified tokens are cached, forged ones can't fill it
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> verifiedTokens;
+
+    public ApiTokenService(SecurityConfigParams securityConfigParams, CacheManager cacheManager) {
+        if (!StringUtils.hasText(securityConfigParams.getTokenSecret()) || securityConfigParams.getTokenTtlSeconds() <= 0) {
+            throw new IllegalStateException("security.token-secret and security.token-ttl-seconds are required with api-auth: token");
+        }
+        this.signedTokens = new SignedTokens(Base64.getDecoder().decode(securityConfigParams.getTokenSecret()));
+        this.tokenTtlSeconds = securityConfigParams.getTokenTtlSeconds();
+        Cache cache = cacheManager.getCache(TOKEN_CACHE);
+        if (!(cache instanceof CaffeineCache caffeineCache)) {
+            throw new IllegalStateException("Caffeine cache not configured: " + TOKEN_CACHE);
+        }
+        this.verifiedTokens = caffeineCache.getNativeCache();
+    }
+
+    public ApiTokenResponseDto issueToken(String subject) {
+        return issueToken(subject, System.currentTimeMillis() / 1000);
+    }
+
+    ApiTokenResponseDto issueToken(String subject, long nowEpochSeconds) {
+        ApiTokenResponseDto responseDto = new ApiTokenResponseDto();
+        responseDto.setExpiresAtEpochSeconds(nowEpochSeconds + tokenTtlSeconds);
+        responseDto.setToken(signedTokens.issue(subject, responseDto.getExpiresAtEpochSeconds()));
+        responseDto.setTokenType(TOKEN_TYPE);
+        return responseDto;
+    }
+
+    // Authentication of the bearer token of an Authorization header, null when there is none or it does not verify
+    public Authentication authenticateBearer(String authorizationHeader) {
+        String token = bearerToken(authorizationHeader);
+        return Objects.isNull(token) ? null : authenticate(token);
+    }
+
+    // null when the token is malformed, forged or expired
+    public Authentication authenticate(String token) {
+        return authenticate(token, System.currentTimeMillis() / 1000);
+    }
+
+    Authentication authenticate(String token, long nowEpochSeconds) {
+        VerifiedAuthentication verified = (VerifiedAuthentication) verifiedTokens.getIfPresent(token);
+        if (Objects.isNull(verified)) {
+            SignedTokens.VerifiedToken verifiedToken = signedTokens.verify(token, nowEpochSeconds);
+            if (Objects.isNull(verifiedToken)) {
+                return null;
+            }
+            verified = new VerifiedAuthentication(
+                    UsernamePasswordAuthenticationToken.authenticated(verifiedToken.subject(), null, AUTHORITIES),
+                    verifiedToken.expiresAtEpochSeconds());
+            verifiedTokens.put(token, verified);
+        }
+        // Cached entries outlive their token when it is in use at expiry
+        if (verified.expiresAtEpochSeconds() <= nowEpochSeconds) {
+            verifiedTokens.invalidate(token);
+            return null;
+        }
+        return verified.authentication();
+    }
+
+    // Strips the "Bearer " prefix of an Authorization header, null when there is none
+    public static String bearerToken(String authorizationHeader) {
+        if (Objects.isNull(authorizationHeader)
+                || !authorizationHeader.regionMatches(true, 0, TOKEN_TYPE + " ", 0, TOKEN_TYPE.length() + 1)) {
+            return null;
+        }
+        return authorizationHeader.substring(TOKEN_TYPE.length() + 1).trim();
+    }
+
+    private record VerifiedAuthentication(Authentication authentication, long expiresAtEpochSeconds) {
+    }
+}
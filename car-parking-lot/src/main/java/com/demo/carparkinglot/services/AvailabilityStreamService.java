@@ -0,0 +1,129 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.ParkingLotConfig;
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.exceptions.ParkingLotNotFoundException;
+import com.demo.carparkinglot.exchanges.response.SlotStatusDeltaDto;
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.models.events.SlotStatusListener;
+import com.demo.carparkinglot.models.events.SlotStatusSubscription;
+import com.demo.carparkinglot.models.slots.SlotStore;
+import com.demo.carparkinglot.repositories.ParkingLotRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Fans slot transitions of each parking lot out to the availability streams of clients connected to that lot
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AvailabilityStreamService {
+    private final ParkingLotConfig parkingLotConfig;
+    private final ParkingLotRepository parkingLotRepository;
+    private final Map<String, Set<SlotStatusSubscription>> subscriptions = new ConcurrentHashMap<>();
+    // Sending to a slow servlet client blocks until it reads, so each drain gets a thread of its own while it runs
+    private final ExecutorService blockingDrainExecutor = Executors.newCachedThreadPool(daemonThreads());
+
+    // Listener of one lot, transitions of a lot only reach the streams of that lot
+    public SlotStatusListener listenerFor(String lotId) {
+        Set<SlotStatusSubscription> lotSubscriptions = subscriptionsOf(lotId);
+        return (slotIndex, slotStatus) -> {
+            for (SlotStatusSubscription subscription : lotSubscriptions) {
+                if (subscription.isCancelled()) {
+                    // Its client went away without the transport telling us
+                    lotSubscriptions.remove(subscription);
+                } else {
+                    subscription.offer(slotIndex, slotStatus);
+                }
+            }
+        };
+    }
+
+    // For clients whose send blocks, deltas are handed over as soon as they are taken
+    public SlotStatusSubscription subscribe(String lotId, Consumer<SlotStatusDeltaDto> deltaConsumer) {
+        return subscribe(lotId, blockingDrainExecutor, () -> true, deltaConsumer);
+    }
+
+    // For clients signalling demand, deltas wait until hasDemand holds and the subscription is signalled
+    public SlotStatusSubscription subscribe(String lotId, Executor drainExecutor, BooleanSupplier hasDemand,
+                                            Consumer<SlotStatusDeltaDto> deltaConsumer) {
+        ParkingLot parkingLot = parkingLotOf(lotId);
+        SlotStatusSubscription subscription = new SlotStatusSubscription(drainExecutor, hasDemand,
+                (slotIndex, slotStatus) -> deltaConsumer.accept(
+                        toDelta(parkingLot, SlotStore.toSlotId(slotIndex), slotStatus)));
+        subscriptionsOf(lotId).add(subscription);
+        log.info("Availability stream of lot: {} subscribed, streams: {}", lotId, getSubscriptionCount());
+        return subscription;
+    }
+
+    public void unsubscribe(SlotStatusSubscription subscription) {
+        subscription.cancel();
+        for (Set<SlotStatusSubscription> lotSubscriptions : subscriptions.values()) {
+            if (lotSubscriptions.remove(subscription)) {
+                log.info("Availability stream unsubscribed, streams: {}", getSubscriptionCount());
+            }
+        }
+    }
+
+    // First event of every stream, so a client starts from the current count before any delta arrives
+    public SlotStatusDeltaDto currentAvailability(String lotId) {
+        return toDelta(parkingLotOf(lotId), null, null);
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptions.values().stream().mapToInt(Set::size).sum();
+    }
+
+    public long getStreamTimeoutMillis() {
+        return parkingLotConfig.getAvailabilityStreamTimeoutMillis();
+    }
+
+    @PreDestroy
+    public void closeStreams() {
+        subscriptions.values().forEach(lotSubscriptions -> lotSubscriptions.forEach(this::unsubscribe));
+        blockingDrainExecutor.shutdownNow();
+    }
+
+    // The available count is read when the delta is sent, so a client that skipped deltas still gets the latest one
+    private static SlotStatusDeltaDto toDelta(ParkingLot parkingLot, Long slotId, SlotStatusEnum slotStatus) {
+        SlotStatusDeltaDto delta = new SlotStatusDeltaDto();
+        delta.setSlotId(slotId);
+        delta.setSlotStatus(slotStatus);
+        delta.setAvailableSlots(parkingLot.getTotalAvailableSlots());
+        return delta;
+    }
+
+    private Set<SlotStatusSubscription> subscriptionsOf(String lotId) {
+        return subscriptions.computeIfAbsent(lotId, ignored -> ConcurrentHashMap.newKeySet());
+    }
+
+    private ParkingLot parkingLotOf(String lotId) {
+        ParkingLot parkingLot = parkingLotRepository.getParkingLot(lotId);
+        if (Objects.isNull(parkingLot)) {
+            throw new ParkingLotNotFoundException(lotId);
+        }
+        return parkingLot;
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger threadNo = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "availability-stream-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
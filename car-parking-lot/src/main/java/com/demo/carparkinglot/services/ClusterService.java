@@ -0,0 +1,286 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.params.ClusterConfigParams;
+import com.demo.carparkinglot.configuration.params.SecurityConfigParams;
+import com.demo.carparkinglot.enums.ApiAuthModeEnum;
+import com.demo.carparkinglot.exchanges.response.ClusterResponseDto;
+import com.demo.carparkinglot.models.cluster.ConsistentHashRing;
+import com.demo.carparkinglot.repositories.ParkingLotRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.UnaryOperator;
+
+// Partitions lots over the nodes of the cluster by consistent hashing of lot ids, see ConsistentHashRing. Any node
+// takes a request, the cluster forwarding filters hand requests for lots owned by another node to that node
+@Slf4j
+@Service
+public class ClusterService {
+    // Set on requests a node forwards, the receiving node serves them itself instead of forwarding them again
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+    private static final List<String> FORWARDED_REQUEST_HEADERS =
+            List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.CONTENT_TYPE, HttpHeaders.ACCEPT, HttpHeaders.IF_NONE_MATCH);
+    private static final String LOT_PATH = "/api/v1/parking-lot";
+    private static final String LOTS_PATH = "/api/v1/parking-lots";
+    private static final String NODES_PATH = "/api/v1/cluster/nodes";
+    // Set by the HTTP client and server of each hop themselves
+    private static final Set<String> HOP_BY_HOP_HEADERS =
+            Set.of("connection", "keep-alive", "transfer-encoding", "content-length", "upgrade");
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ClusterConfigParams clusterConfigParams;
+    private final ParkingLotRepository parkingLotRepository;
+    private final String selfUrl;
+    private final HttpClient httpClient;
+    private volatile ConsistentHashRing ring;
+    // Addresses of the nodes, the only ones trusted to send FORWARDED_HEADER
+    private volatile Set<String> peerAddresses = Set.of();
+
+    public ClusterService(ClusterConfigParams clusterConfigParams, SecurityConfigParams securityConfigParams,
+                          ParkingLotRepository parkingLotRepository) {
+        this.clusterConfigParams = clusterConfigParams;
+        this.parkingLotRepository = parkingLotRepository;
+        if (!clusterConfigParams.isEnabled()) {
+            this.selfUrl = null;
+            this.httpClient = null;
+            return;
+        }
+        // Sessions live on the node that created them, bearer tokens verify on every node sharing the secret
+        if (securityConfigParams.getApiAuth() != ApiAuthModeEnum.TOKEN) {
+            throw new IllegalStateException("cluster.enabled needs security.api-auth: token");
+        }
+        List<String> nodes = clusterConfigParams.getNodes().stream().map(ClusterService::normalize).toList();
+        this.selfUrl = normalize(clusterConfigParams.getSelfUrl());
+        if (Objects.isNull(selfUrl) || nodes.contains(null) || !nodes.contains(selfUrl)
+                || clusterConfigParams.getVirtualNodes() < 1 || clusterConfigParams.getForwardTimeoutMillis() <= 0) {
+            throw new IllegalStateException("Invalid cluster config, self-url: " + clusterConfigParams.getSelfUrl()
+                    + " nodes: " + clusterConfigParams.getNodes());
+        }
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(clusterConfigParams.getForwardTimeoutMillis()))
+                .build();
+        setRing(new ConsistentHashRing(nodes, clusterConfigParams.getVirtualNodes()));
+        log.info("Cluster node: {} of nodes: {}", selfUrl, ring.getNodes());
+    }
+
+    public boolean isEnabled() {
+        return clusterConfigParams.isEnabled();
+    }
+
+    // Owner of the lot when it is another node, null when this node owns it or the cluster is disabled
+    public String remoteOwnerOf(String lotId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        String owner = ring.ownerOf(lotId);
+        return selfUrl.equals(owner) ? null : owner;
+    }
+
+    // A request another node forwarded, it was admitted by the rate limit of that node already
+    public boolean isForwardedByPeer(String remoteAddress, String forwardedHeader) {
+        return isEnabled() && Objects.nonNull(forwardedHeader) && peerAddresses.contains(remoteAddress);
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public HttpRequest forwardRequest(String node, String method, String pathAndQuery, byte[] body,
+                                      Map<String, String> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(node + pathAndQuery))
+                .timeout(Duration.ofMillis(clusterConfigParams.getForwardTimeoutMillis()))
+                .method(method, body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body))
+                .header(FORWARDED_HEADER, selfUrl);
+        headers.forEach(builder::header);
+        return builder.build();
+    }
+
+    // The headers of a request that are passed on to the owner, requestHeader looks one up by name
+    public static Map<String, String> forwardedRequestHeaders(UnaryOperator<String> requestHeader) {
+        Map<String, String> headers = new HashMap<>();
+        for (String name : FORWARDED_REQUEST_HEADERS) {
+            String value = requestHeader.apply(name);
+            if (Objects.nonNull(value)) {
+                headers.put(name, value);
+            }
+        }
+        return headers;
+    }
+
+    public static boolean isRelayedResponseHeader(String name) {
+        return !HOP_BY_HOP_HEADERS.contains(name.toLowerCase());
+    }
+
+    // Lot a request path is scoped to, the single lot routes serve the configured lot. Null for other paths
+    public static String lotIdOfPath(String path) {
+        if (path.equals(LOT_PATH) || path.startsWith(LOT_PATH + "/")) {
+            return ParkingLotRepository.DEFAULT_LOT_ID;
+        }
+        if (path.startsWith(LOTS_PATH + "/")) {
+            int start = LOTS_PATH.length() + 1;
+            int end = path.indexOf('/', start);
+            String lotId = end < 0 ? path.substring(start) : path.substring(start, end);
+            return lotId.isEmpty() ? null : lotId;
+        }
+        return null;
+    }
+
+    // The lot a creation request names is in its body
+    public static boolean isLotCreation(String method, String path) {
+        return "POST".equals(method) && path.equals(LOTS_PATH);
+    }
+
+    // Null when the body is not a lot creation request, the node taking it then answers 400 itself
+    public static String lotIdOfBody(byte[] body) {
+        try {
+            return OBJECT_MAPPER.readTree(body).path("lotId").textValue();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public ClusterResponseDto getCluster() {
+        ClusterResponseDto responseDto = new ClusterResponseDto();
+        fillResponseDto(responseDto);
+        return responseDto;
+    }
+
+    private void fillResponseDto(ClusterResponseDto responseDto) {
+        ConsistentHashRing currentRing = ring;
+        responseDto.setSelfUrl(selfUrl);
+        responseDto.setNodes(currentRing.getNodes());
+        responseDto.setVirtualNodes(currentRing.getVirtualNodes());
+        responseDto.setLotsOwnedElsewhere(parkingLotRepository.getParkingLots().keySet().stream()
+                .filter(lotId -> !selfUrl.equals(currentRing.ownerOf(lotId))).sorted().toList());
+    }
+
+    // A change taken from a client is passed on to every other node, old and new members alike. Lots stay on the
+    // node holding them, the ring only decides where requests go from now on
+    public HttpStatus addNode(String url, boolean fromPeer, String authorization, ClusterResponseDto responseDto) {
+        return changeMembership(url, true, fromPeer, authorization, responseDto);
+    }
+
+    public HttpStatus removeNode(String url, boolean fromPeer, String authorization, ClusterResponseDto responseDto) {
+        return changeMembership(url, false, fromPeer, authorization, responseDto);
+    }
+
+    private HttpStatus changeMembership(String url, boolean add, boolean fromPeer, String authorization,
+                                        ClusterResponseDto responseDto) {
+        String node = normalize(url);
+        if (Objects.isNull(node)) {
+            responseDto.setMessage("Invalid node url: " + url);
+            return HttpStatus.BAD_REQUEST;
+        }
+        Set<String> members = new TreeSet<>();
+        synchronized (this) {
+            members.addAll(ring.getNodes());
+            if (add && !ring.contains(node)) {
+                setRing(ring.withNode(node));
+            } else if (!add && ring.contains(node)) {
+                if (ring.getNodes().size() == 1) {
+                    responseDto.setMessage("The last node of the cluster cannot be removed");
+                    return HttpStatus.BAD_REQUEST;
+                }
+                setRing(ring.withoutNode(node));
+            }
+            members.addAll(ring.getNodes());
+        }
+        log.info("Cluster node {}: {}, nodes: {}", add ? "added" : "removed", node, ring.getNodes());
+        if (!fromPeer) {
+            responseDto.setNodesNotUpdated(passOn(add ? "POST" : "DELETE", node, members, authorization));
+        }
+        fillResponseDto(responseDto);
+        responseDto.setMessage((add ? "Node added: " : "Node removed: ") + node);
+        return HttpStatus.OK;
+    }
+
+    // Nodes that did not take the change
+    private List<String> passOn(String method, String node, Collection<String> members, String authorization) {
+        String pathAndQuery = NODES_PATH + "?url=" + URLEncoder.encode(node, StandardCharsets.UTF_8);
+        Map<String, String> headers = Objects.isNull(authorization) ? Map.of() : Map.of(HttpHeaders.AUTHORIZATION, authorization);
+        Map<String, CompletableFuture<HttpResponse<Void>>> responses = new TreeMap<>();
+        for (String member : members) {
+            if (!member.equals(selfUrl)) {
+                responses.put(member, httpClient.sendAsync(forwardRequest(member, method, pathAndQuery, new byte[0], headers),
+                        HttpResponse.BodyHandlers.discarding()));
+            }
+        }
+        List<String> nodesNotUpdated = new ArrayList<>();
+        responses.forEach((member, response) -> {
+            try {
+                int statusCode = response.join().statusCode();
+                if (statusCode != HttpStatus.OK.value()) {
+                    log.warn("Cluster node: {} refused membership change, status: {}", member, statusCode);
+                    nodesNotUpdated.add(member);
+                }
+            } catch (CompletionException e) {
+                log.warn("Cluster node: {} unreachable, ex: {}", member, e.getCause().toString());
+                nodesNotUpdated.add(member);
+            }
+        });
+        return nodesNotUpdated;
+    }
+
+    private void setRing(ConsistentHashRing newRing) {
+        Set<String> addresses = new HashSet<>();
+        for (String node : newRing.getNodes()) {
+            String host = URI.create(node).getHost();
+            try {
+                for (InetAddress address : InetAddress.getAllByName(host)) {
+                    addresses.add(address.getHostAddress());
+                }
+            } catch (UnknownHostException e) {
+                log.warn("Cluster node host: {} does not resolve, its forwarded requests are treated as client requests", host);
+            }
+        }
+        ring = newRing;
+        peerAddresses = Set.copyOf(addresses);
+    }
+
+    // http(s)://host[:port] without a trailing slash, null when url is not one
+    static String normalize(String url) {
+        if (Objects.isNull(url)) {
+            return null;
+        }
+        String trimmed = url.trim();
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        try {
+            URI uri = new URI(trimmed);
+            boolean http = "http".equals(uri.getScheme()) || "https".equals(uri.getScheme());
+            return http && Objects.nonNull(uri.getHost()) && (Objects.isNull(uri.getRawPath()) || uri.getRawPath().isEmpty())
+                    && Objects.isNull(uri.getRawQuery()) ? trimmed : null;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.params.EventLogConfigParams;
+import com.demo.carparkinglot.enums.ParkingEventTypeEnum;
+import com.demo.carparkinglot.models.events.ParkingEventRecorder;
+import com.demo.carparkinglot.models.events.RingBufferEventLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+// Park, unpark, lock and rate limit events go to the event log instead of the application log
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventLogService implements ParkingEventRecorder {
+    private final EventLogConfigParams eventLogConfigParams;
+    private volatile ParkingEventRecorder eventRecorder = ParkingEventRecorder.NONE;
+    private RingBufferEventLog eventLog;
+
+    @PostConstruct
+    public void openEventLog() {
+        if (eventLogConfigParams.isEnabled()) {
+            eventLog = RingBufferEventLog.open(Path.of(eventLogConfigParams.getFile()), eventLogConfigParams.getRingCapacity(),
+                    eventLogConfigParams.getDrainIntervalMicros(), eventLogConfigParams.getMaxFileBytes(),
+                    eventLogConfigParams.getMaxRolledFiles());
+            eventRecorder = eventLog;
+            log.info("Event log opened: {} ring capacity: {} max file bytes: {} rolled files: {}", eventLog.getFile(),
+                    eventLogConfigParams.getRingCapacity(), eventLogConfigParams.getMaxFileBytes(),
+                    eventLogConfigParams.getMaxRolledFiles());
+        }
+    }
+
+    @PreDestroy
+    public void closeEventLog() throws IOException {
+        if (Objects.nonNull(eventLog)) {
+            eventRecorder = ParkingEventRecorder.NONE;
+            eventLog.close();
+            if (eventLog.getDroppedEvents() > 0) {
+                log.warn("Event log dropped {} events, the writer could not keep up", eventLog.getDroppedEvents());
+            }
+        }
+    }
+
+    @Override
+    public void record(ParkingEventTypeEnum type, int slotIndex, long subject) {
+        eventRecorder.record(type, slotIndex, subject);
+    }
+
+    public long getDroppedEvents() {
+        return Objects.isNull(eventLog) ? 0 : eventLog.getDroppedEvents();
+    }
+}
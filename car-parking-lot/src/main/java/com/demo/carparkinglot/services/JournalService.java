@@ -0,0 +1,151 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.params.JournalConfigParams;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.journal.GroupCommitJournal;
+import com.demo.carparkinglot.models.journal.JournalRecord;
+import com.demo.carparkinglot.models.journal.JournalReplayer;
+import com.demo.carparkinglot.models.journal.SlotJournal;
+import com.demo.carparkinglot.models.slots.SlotStore;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JournalService implements SlotJournal {
+    private static final int REPLAY_CHUNK_BYTES = 1 << 20;
+
+    private final JournalConfigParams journalConfigParams;
+    private GroupCommitJournal journal;
+
+    // Opens the journal without replaying it, for slot stores that persist every transition themselves
+    public void openJournal() {
+        if (journalConfigParams.isEnabled()) {
+            journal = GroupCommitJournal.open(Path.of(journalConfigParams.getFile()),
+                    journalConfigParams.getCommitIntervalMicros(), journalConfigParams.getMaxBatchSize());
+            logJournalOpened();
+        }
+    }
+
+    // Replays the journal from replayFromPosition into slotStore, one slot range per shard, then opens it
+    public void openJournal(SlotStore slotStore, long replayFromPosition, int noOfShards) {
+        if (journalConfigParams.isEnabled()) {
+            long startNanos = System.nanoTime();
+            JournalReplayer journalReplayer = new JournalReplayer(slotStore, noOfShards);
+            journal = GroupCommitJournal.open(Path.of(journalConfigParams.getFile()), replayFromPosition, journalReplayer,
+                    journalConfigParams.getCommitIntervalMicros(), journalConfigParams.getMaxBatchSize());
+            long replayedRecords = journalReplayer.replay();
+            log.info("Replayed {} journal records from position: {} in {}ms",
+                    replayedRecords, replayFromPosition, (System.nanoTime() - startNanos) / 1_000_000);
+            logJournalOpened();
+        }
+    }
+
+    private void logJournalOpened() {
+        log.info("Journal opened: {} commit interval: {}us max batch size: {}", journal.getFile(),
+                journalConfigParams.getCommitIntervalMicros(), journalConfigParams.getMaxBatchSize());
+    }
+
+    @PreDestroy
+    public void closeJournal() throws IOException {
+        if (Objects.nonNull(journal)) {
+            journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return Objects.nonNull(journal);
+    }
+
+    public long getCommittedPosition() {
+        return Objects.isNull(journal) ? 0 : journal.getCommittedPosition();
+    }
+
+    // Shipped to followers as is, see GroupCommitJournal.readCommitted
+    public byte[] readCommitted(long fromPosition, int maxBytes) {
+        if (Objects.isNull(journal)) {
+            throw new IllegalStateException("Journal is disabled");
+        }
+        try {
+            return journal.readCommitted(fromPosition, maxBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read journal: " + journal.getFile(), e);
+        }
+    }
+
+    // Applies the committed records from fromPosition up to toPosition to slotStore, one slot range per shard, returns
+    // the number of records applied
+    public long replayCommitted(SlotStore slotStore, long fromPosition, long toPosition, int noOfShards) {
+        JournalReplayer journalReplayer = new JournalReplayer(slotStore, noOfShards);
+        long position = fromPosition;
+        while (position < toPosition) {
+            byte[] records;
+            try {
+                records = journal.readCommitted(position, toPosition, REPLAY_CHUNK_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read journal: " + journal.getFile(), e);
+            }
+            GroupCommitJournal.decode(ByteBuffer.wrap(records), journalReplayer);
+            position += records.length;
+        }
+        return journalReplayer.replay();
+    }
+
+    // ParkingLot appends park and unpark records itself, while the transition still owns the slot
+    @Override
+    public CompletableFuture<Void> vehicleParked(int slotIndex, long parkedOnEpochMillis, String licenseNo) {
+        return commit(JournalRecord.vehicleParked(slotIndex, parkedOnEpochMillis, licenseNo));
+    }
+
+    @Override
+    public CompletableFuture<Void> vehicleUnparked(int slotIndex, long unparkedOnEpochMillis, String licenseNo) {
+        return commit(JournalRecord.vehicleUnparked(slotIndex, unparkedOnEpochMillis, licenseNo));
+    }
+
+    // Returns once the record is durable
+    public void recordLockReleased(ParkingSlot parkingSlot) {
+        await(recordLockReleasedAsync(parkingSlot));
+    }
+
+    // Completes once the record is durable instead of blocking the caller until then, failing with the same
+    // exception recordLockReleased throws. Completes on the journal writer thread
+    public CompletableFuture<Void> recordLockReleasedAsync(ParkingSlot parkingSlot) {
+        return commit(JournalRecord.lockReleased(SlotStore.toSlotIndex(parkingSlot.getId()), System.currentTimeMillis()));
+    }
+
+    private CompletableFuture<Void> commit(JournalRecord journalRecord) {
+        if (Objects.isNull(journal)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return journal.append(journalRecord).handle((ignored, e) -> {
+            if (Objects.isNull(e)) {
+                return null;
+            }
+            String record = journalRecord.type() + " record of slot: " + SlotStore.toSlotId(journalRecord.slotIndex());
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof IOException ioException) {
+                throw new UncheckedIOException("Could not journal " + record, ioException);
+            }
+            throw new IllegalStateException("Could not journal " + record, cause);
+        });
+    }
+
+    private static void await(CompletableFuture<Void> commit) {
+        try {
+            commit.join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+}
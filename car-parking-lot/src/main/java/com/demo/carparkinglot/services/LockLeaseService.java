@@ -0,0 +1,17 @@
+package com.demo.carparkinglot.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class LockLeaseService {
+    private final ParkingLotService parkingLotService;
+
+    // Each run advances the lease wheel by the ticks elapsed since the previous run
+    @Scheduled(fixedRateString = "${parking-lot.lock-lease-tick-millis:100}")
+    public void expireLockLeases() {
+        parkingLotService.expireLockLeases();
+    }
+}
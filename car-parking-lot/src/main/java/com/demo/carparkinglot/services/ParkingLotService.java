@@ -2,9 +2,27 @@ package com.demo.carparkinglot.services;
 
 import com.demo.carparkinglot.configuration.ParkingLotConfig;
 import com.demo.carparkinglot.enums.SlotAssignmentMessageEnum;
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.enums.SlotStoreTypeEnum;
+import com.demo.carparkinglot.exceptions.ParkingLotNotFoundException;
+import com.demo.carparkinglot.exceptions.UnknownGateException;
+import com.demo.carparkinglot.exchanges.request.ParkingLotRequestDto;
+import com.demo.carparkinglot.exchanges.response.ParkingLotResponseDto;
+import com.demo.carparkinglot.exchanges.response.SlotInfoResponseDto;
+import com.demo.carparkinglot.exchanges.response.SlotOccupancyResponseDto;
 import com.demo.carparkinglot.exchanges.response.VehicleParkingResponseDto;
+import com.demo.carparkinglot.exchanges.response.VehicleUnParkingResponseDto;
 import com.demo.carparkinglot.models.ParkingLot;
 import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.journal.SlotJournal;
+import com.demo.carparkinglot.models.layout.GridLayout;
+import com.demo.carparkinglot.models.layout.SlotLayout;
+import com.demo.carparkinglot.models.slots.CompactSlotStore;
+import com.demo.carparkinglot.models.slots.MappedSlotStore;
+import com.demo.carparkinglot.models.slots.ObjectSlotStore;
+import com.demo.carparkinglot.models.slots.OccupancySnapshot;
+import com.demo.carparkinglot.models.slots.SlotLockLeases;
+import com.demo.carparkinglot.models.slots.SlotStore;
 import com.demo.carparkinglot.models.vehicles.Car;
 import com.demo.carparkinglot.repositories.ParkingLotRepository;
 import lombok.RequiredArgsConstructor;
@@ -12,40 +30,210 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ParkingLotService {
+    // Lot ids end up in request paths
+    private static final Pattern LOT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
     private final ParkingLotConfig parkingLotConfig;
     private final ParkingLotRepository parkingLotRepository;
     private final VehicleService vehicleService;
     private final ParkingSlotService parkingSlotService;
+    private final JournalService journalService;
+    private final SnapshotService snapshotService;
+    private final AvailabilityStreamService availabilityStreamService;
+    private final EventLogService eventLogService;
+    private final ParkingMetricsService parkingMetricsService;
     private final AtomicBoolean parkingLotInitialized = new AtomicBoolean(false);
+    // Reserved before a lot's slots are allocated, so concurrent creations can't go past max parking lots
+    private final AtomicInteger createdParkingLots = new AtomicInteger();
 
-    public ParkingLot getParkingLot() {
-        return parkingLotRepository.getParkingLot();
+    public ParkingLot getParkingLot(String lotId) {
+        ParkingLot parkingLot = parkingLotRepository.getParkingLot(lotId);
+        if (Objects.isNull(parkingLot)) {
+            throw new ParkingLotNotFoundException(lotId);
+        }
+        return parkingLot;
     }
 
     public void initParkingLot() {
         if (parkingLotInitialized.compareAndSet(false, true)) {
-            ParkingLot parkingLot = new ParkingLot(parkingLotConfig.getName(), parkingLotConfig.getSlots());
-            log.info("Initializing parking lot having name: {} initial slotSize: {}",
-                    parkingLot.getName(), parkingLot.getTotalSlotsInParkingLot());
+            SlotStore slotStore = createSlotStore();
+            recoverSlotStore(slotStore);
+            SlotLockLeases slotLockLeases = new SlotLockLeases(slotStore.getTotalSlots(),
+                    parkingLotConfig.getLockLeaseMillis(), parkingLotConfig.getLockLeaseTickMillis());
+            ParkingLot parkingLot = new ParkingLot(parkingLotConfig.getName(), slotStore, parkingLotConfig.getShards(),
+                    slotLockLeases, toSlotLayout(parkingLotConfig.getLayout(), slotStore.getTotalSlots()));
+            attachListeners(ParkingLotRepository.DEFAULT_LOT_ID, parkingLot);
+            log.info("Initializing parking lot having name: {} initial slotSize: {} shards: {}",
+                    parkingLot.getName(), parkingLot.getTotalSlotsInParkingLot(), parkingLot.getNoOfShards());
             parkingLotRepository.saveAndFlush(parkingLot);
+            parkingMetricsService.registerParkingLot(ParkingLotRepository.DEFAULT_LOT_ID, parkingLot);
             log.info("Parking lot initialized!");
         } else {
             throw new UnsupportedOperationException("Parking lot can be initialized only once...");
         }
     }
 
-    public HttpStatus parkVehicle(String licensePlateNo, VehicleParkingResponseDto responseDto) {
+    // Lots created at runtime live in memory only, they are neither journaled nor snapshotted and are gone after a
+    // restart. Each gets its own slot store, shards and lock leases, so it never contends with another lot
+    public HttpStatus createParkingLot(ParkingLotRequestDto requestDto, ParkingLotResponseDto responseDto) {
+        String lotId = requestDto.getLotId();
+        responseDto.setLotId(lotId);
+        if (Objects.isNull(lotId) || !LOT_ID.matcher(lotId).matches()) {
+            responseDto.setMessage("Invalid lotId, expected 1 to 64 letters, digits, '-' or '_'");
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (requestDto.getSlots() < 1 || requestDto.getShards() < 1 || requestDto.getShards() > requestDto.getSlots()) {
+            responseDto.setMessage("Invalid slots: " + requestDto.getSlots() + " or shards: " + requestDto.getShards());
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (requestDto.getSlots() > parkingLotConfig.getMaxSlotsPerLot()) {
+            responseDto.setMessage("Slots: " + requestDto.getSlots() + " exceed max slots per lot: " + parkingLotConfig.getMaxSlotsPerLot());
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (requestDto.getSlotStore() == SlotStoreTypeEnum.MAPPED) {
+            responseDto.setMessage("Only the configured parking lot can use the mapped slot store");
+            return HttpStatus.BAD_REQUEST;
+        }
+        SlotLayout slotLayout;
+        try {
+            slotLayout = toSlotLayout(requestDto.getLayout(), requestDto.getSlots());
+        } catch (IllegalArgumentException e) {
+            responseDto.setMessage(e.getMessage());
+            return HttpStatus.BAD_REQUEST;
+        }
+        // Saves allocating the slots of a lot that already exists, saveIfAbsent still settles concurrent creations
+        if (Objects.nonNull(parkingLotRepository.getParkingLot(lotId))) {
+            return parkingLotExists(lotId, responseDto);
+        }
+        if (!reserveParkingLot()) {
+            responseDto.setMessage("Max parking lots: " + parkingLotConfig.getMaxParkingLots() + " already created");
+            return HttpStatus.CONFLICT;
+        }
+        SlotStore slotStore = requestDto.getSlotStore() == SlotStoreTypeEnum.COMPACT
+                ? new CompactSlotStore(requestDto.getSlots()) : new ObjectSlotStore(requestDto.getSlots());
+        SlotLockLeases slotLockLeases = new SlotLockLeases(slotStore.getTotalSlots(),
+                parkingLotConfig.getLockLeaseMillis(), parkingLotConfig.getLockLeaseTickMillis());
+        String name = Objects.isNull(requestDto.getName()) ? lotId : requestDto.getName();
+        ParkingLot parkingLot = new ParkingLot(name, slotStore, requestDto.getShards(), slotLockLeases, slotLayout);
+        attachListeners(lotId, parkingLot);
+        if (!parkingLotRepository.saveIfAbsent(lotId, parkingLot)) {
+            createdParkingLots.decrementAndGet();
+            return parkingLotExists(lotId, responseDto);
+        }
+        parkingMetricsService.registerParkingLot(lotId, parkingLot);
+        log.info("Created parking lot having lotId: {} name: {} slots: {} shards: {}",
+                lotId, name, parkingLot.getTotalSlotsInParkingLot(), parkingLot.getNoOfShards());
+        fillResponseDto(lotId, parkingLot, responseDto);
+        responseDto.setMessage("Parking lot created!");
+        return HttpStatus.CREATED;
+    }
+
+    private boolean reserveParkingLot() {
+        int created;
+        do {
+            created = createdParkingLots.get();
+            if (created >= parkingLotConfig.getMaxParkingLots()) {
+                return false;
+            }
+        } while (!createdParkingLots.compareAndSet(created, created + 1));
+        return true;
+    }
+
+    private HttpStatus parkingLotExists(String lotId, ParkingLotResponseDto responseDto) {
+        fillResponseDto(lotId, parkingLotRepository.getParkingLot(lotId), responseDto);
+        responseDto.setMessage("Parking lot already exists having lotId: " + lotId);
+        return HttpStatus.CONFLICT;
+    }
+
+    public List<ParkingLotResponseDto> getParkingLots() {
+        return parkingLotRepository.getParkingLots().entrySet().stream().map(lot -> {
+            ParkingLotResponseDto responseDto = new ParkingLotResponseDto();
+            fillResponseDto(lot.getKey(), lot.getValue(), responseDto);
+            return responseDto;
+        }).toList();
+    }
+
+    private void fillResponseDto(String lotId, ParkingLot parkingLot, ParkingLotResponseDto responseDto) {
+        responseDto.setLotId(lotId);
+        responseDto.setName(parkingLot.getName());
+        responseDto.setTotalSlots(parkingLot.getTotalSlotsInParkingLot());
+        responseDto.setAvailableSlots(parkingLot.getTotalAvailableSlots());
+        responseDto.setShards(parkingLot.getNoOfShards());
+        responseDto.setDurable(isDurable(lotId));
+    }
+
+    // Lots without gates hand out slots in no particular order
+    private static SlotLayout toSlotLayout(GridLayout gridLayout, int totalSlots) {
+        return Objects.nonNull(gridLayout) && gridLayout.hasGates() ? gridLayout.toSlotLayout(totalSlots) : null;
+    }
+
+    private void attachListeners(String lotId, ParkingLot parkingLot) {
+        parkingLot.setSlotStatusListener(availabilityStreamService.listenerFor(lotId));
+        parkingLot.setEventRecorder(eventLogService);
+    }
+
+    // Only the configured lot is journaled, journal records carry slot indexes of that lot
+    private static boolean isDurable(String lotId) {
+        return ParkingLotRepository.DEFAULT_LOT_ID.equals(lotId);
+    }
+
+    private SlotJournal journalFor(String lotId) {
+        return isDurable(lotId) ? journalService : SlotJournal.NONE;
+    }
+
+    private static <T> T await(CompletableFuture<T> transition) {
+        try {
+            return transition.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private SlotStore createSlotStore() {
+        return switch (parkingLotConfig.getSlotStore()) {
+            case COMPACT -> new CompactSlotStore(parkingLotConfig.getSlots());
+            // Maps the slot file left by the previous run, if any, so parked vehicles survive the restart
+            case MAPPED -> MappedSlotStore.open(Path.of(parkingLotConfig.getSlotStoreFile()), parkingLotConfig.getSlots());
+            case OBJECT -> new ObjectSlotStore(parkingLotConfig.getSlots());
+        };
+    }
+
+    // The mapped store persists every transition itself, the others are rebuilt from the last snapshot plus the
+    // journal written since, before the lot is built on top of them
+    private void recoverSlotStore(SlotStore slotStore) {
+        if (slotStore instanceof MappedSlotStore) {
+            journalService.openJournal();
+        } else {
+            long journalPosition = snapshotService.restoreSnapshot(slotStore);
+            journalService.openJournal(slotStore, journalPosition, parkingLotConfig.getShards());
+        }
+    }
+
+    public HttpStatus parkVehicle(String lotId, String licensePlateNo, String gate, VehicleParkingResponseDto responseDto) {
+        long startNanos = System.nanoTime();
         HttpStatus httpStatus = HttpStatus.OK;
         // Try to get lock on parking slot
         // Since api is concurrent, multiple users should not be able to lock on same slot
-        Optional<ParkingSlot> availableParkingSlotOpt = parkingSlotService.getAvailableParkingSlot(licensePlateNo);
+        Optional<ParkingSlot> availableParkingSlotOpt = parkingSlotService.getAvailableParkingSlot(lotId, licensePlateNo, gate);
         if (availableParkingSlotOpt.isPresent()) {
             ParkingSlot parkingSlot = availableParkingSlotOpt.get();
             try {
@@ -53,16 +241,16 @@ public class ParkingLotService {
                 // use factory to prepare appropriate object
                 Car car = vehicleService.createCarObjectForParking(licensePlateNo);
                 // Park vehicle
-                parkingSlot = parkVehicle(car, parkingSlot);
+                parkingSlot = parkVehicle(lotId, car, parkingSlot);
                 // Populate response object with details
                 responseDto.setSlotId(parkingSlot.getId());
                 responseDto.setVehicleParkingTime(parkingSlot.getParkedOn());
                 responseDto.setLicensePlate(car.getLicensePlateNo());
                 responseDto.setMessage(SlotAssignmentMessageEnum.SLOT_ASSIGNED_SUCCESSFULLY.getMessage());
-                log.info("Vehicle parked successfully in slot: {} licenseNo: {}", parkingSlot.getId(), licensePlateNo);
             } catch (Exception e) {
-                // If exception occurs, we need to unlock the locked slot
-                releaseLockOnParkingSlot(parkingSlot);
+                // If exception occurs, we need to unlock the locked slot. A no-op once the park ended the lock's lease,
+                // the lot takes a park the journal failed to write back out itself
+                releaseLockOnParkingSlot(lotId, parkingSlot, licensePlateNo);
                 log.error("Exception occurred while parking vehicle, ex: {}", e.toString());
                 responseDto.setMessage(SlotAssignmentMessageEnum.INTERNAL_SERVER_ERROR.getMessage());
                 httpStatus = HttpStatus.INTERNAL_SERVER_ERROR;
@@ -70,46 +258,318 @@ public class ParkingLotService {
         } else {
             responseDto.setMessage(SlotAssignmentMessageEnum.NO_SLOTS_AVAILABLE.getMessage());
         }
+        parkingMetricsService.recordPark(startNanos);
         return httpStatus;
     }
 
-    public void releaseLockOnParkingSlot(ParkingSlot parkingSlot) {
-        ParkingLot parkingLot = parkingLotRepository.getParkingLot();
-        parkingLot.releaseLock(parkingSlot);
+    // Same as parkVehicle but never blocks on the journal, completes with the status once the park is durable
+    public CompletableFuture<HttpStatus> parkVehicleAsync(String lotId, String licensePlateNo, String gate,
+                                                          VehicleParkingResponseDto responseDto) {
+        long startNanos = System.nanoTime();
+        return parkAndJournalAsync(lotId, licensePlateNo, gate, responseDto)
+                .whenComplete((httpStatus, e) -> parkingMetricsService.recordPark(startNanos));
+    }
+
+    private CompletableFuture<HttpStatus> parkAndJournalAsync(String lotId, String licensePlateNo, String gate,
+                                                              VehicleParkingResponseDto responseDto) {
+        Optional<ParkingSlot> availableParkingSlotOpt = parkingSlotService.getAvailableParkingSlot(lotId, licensePlateNo, gate);
+        if (availableParkingSlotOpt.isEmpty()) {
+            responseDto.setMessage(SlotAssignmentMessageEnum.NO_SLOTS_AVAILABLE.getMessage());
+            return CompletableFuture.completedFuture(HttpStatus.OK);
+        }
+        ParkingLot parkingLot = getParkingLot(lotId);
+        ParkingSlot lockedSlot = availableParkingSlotOpt.get();
+        CompletableFuture<ParkingSlot> parked;
+        try {
+            parked = parkingLot.parkVehicle(vehicleService.createCarObjectForParking(licensePlateNo), lockedSlot, journalFor(lotId));
+        } catch (Exception e) {
+            log.error("Exception occurred while parking vehicle, ex: {}", e.toString());
+            responseDto.setMessage(SlotAssignmentMessageEnum.INTERNAL_SERVER_ERROR.getMessage());
+            return releaseLockOnParkingSlotAsync(lotId, lockedSlot, licensePlateNo).handle((ignored, releaseException) -> HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        // The lot already took a park the journal failed to write back out
+        return parked.handle((parkedSlot, e) -> {
+            if (Objects.nonNull(e)) {
+                log.error("Exception occurred while parking vehicle, ex: {}", e.toString());
+                responseDto.setMessage(SlotAssignmentMessageEnum.INTERNAL_SERVER_ERROR.getMessage());
+                return HttpStatus.INTERNAL_SERVER_ERROR;
+            }
+            responseDto.setSlotId(parkedSlot.getId());
+            responseDto.setVehicleParkingTime(parkedSlot.getParkedOn());
+            responseDto.setLicensePlate(licensePlateNo);
+            responseDto.setMessage(SlotAssignmentMessageEnum.SLOT_ASSIGNED_SUCCESSFULLY.getMessage());
+            return HttpStatus.OK;
+        });
+    }
+
+    // Parks a batch of vehicles with one allocator pass, their records share a group commit. Result i belongs to
+    // licensePlateNos[i]
+    public List<VehicleParkingResponseDto> parkVehicles(String lotId, List<String> licensePlateNos, String gate) {
+        return await(parkVehiclesAsync(lotId, licensePlateNos, gate));
+    }
+
+    // Nothing of the batch is acknowledged or kept unless it is durable, same as a single park
+    public CompletableFuture<List<VehicleParkingResponseDto>> parkVehiclesAsync(String lotId, List<String> licensePlateNos,
+                                                                                String gate) {
+        ParkBatch parkBatch = claimAndParkBatch(lotId, licensePlateNos, gate);
+        CompletableFuture<?>[] parks = new CompletableFuture[parkBatch.parks().size()];
+        for (int i = 0; i < parks.length; i++) {
+            VehicleParkingResponseDto responseDto = parkBatch.parkedResponseDtos().get(i);
+            parks[i] = parkBatch.parks().get(i).handle((parkedSlot, e) -> {
+                if (Objects.nonNull(e)) {
+                    log.error("Exception occurred while journaling parked vehicle in batch, ex: {}", e.toString());
+                    responseDto.setMessage(SlotAssignmentMessageEnum.INTERNAL_SERVER_ERROR.getMessage());
+                    return null;
+                }
+                responseDto.setSlotId(parkedSlot.getId());
+                responseDto.setVehicleParkingTime(parkedSlot.getParkedOn());
+                responseDto.setMessage(SlotAssignmentMessageEnum.SLOT_ASSIGNED_SUCCESSFULLY.getMessage());
+                responseDto.setVehicleParked(true);
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(parks).thenApply(ignored -> parkBatch.responseDtos());
+    }
+
+    // Vehicles of a batch parked in the lot, parks[i] completes once the vehicle of parkedResponseDtos[i] is durable
+    private record ParkBatch(List<VehicleParkingResponseDto> responseDtos, List<CompletableFuture<ParkingSlot>> parks,
+                             List<VehicleParkingResponseDto> parkedResponseDtos) {
+    }
+
+    private ParkBatch claimAndParkBatch(String lotId, List<String> licensePlateNos, String gate) {
+        ParkingLot parkingLot = getParkingLot(lotId);
+        if (!parkingLot.hasGate(gate)) {
+            throw new UnknownGateException(lotId, gate);
+        }
+        List<VehicleParkingResponseDto> responseDtos = new ArrayList<>(licensePlateNos.size());
+        List<String> licensesToPark = new ArrayList<>(licensePlateNos.size());
+        List<VehicleParkingResponseDto> responseDtosToPark = new ArrayList<>(licensePlateNos.size());
+        Set<String> batchLicenses = new HashSet<>();
+        for (String licensePlateNo : licensePlateNos) {
+            VehicleParkingResponseDto responseDto = new VehicleParkingResponseDto();
+            responseDto.setLicensePlate(licensePlateNo);
+            responseDtos.add(responseDto);
+            if (!batchLicenses.add(licensePlateNo) || parkingLot.isVehicleAlreadyParked(licensePlateNo)) {
+                responseDto.setMessage("Vehicle already parked having license plate: " + licensePlateNo);
+            } else {
+                licensesToPark.add(licensePlateNo);
+                responseDtosToPark.add(responseDto);
+            }
+        }
+        List<Optional<ParkingSlot>> lockedSlots = parkingLot.getAvailableParkingSlots(licensesToPark, gate);
+        SlotJournal slotJournal = journalFor(lotId);
+        List<CompletableFuture<ParkingSlot>> parks = new ArrayList<>(licensesToPark.size());
+        List<VehicleParkingResponseDto> parkedResponseDtos = new ArrayList<>(licensesToPark.size());
+        for (int i = 0; i < licensesToPark.size(); i++) {
+            VehicleParkingResponseDto responseDto = responseDtosToPark.get(i);
+            if (lockedSlots.get(i).isEmpty()) {
+                responseDto.setMessage(SlotAssignmentMessageEnum.NO_SLOTS_AVAILABLE.getMessage());
+                continue;
+            }
+            ParkingSlot lockedSlot = lockedSlots.get(i).get();
+            try {
+                Car car = vehicleService.createCarObjectForParking(licensesToPark.get(i));
+                parks.add(parkingLot.parkVehicle(car, lockedSlot, slotJournal));
+                parkedResponseDtos.add(responseDto);
+            } catch (Exception e) {
+                // Not awaited, the lock is back in the lot whether or not its release record is durable
+                releaseLockOnParkingSlotAsync(lotId, lockedSlot, licensesToPark.get(i)).exceptionally(releaseException -> {
+                    log.error("Could not journal lock release of slot: {}, ex: {}", lockedSlot.getId(), releaseException.toString());
+                    return null;
+                });
+                log.error("Exception occurred while parking vehicle in batch, ex: {}", e.toString());
+                responseDto.setMessage(SlotAssignmentMessageEnum.INTERNAL_SERVER_ERROR.getMessage());
+            }
+        }
+        return new ParkBatch(responseDtos, parks, parkedResponseDtos);
+    }
+
+    // Unparks a batch of vehicles with one free stack push per shard, their records share a group commit
+    public List<VehicleUnParkingResponseDto> unparkVehicles(String lotId, List<String> licensePlateNos) {
+        return await(unparkVehiclesAsync(lotId, licensePlateNos));
+    }
+
+    // Completes once the unparks are durable, the lot only vacates the slots then
+    public CompletableFuture<List<VehicleUnParkingResponseDto>> unparkVehiclesAsync(String lotId, List<String> licensePlateNos) {
+        ParkingLot parkingLot = getParkingLot(lotId);
+        List<VehicleUnParkingResponseDto> responseDtos = new ArrayList<>(licensePlateNos.size());
+        List<ParkingSlot> slotsToVacate = new ArrayList<>(licensePlateNos.size());
+        List<String> licensesToUnpark = new ArrayList<>(licensePlateNos.size());
+        List<VehicleUnParkingResponseDto> responseDtosToUnpark = new ArrayList<>(licensePlateNos.size());
+        Set<String> batchLicenses = new HashSet<>();
+        for (String licensePlateNo : licensePlateNos) {
+            VehicleUnParkingResponseDto responseDto = new VehicleUnParkingResponseDto();
+            responseDto.setLicensePlate(licensePlateNo);
+            responseDtos.add(responseDto);
+            Optional<ParkingSlot> parkingSlotOpt = batchLicenses.add(licensePlateNo)
+                    ? parkingLot.getParkingSlotByLicenseNo(licensePlateNo) : Optional.empty();
+            if (parkingSlotOpt.isPresent()) {
+                responseDto.setSlotId(parkingSlotOpt.get().getId());
+                responseDto.setParkingTime(parkingSlotOpt.get().getParkedOn());
+                slotsToVacate.add(parkingSlotOpt.get());
+                licensesToUnpark.add(licensePlateNo);
+                responseDtosToUnpark.add(responseDto);
+            } else {
+                responseDto.setMessage("No parked vehicle found having license plate: " + licensePlateNo);
+            }
+        }
+        return parkingLot.unparkVehicles(slotsToVacate, licensesToUnpark, journalFor(lotId)).thenApply(unparked -> {
+            LocalDateTime unparkingTime = LocalDateTime.now();
+            for (int i = 0; i < unparked.length; i++) {
+                VehicleUnParkingResponseDto responseDto = responseDtosToUnpark.get(i);
+                if (unparked[i]) {
+                    responseDto.setUnParkingTime(unparkingTime);
+                    responseDto.setTotalDurationParked(Duration.between(responseDto.getParkingTime(), unparkingTime));
+                    responseDto.setMessage("Vehicle unparked!");
+                } else if (parkingLot.isVehicleAlreadyParked(licensesToUnpark.get(i))) {
+                    // The journal failed this unpark, the vehicle is still parked
+                    responseDto.setMessage(SlotAssignmentMessageEnum.INTERNAL_SERVER_ERROR.getMessage());
+                } else {
+                    responseDto.setMessage("No parked vehicle found having license plate: " + licensesToUnpark.get(i));
+                }
+            }
+            return responseDtos;
+        });
+    }
+
+    public int getMaxBatchSize() {
+        return parkingLotConfig.getMaxBatchSize();
+    }
+
+    // Scheduled ticks can start before the parking lot is initialized, the registry is empty then
+    public void expireLockLeases() {
+        long nowMillis = System.currentTimeMillis();
+        parkingLotRepository.getParkingLots().forEach((lotId, parkingLot) -> {
+            int reclaimedLocks = parkingLot.expireLockLeases(nowMillis);
+            if (reclaimedLocks > 0) {
+                log.warn("Reclaimed {} slot locks having expired leases in lot: {}", reclaimedLocks, lotId);
+            }
+        });
     }
 
-    public ParkingSlot parkVehicle(Car car, ParkingSlot parkingSlot) {
-        ParkingLot parkingLot = parkingLotRepository.getParkingLot();
-        return parkingLot.parkVehicle(car, parkingSlot);
+    public void releaseLockOnParkingSlot(String lotId, ParkingSlot parkingSlot, String licenseNo) {
+        ParkingLot parkingLot = getParkingLot(lotId);
+        if (parkingLot.releaseLock(parkingSlot, licenseNo) && isDurable(lotId)) {
+            journalService.recordLockReleased(parkingSlot);
+        }
     }
 
-    public Optional<ParkingSlot> findVehicleParkingSlotByLicenseNo(String licensePlateNo) {
-        ParkingLot parkingLot = parkingLotRepository.getParkingLot();
+    public CompletableFuture<Void> releaseLockOnParkingSlotAsync(String lotId, ParkingSlot parkingSlot, String licenseNo) {
+        ParkingLot parkingLot = getParkingLot(lotId);
+        if (parkingLot.releaseLock(parkingSlot, licenseNo) && isDurable(lotId)) {
+            return journalService.recordLockReleasedAsync(parkingSlot);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Returns once the park is durable, a park that isn't must not be acknowledged and the lot takes it back out
+    public ParkingSlot parkVehicle(String lotId, Car car, ParkingSlot parkingSlot) {
+        ParkingLot parkingLot = getParkingLot(lotId);
+        return await(parkingLot.parkVehicle(car, parkingSlot, journalFor(lotId)));
+    }
+
+    public Optional<ParkingSlot> findVehicleParkingSlotByLicenseNo(String lotId, String licensePlateNo) {
+        ParkingLot parkingLot = getParkingLot(lotId);
         return parkingLot.getParkingSlotByLicenseNo(licensePlateNo);
     }
 
-    public void unparkVehicle(ParkingSlot parkingSlot, String licenseNo) {
-        ParkingLot parkingLot = parkingLotRepository.getParkingLot();
-        parkingLot.unparkVehicle(parkingSlot, licenseNo);
+    public void unparkVehicle(String lotId, ParkingSlot parkingSlot, String licenseNo) {
+        long startNanos = System.nanoTime();
+        try {
+            ParkingLot parkingLot = getParkingLot(lotId);
+            await(parkingLot.unparkVehicle(parkingSlot, licenseNo, journalFor(lotId)));
+        } finally {
+            parkingMetricsService.recordUnpark(startNanos);
+        }
+    }
+
+    // Completes once the unpark is durable, the lot only vacates the slot then
+    public CompletableFuture<Void> unparkVehicleAsync(String lotId, ParkingSlot parkingSlot, String licenseNo) {
+        long startNanos = System.nanoTime();
+        ParkingLot parkingLot = getParkingLot(lotId);
+        return parkingLot.unparkVehicle(parkingSlot, licenseNo, journalFor(lotId)).whenComplete((ignored, e) -> parkingMetricsService.recordUnpark(startNanos));
     }
 
-    public Optional<ParkingSlot> findSlotById(Long slotId) {
-        ParkingLot parkingLot = parkingLotRepository.getParkingLot();
+    public Optional<ParkingSlot> findSlotById(String lotId, Long slotId) {
+        ParkingLot parkingLot = getParkingLot(lotId);
         return parkingLot.getSlotById(slotId);
     }
 
-    public long getTotalSlotsInParkingLot() {
-        ParkingLot parkingLot = parkingLotRepository.getParkingLot();
+    public long getTotalSlotsInParkingLot(String lotId) {
+        ParkingLot parkingLot = getParkingLot(lotId);
         return parkingLot.getTotalSlotsInParkingLot();
     }
 
-    public long getTotalAvailableSlotsInParkingLot() {
-        ParkingLot parkingLot = parkingLotRepository.getParkingLot();
+    public long getTotalAvailableSlotsInParkingLot(String lotId) {
+        ParkingLot parkingLot = getParkingLot(lotId);
         return parkingLot.getTotalAvailableSlots();
     }
 
-    public boolean isVehicleAlreadyParked(String licensePlateNo) {
-        ParkingLot parkingLot = parkingLotRepository.getParkingLot();
+    public long getTotalAvailableSlotsInParkingLot(String lotId, boolean exact) {
+        ParkingLot parkingLot = getParkingLot(lotId);
+        return parkingLot.getTotalAvailableSlots(exact);
+    }
+
+    // Filled from the given occupancy snapshot, its version tags the response
+    public static HttpStatus fillSlotInfoResponseDto(OccupancySnapshot occupancySnapshot, long slotId,
+                                                     SlotInfoResponseDto responseDto) {
+        Optional<ParkingSlot> parkingSlotOpt = occupancySnapshot.getSlotById(slotId);
+        if (parkingSlotOpt.isEmpty()) {
+            responseDto.setMessage("Slot not found having slotId: " + slotId);
+            return HttpStatus.BAD_REQUEST;
+        }
+        ParkingSlot parkingSlot = parkingSlotOpt.get();
+        responseDto.setSlotId(parkingSlot.getId());
+        if (SlotStatusEnum.OCCUPIED.equals(parkingSlot.getSlotStatusEnum())) {
+            responseDto.setParkedOn(parkingSlot.getParkedOn());
+            responseDto.setLicensePlate(parkingSlot.getVehicle().getLicensePlateNo());
+            responseDto.setTotalDurationParked(Duration.between(parkingSlot.getParkedOn(), LocalDateTime.now()));
+        }
+        responseDto.setSlotStatus(parkingSlot.getSlotStatusEnum());
+        responseDto.setMessage("Slot found having slotId: " + slotId);
+        return HttpStatus.OK;
+    }
+
+    // parkedOn is read before the unpark, which vacates the slot
+    public static void fillUnparkedResponseDto(ParkingSlot parkingSlot, LocalDateTime parkedOn, String licensePlateNo,
+                                               VehicleUnParkingResponseDto responseDto) {
+        responseDto.setSlotId(parkingSlot.getId());
+        responseDto.setParkingTime(parkedOn);
+        responseDto.setUnParkingTime(LocalDateTime.now());
+        responseDto.setLicensePlate(licensePlateNo);
+        responseDto.setTotalDurationParked(Duration.between(parkedOn, responseDto.getUnParkingTime()));
+        responseDto.setMessage("Vehicle unparked!");
+    }
+
+    public OccupancySnapshot getOccupancySnapshot(String lotId) {
+        ParkingLot parkingLot = getParkingLot(lotId);
+        return parkingLot.getOccupancySnapshot();
+    }
+
+    // Counts are read from one occupancy snapshot, so they add up to the total and carry its version. exact recounts
+    // the slot store instead, slots moving during the recount are counted in whichever status they were seen in
+    public SlotOccupancyResponseDto getSlotOccupancy(String lotId, boolean exact) {
+        ParkingLot parkingLot = getParkingLot(lotId);
+        SlotOccupancyResponseDto responseDto = new SlotOccupancyResponseDto();
+        responseDto.setTotalSlots(parkingLot.getTotalSlotsInParkingLot());
+        if (exact) {
+            responseDto.setAvailableSlots(parkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.AVAILABLE, true));
+            responseDto.setLockedSlots(parkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.LOCKED, true));
+            responseDto.setOccupiedSlots(parkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.OCCUPIED, true));
+        } else {
+            OccupancySnapshot occupancySnapshot = parkingLot.getOccupancySnapshot();
+            responseDto.setAvailableSlots(occupancySnapshot.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+            responseDto.setLockedSlots(occupancySnapshot.getSlotsHavingStatus(SlotStatusEnum.LOCKED));
+            responseDto.setOccupiedSlots(occupancySnapshot.getSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+            responseDto.setVersion(occupancySnapshot.getVersionTag());
+        }
+        responseDto.setExact(exact);
+        responseDto.setReclaimedLockLeases(parkingLot.getReclaimedLockLeases());
+        return responseDto;
+    }
+
+    public boolean isVehicleAlreadyParked(String lotId, String licensePlateNo) {
+        ParkingLot parkingLot = getParkingLot(lotId);
         return parkingLot.isVehicleAlreadyParked(licensePlateNo);
     }
 }
@@ -0,0 +1,119 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.enums.RateLimitDecisionEnum;
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingLot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency timers of the park, unpark, slot allocation and rate limit paths, plus occupancy gauges and contention
+ * counters read from each parking lot, served by /actuator/metrics. Timers keep time-windowed HdrHistograms, so
+ * recording costs a few atomic adds and p99/p999 are computed when the metrics are read, not per request.
+ */
+@Service
+public class ParkingMetricsService {
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MeterRegistry meterRegistry;
+    private final Timer parkTimer;
+    private final Timer unparkTimer;
+    private final Timer slotAllocationTimer;
+    private final Timer rateLimitTimer;
+    // Indexed by RateLimitDecisionEnum ordinal
+    private final Counter[] rateLimitDecisions;
+
+    public ParkingMetricsService(MeterRegistry meterRegistry) {
+        this.parkTimer = latencyTimer(meterRegistry, "parking.park", "Park requests, journal commit included");
+        this.unparkTimer = latencyTimer(meterRegistry, "parking.unpark", "Unpark requests, journal commit included");
+        this.slotAllocationTimer = latencyTimer(meterRegistry, "parking.slot.allocation", "Claiming and locking a free slot");
+        this.rateLimitTimer = latencyTimer(meterRegistry, "parking.rate.limit", "Rate limit decisions");
+        this.rateLimitDecisions = new Counter[RateLimitDecisionEnum.values().length];
+        for (RateLimitDecisionEnum decision : RateLimitDecisionEnum.values()) {
+            rateLimitDecisions[decision.ordinal()] = Counter.builder("parking.rate.limit.decisions")
+                    .tag("decision", decision.name().toLowerCase())
+                    .description("Requests admitted, and refused by the client, subnet or global limit")
+                    .register(meterRegistry);
+        }
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Occupancy gauges and contention counters are tagged by lot, the repository keeps the lots they read alive
+    public void registerParkingLot(String lotId, ParkingLot parkingLot) {
+        for (SlotStatusEnum slotStatus : SlotStatusEnum.values()) {
+            Gauge.builder("parking.slots", parkingLot, lot -> lot.getTotalSlotsHavingStatus(slotStatus, false))
+                    .tag("lot", lotId)
+                    .tag("status", slotStatus.name().toLowerCase())
+                    .description("Slots having each status")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("parking.lock.leases.outstanding", parkingLot, ParkingLot::getOutstandingLockLeases)
+                .tag("lot", lotId)
+                .description("Slot locks waiting for their lease to expire")
+                .register(meterRegistry);
+        FunctionCounter.builder("parking.free.slots.cas.retries", parkingLot, ParkingLot::getFreeSlotCasRetries)
+                .tag("lot", lotId)
+                .description("Free slot stack pops and pushes retried after losing a CAS to another thread")
+                .register(meterRegistry);
+        FunctionCounter.builder("parking.slot.lock.failures", parkingLot, ParkingLot::getSlotLockFailures)
+                .tag("lot", lotId)
+                .description("Claimed slots the slot store refused to lock")
+                .register(meterRegistry);
+        FunctionTimer.builder("parking.occupancy.lock.wait", parkingLot,
+                        ParkingLot::getOccupancyLockWaits, ParkingLot::getOccupancyLockWaitNanos, TimeUnit.NANOSECONDS)
+                .tag("lot", lotId)
+                .description("Waits for the write lock of the occupied slot index, uncontended acquisitions excluded")
+                .register(meterRegistry);
+    }
+
+    // Followers only, staleness is NaN until the follower first caught up with its primary
+    public void registerReplication(ReplicationService replicationService) {
+        Gauge.builder("parking.replication.lag", replicationService, ReplicationService::getLagBytes)
+                .baseUnit("bytes")
+                .description("Journal bytes committed on the primary the follower has yet to apply")
+                .register(meterRegistry);
+        TimeGauge.builder("parking.replication.staleness", replicationService, TimeUnit.MILLISECONDS, follower -> {
+                    long stalenessMillis = follower.getStalenessMillis();
+                    return stalenessMillis == Long.MAX_VALUE ? Double.NaN : stalenessMillis;
+                })
+                .description("Since the follower last caught up with the primary")
+                .register(meterRegistry);
+    }
+
+    // Each takes the System.nanoTime() the measured operation started at
+    public void recordPark(long startNanos) {
+        parkTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUnpark(long startNanos) {
+        unparkTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSlotAllocation(long startNanos) {
+        slotAllocationTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRateLimit(long startNanos, RateLimitDecisionEnum decision) {
+        rateLimitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        rateLimitDecisions[decision.ordinal()].increment();
+    }
+
+    private static Timer latencyTimer(MeterRegistry meterRegistry, String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+}
@@ -1,21 +1,35 @@
 package com.demo.carparkinglot.services;
 
+import com.demo.carparkinglot.exceptions.ParkingLotNotFoundException;
+import com.demo.carparkinglot.exceptions.UnknownGateException;
 import com.demo.carparkinglot.models.ParkingLot;
 import com.demo.carparkinglot.models.ParkingSlot;
 import com.demo.carparkinglot.repositories.ParkingLotRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class ParkingSlotService {
     private final ParkingLotRepository parkingLotRepository;
+    private final ParkingMetricsService parkingMetricsService;
 
-    public Optional<ParkingSlot> getAvailableParkingSlot(String licenseNo) {
-        ParkingLot parkingLot = parkingLotRepository.getParkingLot();
-        return parkingLot.getAvailableParkingSlot(licenseNo);
+    // gate is the entrance or exit to allocate the nearest slot to, null for the first gate of the lot
+    public Optional<ParkingSlot> getAvailableParkingSlot(String lotId, String licenseNo, String gate) {
+        long startNanos = System.nanoTime();
+        ParkingLot parkingLot = parkingLotRepository.getParkingLot(lotId);
+        if (Objects.isNull(parkingLot)) {
+            throw new ParkingLotNotFoundException(lotId);
+        }
+        if (!parkingLot.hasGate(gate)) {
+            throw new UnknownGateException(lotId, gate);
+        }
+        Optional<ParkingSlot> parkingSlot = parkingLot.getAvailableParkingSlot(licenseNo, gate);
+        parkingMetricsService.recordSlotAllocation(startNanos);
+        return parkingSlot;
     }
 
 }
@@ -1,34 +1,59 @@
 package com.demo.carparkinglot.services;
 
 import com.demo.carparkinglot.configuration.params.RateLimitConfigParams;
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
-import lombok.RequiredArgsConstructor;
+import com.demo.carparkinglot.enums.ParkingEventTypeEnum;
+import com.demo.carparkinglot.enums.RateLimitDecisionEnum;
+import com.demo.carparkinglot.models.events.ParkingEvent;
+import com.demo.carparkinglot.models.ratelimit.CellRateLimit;
+import com.demo.carparkinglot.models.ratelimit.HierarchicalRateLimiter;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 @Service
-@RequiredArgsConstructor
 public class RateLimitService {
-    private final RateLimitConfigParams rateLimitConfigParams;
+    public static final String BUCKET_CACHE = "buckets";
+    private static final Function<Object, Object> NEW_CLIENT_BUCKET = remoteAddress -> new AtomicLong();
 
-    private final Map<String, Bucket> cache = new ConcurrentHashMap<>();
+    private final EventLogService eventLogService;
+    private final ParkingMetricsService parkingMetricsService;
+    private final HierarchicalRateLimiter rateLimiter;
+    // Client buckets, bounded and idle-evicting, see spring.cache.caffeine.spec. An evicted client simply gets a
+    // full bucket again. Used natively, Spring's Cache wrapper allocates on every lookup
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> buckets;
 
-    public boolean isRateExceeded(String remoteAddress) {
-        return !resolveBucket(remoteAddress).tryConsume(1);
+    public RateLimitService(RateLimitConfigParams rateLimitConfigParams, EventLogService eventLogService,
+                            ParkingMetricsService parkingMetricsService, CacheManager cacheManager) {
+        this.eventLogService = eventLogService;
+        this.parkingMetricsService = parkingMetricsService;
+        this.rateLimiter = new HierarchicalRateLimiter(
+                new CellRateLimit(rateLimitConfigParams.getMaxRequestPerMinute(), Duration.ofMinutes(1)),
+                new CellRateLimit(rateLimitConfigParams.getMaxSubnetRequestPerMinute(), Duration.ofMinutes(1)),
+                new CellRateLimit(rateLimitConfigParams.getMaxGlobalRequestPerSecond(), Duration.ofSeconds(1)),
+                rateLimitConfigParams.getSubnetBuckets());
+        Cache cache = cacheManager.getCache(BUCKET_CACHE);
+        if (!(cache instanceof CaffeineCache caffeineCache)) {
+            throw new IllegalStateException("Caffeine cache not configured: " + BUCKET_CACHE);
+        }
+        this.buckets = caffeineCache.getNativeCache();
     }
 
-    public Bucket resolveBucket(String remoteAddress) {
-        return cache.computeIfAbsent(remoteAddress, this::newBucket);
+    public boolean isRateExceeded(String remoteAddress) {
+        long startNanos = System.nanoTime();
+        RateLimitDecisionEnum decision = rateLimiter.tryAcquire(resolveBucket(remoteAddress), remoteAddress);
+        parkingMetricsService.recordRateLimit(startNanos, decision);
+        boolean rateExceeded = decision != RateLimitDecisionEnum.ADMITTED;
+        eventLogService.record(rateExceeded ? ParkingEventTypeEnum.RATE_LIMITED : ParkingEventTypeEnum.RATE_LIMIT_PASSED,
+                ParkingEvent.NO_SLOT, ParkingEvent.addressSubject(remoteAddress));
+        return rateExceeded;
     }
 
-    private Bucket newBucket(String apiKey) {
-        int reqPerMin = rateLimitConfigParams.getMaxRequestPerMinute();
-        Bandwidth limit = Bandwidth.classic(reqPerMin, Refill.intervally(reqPerMin, Duration.ofMinutes(1)));
-        return Bucket.builder().addLimit(limit).build();
+    public AtomicLong resolveBucket(String remoteAddress) {
+        return (AtomicLong) buckets.get(remoteAddress, NEW_CLIENT_BUCKET);
     }
 }
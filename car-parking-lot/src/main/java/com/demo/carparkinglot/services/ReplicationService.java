@@ -0,0 +1,295 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.params.ClusterConfigParams;
+import com.demo.carparkinglot.configuration.params.JournalConfigParams;
+import com.demo.carparkinglot.configuration.params.ReplicationConfigParams;
+import com.demo.carparkinglot.configuration.params.SecurityConfigParams;
+import com.demo.carparkinglot.configuration.params.SnapshotConfigParams;
+import com.demo.carparkinglot.enums.ApiAuthModeEnum;
+import com.demo.carparkinglot.enums.ReplicationRoleEnum;
+import com.demo.carparkinglot.exchanges.response.ApiTokenResponseDto;
+import com.demo.carparkinglot.exchanges.response.ReplicationStatusResponseDto;
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.models.journal.GroupCommitJournal;
+import com.demo.carparkinglot.models.journal.JournalRecord;
+import com.demo.carparkinglot.repositories.ParkingLotRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+// Log shipping from a primary to read-only followers. The primary serves its committed journal by position, each
+// follower fetches what it has not applied yet and applies it to its own copy of the configured lot, so slot reads
+// scale out over followers without touching the primary's allocator. Only the configured lot is journaled, so it is
+// the only one replicated
+@Slf4j
+@Service
+public class ReplicationService {
+    public static final String JOURNAL_PATH = "/api/v1/replication/journal";
+    public static final String COMMITTED_POSITION_HEADER = "X-Journal-Committed-Position";
+    public static final String STALENESS_HEADER = "X-Replica-Staleness-Millis";
+    private static final long NEVER = -1;
+
+    private final ReplicationConfigParams replicationConfigParams;
+    private final SecurityConfigParams securityConfigParams;
+    private final ParkingLotRepository parkingLotRepository;
+    private final JournalService journalService;
+    private final ObjectProvider<ApiTokenService> apiTokenService;
+    private final ParkingMetricsService parkingMetricsService;
+    private final String primaryUrl;
+    private final HttpClient httpClient;
+    // Addresses of the followers, primary only
+    private final Set<String> followerAddresses;
+    // Written by the follower thread only
+    private volatile long appliedPosition;
+    private volatile long appliedRecords;
+    private volatile long primaryCommittedPosition;
+    // When the fetch that last caught up with the primary was sent, every write committed before it is applied
+    private volatile long caughtUpAtMillis = NEVER;
+    private volatile String lastError;
+    private ApiTokenResponseDto bearerToken;
+    private Thread follower;
+    private volatile boolean stopped;
+
+    public ReplicationService(ReplicationConfigParams replicationConfigParams, SecurityConfigParams securityConfigParams,
+                              JournalConfigParams journalConfigParams, SnapshotConfigParams snapshotConfigParams,
+                              ClusterConfigParams clusterConfigParams, ParkingLotRepository parkingLotRepository,
+                              JournalService journalService, ObjectProvider<ApiTokenService> apiTokenService,
+                              ParkingMetricsService parkingMetricsService) {
+        this.replicationConfigParams = replicationConfigParams;
+        this.securityConfigParams = securityConfigParams;
+        this.parkingLotRepository = parkingLotRepository;
+        this.journalService = journalService;
+        this.apiTokenService = apiTokenService;
+        this.parkingMetricsService = parkingMetricsService;
+        ReplicationRoleEnum role = replicationConfigParams.getRole();
+        if (role == ReplicationRoleEnum.PRIMARY && !journalConfigParams.isEnabled()) {
+            throw new IllegalStateException("replication.role: primary needs journal.enabled");
+        }
+        this.followerAddresses = role == ReplicationRoleEnum.PRIMARY
+                ? resolve(replicationConfigParams.getFollowerHosts()) : Set.of();
+        if (role != ReplicationRoleEnum.FOLLOWER) {
+            this.primaryUrl = null;
+            this.httpClient = null;
+            return;
+        }
+        // The follower signs its own bearer tokens with the secret it shares with the primary
+        if (securityConfigParams.getApiAuth() != ApiAuthModeEnum.TOKEN) {
+            throw new IllegalStateException("replication.role: follower needs security.api-auth: token");
+        }
+        // Its lot is a copy of the primary's, writing it down locally or taking part in a cluster would fork it
+        if (journalConfigParams.isEnabled() || snapshotConfigParams.isEnabled() || clusterConfigParams.isEnabled()) {
+            throw new IllegalStateException("replication.role: follower can't be combined with journal, snapshot or cluster");
+        }
+        this.primaryUrl = ClusterService.normalize(replicationConfigParams.getPrimaryUrl());
+        if (Objects.isNull(primaryUrl) || replicationConfigParams.getPollIntervalMillis() <= 0
+                || replicationConfigParams.getMaxFetchBytes() <= 0 || replicationConfigParams.getFetchTimeoutMillis() <= 0
+                || replicationConfigParams.getMaxStalenessMillis() <= 0) {
+            throw new IllegalStateException("Invalid replication config, primary-url: " + replicationConfigParams.getPrimaryUrl());
+        }
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(replicationConfigParams.getFetchTimeoutMillis()))
+                .build();
+    }
+
+    // The configured lot exists once the application is ready
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFollowing() {
+        if (!isFollower()) {
+            return;
+        }
+        parkingMetricsService.registerReplication(this);
+        follower = new Thread(this::follow, "replication-follower");
+        follower.setDaemon(true);
+        follower.start();
+        log.info("Following primary: {} poll interval: {}ms max staleness: {}ms", primaryUrl,
+                replicationConfigParams.getPollIntervalMillis(), replicationConfigParams.getMaxStalenessMillis());
+    }
+
+    @PreDestroy
+    public void stopFollowing() throws InterruptedException {
+        stopped = true;
+        if (Objects.nonNull(follower)) {
+            follower.interrupt();
+            follower.join();
+        }
+    }
+
+    public boolean isFollower() {
+        return replicationConfigParams.getRole() == ReplicationRoleEnum.FOLLOWER;
+    }
+
+    public String getPrimaryUrl() {
+        return primaryUrl;
+    }
+
+    // Journal reads of followers already pace themselves by the poll interval
+    public boolean isFollowerRequest(String remoteAddress, String path) {
+        return JOURNAL_PATH.equals(path) && followerAddresses.contains(remoteAddress);
+    }
+
+    public byte[] readJournal(long fromPosition, Integer maxBytes) {
+        if (replicationConfigParams.getRole() != ReplicationRoleEnum.PRIMARY) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Not a replication primary");
+        }
+        int fetchBytes = Objects.isNull(maxBytes) ? replicationConfigParams.getMaxFetchBytes()
+                : Math.max(1, Math.min(maxBytes, replicationConfigParams.getMaxFetchBytes()));
+        try {
+            return journalService.readCommitted(fromPosition, fetchBytes);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    public long getCommittedPosition() {
+        return journalService.getCommittedPosition();
+    }
+
+    // Long.MAX_VALUE until the follower first caught up
+    public long getStalenessMillis() {
+        long caughtUpAt = caughtUpAtMillis;
+        return caughtUpAt == NEVER ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - caughtUpAt);
+    }
+
+    public boolean isServingReads() {
+        return getStalenessMillis() <= replicationConfigParams.getMaxStalenessMillis();
+    }
+
+    public long getLagBytes() {
+        return Math.max(0, primaryCommittedPosition - appliedPosition);
+    }
+
+    public ReplicationStatusResponseDto getStatus() {
+        ReplicationStatusResponseDto responseDto = new ReplicationStatusResponseDto();
+        responseDto.setRole(replicationConfigParams.getRole());
+        if (replicationConfigParams.getRole() == ReplicationRoleEnum.PRIMARY) {
+            responseDto.setPrimaryCommittedPosition(getCommittedPosition());
+        } else if (isFollower()) {
+            long stalenessMillis = getStalenessMillis();
+            responseDto.setPrimaryUrl(primaryUrl);
+            responseDto.setPrimaryCommittedPosition(primaryCommittedPosition);
+            responseDto.setAppliedPosition(appliedPosition);
+            responseDto.setAppliedRecords(appliedRecords);
+            responseDto.setLagBytes(getLagBytes());
+            responseDto.setStalenessMillis(stalenessMillis == Long.MAX_VALUE ? null : stalenessMillis);
+            responseDto.setServingReads(stalenessMillis <= replicationConfigParams.getMaxStalenessMillis());
+            responseDto.setLastError(lastError);
+        }
+        return responseDto;
+    }
+
+    private void follow() {
+        while (!stopped) {
+            boolean behind = false;
+            try {
+                behind = fetch();
+                lastError = null;
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                // Logged when it changes, not on every poll of an unreachable primary
+                if (!Objects.equals(lastError, e.toString())) {
+                    log.warn("Could not follow primary: {}, ex: {}", primaryUrl, e.toString());
+                }
+                lastError = e.toString();
+            }
+            if (!behind) {
+                try {
+                    Thread.sleep(replicationConfigParams.getPollIntervalMillis());
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns whether the primary has more committed journal to send right away
+    private boolean fetch() throws IOException, InterruptedException {
+        long sentAtMillis = System.currentTimeMillis();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(primaryUrl + JOURNAL_PATH + "?from=" + appliedPosition
+                        + "&maxBytes=" + replicationConfigParams.getMaxFetchBytes()))
+                .timeout(Duration.ofMillis(replicationConfigParams.getFetchTimeoutMillis()))
+                .header(HttpHeaders.AUTHORIZATION, ApiTokenService.TOKEN_TYPE + " " + bearerToken(sentAtMillis))
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != HttpStatus.OK.value()) {
+            String body = new String(response.body(), StandardCharsets.UTF_8);
+            throw new IllegalStateException("Primary answered: " + response.statusCode() + " "
+                    + body.substring(0, Math.min(body.length(), 200)));
+        }
+        long committedPosition = Long.parseLong(response.headers().firstValue(COMMITTED_POSITION_HEADER)
+                .orElseThrow(() -> new IllegalStateException("Primary sent no " + COMMITTED_POSITION_HEADER)));
+        return applyJournal(ByteBuffer.wrap(response.body()), committedPosition, sentAtMillis);
+    }
+
+    // Records of a failed chunk are fetched and applied again, applying them is idempotent
+    boolean applyJournal(ByteBuffer records, long committedPosition, long sentAtMillis) {
+        ParkingLot parkingLot = parkingLotRepository.getParkingLot(ParkingLotRepository.DEFAULT_LOT_ID);
+        int chunkBytes = records.remaining();
+        long chunkRecords = GroupCommitJournal.decode(records, journalRecord -> apply(parkingLot, journalRecord));
+        appliedRecords += chunkRecords;
+        appliedPosition += chunkBytes;
+        primaryCommittedPosition = committedPosition;
+        if (appliedPosition >= committedPosition) {
+            caughtUpAtMillis = sentAtMillis;
+            return false;
+        }
+        return true;
+    }
+
+    private static void apply(ParkingLot parkingLot, JournalRecord journalRecord) {
+        switch (journalRecord.type()) {
+            case VEHICLE_PARKED -> parkingLot.applyVehicleParked(
+                    journalRecord.slotIndex(), journalRecord.licenseNo(), journalRecord.epochMillis());
+            case VEHICLE_UNPARKED -> parkingLot.applyVehicleUnparked(journalRecord.slotIndex(), journalRecord.licenseNo());
+            // Locks only live on the primary, the slot was available to followers all along
+            case LOCK_RELEASED -> {
+            }
+        }
+    }
+
+    // Renewed halfway through its lifetime
+    private String bearerToken(long nowMillis) {
+        long nowEpochSeconds = nowMillis / 1000;
+        if (Objects.isNull(bearerToken) || bearerToken.getExpiresAtEpochSeconds() - nowEpochSeconds
+                < securityConfigParams.getTokenTtlSeconds() / 2) {
+            bearerToken = apiTokenService.getObject().issueToken(securityConfigParams.getUsername());
+        }
+        return bearerToken.getToken();
+    }
+
+    private static Set<String> resolve(Iterable<String> hosts) {
+        Set<String> addresses = new HashSet<>();
+        for (String host : hosts) {
+            try {
+                for (InetAddress address : InetAddress.getAllByName(host.trim())) {
+                    addresses.add(address.getHostAddress());
+                }
+            } catch (UnknownHostException e) {
+                log.warn("Follower host: {} does not resolve, its journal reads are rate limited", host);
+            }
+        }
+        return Set.copyOf(addresses);
+    }
+}
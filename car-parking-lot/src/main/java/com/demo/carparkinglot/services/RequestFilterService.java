@@ -0,0 +1,71 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.models.RequestVerdict;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+
+// Decisions of the request filters, taken here once for the servlet filters and their reactive counterparts. The
+// filters only read the request and carry the verdict out on their own stack
+@Service
+@RequiredArgsConstructor
+public class RequestFilterService {
+    public static final HttpStatusCode MISDIRECTED_REQUEST = HttpStatusCode.valueOf(421);
+
+    private final RateLimitService rateLimitService;
+    private final ClusterService clusterService;
+    private final ReplicationService replicationService;
+
+    // Requests forwarded by another node of the cluster were admitted by its limits already, followers reading the
+    // journal pace themselves
+    public RequestVerdict rateLimit(String remoteAddress, String forwardedHeader, String path) {
+        boolean exempt = clusterService.isForwardedByPeer(remoteAddress, forwardedHeader)
+                || replicationService.isFollowerRequest(remoteAddress, path);
+        if (!exempt && rateLimitService.isRateExceeded(remoteAddress)) {
+            return RequestVerdict.answer(HttpStatus.TOO_MANY_REQUESTS, "Too many requests");
+        }
+        return RequestVerdict.PASS;
+    }
+
+    // Followers serve lot reads while they are within replication.max-staleness-millis of the primary, telling the
+    // client how stale they are, and redirect writes to the primary. pathAndQuery is the request URI as received
+    public RequestVerdict replica(String method, String path, String pathAndQuery) {
+        if (Objects.isNull(ClusterService.lotIdOfPath(path)) && !ClusterService.isLotCreation(method, path)) {
+            return RequestVerdict.PASS;
+        }
+        String primaryUrl = replicationService.getPrimaryUrl();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return RequestVerdict.answer(HttpStatus.TEMPORARY_REDIRECT, "Read replica, writes go to the primary: " + primaryUrl,
+                    Map.of(HttpHeaders.LOCATION, primaryUrl + pathAndQuery));
+        }
+        long stalenessMillis = replicationService.getStalenessMillis();
+        if (!replicationService.isServingReads()) {
+            return RequestVerdict.answer(HttpStatus.SERVICE_UNAVAILABLE, "Read replica is behind the primary, last caught up "
+                    + (stalenessMillis == Long.MAX_VALUE ? "never" : stalenessMillis + "ms ago"));
+        }
+        return RequestVerdict.pass(Map.of(ReplicationService.STALENESS_HEADER, String.valueOf(stalenessMillis)));
+    }
+
+    // Requests for lots owned by another node go to that node, see ClusterService. lotId is null for requests not
+    // scoped to a lot, or creating one with a body naming none
+    public RequestVerdict route(String lotId, String remoteAddress, String forwardedHeader) {
+        String owner = Objects.isNull(lotId) ? null : clusterService.remoteOwnerOf(lotId);
+        if (Objects.isNull(owner)) {
+            return RequestVerdict.PASS;
+        }
+        // Nodes disagree on the owner while a membership change is passed on, a request takes one hop at most
+        if (clusterService.isForwardedByPeer(remoteAddress, forwardedHeader)) {
+            return RequestVerdict.answer(MISDIRECTED_REQUEST, "Lot " + lotId + " is owned by " + owner);
+        }
+        return RequestVerdict.forward(owner);
+    }
+
+    public static RequestVerdict ownerUnreachable(String owner) {
+        return RequestVerdict.answer(HttpStatus.BAD_GATEWAY, "Owner node unreachable: " + owner);
+    }
+}
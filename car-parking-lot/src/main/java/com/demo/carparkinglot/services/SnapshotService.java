@@ -0,0 +1,67 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.params.SnapshotConfigParams;
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.models.journal.SlotSnapshot;
+import com.demo.carparkinglot.models.slots.CompactSlotStore;
+import com.demo.carparkinglot.models.slots.MappedSlotStore;
+import com.demo.carparkinglot.models.slots.SlotStore;
+import com.demo.carparkinglot.repositories.ParkingLotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SnapshotService {
+    private final SnapshotConfigParams snapshotConfigParams;
+    private final ParkingLotRepository parkingLotRepository;
+    private final JournalService journalService;
+
+    // Returns the journal position the restored snapshot covers, 0 when there is nothing to restore
+    public long restoreSnapshot(SlotStore slotStore) {
+        Path snapshotFile = Path.of(snapshotConfigParams.getFile());
+        if (!snapshotConfigParams.isEnabled() || !Files.exists(snapshotFile)) {
+            return 0;
+        }
+        long startNanos = System.nanoTime();
+        long journalPosition = SlotSnapshot.restore(snapshotFile, slotStore);
+        log.info("Restored snapshot: {} covering journal up to: {} in {}ms",
+                snapshotFile, journalPosition, (System.nanoTime() - startNanos) / 1_000_000);
+        return journalPosition;
+    }
+
+    @Scheduled(initialDelayString = "${snapshot.interval-millis:60000}", fixedDelayString = "${snapshot.interval-millis:60000}")
+    public void takeSnapshot() {
+        ParkingLot parkingLot = parkingLotRepository.getParkingLot(ParkingLotRepository.DEFAULT_LOT_ID);
+        // Only the configured lot is durable. Scheduled runs can start before it is initialized, and the mapped store
+        // is its own snapshot
+        if (!snapshotConfigParams.isEnabled() || Objects.isNull(parkingLot)
+                || parkingLot.getSlotStore() instanceof MappedSlotStore) {
+            return;
+        }
+        Path snapshotFile = Path.of(snapshotConfigParams.getFile());
+        long startNanos = System.nanoTime();
+        // Without a journal there is nothing to replay, the live slots are all there is
+        SlotStore slotStore = parkingLot.getSlotStore();
+        long journalPosition = 0;
+        if (journalService.isEnabled()) {
+            // The live slots can't be snapshotted at a journal position: an unpark is committed before its slot is
+            // vacated, and a park is occupied before it is committed and vacated again when that fails. So the
+            // snapshot is rebuilt from the journal alone, the previous snapshot plus the records committed since
+            journalPosition = journalService.getCommittedPosition();
+            slotStore = new CompactSlotStore(slotStore.getTotalSlots());
+            long previousPosition = Files.exists(snapshotFile) ? SlotSnapshot.restore(snapshotFile, slotStore) : 0;
+            journalService.replayCommitted(slotStore, previousPosition, journalPosition, parkingLot.getNoOfShards());
+        }
+        long occupiedSlots = SlotSnapshot.write(snapshotFile, slotStore, journalPosition);
+        log.info("Snapshot of {} occupied slots covering journal up to: {} taken in {}ms",
+                occupiedSlots, journalPosition, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+}
@@ -0,0 +1,47 @@
+package com.demo.carparkinglot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"security.api-auth=token",
+		"security.token-secret=MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY="})
+@AutoConfigureMockMvc
+class CarParkingLotApiTokenApplicationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void apiTakesBearerTokenWithoutSession() throws Exception {
+		mockMvc.perform(get("/api/v1/parking-lot/slot/total-capacity")).andExpect(status().isUnauthorized());
+		MvcResult tokenResult = mockMvc.perform(post("/auth/token").header(HttpHeaders.AUTHORIZATION,
+						"Basic " + Base64.getEncoder().encodeToString("testuser:testpass".getBytes(StandardCharsets.UTF_8))))
+				.andExpect(status().isOk()).andReturn();
+		String token = objectMapper.readTree(tokenResult.getResponse().getContentAsString()).get("token").asText();
+		MvcResult apiResult = mockMvc.perform(get("/api/v1/parking-lot/slot/total-capacity")
+						.header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+				.andExpect(status().isOk()).andReturn();
+		assertNull(apiResult.getRequest().getSession(false));
+		mockMvc.perform(get("/api/v1/parking-lot/slot/total-capacity")
+						.header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x"))
+				.andExpect(status().isUnauthorized());
+	}
+
+}
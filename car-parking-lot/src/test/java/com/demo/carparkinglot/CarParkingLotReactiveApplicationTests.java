@@ -0,0 +1,24 @@
+package com.demo.carparkinglot;
+
+import com.demo.carparkinglot.controllers.ParkingController;
+import com.demo.carparkinglot.controllers.ParkingHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+class CarParkingLotReactiveApplicationTests {
+
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@Test
+	void contextLoadsReactiveStack() {
+		assertEquals(1, applicationContext.getBeanNamesForType(ParkingHandler.class).length);
+		assertEquals(0, applicationContext.getBeanNamesForType(ParkingController.class).length);
+	}
+
+}
@@ -1,12 +1,16 @@
 package com.demo.carparkinglot.controllers;
 
 import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.exceptions.ParkingLotNotFoundException;
 import com.demo.carparkinglot.exchanges.response.SlotInfoResponseDto;
+import com.demo.carparkinglot.exchanges.response.SlotOccupancyResponseDto;
+import com.demo.carparkinglot.exchanges.response.SlotStatusDeltaDto;
 import com.demo.carparkinglot.exchanges.response.VehicleParkingResponseDto;
 import com.demo.carparkinglot.exchanges.response.VehicleUnParkingResponseDto;
-import com.demo.carparkinglot.models.ParkingLot;
 import com.demo.carparkinglot.models.ParkingSlot;
-import com.demo.carparkinglot.models.vehicles.Car;
+import com.demo.carparkinglot.models.slots.ObjectSlotStore;
+import com.demo.carparkinglot.models.slots.OccupancySnapshot;
+import com.demo.carparkinglot.services.AvailabilityStreamService;
 import com.demo.carparkinglot.services.ParkingLotService;
 import com.demo.carparkinglot.services.VehicleService;
 import com.demo.carparkinglot.utils.ReflectionTestUtils;
@@ -18,20 +22,27 @@ import org.mockito.Mock;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
+import static com.demo.carparkinglot.repositories.ParkingLotRepository.DEFAULT_LOT_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.mock;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -44,6 +55,9 @@ class ParkingControllerTest {
     @Mock
     private VehicleService vehicleService;
 
+    @Mock
+    private AvailabilityStreamService availabilityStreamService;
+
     @InjectMocks
     private ParkingController parkingController;
 
@@ -56,20 +70,28 @@ class ParkingControllerTest {
     @Test
     void parkVehicleSuccessWhenNoVehicleIsParked() {
         String licenseNo = "BK-1234";
-        when(parkingLotService.isVehicleAlreadyParked(licenseNo)).thenReturn(false);
-        when(parkingLotService.parkVehicle(anyString(), any())).thenReturn(HttpStatus.OK);
-        ResponseEntity<VehicleParkingResponseDto> resEntity = parkingController.parkVehicle(licenseNo);
+        when(parkingLotService.isVehicleAlreadyParked(DEFAULT_LOT_ID, licenseNo)).thenReturn(false);
+        when(parkingLotService.parkVehicle(eq(DEFAULT_LOT_ID), anyString(), isNull(), any())).thenReturn(HttpStatus.OK);
+        ResponseEntity<VehicleParkingResponseDto> resEntity = parkingController.parkVehicle(null, licenseNo, null);
         assertEquals(HttpStatus.OK, resEntity.getStatusCode());
         assertNotNull(resEntity.getBody());
         VehicleParkingResponseDto responseDto = resEntity.getBody();
         assertTrue(responseDto.isVehicleParked());
     }
 
+    @Test
+    void parkVehicleNormalizesLicensePlate() {
+        when(parkingLotService.isVehicleAlreadyParked(DEFAULT_LOT_ID, "BK-1234")).thenReturn(Boolean.TRUE);
+        ResponseEntity<VehicleParkingResponseDto> resEntity = parkingController.parkVehicle(null, " bk-12 34 ", null);
+        assertEquals(HttpStatus.BAD_REQUEST, resEntity.getStatusCode());
+        assertEquals("Vehicle already parked having license plate: BK-1234", resEntity.getBody().getMessage());
+    }
+
     @Test
     void parkVehicleSuccessWhenVehicleIsAlreadyParked() {
         String licenseNo = "BK-1234";
-        when(parkingLotService.isVehicleAlreadyParked(licenseNo)).thenReturn(Boolean.TRUE);
-        ResponseEntity<VehicleParkingResponseDto> resEntity = parkingController.parkVehicle(licenseNo);
+        when(parkingLotService.isVehicleAlreadyParked(DEFAULT_LOT_ID, licenseNo)).thenReturn(Boolean.TRUE);
+        ResponseEntity<VehicleParkingResponseDto> resEntity = parkingController.parkVehicle(null, licenseNo, null);
         assertEquals(HttpStatus.BAD_REQUEST, resEntity.getStatusCode());
         assertNotNull(resEntity.getBody());
         VehicleParkingResponseDto responseDto = resEntity.getBody();
@@ -82,14 +104,8 @@ class ParkingControllerTest {
         String licenseNo = "BK-1234";
         ParkingSlot parkingSlot = new ParkingSlot(6L);
         parkingSlot.setParkedOn(LocalDateTime.now().minusHours(1));
-        when(parkingLotService.getParkingLot()).thenReturn(new ParkingLot("", 5));
-        ParkingLot parkingLot = parkingLotService.getParkingLot();
-        ReflectionTestUtils.setFieldValue(parkingController, "parkingLotService", parkingLotService);
-        Map<String, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put(licenseNo, parkingSlot);
-        ReflectionTestUtils.setFieldValue(parkingLot, "occupiedParkingSlots", slotMap);
-        when(parkingLotService.findVehicleParkingSlotByLicenseNo(licenseNo)).thenReturn(Optional.of(parkingSlot));
-        ResponseEntity<VehicleUnParkingResponseDto> resEntity = parkingController.unparkVehicle(licenseNo);
+        when(parkingLotService.findVehicleParkingSlotByLicenseNo(DEFAULT_LOT_ID, licenseNo)).thenReturn(Optional.of(parkingSlot));
+        ResponseEntity<VehicleUnParkingResponseDto> resEntity = parkingController.unparkVehicle(null, licenseNo);
         assertEquals(HttpStatus.OK, resEntity.getStatusCode());
         assertNotNull(resEntity.getBody());
         VehicleUnParkingResponseDto responseDto = resEntity.getBody();
@@ -99,8 +115,8 @@ class ParkingControllerTest {
     @Test
     void unparkVehicleBadRequest() {
         String licenseNo = "BK-1234";
-        when(parkingLotService.findVehicleParkingSlotByLicenseNo(licenseNo)).thenReturn(Optional.empty());
-        ResponseEntity<VehicleUnParkingResponseDto> resEntity = parkingController.unparkVehicle(licenseNo);
+        when(parkingLotService.findVehicleParkingSlotByLicenseNo(DEFAULT_LOT_ID, licenseNo)).thenReturn(Optional.empty());
+        ResponseEntity<VehicleUnParkingResponseDto> resEntity = parkingController.unparkVehicle(null, licenseNo);
         assertEquals(HttpStatus.BAD_REQUEST, resEntity.getStatusCode());
         assertNotNull(resEntity.getBody());
         VehicleUnParkingResponseDto responseDto = resEntity.getBody();
@@ -110,9 +126,11 @@ class ParkingControllerTest {
     @Test
     void getValidSlotStatusAvailable() {
         long slotId = 1L;
-        when(parkingLotService.findSlotById(slotId)).thenReturn(Optional.of(new ParkingSlot(slotId)));
-        ResponseEntity<SlotInfoResponseDto> slotStatusRes = parkingController.getSlotStatus(slotId);
+        OccupancySnapshot occupancySnapshot = OccupancySnapshot.of(new ObjectSlotStore(3));
+        when(parkingLotService.getOccupancySnapshot(DEFAULT_LOT_ID)).thenReturn(occupancySnapshot);
+        ResponseEntity<SlotInfoResponseDto> slotStatusRes = parkingController.getSlotStatus(null, slotId);
         assertEquals(HttpStatus.OK, slotStatusRes.getStatusCode());
+        assertEquals("\"" + occupancySnapshot.getVersionTag() + "\"", slotStatusRes.getHeaders().getETag());
         assertNotNull(slotStatusRes.getBody());
         SlotInfoResponseDto responseDto = slotStatusRes.getBody();
         assertEquals(slotId, responseDto.getSlotId());
@@ -125,28 +143,25 @@ class ParkingControllerTest {
     @Test
     void getValidSlotStatusOccupied() {
         long slotId = 1L;
-        ParkingSlot slot = mock(ParkingSlot.class);
-        when(slot.getId()).thenReturn(slotId);
-        when(slot.getParkedOn()).thenReturn(LocalDateTime.now().minusHours(1));
-        when(slot.getVehicle()).thenReturn(new Car("LICENSE"));
-        when(slot.getSlotStatusEnum()).thenReturn(SlotStatusEnum.OCCUPIED);
-        when(parkingLotService.findSlotById(slotId)).thenReturn(Optional.of(slot));
-        ResponseEntity<SlotInfoResponseDto> slotStatusRes = parkingController.getSlotStatus(slotId);
+        OccupancySnapshot occupancySnapshot = OccupancySnapshot.of(new ObjectSlotStore(3)).withSlot(0,
+                SlotStatusEnum.OCCUPIED, "LICENSE", System.currentTimeMillis() - Duration.ofHours(1).toMillis());
+        when(parkingLotService.getOccupancySnapshot(DEFAULT_LOT_ID)).thenReturn(occupancySnapshot);
+        ResponseEntity<SlotInfoResponseDto> slotStatusRes = parkingController.getSlotStatus(null, slotId);
         assertEquals(HttpStatus.OK, slotStatusRes.getStatusCode());
         assertNotNull(slotStatusRes.getBody());
         SlotInfoResponseDto responseDto = slotStatusRes.getBody();
         assertEquals(slotId, responseDto.getSlotId());
         assertEquals(SlotStatusEnum.OCCUPIED, responseDto.getSlotStatus());
-        assertNotNull(responseDto.getLicensePlate());
+        assertEquals("LICENSE", responseDto.getLicensePlate());
         assertNotNull(responseDto.getParkedOn());
-        assertNotNull(responseDto.getTotalDurationParked());
+        assertTrue(responseDto.getTotalDurationParked().toMinutes() >= 59);
     }
 
     @Test
     void getInvalidValidSlotStatus() {
         long slotId = 1L;
-        when(parkingLotService.findSlotById(slotId)).thenReturn(Optional.empty());
-        ResponseEntity<SlotInfoResponseDto> slotStatusRes = parkingController.getSlotStatus(slotId);
+        when(parkingLotService.getOccupancySnapshot(DEFAULT_LOT_ID)).thenReturn(OccupancySnapshot.of(new ObjectSlotStore(0)));
+        ResponseEntity<SlotInfoResponseDto> slotStatusRes = parkingController.getSlotStatus(null, slotId);
         assertEquals(HttpStatus.BAD_REQUEST, slotStatusRes.getStatusCode());
         assertNotNull(slotStatusRes.getBody());
         SlotInfoResponseDto responseDto = slotStatusRes.getBody();
@@ -159,19 +174,138 @@ class ParkingControllerTest {
 
     @Test
     void getTotalAvailableSlotsInParkingLot() {
-        when(parkingLotService.getTotalAvailableSlotsInParkingLot()).thenReturn(5L);
-        ResponseEntity<Long> slotStatusRes = parkingController.getTotalAvailableSlotsInParkingLot();
+        when(parkingLotService.getOccupancySnapshot(DEFAULT_LOT_ID)).thenReturn(OccupancySnapshot.of(new ObjectSlotStore(5)));
+        ResponseEntity<Long> slotStatusRes = parkingController.getTotalAvailableSlotsInParkingLot(null, false);
         assertEquals(HttpStatus.OK, slotStatusRes.getStatusCode());
-        assertNotNull(slotStatusRes.getBody());
+        assertNotNull(slotStatusRes.getHeaders().getETag());
         assertEquals(5L, slotStatusRes.getBody());
     }
 
+    @Test
+    void getExactTotalAvailableSlotsInParkingLot() {
+        when(parkingLotService.getTotalAvailableSlotsInParkingLot(DEFAULT_LOT_ID, true)).thenReturn(4L);
+        ResponseEntity<Long> slotStatusRes = parkingController.getTotalAvailableSlotsInParkingLot(null, true);
+        assertEquals(HttpStatus.OK, slotStatusRes.getStatusCode());
+        assertNull(slotStatusRes.getHeaders().getETag());
+        assertEquals(4L, slotStatusRes.getBody());
+    }
+
+    @Test
+    void getSlotOccupancy() {
+        SlotOccupancyResponseDto occupancy = new SlotOccupancyResponseDto();
+        occupancy.setTotalSlots(5L);
+        occupancy.setOccupiedSlots(2L);
+        when(parkingLotService.getSlotOccupancy(DEFAULT_LOT_ID, true)).thenReturn(occupancy);
+        ResponseEntity<SlotOccupancyResponseDto> occupancyRes = parkingController.getSlotOccupancy(null, true);
+        assertEquals(HttpStatus.OK, occupancyRes.getStatusCode());
+        assertEquals(occupancy, occupancyRes.getBody());
+    }
+
     @Test
     void getTotalSlotsInParkingLot() {
-        when(parkingLotService.getTotalSlotsInParkingLot()).thenReturn(5L);
-        ResponseEntity<Long> slotStatusRes = parkingController.getTotalSlotsInParkingLot();
+        when(parkingLotService.getTotalSlotsInParkingLot(DEFAULT_LOT_ID)).thenReturn(5L);
+        ResponseEntity<Long> slotStatusRes = parkingController.getTotalSlotsInParkingLot(null);
         assertEquals(HttpStatus.OK, slotStatusRes.getStatusCode());
         assertNotNull(slotStatusRes.getBody());
         assertEquals(5L, slotStatusRes.getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    void parkVehiclesReturnsPerVehicleResults() {
+        VehicleParkingResponseDto responseDto = new VehicleParkingResponseDto();
+        responseDto.setVehicleParked(true);
+        when(parkingLotService.getMaxBatchSize()).thenReturn(10);
+        when(parkingLotService.parkVehicles(DEFAULT_LOT_ID, List.of("BK-1"), null)).thenReturn(List.of(responseDto));
+        ResponseEntity<List<VehicleParkingResponseDto>> resEntity = parkingController.parkVehicles(null, List.of("BK-1"), null);
+        assertEquals(HttpStatus.OK, resEntity.getStatusCode());
+        assertEquals(List.of(responseDto), resEntity.getBody());
+    }
+
+    @Test
+    void parkVehiclesRejectsOversizedBatch() {
+        when(parkingLotService.getMaxBatchSize()).thenReturn(1);
+        ResponseEntity<List<VehicleParkingResponseDto>> resEntity = parkingController.parkVehicles(null, List.of("BK-1", "BK-2"), null);
+        assertEquals(HttpStatus.BAD_REQUEST, resEntity.getStatusCode());
+    }
+
+    @Test
+    void parkVehicleRejectsBlankLicensePlate() {
+        ResponseEntity<VehicleParkingResponseDto> resEntity = parkingController.parkVehicle(null, " \n ", null);
+        assertEquals(HttpStatus.BAD_REQUEST, resEntity.getStatusCode());
+        assertEquals(ParkingController.LICENSE_PLATE_REQUIRED, resEntity.getBody().getMessage());
+        verify(parkingLotService, never()).parkVehicle(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void parkVehiclesRejectsNullLicensePlate() {
+        when(parkingLotService.getMaxBatchSize()).thenReturn(10);
+        ResponseEntity<List<VehicleParkingResponseDto>> resEntity = parkingController.parkVehicles(null,
+                Arrays.asList("BK-1", null), null);
+        assertEquals(HttpStatus.BAD_REQUEST, resEntity.getStatusCode());
+        verify(parkingLotService, never()).parkVehicles(anyString(), any(), any());
+    }
+
+    @Test
+    void parkVehiclesRejectsBlankLicensePlate() {
+        when(parkingLotService.getMaxBatchSize()).thenReturn(10);
+        ResponseEntity<List<VehicleParkingResponseDto>> resEntity = parkingController.parkVehicles(null,
+                List.of("BK-1", "   "), null);
+        assertEquals(HttpStatus.BAD_REQUEST, resEntity.getStatusCode());
+        verify(parkingLotService, never()).parkVehicles(anyString(), any(), any());
+    }
+
+    @Test
+    void unparkVehiclesRejectsNullAndBlankLicensePlates() {
+        when(parkingLotService.getMaxBatchSize()).thenReturn(10);
+        assertEquals(HttpStatus.BAD_REQUEST, parkingController.unparkVehicles(null, Arrays.asList("BK-1", null)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, parkingController.unparkVehicles(null, List.of("\t")).getStatusCode());
+        verify(parkingLotService, never()).unparkVehicles(anyString(), any());
+    }
+
+    @Test
+    void unparkVehiclesReturnsPerVehicleResults() {
+        VehicleUnParkingResponseDto responseDto = new VehicleUnParkingResponseDto();
+        when(parkingLotService.getMaxBatchSize()).thenReturn(10);
+        when(parkingLotService.unparkVehicles(DEFAULT_LOT_ID, List.of("BK-1"))).thenReturn(List.of(responseDto));
+        ResponseEntity<List<VehicleUnParkingResponseDto>> resEntity = parkingController.unparkVehicles(null, List.of("BK-1"));
+        assertEquals(HttpStatus.OK, resEntity.getStatusCode());
+        assertEquals(List.of(responseDto), resEntity.getBody());
+    }
+
+    @Test
+    void unparkVehiclesFailureWhenExceptionOccurs() {
+        when(parkingLotService.getMaxBatchSize()).thenReturn(10);
+        when(parkingLotService.unparkVehicles(eq(DEFAULT_LOT_ID), any())).thenThrow(new IllegalStateException("journal down"));
+        ResponseEntity<List<VehicleUnParkingResponseDto>> resEntity = parkingController.unparkVehicles(null, List.of("BK-1"));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, resEntity.getStatusCode());
+    }
+
+    @Test
+    void streamSlotStatusSubscribesAndSendsCurrentAvailability() {
+        when(availabilityStreamService.getStreamTimeoutMillis()).thenReturn(60_000L);
+        when(availabilityStreamService.currentAvailability(DEFAULT_LOT_ID)).thenReturn(new SlotStatusDeltaDto());
+        SseEmitter emitter = parkingController.streamSlotStatus(null);
+        assertEquals(60_000L, emitter.getTimeout());
+        verify(availabilityStreamService).subscribe(eq(DEFAULT_LOT_ID), any());
+        verify(availabilityStreamService).currentAvailability(DEFAULT_LOT_ID);
+    }
+
+    @Test
+    void parkVehicleInNamedLot() {
+        when(parkingLotService.isVehicleAlreadyParked("east", "BK-1234")).thenReturn(false);
+        when(parkingLotService.parkVehicle(eq("east"), eq("BK-1234"), isNull(), any())).thenReturn(HttpStatus.OK);
+        ResponseEntity<VehicleParkingResponseDto> resEntity = parkingController.parkVehicle("east", "BK-1234", null);
+        assertEquals(HttpStatus.OK, resEntity.getStatusCode());
+        verify(parkingLotService, never()).parkVehicle(eq(DEFAULT_LOT_ID), anyString(), any(), any());
+    }
+
+    @Test
+    void unknownLotIsNotFound() {
+        when(parkingLotService.findVehicleParkingSlotByLicenseNo("west", "BK-1234"))
+                .thenThrow(new ParkingLotNotFoundException("west"));
+        when(parkingLotService.getMaxBatchSize()).thenReturn(10);
+        when(parkingLotService.unparkVehicles(eq("west"), any())).thenThrow(new ParkingLotNotFoundException("west"));
+        assertThrows(ParkingLotNotFoundException.class, () -> parkingController.unparkVehicle("west", "BK-1234"));
+        assertThrows(ParkingLotNotFoundException.class, () -> parkingController.unparkVehicles("west", List.of("BK-1234")));
+    }
+}
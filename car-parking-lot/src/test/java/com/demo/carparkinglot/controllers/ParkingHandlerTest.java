@@ -0,0 +1,301 @@
+package com.demo.carparkinglot.controllers;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.exceptions.ParkingLotNotFoundException;
+import com.demo.carparkinglot.exceptions.UnknownGateException;
+import com.demo.carparkinglot.exchanges.response.SlotOccupancyResponseDto;
+import com.demo.carparkinglot.exchanges.response.SlotStatusDeltaDto;
+import com.demo.carparkinglot.exchanges.response.VehicleParkingResponseDto;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.events.SlotStatusSubscription;
+import com.demo.carparkinglot.models.slots.ObjectSlotStore;
+import com.demo.carparkinglot.models.slots.OccupancySnapshot;
+import com.demo.carparkinglot.models.vehicles.Car;
+import com.demo.carparkinglot.services.AvailabilityStreamService;
+import com.demo.carparkinglot.services.ParkingLotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static com.demo.carparkinglot.repositories.ParkingLotRepository.DEFAULT_LOT_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class ParkingHandlerTest {
+    private static final String BASE_PATH = "/api/v1/parking-lot";
+
+    @Mock
+    private ParkingLotService parkingLotService;
+
+    @Mock
+    private AvailabilityStreamService availabilityStreamService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void init() {
+        webTestClient = WebTestClient.bindToRouterFunction(
+                new ParkingRouter().parkingRoutes(new ParkingHandler(parkingLotService, availabilityStreamService))).build();
+    }
+
+    @Test
+    void parkVehicleCompletesAfterJournalCommit() {
+        when(parkingLotService.isVehicleAlreadyParked(DEFAULT_LOT_ID, "BK-1")).thenReturn(false);
+        when(parkingLotService.parkVehicleAsync(eq(DEFAULT_LOT_ID), eq("BK-1"), isNull(), any())).thenAnswer(invocation -> {
+            invocation.<VehicleParkingResponseDto>getArgument(3).setSlotId(1L);
+            return CompletableFuture.supplyAsync(() -> HttpStatus.OK);
+        });
+        webTestClient.post().uri(BASE_PATH + "/park").contentType(MediaType.TEXT_PLAIN).bodyValue("BK-1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.slotId").isEqualTo(1)
+                .jsonPath("$.vehicleParked").isEqualTo(true);
+    }
+
+    @Test
+    void parkVehicleAtUnknownGateIsBadRequest() {
+        when(parkingLotService.parkVehicleAsync(eq(DEFAULT_LOT_ID), eq("BK-1"), eq("north"), any()))
+                .thenThrow(new UnknownGateException(DEFAULT_LOT_ID, "north"));
+        webTestClient.post().uri(BASE_PATH + "/park?gate=north").contentType(MediaType.TEXT_PLAIN).bodyValue("BK-1")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void parkVehicleAlreadyParked() {
+        when(parkingLotService.isVehicleAlreadyParked(DEFAULT_LOT_ID, "BK-1")).thenReturn(true);
+        webTestClient.post().uri(BASE_PATH + "/park").contentType(MediaType.TEXT_PLAIN).bodyValue("BK-1")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Vehicle already parked having license plate: BK-1");
+        verify(parkingLotService, never()).parkVehicleAsync(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void unparkVehicleSuccess() {
+        ParkingSlot parkingSlot = new ParkingSlot(3L);
+        parkingSlot.setVehicle(new Car("BK-1"));
+        parkingSlot.setParkedOn(LocalDateTime.now().minusMinutes(5));
+        when(parkingLotService.findVehicleParkingSlotByLicenseNo(DEFAULT_LOT_ID, "BK-1")).thenReturn(Optional.of(parkingSlot));
+        when(parkingLotService.unparkVehicleAsync(DEFAULT_LOT_ID, parkingSlot, "BK-1")).thenReturn(CompletableFuture.completedFuture(null));
+        webTestClient.post().uri(BASE_PATH + "/unpark").contentType(MediaType.TEXT_PLAIN).bodyValue("BK-1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.slotId").isEqualTo(3)
+                .jsonPath("$.message").isEqualTo("Vehicle unparked!");
+    }
+
+    @Test
+    void unparkVehicleFailureWhenJournalFails() {
+        ParkingSlot parkingSlot = new ParkingSlot(3L);
+        parkingSlot.setParkedOn(LocalDateTime.now());
+        when(parkingLotService.findVehicleParkingSlotByLicenseNo(DEFAULT_LOT_ID, "BK-1")).thenReturn(Optional.of(parkingSlot));
+        when(parkingLotService.unparkVehicleAsync(DEFAULT_LOT_ID, parkingSlot, "BK-1"))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("journal closed")));
+        webTestClient.post().uri(BASE_PATH + "/unpark").contentType(MediaType.TEXT_PLAIN).bodyValue("BK-1")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Test
+    void unparkVehicleNotParked() {
+        when(parkingLotService.findVehicleParkingSlotByLicenseNo(DEFAULT_LOT_ID, "BK-1")).thenReturn(Optional.empty());
+        webTestClient.post().uri(BASE_PATH + "/unpark").contentType(MediaType.TEXT_PLAIN).bodyValue("BK-1")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void parkVehiclesReturnsPerVehicleResults() {
+        VehicleParkingResponseDto responseDto = new VehicleParkingResponseDto();
+        responseDto.setLicensePlate("BK-1");
+        responseDto.setVehicleParked(true);
+        when(parkingLotService.getMaxBatchSize()).thenReturn(10);
+        when(parkingLotService.parkVehiclesAsync(DEFAULT_LOT_ID, List.of("BK-1"), null)).thenReturn(CompletableFuture.completedFuture(List.of(responseDto)));
+        webTestClient.post().uri(BASE_PATH + "/park/batch").bodyValue(List.of("BK-1"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].licensePlate").isEqualTo("BK-1")
+                .jsonPath("$[0].vehicleParked").isEqualTo(true);
+    }
+
+    @Test
+    void parkVehicleRejectsBlankLicensePlate() {
+        webTestClient.post().uri(BASE_PATH + "/park").contentType(MediaType.TEXT_PLAIN).bodyValue("  ")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(ParkingController.LICENSE_PLATE_REQUIRED);
+        verify(parkingLotService, never()).parkVehicleAsync(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void parkVehiclesRejectsNullAndBlankLicensePlates() {
+        when(parkingLotService.getMaxBatchSize()).thenReturn(10);
+        webTestClient.post().uri(BASE_PATH + "/park/batch").contentType(MediaType.APPLICATION_JSON).bodyValue("[\"BK-1\", null]")
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.post().uri(BASE_PATH + "/park/batch").contentType(MediaType.APPLICATION_JSON).bodyValue("[\"BK-1\", \" \"]")
+                .exchange()
+                .expectStatus().isBadRequest();
+        verify(parkingLotService, never()).parkVehiclesAsync(anyString(), any(), any());
+    }
+
+    @Test
+    void unparkVehiclesRejectsNullAndBlankLicensePlates() {
+        when(parkingLotService.getMaxBatchSize()).thenReturn(10);
+        webTestClient.post().uri(BASE_PATH + "/unpark/batch").contentType(MediaType.APPLICATION_JSON).bodyValue("[null]")
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.post().uri(BASE_PATH + "/unpark/batch").contentType(MediaType.APPLICATION_JSON).bodyValue("[\"\"]")
+                .exchange()
+                .expectStatus().isBadRequest();
+        verify(parkingLotService, never()).unparkVehiclesAsync(anyString(), any());
+    }
+
+    @Test
+    void unparkVehiclesRejectsOversizedBatch() {
+        when(parkingLotService.getMaxBatchSize()).thenReturn(1);
+        webTestClient.post().uri(BASE_PATH + "/unpark/batch").bodyValue(List.of("BK-1", "BK-2"))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getSlotStatus() {
+        OccupancySnapshot occupancySnapshot = OccupancySnapshot.of(new ObjectSlotStore(3))
+                .withSlot(1, SlotStatusEnum.OCCUPIED, "BK-1", System.currentTimeMillis());
+        when(parkingLotService.getOccupancySnapshot(DEFAULT_LOT_ID)).thenReturn(occupancySnapshot);
+        webTestClient.get().uri(BASE_PATH + "/slot/2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + occupancySnapshot.getVersionTag() + "\"")
+                .expectBody()
+                .jsonPath("$.slotStatus").isEqualTo("OCCUPIED")
+                .jsonPath("$.licensePlate").isEqualTo("BK-1");
+        webTestClient.get().uri(BASE_PATH + "/slot/4")
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri(BASE_PATH + "/slot/abc")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void slotCountsAreNotShadowedBySlotIdRoute() {
+        SlotOccupancyResponseDto responseDto = new SlotOccupancyResponseDto();
+        responseDto.setTotalSlots(5);
+        when(parkingLotService.getSlotOccupancy(DEFAULT_LOT_ID, true)).thenReturn(responseDto);
+        when(parkingLotService.getOccupancySnapshot(DEFAULT_LOT_ID)).thenReturn(OccupancySnapshot.of(new ObjectSlotStore(4)));
+        when(parkingLotService.getTotalSlotsInParkingLot(DEFAULT_LOT_ID)).thenReturn(5L);
+        webTestClient.get().uri(BASE_PATH + "/slot/occupancy?exact=true")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalSlots").isEqualTo(5);
+        webTestClient.get().uri(BASE_PATH + "/slot/total-available")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class).isEqualTo(4L);
+        webTestClient.get().uri(BASE_PATH + "/slot/total-capacity")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class).isEqualTo(5L);
+    }
+
+    @Test
+    void unchangedOccupancyIsNotModified() {
+        OccupancySnapshot occupancySnapshot = OccupancySnapshot.of(new ObjectSlotStore(3));
+        when(parkingLotService.getOccupancySnapshot(DEFAULT_LOT_ID)).thenReturn(occupancySnapshot);
+        String eTag = webTestClient.get().uri(BASE_PATH + "/slot/total-available")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Long.class).getResponseHeaders().getETag();
+        webTestClient.get().uri(BASE_PATH + "/slot/total-available").header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+        when(parkingLotService.getOccupancySnapshot(DEFAULT_LOT_ID))
+                .thenReturn(occupancySnapshot.withSlot(0, SlotStatusEnum.LOCKED, "BK-1", 0L));
+        webTestClient.get().uri(BASE_PATH + "/slot/total-available").header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class).isEqualTo(2L);
+    }
+
+    @Test
+    void streamSlotStatusStartsWithCurrentAvailability() {
+        SlotStatusDeltaDto currentAvailability = new SlotStatusDeltaDto();
+        currentAvailability.setAvailableSlots(5);
+        SlotStatusDeltaDto delta = new SlotStatusDeltaDto();
+        delta.setSlotId(2L);
+        delta.setSlotStatus(SlotStatusEnum.LOCKED);
+        delta.setAvailableSlots(4);
+        when(availabilityStreamService.currentAvailability(DEFAULT_LOT_ID)).thenReturn(currentAvailability);
+        when(availabilityStreamService.subscribe(eq(DEFAULT_LOT_ID), any(), any(), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<SlotStatusDeltaDto>>getArgument(3).accept(delta);
+            return new SlotStatusSubscription(Runnable::run, () -> true, (slotIndex, slotStatus) -> {
+            });
+        });
+        FluxExchangeResult<SlotStatusDeltaDto> result = webTestClient.get().uri(BASE_PATH + "/slot/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(SlotStatusDeltaDto.class);
+        StepVerifier.create(result.getResponseBody())
+                .assertNext(event -> assertEquals(5, event.getAvailableSlots()))
+                .assertNext(event -> assertEquals(2L, event.getSlotId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+        verify(availabilityStreamService, timeout(5_000)).unsubscribe(any());
+    }
+
+    @Test
+    void lotRoutesServeTheLotInThePath() {
+        when(parkingLotService.getTotalSlotsInParkingLot("east")).thenReturn(7L);
+        webTestClient.get().uri("/api/v1/parking-lots/east/slot/total-capacity")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class).isEqualTo(7L);
+    }
+
+    @Test
+    void unknownLotIsNotFound() {
+        when(parkingLotService.getMaxBatchSize()).thenReturn(10);
+        when(parkingLotService.unparkVehiclesAsync(eq("west"), any())).thenThrow(new ParkingLotNotFoundException("west"));
+        when(availabilityStreamService.currentAvailability("west")).thenThrow(new ParkingLotNotFoundException("west"));
+        webTestClient.post().uri("/api/v1/parking-lots/west/unpark/batch").bodyValue(List.of("BK-1"))
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.get().uri("/api/v1/parking-lots/west/slot/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
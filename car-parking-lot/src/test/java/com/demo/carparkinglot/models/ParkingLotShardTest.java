@@ -0,0 +1,40 @@
+package com.demo.carparkinglot.models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class ParkingLotShardTest {
+
+    @Test
+    void claimFreeSlotIndexReturnsLotWideIndexes() {
+        ParkingLotShard shard = new ParkingLotShard(1, 10, 2);
+        assertEquals(10, shard.claimFreeSlotIndex());
+        assertEquals(11, shard.claimFreeSlotIndex());
+        assertEquals(-1, shard.claimFreeSlotIndex());
+        assertFalse(shard.hasFreeSlots());
+    }
+
+    @Test
+    void releasedSlotIndexIsClaimedAgain() {
+        ParkingLotShard shard = new ParkingLotShard(0, 5, 1);
+        int slotIndex = shard.claimFreeSlotIndex();
+        shard.releaseSlotIndex(slotIndex);
+        assertTrue(shard.hasFreeSlots());
+        assertEquals(slotIndex, shard.claimFreeSlotIndex());
+    }
+
+    @Test
+    void ownsSlotIndexOnlyWithinRange() {
+        ParkingLotShard shard = new ParkingLotShard(0, 5, 3);
+        assertFalse(shard.ownsSlotIndex(4));
+        assertTrue(shard.ownsSlotIndex(5));
+        assertTrue(shard.ownsSlotIndex(7));
+        assertFalse(shard.ownsSlotIndex(8));
+    }
+}
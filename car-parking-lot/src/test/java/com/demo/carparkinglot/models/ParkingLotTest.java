@@ -1,28 +1,49 @@
 package com.demo.carparkinglot.models;
 
 import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.events.ParkingEvent;
+import com.demo.carparkinglot.models.journal.SlotJournal;
+import com.demo.carparkinglot.models.layout.Gate;
+import com.demo.carparkinglot.models.layout.GridLayout;
+import com.demo.carparkinglot.models.layout.SlotLayout;
+import com.demo.carparkinglot.models.slots.CompactSlotStore;
+import com.demo.carparkinglot.models.slots.MappedSlotStore;
+import com.demo.carparkinglot.models.slots.ObjectSlotStore;
+import com.demo.carparkinglot.models.slots.OccupancySnapshot;
+import com.demo.carparkinglot.models.slots.SlotLockLeases;
 import com.demo.carparkinglot.models.vehicles.Car;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
-import static com.demo.carparkinglot.utils.ReflectionTestUtils.getFieldValue;
-import static com.demo.carparkinglot.utils.ReflectionTestUtils.setFieldValue;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -52,7 +73,9 @@ class ParkingLotTest {
     @Test
     void getAvailableParkingSlotWhenNoSlotsAvailable() {
         String license = "BK-78h";
-        setFieldValue(parkingLot, "unoccupiedParkingSlots", new ConcurrentHashMap<>());
+        for (int i = 0; i < noOfSlots; i++) {
+            assertTrue(parkingLot.getAvailableParkingSlot(license + i).isPresent());
+        }
         Optional<ParkingSlot> slot = parkingLot.getAvailableParkingSlot(license);
         assertTrue(slot.isEmpty());
     }
@@ -60,59 +83,83 @@ class ParkingLotTest {
     @Test
     void getAvailableParkingSlotWhenOneSlotsAvailable() {
         String license = "BK-78h";
-        ParkingSlot parkingSlot = new ParkingSlot(1L);
-        setFieldValue(parkingLot, "unoccupiedParkingSlots",
-                Map.of(parkingSlot.getId(), parkingSlot));
+        for (int i = 0; i < noOfSlots - 1; i++) {
+            parkingLot.getAvailableParkingSlot(license + i);
+        }
         Optional<ParkingSlot> slot = parkingLot.getAvailableParkingSlot(license);
         assertFalse(slot.isEmpty());
-        assertEquals(parkingSlot, slot.get());
+        assertEquals(noOfSlots, slot.get().getId());
+        assertEquals(license, slot.get().getSlotLockVehicleLicenceNumber());
     }
 
+    @Test
+    void getAvailableParkingSlotConcurrentlyLocksEachSlotOnce() throws Exception {
+        int noOfThreads = 8;
+        int slotsInLot = 10_000;
+        ParkingLot largeParkingLot = new ParkingLot(parkingLotName, slotsInLot);
+        Set<Long> lockedSlotIds = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(noOfThreads);
+        for (int t = 0; t < noOfThreads; t++) {
+            int threadNo = t;
+            futures.add(executorService.submit(() -> {
+                Optional<ParkingSlot> slot;
+                int attempt = 0;
+                while ((slot = largeParkingLot.getAvailableParkingSlot("T" + threadNo + "-" + attempt++)).isPresent()) {
+                    assertTrue(lockedSlotIds.add(slot.get().getId()));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+        assertEquals(slotsInLot, lockedSlotIds.size());
+    }
 
     @Test
     void releaseLockWhenLocked() {
-        ParkingSlot parkingSlot = new ParkingSlot(1L);
-        parkingSlot.setSlotStatusEnum(SlotStatusEnum.LOCKED);
-        parkingLot.releaseLock(parkingSlot);
+        ParkingSlot parkingSlot = parkingLot.getAvailableParkingSlot("BK-1234").orElseThrow();
+        parkingLot.releaseLock(parkingSlot, "BK-1234");
         assertEquals(SlotStatusEnum.AVAILABLE, parkingSlot.getSlotStatusEnum());
+        assertNull(parkingSlot.getSlotLockVehicleLicenceNumber());
+    }
+
+    @Test
+    void releasedSlotCanBeLockedAgain() {
+        ParkingSlot parkingSlot = parkingLot.getAvailableParkingSlot("BK-1234").orElseThrow();
+        parkingLot.releaseLock(parkingSlot, "BK-1234");
+        parkingLot.releaseLock(parkingSlot, "BK-1234");
+        ParkingSlot relockedSlot = parkingLot.getAvailableParkingSlot("BK-5678").orElseThrow();
+        assertEquals(parkingSlot.getId(), relockedSlot.getId());
+        assertEquals(noOfSlots - 1, parkingLot.getTotalAvailableSlots());
     }
 
     @Test
     void dontReleaseLockWhenNotLocked() {
         ParkingSlot parkingSlot = new ParkingSlot(1L);
         parkingSlot.setSlotStatusEnum(SlotStatusEnum.OCCUPIED);
-        parkingLot.releaseLock(parkingSlot);
+        parkingLot.releaseLock(parkingSlot, "LICENSE");
         assertEquals(SlotStatusEnum.OCCUPIED, parkingSlot.getSlotStatusEnum());
     }
 
     @Test
     void parkVehicleSuccessWhenLockedBySameUser() {
         final String license = "BK-1234";
-        ParkingSlot parkingSlot = new ParkingSlot(1L);
-        Map<Long, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put(parkingSlot.getId(), parkingSlot);
-        setFieldValue(parkingLot, "unoccupiedParkingSlots", slotMap);
-        setFieldValue(parkingLot, "occupiedParkingSlots", new HashMap<>());
-        parkingSlot.lockSlot(license);
+        ParkingSlot parkingSlot = parkingLot.getAvailableParkingSlot(license).orElseThrow();
         Car car = new Car(license);
         parkingSlot = parkingLot.parkVehicle(car, parkingSlot);
         assertEquals(SlotStatusEnum.OCCUPIED, parkingSlot.getSlotStatusEnum());
         assertEquals(car, parkingSlot.getVehicle());
         assertTrue(ChronoUnit.SECONDS.between(parkingSlot.getParkedOn(), LocalDateTime.now()) < 1);
-        assertTrue(((Map<Long, ParkingSlot>) getFieldValue(parkingLot, "unoccupiedParkingSlots")).isEmpty());
-        assertTrue(((Map<Long, ParkingSlot>) getFieldValue(parkingLot, "occupiedParkingSlots"))
-                .containsKey(license));
+        assertEquals(noOfSlots - 1, parkingLot.getTotalAvailableSlots());
+        assertEquals(Optional.of(parkingSlot), parkingLot.getParkingSlotByLicenseNo(license));
     }
 
     @Test
     void parkVehicleFailsWhenLockedByDifferentUser() {
         final String license = "BK-1234";
-        ParkingSlot parkingSlot = new ParkingSlot(1L);
-        Map<Long, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put(parkingSlot.getId(), parkingSlot);
-        setFieldValue(parkingLot, "unoccupiedParkingSlots", slotMap);
-        setFieldValue(parkingLot, "occupiedParkingSlots", new HashMap<>());
-        parkingSlot.lockSlot("SOMEOTHERLICENSE");
+        ParkingSlot parkingSlot = parkingLot.getAvailableParkingSlot("SOMEOTHERLICENSE").orElseThrow();
         Car car = new Car(license);
         assertThrows(UnsupportedOperationException.class, () -> parkingLot.parkVehicle(car, parkingSlot));
     }
@@ -120,10 +167,7 @@ class ParkingLotTest {
     @Test
     void getParkingSlotByParkedLicenseNoSuccess() {
         String licenseNo = "BK-12K";
-        ParkingSlot parkingSlot = new ParkingSlot(1L);
-        Map<String, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put(licenseNo, parkingSlot);
-        setFieldValue(parkingLot, "occupiedParkingSlots", slotMap);
+        ParkingSlot parkingSlot = park(parkingLot, licenseNo);
         Optional<ParkingSlot> slotOpt = parkingLot.getParkingSlotByLicenseNo(licenseNo);
         assertTrue(slotOpt.isPresent());
         assertEquals(parkingSlot, slotOpt.get());
@@ -131,10 +175,7 @@ class ParkingLotTest {
 
     @Test
     void getParkingSlotByUnknownLicenseNoFails() {
-        ParkingSlot parkingSlot = new ParkingSlot(1L);
-        Map<String, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put("license", parkingSlot);
-        setFieldValue(parkingLot, "occupiedParkingSlots", slotMap);
+        park(parkingLot, "license");
         Optional<ParkingSlot> slotOpt = parkingLot.getParkingSlotByLicenseNo("unknownLicense");
         assertTrue(slotOpt.isEmpty());
     }
@@ -142,31 +183,19 @@ class ParkingLotTest {
     @Test
     void unparkVehicleSuccessBySameLicenseUser() {
         String licenseNo = "LICENSE";
-        ParkingSlot parkingSlot = new ParkingSlot(1L);
-        Map<String, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put(licenseNo, parkingSlot);
-        setFieldValue(parkingLot, "occupiedParkingSlots", slotMap);
-        HashMap<Long, ParkingSlot> unOccupiedSlots = new HashMap<>();
-        setFieldValue(parkingLot, "unoccupiedParkingSlots", unOccupiedSlots);
-        setFieldValue(parkingSlot, "slotLockLicenseNumberRef", new AtomicReference<>(licenseNo));
-        parkingSlot.setSlotStatusEnum(SlotStatusEnum.OCCUPIED);
+        ParkingSlot parkingSlot = park(parkingLot, licenseNo);
         parkingLot.unparkVehicle(parkingSlot, licenseNo);
         assertEquals(SlotStatusEnum.AVAILABLE, parkingSlot.getSlotStatusEnum());
-        assertFalse(unOccupiedSlots.containsKey(licenseNo));
-        assertTrue(unOccupiedSlots.containsKey(parkingSlot.getId()));
+        assertTrue(parkingLot.getParkingSlotByLicenseNo(licenseNo).isEmpty());
+        assertTrue(parkingLot.getSlotById(parkingSlot.getId()).orElseThrow().isAvailable());
+        assertEquals(noOfSlots, parkingLot.getTotalAvailableSlots());
     }
 
     @ParameterizedTest
     @ValueSource(strings = {"AVAILABLE", "LOCKED"})
     void unparkVehicleFailsIfNotOccupied(String slotStatus) {
         String licenseNo = "LICENSE";
-        ParkingSlot parkingSlot = new ParkingSlot(1L);
-        Map<String, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put(licenseNo, parkingSlot);
-        setFieldValue(parkingLot, "occupiedParkingSlots", slotMap);
-        HashMap<Long, ParkingSlot> unOccupiedSlots = new HashMap<>();
-        setFieldValue(parkingLot, "unoccupiedParkingSlots", unOccupiedSlots);
-        setFieldValue(parkingSlot, "slotLockLicenseNumberRef", new AtomicReference<>(licenseNo));
+        ParkingSlot parkingSlot = park(parkingLot, licenseNo);
         parkingSlot.setSlotStatusEnum(SlotStatusEnum.valueOf(slotStatus));
         assertThrows(UnsupportedOperationException.class,
                 () -> parkingLot.unparkVehicle(parkingSlot, licenseNo));
@@ -175,25 +204,23 @@ class ParkingLotTest {
     @Test
     void unparkVehicleFailsByDifferentLicenseUser() {
         String licenseNo = "LICENSE";
-        ParkingSlot parkingSlot = new ParkingSlot(1L);
-        Map<String, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put(licenseNo, parkingSlot);
-        setFieldValue(parkingLot, "occupiedParkingSlots", slotMap);
-        HashMap<Long, ParkingSlot> unOccupiedSlots = new HashMap<>();
-        setFieldValue(parkingLot, "unoccupiedParkingSlots", unOccupiedSlots);
-        setFieldValue(parkingSlot, "slotLockLicenseNumberRef", new AtomicReference<>(licenseNo));
-        parkingSlot.setSlotStatusEnum(SlotStatusEnum.OCCUPIED);
+        ParkingSlot parkingSlot = park(parkingLot, licenseNo);
         assertThrows(UnsupportedOperationException.class,
                 () -> parkingLot.unparkVehicle(parkingSlot, "SOMEOTHERLICENSE"));
     }
 
+    @Test
+    void parkAndUnparkVehicleHavingLicenseTooLongToPack() {
+        String licenseNo = "TEMPORARY-PERMIT-0042";
+        ParkingSlot parkingSlot = park(parkingLot, licenseNo);
+        assertTrue(parkingLot.isVehicleAlreadyParked(licenseNo));
+        assertEquals(parkingSlot, parkingLot.getParkingSlotByLicenseNo(licenseNo).orElseThrow());
+        parkingLot.unparkVehicle(parkingSlot, licenseNo);
+        assertFalse(parkingLot.isVehicleAlreadyParked(licenseNo));
+    }
+
     @Test
     void getSlotByIdWhenUnOccupied() {
-        Map<Long, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put(1L, new ParkingSlot(1L));
-        slotMap.put(2L, new ParkingSlot(2L));
-        setFieldValue(parkingLot, "unoccupiedParkingSlots", slotMap);
-        setFieldValue(parkingLot, "occupiedParkingSlots", new HashMap<>());
         long slotIdToSearch = 1L;
         Optional<ParkingSlot> slotById = parkingLot.getSlotById(slotIdToSearch);
         assertTrue(slotById.isPresent());
@@ -202,15 +229,30 @@ class ParkingLotTest {
 
     @Test
     void getSlotByIdWhenOccupied() {
-        Map<Long, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put(1L, new ParkingSlot(1L));
-        slotMap.put(2L, new ParkingSlot(2L));
-        setFieldValue(parkingLot, "unoccupiedParkingSlots", slotMap);
-        setFieldValue(parkingLot, "occupiedParkingSlots", Map.of("ANY_LICENSE", new ParkingSlot(3L)));
-        long slotIdToSearch = 3L;
-        Optional<ParkingSlot> slotById = parkingLot.getSlotById(slotIdToSearch);
+        ParkingSlot parkingSlot = park(parkingLot, "ANY_LICENSE");
+        Optional<ParkingSlot> slotById = parkingLot.getSlotById(parkingSlot.getId());
         assertTrue(slotById.isPresent());
-        assertEquals(slotIdToSearch, slotById.get().getId());
+        assertEquals(parkingSlot, slotById.get());
+    }
+
+    @Test
+    void getSlotByIdWhenLotIsFull() {
+        for (int i = 0; i < noOfSlots; i++) {
+            park(parkingLot, "LICENSE-" + i);
+        }
+        for (long slotId = 1; slotId <= noOfSlots; slotId++) {
+            ParkingSlot parkingSlot = parkingLot.getSlotById(slotId).orElseThrow();
+            assertEquals(slotId, parkingSlot.getId());
+            assertTrue(parkingSlot.isOccupied());
+            assertEquals(Optional.of(parkingSlot),
+                    parkingLot.getParkingSlotByLicenseNo(parkingSlot.getVehicle().getLicensePlateNo()));
+        }
+    }
+
+    @Test
+    void getSlotByIdWhenUnknown() {
+        assertTrue(parkingLot.getSlotById((long) noOfSlots + 1).isEmpty());
+        assertTrue(parkingLot.getSlotById(0L).isEmpty());
     }
 
     @Test
@@ -225,32 +267,556 @@ class ParkingLotTest {
 
     @Test
     void getTotalAvailableSlotsWhenParked() {
-        Map<Long, ParkingSlot> slotMap = new HashMap<>();
-        ParkingSlot unAvailableSlot = new ParkingSlot(1L);
-        unAvailableSlot.setSlotStatusEnum(SlotStatusEnum.OCCUPIED);
-        slotMap.put(1L, unAvailableSlot);
-        slotMap.put(2L, new ParkingSlot(2L));
-        setFieldValue(parkingLot, "unoccupiedParkingSlots", slotMap);
-        assertEquals(1, parkingLot.getTotalAvailableSlots());
+        park(parkingLot, "LICENSE");
+        parkingLot.getAvailableParkingSlot("LOCKING_LICENSE");
+        assertEquals(noOfSlots - 2, parkingLot.getTotalAvailableSlots());
+    }
+
+    @Test
+    void slotCountersFollowEveryTransition() {
+        ParkingSlot lockedSlot = parkingLot.getAvailableParkingSlot("LOCKING_LICENSE").orElseThrow();
+        ParkingSlot parkedSlot = park(parkingLot, "PARKED_LICENSE");
+        ParkingSlot releasedSlot = parkingLot.getAvailableParkingSlot("RELEASED_LICENSE").orElseThrow();
+        parkingLot.releaseLock(releasedSlot, "RELEASED_LICENSE");
+        ParkingSlot unparkedSlot = park(parkingLot, "UNPARKED_LICENSE");
+        parkingLot.unparkVehicle(unparkedSlot, "UNPARKED_LICENSE");
+        for (boolean exact : new boolean[]{false, true}) {
+            assertEquals(noOfSlots - 2, parkingLot.getTotalAvailableSlots(exact));
+            assertEquals(1, parkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.LOCKED, exact));
+            assertEquals(1, parkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.OCCUPIED, exact));
+        }
+        assertTrue(lockedSlot.isLocked());
+        assertTrue(parkedSlot.isOccupied());
+    }
+
+    @Test
+    void failedTransitionsDoNotMoveSlotCounters() {
+        ParkingSlot parkingSlot = parkingLot.getAvailableParkingSlot("LICENSE").orElseThrow();
+        assertThrows(UnsupportedOperationException.class, () -> parkingLot.parkVehicle(new Car("OTHER"), parkingSlot));
+        parkingLot.releaseLock(parkingSlot, "LICENSE");
+        parkingLot.releaseLock(parkingSlot, "LICENSE");
+        assertEquals(noOfSlots, parkingLot.getTotalAvailableSlots());
+        assertEquals(0, parkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.LOCKED, false));
+    }
+
+    @Test
+    void expiredLockLeaseReturnsSlotToFreeSet() {
+        ParkingLot leasedParkingLot = new ParkingLot(parkingLotName, new ObjectSlotStore(1), 1,
+                new SlotLockLeases(1, 1_000L, 10L));
+        long lockedAt = System.currentTimeMillis();
+        ParkingSlot parkingSlot = leasedParkingLot.getAvailableParkingSlot("STALE_LICENSE").orElseThrow();
+        assertTrue(leasedParkingLot.getAvailableParkingSlot("OTHER_LICENSE").isEmpty());
+        assertEquals(0, leasedParkingLot.expireLockLeases(lockedAt + 500L));
+        assertEquals(1, leasedParkingLot.expireLockLeases(lockedAt + 2_000L));
+        assertTrue(parkingSlot.isAvailable());
+        assertEquals(1, leasedParkingLot.getReclaimedLockLeases());
+        assertEquals(1, leasedParkingLot.getTotalAvailableSlots());
+        assertTrue(leasedParkingLot.getAvailableParkingSlot("OTHER_LICENSE").isPresent());
+    }
+
+    @Test
+    void parkAndReleaseEndTheLockLease() {
+        ParkingSlot releasedSlot = parkingLot.getAvailableParkingSlot("RELEASED_LICENSE").orElseThrow();
+        park(parkingLot, "PARKED_LICENSE");
+        assertEquals(1, parkingLot.getOutstandingLockLeases());
+        parkingLot.releaseLock(releasedSlot, "RELEASED_LICENSE");
+        assertEquals(0, parkingLot.getOutstandingLockLeases());
+    }
+
+    @Test
+    void expiredLockLeaseDoesNotTouchParkedSlot() {
+        ParkingLot leasedParkingLot = new ParkingLot(parkingLotName, new ObjectSlotStore(2), 1,
+                new SlotLockLeases(2, 1_000L, 10L));
+        long lockedAt = System.currentTimeMillis();
+        ParkingSlot parkingSlot = park(leasedParkingLot, "LICENSE");
+        assertEquals(0, leasedParkingLot.expireLockLeases(lockedAt + 2_000L));
+        assertTrue(leasedParkingLot.getSlotById(parkingSlot.getId()).orElseThrow().isOccupied());
+        assertEquals(0, leasedParkingLot.getReclaimedLockLeases());
+    }
+
+    @Test
+    void parkingAfterLockLeaseExpiredFails() {
+        ParkingLot leasedParkingLot = new ParkingLot(parkingLotName, new ObjectSlotStore(1), 1,
+                new SlotLockLeases(1, 1_000L, 10L));
+        long lockedAt = System.currentTimeMillis();
+        ParkingSlot parkingSlot = leasedParkingLot.getAvailableParkingSlot("SLOW_LICENSE").orElseThrow();
+        leasedParkingLot.expireLockLeases(lockedAt + 2_000L);
+        assertThrows(UnsupportedOperationException.class,
+                () -> leasedParkingLot.parkVehicle(new Car("SLOW_LICENSE"), parkingSlot));
+        assertEquals(1, leasedParkingLot.getTotalAvailableSlots());
+    }
+
+    @Test
+    void releaseAfterExpiryLeavesTheNextLockAlone() {
+        ParkingLot leasedParkingLot = new ParkingLot(parkingLotName, new ObjectSlotStore(1), 1,
+                new SlotLockLeases(1, 1_000L, 10L));
+        long lockedAt = System.currentTimeMillis();
+        ParkingSlot staleSlot = leasedParkingLot.getAvailableParkingSlot("SLOW_LICENSE").orElseThrow();
+        leasedParkingLot.expireLockLeases(lockedAt + 2_000L);
+        ParkingSlot lockedSlot = leasedParkingLot.getAvailableParkingSlot("NEXT_LICENSE").orElseThrow();
+        assertFalse(leasedParkingLot.releaseLock(staleSlot, "SLOW_LICENSE"));
+        assertTrue(lockedSlot.isLocked());
+        assertEquals("NEXT_LICENSE", lockedSlot.getSlotLockVehicleLicenceNumber());
+    }
+
+    @Test
+    void parkIsJournaledBeforeItsVehicleCanBeUnparked() {
+        List<String> records = new ArrayList<>();
+        SlotJournal slotJournal = journalOf(CompletableFuture.completedFuture(null), records);
+        ParkingSlot lockedSlot = parkingLot.getAvailableParkingSlot("BK-1").orElseThrow();
+        ParkingSlot parkedSlot = parkingLot.parkVehicle(new Car("BK-1"), lockedSlot, slotJournal).join();
+        parkingLot.unparkVehicle(parkedSlot, "BK-1", slotJournal).join();
+        // Each record saw the lot as the transition left it before anyone else could reach the slot
+        assertEquals(List.of("PARKED:BK-1:unreachable", "UNPARKED:BK-1:occupied"), records);
+        assertEquals(noOfSlots, parkingLot.getTotalAvailableSlots());
+    }
+
+    @Test
+    void unparkVacatesSlotOnceJournaled() {
+        ParkingSlot parkedSlot = park(parkingLot, "BK-1");
+        CompletableFuture<Void> commit = new CompletableFuture<>();
+        CompletableFuture<Void> unparked = parkingLot.unparkVehicle(parkedSlot, "BK-1", journalOf(commit, new ArrayList<>()));
+        assertTrue(parkingLot.isVehicleAlreadyParked("BK-1"));
+        assertEquals(noOfSlots - 1, parkingLot.getTotalAvailableSlots());
+        commit.complete(null);
+        assertTrue(unparked.isDone());
+        assertFalse(parkingLot.isVehicleAlreadyParked("BK-1"));
+        assertEquals(noOfSlots, parkingLot.getTotalAvailableSlots());
+    }
+
+    @Test
+    void unparkTheJournalFailedKeepsVehicleParked() {
+        ParkingSlot parkedSlot = park(parkingLot, "BK-1");
+        CompletableFuture<Void> unparked = parkingLot.unparkVehicle(parkedSlot, "BK-1",
+                journalOf(CompletableFuture.failedFuture(new IllegalStateException("journal closed")), new ArrayList<>()));
+        assertTrue(unparked.isCompletedExceptionally());
+        assertTrue(parkingLot.isVehicleAlreadyParked("BK-1"));
+        assertTrue(parkingLot.getSlotById(parkedSlot.getId()).orElseThrow().isOccupied());
+        assertEquals(noOfSlots - 1, parkingLot.getTotalAvailableSlots());
+    }
+
+    @Test
+    void parkTheJournalFailedIsTakenBackOutOnce() {
+        ParkingSlot lockedSlot = parkingLot.getAvailableParkingSlot("BK-1").orElseThrow();
+        CompletableFuture<ParkingSlot> parked = parkingLot.parkVehicle(new Car("BK-1"), lockedSlot,
+                journalOf(CompletableFuture.failedFuture(new IllegalStateException("journal closed")), new ArrayList<>()));
+        assertTrue(parked.isCompletedExceptionally());
+        assertFalse(parkingLot.isVehicleAlreadyParked("BK-1"));
+        // The lease ended with the park, releasing the lock afterwards must not free the slot a second time
+        assertFalse(parkingLot.releaseLock(lockedSlot, "BK-1"));
+        assertEquals(noOfSlots, parkingLot.getTotalAvailableSlots());
+        assertEquals(noOfSlots, parkingLot.getTotalAvailableSlots(true));
+        Set<Long> lockedSlotIds = new HashSet<>();
+        for (int i = 0; i < noOfSlots; i++) {
+            lockedSlotIds.add(parkingLot.getAvailableParkingSlot("L-" + i).orElseThrow().getId());
+        }
+        assertEquals(noOfSlots, lockedSlotIds.size());
+        assertTrue(parkingLot.getAvailableParkingSlot("ONE_TOO_MANY").isEmpty());
+    }
+
+    // Appends complete with commit, each record notes whether the lot still hid its slot from everyone else
+    private SlotJournal journalOf(CompletableFuture<Void> commit, List<String> records) {
+        return new SlotJournal() {
+            @Override
+            public CompletableFuture<Void> vehicleParked(int slotIndex, long parkedOnEpochMillis, String licenseNo) {
+                records.add("PARKED:" + licenseNo + (parkingLot.isVehicleAlreadyParked(licenseNo) ? ":reachable" : ":unreachable"));
+                return commit;
+            }
+
+            @Override
+            public CompletableFuture<Void> vehicleUnparked(int slotIndex, long unparkedOnEpochMillis, String licenseNo) {
+                records.add("UNPARKED:" + licenseNo + (parkingLot.getSlotById(slotIndex + 1L).orElseThrow().isOccupied()
+                        ? ":occupied" : ":vacated"));
+                return commit;
+            }
+        };
+    }
+
+    @Test
+    void parkingLotRebuiltFromMappedSlotStoreKeepsParkedVehicles(@TempDir Path tempDir) {
+        Path slotFile = tempDir.resolve("parking-lot.slots");
+        ParkingLot parkingLotBeforeRestart = new ParkingLot(parkingLotName, MappedSlotStore.open(slotFile, 4), 2);
+        ParkingSlot parkedSlot = park(parkingLotBeforeRestart, "PARKED_LICENSE");
+        ParkingSlot unparkedSlot = park(parkingLotBeforeRestart, "UNPARKED_LICENSE");
+        parkingLotBeforeRestart.unparkVehicle(unparkedSlot, "UNPARKED_LICENSE");
+        parkingLotBeforeRestart.getAvailableParkingSlot("LOCKING_LICENSE").orElseThrow();
+
+        ParkingLot restartedParkingLot = new ParkingLot(parkingLotName, MappedSlotStore.open(slotFile, 4), 2);
+        assertTrue(restartedParkingLot.isVehicleAlreadyParked("PARKED_LICENSE"));
+        assertFalse(restartedParkingLot.isVehicleAlreadyParked("UNPARKED_LICENSE"));
+        assertEquals(parkedSlot.getId(), restartedParkingLot.getParkingSlotByLicenseNo("PARKED_LICENSE").orElseThrow().getId());
+        assertEquals(3, restartedParkingLot.getTotalAvailableSlots());
+        assertEquals(3, restartedParkingLot.getTotalAvailableSlots(true));
+        Set<Long> freeSlotIds = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            freeSlotIds.add(park(restartedParkingLot, "NEW_LICENSE_" + i).getId());
+        }
+        assertFalse(freeSlotIds.contains(parkedSlot.getId()));
+        assertTrue(restartedParkingLot.getAvailableParkingSlot("ONE_TOO_MANY").isEmpty());
+        restartedParkingLot.unparkVehicle(parkedSlot, "PARKED_LICENSE");
+        assertEquals(1, restartedParkingLot.getTotalAvailableSlots());
+    }
+
+    @Test
+    void refusedLockKeepsSlotFree(@TempDir Path tempDir) {
+        ParkingLot mappedParkingLot = new ParkingLot(parkingLotName,
+                MappedSlotStore.open(tempDir.resolve("parking-lot.slots"), 1), 1);
+        String tooLongLicense = "X".repeat(MappedSlotStore.MAX_LICENSE_BYTES + 1);
+        assertThrows(UnsupportedOperationException.class, () -> mappedParkingLot.getAvailableParkingSlot(tooLongLicense));
+        assertTrue(mappedParkingLot.getAvailableParkingSlot("LICENSE").isPresent());
+        assertEquals(1, mappedParkingLot.getSlotLockFailures());
     }
 
     @Test
     void isVehicleAlreadyParkedTrueWhenVehicleIsParked() {
         String license = "LICENSE";
-        ParkingSlot parkingSlot = new ParkingSlot(1L);
-        Map<String, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put(license, parkingSlot);
-        setFieldValue(parkingLot, "occupiedParkingSlots", slotMap);
+        park(parkingLot, license);
         assertTrue(parkingLot.isVehicleAlreadyParked(license));
     }
 
     @Test
     void isVehicleAlreadyParkedFalseWhenVehicleIsNotParked() {
-        String license = "LICENSE";
-        ParkingSlot parkingSlot = new ParkingSlot(1L);
-        Map<String, ParkingSlot> slotMap = new HashMap<>();
-        slotMap.put(license, parkingSlot);
-        setFieldValue(parkingLot, "occupiedParkingSlots", slotMap);
-        assertTrue(parkingLot.isVehicleAlreadyParked(license));
+        park(parkingLot, "LICENSE");
+        assertFalse(parkingLot.isVehicleAlreadyParked("OTHER_LICENSE"));
+    }
+
+    @Test
+    void shardsSplitSlotsIntoContiguousRanges() {
+        ParkingLot shardedParkingLot = new ParkingLot(parkingLotName, 10, 3);
+        ParkingLotShard[] shards = shardedParkingLot.getShards();
+        assertEquals(3, shardedParkingLot.getNoOfShards());
+        assertEquals(0, shards[0].getFirstSlotIndex());
+        assertEquals(10, Arrays.stream(shards).mapToInt(ParkingLotShard::getSlotCount).sum());
+        for (int i = 1; i < shards.length; i++) {
+            assertEquals(shards[i - 1].getFirstSlotIndex() + shards[i - 1].getSlotCount(), shards[i].getFirstSlotIndex());
+        }
+    }
+
+    @Test
+    void shardCountIsCappedBySlotCount() {
+        assertEquals(noOfSlots, new ParkingLot(parkingLotName, noOfSlots, 64).getNoOfShards());
+        assertEquals(1, new ParkingLot(parkingLotName, noOfSlots, 0).getNoOfShards());
+    }
+
+    @Test
+    void getAvailableParkingSlotStealsFromNeighbourShardWhenHomeShardIsFull() {
+        ParkingLot shardedParkingLot = new ParkingLot(parkingLotName, 4, 4);
+        Set<Long> lockedSlotIds = new HashSet<>();
+        // Same license, same home shard, every slot still gets handed out
+        for (int i = 0; i < 4; i++) {
+            lockedSlotIds.add(shardedParkingLot.getAvailableParkingSlot("SAME-LICENSE").orElseThrow().getId());
+        }
+        assertEquals(Set.of(1L, 2L, 3L, 4L), lockedSlotIds);
+        assertTrue(shardedParkingLot.getAvailableParkingSlot("SAME-LICENSE").isEmpty());
+    }
+
+    @Test
+    void unparkReturnsSlotToOwningShard() {
+        ParkingLot shardedParkingLot = new ParkingLot(parkingLotName, 4, 4);
+        for (int i = 0; i < 4; i++) {
+            String license = "LICENSE-" + i;
+            ParkingSlot parkingSlot = park(shardedParkingLot, license);
+            shardedParkingLot.unparkVehicle(parkingSlot, license);
+        }
+        assertTrue(Arrays.stream(shardedParkingLot.getShards()).allMatch(ParkingLotShard::hasFreeSlots));
+        assertEquals(4, shardedParkingLot.getTotalAvailableSlots());
+    }
+
+    @Test
+    void concurrentParkAndUnparkOnShardedLot() throws Exception {
+        int noOfThreads = 8;
+        ParkingLot shardedParkingLot = new ParkingLot(parkingLotName, 1_000, 8);
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(noOfThreads);
+        for (int t = 0; t < noOfThreads; t++) {
+            int threadNo = t;
+            futures.add(executorService.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    String license = "T" + threadNo + "-" + i;
+                    ParkingSlot parkingSlot = park(shardedParkingLot, license);
+                    assertTrue(shardedParkingLot.isVehicleAlreadyParked(license));
+                    shardedParkingLot.unparkVehicle(parkingSlot, license);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+        assertEquals(1_000, shardedParkingLot.getTotalAvailableSlots());
+    }
+
+    @Test
+    void getAvailableParkingSlotsClaimsAcrossShardsUntilLotIsFull() {
+        ParkingLot shardedParkingLot = new ParkingLot(parkingLotName, 5, 3);
+        List<String> licenses = List.of("L-0", "L-1", "L-2", "L-3", "L-4", "L-5");
+        List<Optional<ParkingSlot>> lockedSlots = shardedParkingLot.getAvailableParkingSlots(licenses);
+        assertEquals(6, lockedSlots.size());
+        Set<Long> slotIds = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            ParkingSlot lockedSlot = lockedSlots.get(i).orElseThrow();
+            assertTrue(lockedSlot.isLocked());
+            assertEquals(licenses.get(i), lockedSlot.getSlotLockVehicleLicenceNumber());
+            slotIds.add(lockedSlot.getId());
+        }
+        assertEquals(5, slotIds.size());
+        assertTrue(lockedSlots.get(5).isEmpty());
+        assertEquals(0, shardedParkingLot.getTotalAvailableSlots());
+        assertEquals(5, shardedParkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.LOCKED, false));
+        assertTrue(shardedParkingLot.getAvailableParkingSlots(List.of()).isEmpty());
+    }
+
+    @Test
+    void unparkVehiclesReturnsSlotsToOwningShards() {
+        ParkingLot shardedParkingLot = new ParkingLot(parkingLotName, 6, 3);
+        List<String> licenses = new ArrayList<>();
+        List<ParkingSlot> parkedSlots = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            licenses.add("L-" + i);
+            parkedSlots.add(park(shardedParkingLot, "L-" + i));
+        }
+        List<String> unparkLicenses = new ArrayList<>(licenses);
+        unparkLicenses.set(2, "NOT-PARKED-HERE");
+        boolean[] unparked = shardedParkingLot.unparkVehicles(parkedSlots, unparkLicenses);
+        assertTrue(unparked[0] && unparked[1] && unparked[3] && unparked[4] && unparked[5]);
+        assertFalse(unparked[2]);
+        assertTrue(shardedParkingLot.isVehicleAlreadyParked("L-2"));
+        assertFalse(shardedParkingLot.isVehicleAlreadyParked("L-0"));
+        assertEquals(5, shardedParkingLot.getTotalAvailableSlots());
+        assertEquals(5, shardedParkingLot.getTotalAvailableSlots(true));
+        Set<Long> slotIds = new HashSet<>();
+        shardedParkingLot.getAvailableParkingSlots(List.of("N-0", "N-1", "N-2", "N-3", "N-4", "N-5"))
+                .forEach(lockedSlot -> lockedSlot.ifPresent(slot -> slotIds.add(slot.getId())));
+        assertEquals(5, slotIds.size());
+        assertFalse(slotIds.contains(parkedSlots.get(2).getId()));
+    }
+
+    @Test
+    void unparkVehiclesKeepsGoingPastFailedItems() {
+        ParkingLot batchParkingLot = new ParkingLot(parkingLotName, 3, 1);
+        List<ParkingSlot> parkedSlots = List.of(park(batchParkingLot, "L-0"), park(batchParkingLot, "L-1"),
+                park(batchParkingLot, "L-2"));
+        List<String> transitions = new ArrayList<>();
+        batchParkingLot.setSlotStatusListener((slotIndex, slotStatus) -> transitions.add(slotIndex + ":" + slotStatus));
+        SlotJournal failingL1 = new SlotJournal() {
+            @Override
+            public CompletableFuture<Void> vehicleParked(int slotIndex, long parkedOnEpochMillis, String licenseNo) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public CompletableFuture<Void> vehicleUnparked(int slotIndex, long unparkedOnEpochMillis, String licenseNo) {
+                return "L-1".equals(licenseNo) ? CompletableFuture.failedFuture(new IllegalStateException("journal down"))
+                        : CompletableFuture.completedFuture(null);
+            }
+        };
+        // The second L-2 is journaled too, its slot is already vacated by the first one when it gets there
+        boolean[] unparked = batchParkingLot.unparkVehicles(
+                List.of(parkedSlots.get(0), parkedSlots.get(1), parkedSlots.get(2), parkedSlots.get(2)),
+                List.of("L-0", "L-1", "L-2", "L-2"), failingL1).join();
+        assertArrayEquals(new boolean[]{true, false, true, false}, unparked);
+        assertTrue(batchParkingLot.isVehicleAlreadyParked("L-1"));
+        assertFalse(batchParkingLot.isVehicleAlreadyParked("L-2"));
+        assertEquals(2, batchParkingLot.getTotalAvailableSlots());
+        assertEquals(List.of(
+                toSlotIndex(parkedSlots.get(0)) + ":AVAILABLE", toSlotIndex(parkedSlots.get(2)) + ":AVAILABLE"), transitions);
+        assertEquals(2, batchParkingLot.getAvailableParkingSlots(List.of("N-0", "N-1", "N-2")).stream()
+                .filter(Optional::isPresent).count());
+    }
+
+    private static int toSlotIndex(ParkingSlot parkingSlot) {
+        return (int) (parkingSlot.getId() - 1);
+    }
+
+    @Test
+    void parkAndUnparkOnCompactSlotStore() {
+        ParkingLot compactParkingLot = new ParkingLot(parkingLotName, new CompactSlotStore(noOfSlots), 2);
+        String license = "BK-1234";
+        ParkingSlot parkingSlot = park(compactParkingLot, license);
+        assertTrue(parkingSlot.isOccupied());
+        assertEquals(license, parkingSlot.getVehicle().getLicensePlateNo());
+        assertNotNull(parkingSlot.getParkedOn());
+        assertEquals(parkingSlot.getId(), compactParkingLot.getParkingSlotByLicenseNo(license).orElseThrow().getId());
+        assertEquals(noOfSlots - 1, compactParkingLot.getTotalAvailableSlots());
+        compactParkingLot.unparkVehicle(parkingSlot, license);
+        assertTrue(compactParkingLot.getSlotById(parkingSlot.getId()).orElseThrow().isAvailable());
+        assertFalse(compactParkingLot.isVehicleAlreadyParked(license));
+        assertEquals(noOfSlots, compactParkingLot.getTotalAvailableSlots());
+    }
+
+    private static ParkingSlot park(ParkingLot parkingLot, String license) {
+        ParkingSlot parkingSlot = parkingLot.getAvailableParkingSlot(license).orElseThrow();
+        return parkingLot.parkVehicle(new Car(license), parkingSlot);
+    }
+
+    @Test
+    void slotStatusListenerSeesEveryTransition() {
+        ParkingLot listenedParkingLot = new ParkingLot(parkingLotName, new ObjectSlotStore(3), 1,
+                new SlotLockLeases(3, 1_000L, 10L));
+        List<String> transitions = new ArrayList<>();
+        listenedParkingLot.setSlotStatusListener((slotIndex, slotStatus) -> transitions.add(slotIndex + ":" + slotStatus));
+        ParkingSlot parkedSlot = park(listenedParkingLot, "L-0");
+        ParkingSlot lockedSlot = listenedParkingLot.getAvailableParkingSlot("L-1").orElseThrow();
+        listenedParkingLot.releaseLock(lockedSlot, "L-1");
+        List<ParkingSlot> batchSlots = listenedParkingLot.getAvailableParkingSlots(List.of("L-2", "L-3")).stream()
+                .map(Optional::orElseThrow).toList();
+        listenedParkingLot.unparkVehicle(parkedSlot, "L-0");
+        listenedParkingLot.expireLockLeases(System.currentTimeMillis() + 2_000L);
+        int parkedIndex = (int) (parkedSlot.getId() - 1);
+        int lockedIndex = (int) (lockedSlot.getId() - 1);
+        assertEquals(List.of(
+                parkedIndex + ":LOCKED", parkedIndex + ":OCCUPIED",
+                lockedIndex + ":LOCKED", lockedIndex + ":AVAILABLE",
+                (batchSlots.get(0).getId() - 1) + ":LOCKED", (batchSlots.get(1).getId() - 1) + ":LOCKED",
+                parkedIndex + ":AVAILABLE"), transitions.subList(0, 7));
+        // Both batch locks expire, in whatever order the lease wheel hands them out
+        assertEquals(Set.of((batchSlots.get(0).getId() - 1) + ":AVAILABLE", (batchSlots.get(1).getId() - 1) + ":AVAILABLE"),
+                new HashSet<>(transitions.subList(7, transitions.size())));
+    }
+
+    @Test
+    void unparkVehiclesPublishesVacatedSlots() {
+        ParkingLot listenedParkingLot = new ParkingLot(parkingLotName, 4, 2);
+        ParkingSlot first = park(listenedParkingLot, "L-0");
+        ParkingSlot second = park(listenedParkingLot, "L-1");
+        List<String> transitions = new ArrayList<>();
+        listenedParkingLot.setSlotStatusListener((slotIndex, slotStatus) -> transitions.add(slotIndex + ":" + slotStatus));
+        listenedParkingLot.unparkVehicles(List.of(first, second), List.of("L-0", "NOT-PARKED-HERE"));
+        assertEquals(List.of((first.getId() - 1) + ":AVAILABLE"), transitions);
+    }
+
+    @Test
+    void eventRecorderSeesLockParkAndUnparkWithLicense() {
+        ParkingLot recordedParkingLot = new ParkingLot(parkingLotName, 3, 1);
+        List<String> events = new ArrayList<>();
+        recordedParkingLot.setEventRecorder((type, slotIndex, subject) -> events.add(
+                type + ":" + slotIndex + ":" + new ParkingEvent(0, 0, type, slotIndex, subject).licensePlateNo()));
+        ParkingSlot parkedSlot = park(recordedParkingLot, "BK-1");
+        ParkingSlot lockedSlot = recordedParkingLot.getAvailableParkingSlot("BK-2").orElseThrow();
+        recordedParkingLot.releaseLock(lockedSlot, "BK-2");
+        recordedParkingLot.unparkVehicles(List.of(parkedSlot), List.of("BK-1"));
+        int parkedIndex = (int) (parkedSlot.getId() - 1);
+        int lockedIndex = (int) (lockedSlot.getId() - 1);
+        assertEquals(List.of("SLOT_LOCKED:" + parkedIndex + ":BK-1", "VEHICLE_PARKED:" + parkedIndex + ":BK-1",
+                "SLOT_LOCKED:" + lockedIndex + ":BK-2", "LOCK_RELEASED:" + lockedIndex + ":null",
+                "VEHICLE_UNPARKED:" + parkedIndex + ":BK-1"), events);
+    }
+
+    @Test
+    void appliedParksAndUnparksAreIdempotentAndSkipOlderParks() {
+        ParkingLot followerParkingLot = new ParkingLot(parkingLotName, 4, 2);
+        List<String> transitions = new ArrayList<>();
+        followerParkingLot.setSlotStatusListener((slotIndex, slotStatus) -> transitions.add(slotIndex + ":" + slotStatus));
+        followerParkingLot.applyVehicleParked(1, "BK-1", 1_000L);
+        followerParkingLot.applyVehicleParked(1, "BK-1", 1_000L);
+        assertEquals(1, followerParkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.OCCUPIED, false));
+        assertEquals(2L, followerParkingLot.getParkingSlotByLicenseNo("BK-1").orElseThrow().getId());
+        followerParkingLot.applyVehicleUnparked(1, "BK-1");
+        followerParkingLot.applyVehicleParked(1, "BK-2", 2_000L);
+        // A chunk applied again: the park of BK-1 is older than BK-2 taking the slot, the unpark has nothing to do
+        followerParkingLot.applyVehicleParked(1, "BK-1", 1_000L);
+        followerParkingLot.applyVehicleUnparked(1, "BK-1");
+        assertFalse(followerParkingLot.isVehicleAlreadyParked("BK-1"));
+        assertEquals("BK-2", followerParkingLot.getSlotById(2L).orElseThrow().getSlotLockVehicleLicenceNumber());
+        // So is a park of a vehicle the follower has parked in another slot
+        followerParkingLot.applyVehicleParked(0, "BK-2", 1_500L);
+        assertEquals(2L, followerParkingLot.getParkingSlotByLicenseNo("BK-2").orElseThrow().getId());
+        followerParkingLot.applyVehicleParked(3, "BK-3", 3_000L);
+        followerParkingLot.applyVehicleUnparked(3, "BK-3");
+        followerParkingLot.applyVehicleUnparked(3, "BK-3");
+        assertEquals(1, followerParkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.OCCUPIED, false));
+        assertEquals(3, followerParkingLot.getTotalAvailableSlots());
+        assertEquals(followerParkingLot.getTotalAvailableSlots(), followerParkingLot.getTotalAvailableSlots(true));
+        assertEquals(List.of("1:OCCUPIED", "1:AVAILABLE", "1:OCCUPIED", "3:OCCUPIED", "3:AVAILABLE"), transitions);
+        assertThrows(IllegalArgumentException.class, () -> followerParkingLot.applyVehicleParked(4, "BK-4", 4_000L));
+    }
+
+    @Test
+    void occupancySnapshotIsPublishedByEveryTransition() {
+        OccupancySnapshot initial = parkingLot.getOccupancySnapshot();
+        ParkingSlot parkedSlot = park(parkingLot, "BK-1");
+        ParkingSlot lockedSlot = parkingLot.getAvailableParkingSlot("BK-2").orElseThrow();
+        OccupancySnapshot busy = parkingLot.getOccupancySnapshot();
+        assertEquals(initial.getVersion() + 3, busy.getVersion());
+        assertEquals(SlotStatusEnum.LOCKED, busy.getSlotById(lockedSlot.getId()).orElseThrow().getSlotStatusEnum());
+        ParkingSlot snapshotSlot = busy.getSlotById(parkedSlot.getId()).orElseThrow();
+        assertTrue(snapshotSlot.isOccupied());
+        assertEquals("BK-1", snapshotSlot.getVehicle().getLicensePlateNo());
+        assertEquals(parkedSlot.getParkedOn().withNano(0), snapshotSlot.getParkedOn().withNano(0));
+        parkingLot.releaseLock(lockedSlot, "BK-2");
+        parkingLot.unparkVehicle(parkedSlot, "BK-1");
+        OccupancySnapshot vacated = parkingLot.getOccupancySnapshot();
+        assertEquals(noOfSlots, vacated.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+        assertTrue(vacated.getSlotById(parkedSlot.getId()).orElseThrow().isAvailable());
+        // Readers holding an earlier version keep reading it
+        assertEquals(noOfSlots - 2, busy.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+        assertEquals(noOfSlots, initial.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+    }
+
+    @Test
+    void occupancySnapshotsStayConsistentUnderConcurrentTransitions() throws Exception {
+        int noOfThreads = 8;
+        ParkingLot shardedParkingLot = new ParkingLot(parkingLotName, 1_000, 8);
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(noOfThreads + 1);
+        for (int t = 0; t < noOfThreads; t++) {
+            int threadNo = t;
+            futures.add(executorService.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    String license = "T" + threadNo + "-" + i;
+                    ParkingSlot parkingSlot = park(shardedParkingLot, license);
+                    shardedParkingLot.unparkVehicle(parkingSlot, license);
+                }
+            }));
+        }
+        Future<?> reader = executorService.submit(() -> {
+            while (futures.stream().anyMatch(future -> !future.isDone())) {
+                OccupancySnapshot snapshot = shardedParkingLot.getOccupancySnapshot();
+                assertEquals(1_000, snapshot.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE)
+                        + snapshot.getSlotsHavingStatus(SlotStatusEnum.LOCKED)
+                        + snapshot.getSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+                for (long slotId = 1; slotId <= 1_000; slotId += 97) {
+                    ParkingSlot slot = snapshot.getSlotById(slotId).orElseThrow();
+                    assertEquals(slot.isOccupied(), Objects.nonNull(slot.getVehicle()));
+                }
+            }
+        });
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        reader.get(30, TimeUnit.SECONDS);
+        executorService.shutdown();
+        OccupancySnapshot snapshot = shardedParkingLot.getOccupancySnapshot();
+        assertEquals(noOfThreads * 500 * 3L, snapshot.getVersion());
+        assertEquals(1_000, snapshot.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+    }
+
+    @Test
+    void slotsAreAllocatedNearestToTheRequestingGate() {
+        GridLayout gridLayout = new GridLayout();
+        gridLayout.setFloors(2);
+        gridLayout.setSlotsPerRow(4);
+        gridLayout.setGates(List.of(new Gate("ground", 0, 0, 0), new Gate("upper", 1, 10, 0)));
+        SlotLayout slotLayout = gridLayout.toSlotLayout(8);
+        ParkingLot laidOutParkingLot = new ParkingLot(parkingLotName, new ObjectSlotStore(8), 2,
+                new SlotLockLeases(8, SlotLockLeases.DEFAULT_LEASE_MILLIS, SlotLockLeases.DEFAULT_TICK_MILLIS), slotLayout);
+        // Slots 1 to 4 on the ground floor and 5 to 8 upstairs, left to right
+        assertEquals(1L, laidOutParkingLot.getAvailableParkingSlot("BK-1").orElseThrow().getId());
+        ParkingSlot upperSlot = laidOutParkingLot.getAvailableParkingSlot("BK-2", "upper").orElseThrow();
+        assertEquals(8L, upperSlot.getId());
+        ParkingSlot parkedSlot = laidOutParkingLot.parkVehicle(new Car("BK-2"), upperSlot);
+        laidOutParkingLot.unparkVehicle(parkedSlot, "BK-2");
+        assertEquals(8L, laidOutParkingLot.getAvailableParkingSlot("BK-3", "upper").orElseThrow().getId());
+        List<Long> batchSlotIds = laidOutParkingLot.getAvailableParkingSlots(List.of("BK-4", "BK-5"), "upper").stream()
+                .map(slot -> slot.orElseThrow().getId()).toList();
+        assertEquals(List.of(7L, 6L), batchSlotIds);
+        assertEquals(2L, laidOutParkingLot.getAvailableParkingSlot("BK-6", "ground").orElseThrow().getId());
+        assertTrue(laidOutParkingLot.hasGate(null));
+        assertFalse(laidOutParkingLot.hasGate("missing"));
+        assertThrows(IllegalArgumentException.class, () -> laidOutParkingLot.getAvailableParkingSlot("BK-7", "missing"));
+        assertFalse(parkingLot.hasGate("ground"));
+        assertThrows(IllegalArgumentException.class, () -> parkingLot.getAvailableParkingSlots(List.of("BK-7"), "ground"));
+        assertThrows(IllegalArgumentException.class, () -> new ParkingLot(parkingLotName, new ObjectSlotStore(9), 1,
+                new SlotLockLeases(9, SlotLockLeases.DEFAULT_LEASE_MILLIS, SlotLockLeases.DEFAULT_TICK_MILLIS), slotLayout));
     }
-}
\ No newline at end of file
+}
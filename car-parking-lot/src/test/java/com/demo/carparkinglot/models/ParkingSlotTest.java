@@ -1,6 +1,7 @@
 package com.demo.carparkinglot.models;
 
 import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.vehicles.Car;
 import com.demo.carparkinglot.utils.ReflectionTestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -59,6 +60,47 @@ class ParkingSlotTest {
         assertThrows(UnsupportedOperationException.class, () -> parkingSlot.lockSlot(licenseNumber));
     }
 
+    @Test
+    void releaseLockedSlotPasses() {
+        parkingSlot.lockSlot("1234");
+        assertTrue(parkingSlot.releaseLock());
+        assertTrue(parkingSlot.isAvailable());
+        assertNull(parkingSlot.getSlotLockVehicleLicenceNumber());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"AVAILABLE", "OCCUPIED"})
+    void releaseNotLockedSlotFails(String status) {
+        ReflectionTestUtils.setFieldValue(parkingSlot, "slotStatusEnum", SlotStatusEnum.valueOf(status));
+        assertFalse(parkingSlot.releaseLock());
+        assertEquals(SlotStatusEnum.valueOf(status), parkingSlot.getSlotStatusEnum());
+    }
+
+    @Test
+    void occupyLockedSlotPasses() {
+        String licenseNumber = "1234";
+        parkingSlot.lockSlot(licenseNumber);
+        Car car = new Car(licenseNumber);
+        parkingSlot.occupySlot(car);
+        assertTrue(parkingSlot.isOccupied());
+        assertEquals(car, parkingSlot.getVehicle());
+        assertNotNull(parkingSlot.getParkedOn());
+    }
+
+    @Test
+    void occupySlotLockedByAnotherUserFails() {
+        parkingSlot.lockSlot("OTHERLICENSE");
+        assertThrows(UnsupportedOperationException.class, () -> parkingSlot.occupySlot(new Car("1234")));
+        assertTrue(parkingSlot.isLocked());
+        assertNull(parkingSlot.getVehicle());
+    }
+
+    @Test
+    void occupyAvailableSlotFails() {
+        assertThrows(UnsupportedOperationException.class, () -> parkingSlot.occupySlot(new Car("1234")));
+        assertTrue(parkingSlot.isAvailable());
+    }
+
     @Test
     void unlockSlotPassesForUserForWhichLockIsObtained() {
         String licenseNumber = "1234";
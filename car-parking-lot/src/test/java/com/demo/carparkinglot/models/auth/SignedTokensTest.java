@@ -0,0 +1,51 @@
+package com.demo.carparkinglot.models.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+class SignedTokensTest {
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes();
+
+    private final SignedTokens signedTokens = new SignedTokens(SECRET);
+
+    @Test
+    void issuedTokenVerifiesUntilItExpires() {
+        String token = signedTokens.issue("gate-7", 1_000);
+        assertEquals(new SignedTokens.VerifiedToken("gate-7", 1_000), signedTokens.verify(token, 999));
+        assertNull(signedTokens.verify(token, 1_000));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = signedTokens.issue("gate-7", 1_000);
+        String[] parts = token.split("\\.");
+        assertNull(signedTokens.verify(signedTokens.issue("gate-8", 1_000).split("\\.")[0] + "." + parts[1] + "." + parts[2], 0));
+        assertNull(signedTokens.verify(parts[0] + ".2000." + parts[2], 0));
+        assertNull(signedTokens.verify(parts[0] + "." + parts[1] + "." + parts[2].substring(1), 0));
+        byte[] otherSecret = Arrays.copyOf(SECRET, SECRET.length);
+        otherSecret[0]++;
+        assertNull(new SignedTokens(otherSecret).verify(token, 0));
+    }
+
+    @Test
+    void malformedTokenIsRejected() {
+        assertNull(signedTokens.verify("", 0));
+        assertNull(signedTokens.verify("abc", 0));
+        assertNull(signedTokens.verify(".1000.abc", 0));
+        assertNull(signedTokens.verify("Z2F0ZQ.soon.abc", 0));
+        assertNull(signedTokens.verify("Z2F0ZQ.1000.!!", 0));
+    }
+
+    @Test
+    void shortSecretIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SignedTokens(new byte[16]));
+    }
+}
@@ -0,0 +1,93 @@
+package com.demo.carparkinglot.models.cluster;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class ConsistentHashRingTest {
+    private static final String NODE_A = "http://localhost:8086";
+    private static final String NODE_B = "http://localhost:8087";
+    private static final String NODE_C = "http://localhost:8088";
+    private static final String NODE_D = "http://localhost:8089";
+    private static final int KEYS = 30_000;
+
+    @Test
+    void keysSpreadEvenlyOverNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(NODE_A, NODE_B, NODE_C), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.ownerOf("lot-" + i), 1, Integer::sum);
+        }
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(Math.abs(count - KEYS / 3) < KEYS / 3 * 0.15, counts::toString));
+    }
+
+    @Test
+    void addedNodeOnlyTakesKeysFromOthers() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(NODE_A, NODE_B, NODE_C), 128);
+        ConsistentHashRing grown = ring.withNode(NODE_D);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String before = ring.ownerOf("lot-" + i);
+            String after = grown.ownerOf("lot-" + i);
+            if (!before.equals(after)) {
+                assertEquals(NODE_D, after);
+                moved++;
+            }
+        }
+        assertTrue(Math.abs(moved - KEYS / 4) < KEYS / 4 * 0.15, "moved: " + moved);
+    }
+
+    @Test
+    void removedNodeOnlyGivesUpItsKeys() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(NODE_A, NODE_B, NODE_C), 128);
+        ConsistentHashRing shrunk = ring.withoutNode(NODE_B);
+        assertEquals(List.of(NODE_A, NODE_C), shrunk.getNodes());
+        for (int i = 0; i < KEYS; i++) {
+            String before = ring.ownerOf("lot-" + i);
+            String after = shrunk.ownerOf("lot-" + i);
+            if (before.equals(NODE_B)) {
+                assertNotEquals(NODE_B, after);
+            } else {
+                assertEquals(before, after);
+            }
+        }
+    }
+
+    @Test
+    void sameMembersBuildSameRing() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(NODE_A, NODE_B, NODE_C), 64);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of(NODE_C, NODE_A, NODE_B), 64);
+        ConsistentHashRing rebuilt = new ConsistentHashRing(List.of(NODE_A, NODE_C), 64).withNode(NODE_B);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(ring.ownerOf("lot-" + i), reordered.ownerOf("lot-" + i));
+            assertEquals(ring.ownerOf("lot-" + i), rebuilt.ownerOf("lot-" + i));
+        }
+    }
+
+    @Test
+    void singleNodeOwnsEverything() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(NODE_A), 1);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(NODE_A, ring.ownerOf("lot-" + i));
+        }
+        assertEquals(ConsistentHashRing.hash("lot-1"), ConsistentHashRing.hash("lot-1"));
+        assertNotEquals(ConsistentHashRing.hash("lot-1"), ConsistentHashRing.hash("lot-2"));
+    }
+
+    @Test
+    void ringNeedsNodesAndVirtualNodes() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(NODE_A), 0));
+    }
+}
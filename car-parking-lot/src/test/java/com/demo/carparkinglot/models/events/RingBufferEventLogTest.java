@@ -0,0 +1,153 @@
+package com.demo.carparkinglot.models.events;
+
+import com.demo.carparkinglot.enums.ParkingEventTypeEnum;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class RingBufferEventLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recordedEventsAreWrittenInOrder() throws Exception {
+        Path eventFile = tempDir.resolve("events/parking-events.log");
+        try (RingBufferEventLog eventLog = RingBufferEventLog.open(eventFile, 16, 100, 1 << 20, 1)) {
+            eventLog.record(ParkingEventTypeEnum.SLOT_LOCKED, 3, ParkingEvent.licenseSubject("BK-1234"));
+            eventLog.record(ParkingEventTypeEnum.VEHICLE_PARKED, 3, ParkingEvent.licenseSubject("BK-1234"));
+            eventLog.record(ParkingEventTypeEnum.RATE_LIMITED, ParkingEvent.NO_SLOT, ParkingEvent.addressSubject("10.0.0.255"));
+        }
+        List<ParkingEvent> events = new ArrayList<>();
+        assertEquals(3, RingBufferEventLog.readAll(eventFile, events::add));
+        assertEquals(List.of(ParkingEventTypeEnum.SLOT_LOCKED, ParkingEventTypeEnum.VEHICLE_PARKED, ParkingEventTypeEnum.RATE_LIMITED),
+                events.stream().map(ParkingEvent::type).toList());
+        assertEquals(List.of(0L, 1L, 2L), events.stream().map(ParkingEvent::sequence).toList());
+        assertEquals(3, events.get(1).slotIndex());
+        assertEquals("BK-1234", events.get(1).licensePlateNo());
+        assertEquals(ParkingEvent.NO_SLOT, events.get(2).slotIndex());
+        assertEquals("10.0.0.255", events.get(2).remoteAddress());
+        assertNull(events.get(2).licensePlateNo());
+    }
+
+    @Test
+    void subjectsThatDoNotPackAreHashed() {
+        assertTrue(ParkingEvent.licenseSubject("TEMPORARY-PERMIT-0042") < 0);
+        assertTrue(ParkingEvent.addressSubject("0:0:0:0:0:0:0:1") < 0);
+        assertTrue(ParkingEvent.addressSubject("256.0.0.1") < 0);
+        assertTrue(ParkingEvent.addressSubject("1.2.3") < 0);
+        assertNull(new ParkingEvent(0, 0, ParkingEventTypeEnum.VEHICLE_PARKED, 1,
+                ParkingEvent.licenseSubject("TEMPORARY-PERMIT-0042")).licensePlateNo());
+    }
+
+    @Test
+    void concurrentRecordersLoseNoEventsWithinCapacity() throws Exception {
+        Path eventFile = tempDir.resolve("parking-events.log");
+        int recorders = 4;
+        int eventsPerRecorder = 2_000;
+        try (RingBufferEventLog eventLog = RingBufferEventLog.open(eventFile, 16_384, 100, 1 << 20, 1)) {
+            ExecutorService executor = Executors.newFixedThreadPool(recorders);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int recorder = 0; recorder < recorders; recorder++) {
+                    int firstSlotIndex = recorder * eventsPerRecorder;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < eventsPerRecorder; i++) {
+                            eventLog.record(ParkingEventTypeEnum.VEHICLE_UNPARKED, firstSlotIndex + i, ParkingEvent.NO_SUBJECT);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(0, eventLog.getDroppedEvents());
+        }
+        Set<Integer> slotIndexes = new HashSet<>();
+        Set<Long> sequences = new HashSet<>();
+        RingBufferEventLog.readAll(eventFile, event -> {
+            slotIndexes.add(event.slotIndex());
+            sequences.add(event.sequence());
+        });
+        assertEquals(recorders * eventsPerRecorder, slotIndexes.size());
+        assertEquals(recorders * eventsPerRecorder, sequences.size());
+    }
+
+    @Test
+    void fullRingDropsEventsAndReportsThem() throws Exception {
+        Path eventFile = tempDir.resolve("parking-events.log");
+        int recordedEvents = 100;
+        long droppedEvents;
+        // The writer sleeps far longer than the test takes, so it can only drain what it caught before sleeping
+        try (RingBufferEventLog eventLog = RingBufferEventLog.open(eventFile, 4, 60_000_000, 1 << 20, 1)) {
+            for (int i = 0; i < recordedEvents; i++) {
+                eventLog.record(ParkingEventTypeEnum.SLOT_LOCKED, i, ParkingEvent.NO_SUBJECT);
+            }
+            droppedEvents = eventLog.getDroppedEvents();
+            assertTrue(droppedEvents > 0);
+        }
+        List<ParkingEvent> events = new ArrayList<>();
+        RingBufferEventLog.readAll(eventFile, events::add);
+        ParkingEvent dropReport = events.get(events.size() - 1);
+        assertEquals(ParkingEventTypeEnum.EVENTS_DROPPED, dropReport.type());
+        assertEquals(droppedEvents, dropReport.subject());
+        assertEquals(recordedEvents - droppedEvents, events.size() - 1);
+    }
+
+    @Test
+    void fileRollsOverKeepingMaxRolledFiles() throws Exception {
+        Path eventFile = tempDir.resolve("parking-events.log");
+        int recordedEvents = 5_000;
+        long maxFileBytes = 1024L * RingBufferEventLog.RECORD_BYTES;
+        try (RingBufferEventLog eventLog = RingBufferEventLog.open(eventFile, 8_192, 100, maxFileBytes, 2)) {
+            for (int i = 0; i < recordedEvents; i++) {
+                eventLog.record(ParkingEventTypeEnum.SLOT_LOCKED, i, ParkingEvent.NO_SUBJECT);
+            }
+            assertEquals(0, eventLog.getDroppedEvents());
+            assertFalse(Files.exists(eventLog.rolledFile(3)));
+        }
+        assertTrue(Files.exists(eventFile.resolveSibling("parking-events.log.1")));
+        assertTrue(Files.exists(eventFile.resolveSibling("parking-events.log.2")));
+        assertFalse(Files.exists(eventFile.resolveSibling("parking-events.log.3")));
+        assertTrue(Files.size(eventFile) <= maxFileBytes);
+        List<ParkingEvent> events = new ArrayList<>();
+        RingBufferEventLog.readAll(eventFile, events::add);
+        assertEquals(recordedEvents - 1, events.get(events.size() - 1).sequence());
+    }
+
+    @Test
+    void tornRecordAtTheEndIsDroppedOnOpen() throws Exception {
+        Path eventFile = tempDir.resolve("parking-events.log");
+        try (RingBufferEventLog eventLog = RingBufferEventLog.open(eventFile, 16, 100, 1 << 20, 1)) {
+            eventLog.record(ParkingEventTypeEnum.LOCK_RELEASED, 1, ParkingEvent.NO_SUBJECT);
+        }
+        Files.write(eventFile, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+        try (RingBufferEventLog eventLog = RingBufferEventLog.open(eventFile, 16, 100, 1 << 20, 1)) {
+            eventLog.record(ParkingEventTypeEnum.LOCK_EXPIRED, 2, ParkingEvent.NO_SUBJECT);
+        }
+        List<ParkingEvent> events = new ArrayList<>();
+        assertEquals(2, RingBufferEventLog.readAll(eventFile, events::add));
+        assertEquals(ParkingEventTypeEnum.LOCK_EXPIRED, events.get(1).type());
+        assertEquals(2, events.get(1).slotIndex());
+    }
+}
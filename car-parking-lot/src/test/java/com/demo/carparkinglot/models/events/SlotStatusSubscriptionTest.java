@@ -0,0 +1,106 @@
+package com.demo.carparkinglot.models.events;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class SlotStatusSubscriptionTest {
+
+    private record Delta(int slotIndex, SlotStatusEnum slotStatus) {
+    }
+
+    @Test
+    void slowClientOnlyGetsLatestStatusPerSlot() {
+        AtomicBoolean hasDemand = new AtomicBoolean(false);
+        List<Delta> deltas = new ArrayList<>();
+        SlotStatusSubscription subscription = new SlotStatusSubscription(Runnable::run, hasDemand::get,
+                (slotIndex, slotStatus) -> deltas.add(new Delta(slotIndex, slotStatus)));
+        subscription.offer(4, SlotStatusEnum.LOCKED);
+        subscription.offer(1, SlotStatusEnum.LOCKED);
+        subscription.offer(4, SlotStatusEnum.OCCUPIED);
+        subscription.offer(1, SlotStatusEnum.AVAILABLE);
+        subscription.offer(4, SlotStatusEnum.AVAILABLE);
+        assertTrue(deltas.isEmpty());
+        assertEquals(2, subscription.getPendingSlots());
+        hasDemand.set(true);
+        subscription.signal();
+        assertEquals(List.of(new Delta(4, SlotStatusEnum.AVAILABLE), new Delta(1, SlotStatusEnum.AVAILABLE)), deltas);
+        assertEquals(0, subscription.getPendingSlots());
+    }
+
+    @Test
+    void drainPausesWithoutDemand() {
+        int[] demand = {1};
+        List<Delta> deltas = new ArrayList<>();
+        SlotStatusSubscription subscription = new SlotStatusSubscription(Runnable::run, () -> demand[0] > 0,
+                (slotIndex, slotStatus) -> {
+                    demand[0]--;
+                    deltas.add(new Delta(slotIndex, slotStatus));
+                });
+        subscription.offer(0, SlotStatusEnum.LOCKED);
+        subscription.offer(1, SlotStatusEnum.LOCKED);
+        assertEquals(List.of(new Delta(0, SlotStatusEnum.LOCKED)), deltas);
+        demand[0] = 5;
+        subscription.signal();
+        assertEquals(List.of(new Delta(0, SlotStatusEnum.LOCKED), new Delta(1, SlotStatusEnum.LOCKED)), deltas);
+    }
+
+    @Test
+    void failingClientCancelsSubscription() {
+        List<Delta> deltas = new ArrayList<>();
+        SlotStatusSubscription subscription = new SlotStatusSubscription(Runnable::run, () -> true,
+                (slotIndex, slotStatus) -> {
+                    deltas.add(new Delta(slotIndex, slotStatus));
+                    throw new IllegalStateException("client went away");
+                });
+        subscription.offer(0, SlotStatusEnum.LOCKED);
+        subscription.offer(1, SlotStatusEnum.LOCKED);
+        assertTrue(subscription.isCancelled());
+        assertEquals(1, deltas.size());
+        assertEquals(0, subscription.getPendingSlots());
+    }
+
+    @Test
+    void concurrentPublishersEndWithLatestStatusOfEverySlot() throws Exception {
+        int publishers = 4;
+        int slots = 64;
+        Map<Integer, SlotStatusEnum> delivered = new ConcurrentHashMap<>();
+        ExecutorService drainExecutor = Executors.newSingleThreadExecutor();
+        SlotStatusSubscription subscription = new SlotStatusSubscription(drainExecutor, () -> true, delivered::put);
+        ExecutorService publisherExecutor = Executors.newFixedThreadPool(publishers);
+        CountDownLatch published = new CountDownLatch(publishers);
+        for (int p = 0; p < publishers; p++) {
+            int firstSlot = p * slots / publishers;
+            publisherExecutor.execute(() -> {
+                for (int round = 0; round < 1_000; round++) {
+                    for (int slotIndex = firstSlot; slotIndex < firstSlot + slots / publishers; slotIndex++) {
+                        subscription.offer(slotIndex, round % 2 == 0 ? SlotStatusEnum.OCCUPIED : SlotStatusEnum.AVAILABLE);
+                    }
+                }
+                published.countDown();
+            });
+        }
+        assertTrue(published.await(30, TimeUnit.SECONDS));
+        publisherExecutor.shutdown();
+        drainExecutor.shutdown();
+        assertTrue(drainExecutor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(slots, delivered.size());
+        assertTrue(delivered.values().stream().allMatch(SlotStatusEnum.AVAILABLE::equals));
+        assertEquals(0, subscription.getPendingSlots());
+    }
+}
@@ -0,0 +1,210 @@
+package com.demo.carparkinglot.models.journal;
+
+import com.demo.carparkinglot.enums.JournalRecordTypeEnum;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class GroupCommitJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void committedRecordsAreReadBackInOrder() throws Exception {
+        Path journalFile = tempDir.resolve("journal/parking-lot.journal");
+        List<JournalRecord> appendedRecords = List.of(
+                JournalRecord.vehicleParked(3, 1_000L, "BK-1234"),
+                JournalRecord.lockReleased(4, 2_000L),
+                JournalRecord.vehicleUnparked(3, 3_000L, "BK-1234"));
+        try (GroupCommitJournal journal = GroupCommitJournal.open(journalFile, 100, 16)) {
+            for (JournalRecord journalRecord : appendedRecords) {
+                journal.append(journalRecord).get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(3, journal.getCommittedRecords());
+        }
+        List<JournalRecord> readRecords = new ArrayList<>();
+        assertEquals(3, GroupCommitJournal.readAll(journalFile, readRecords::add));
+        assertEquals(appendedRecords, readRecords);
+        assertEquals(JournalRecordTypeEnum.LOCK_RELEASED, readRecords.get(1).type());
+    }
+
+    @Test
+    void concurrentAppendsShareCommits() throws Exception {
+        Path journalFile = tempDir.resolve("parking-lot.journal");
+        int noOfRecords = 1_000;
+        try (GroupCommitJournal journal = GroupCommitJournal.open(journalFile, 5_000, 64)) {
+            List<CompletableFuture<Void>> commits = new ArrayList<>();
+            for (int i = 0; i < noOfRecords; i++) {
+                commits.add(journal.append(JournalRecord.vehicleParked(i, i, "LICENSE_" + i)));
+            }
+            CompletableFuture.allOf(commits.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+            assertEquals(noOfRecords, journal.getCommittedRecords());
+            assertTrue(journal.getCommittedBatches() <= noOfRecords / 64 + 1,
+                    "batches: " + journal.getCommittedBatches());
+        }
+        assertEquals(noOfRecords, GroupCommitJournal.readAll(journalFile, journalRecord -> {
+        }));
+    }
+
+    @Test
+    void committedRecordsAreShippedInWholeRecords() throws Exception {
+        Path journalFile = tempDir.resolve("parking-lot.journal");
+        try (GroupCommitJournal journal = GroupCommitJournal.open(journalFile, 100, 16)) {
+            List<JournalRecord> appendedRecords = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                appendedRecords.add(JournalRecord.vehicleParked(i, i, "LICENSE_" + i));
+                journal.append(appendedRecords.get(i)).get(5, TimeUnit.SECONDS);
+            }
+            int recordBytes = appendedRecords.get(0).encodedSize();
+            List<JournalRecord> shippedRecords = new ArrayList<>();
+            long position = 0;
+            int chunks = 0;
+            while (position < journal.getCommittedPosition()) {
+                // Room for two and a half records, chunks end at record boundaries
+                byte[] chunk = journal.readCommitted(position, recordBytes * 5 / 2);
+                assertEquals(2, GroupCommitJournal.decode(ByteBuffer.wrap(chunk), shippedRecords::add));
+                position += chunk.length;
+                chunks++;
+            }
+            assertEquals(5, chunks);
+            assertEquals(appendedRecords, shippedRecords);
+            long committedPosition = position;
+            assertEquals(0, journal.readCommitted(committedPosition, 1).length);
+            assertEquals(recordBytes, journal.readCommitted(0, 1).length);
+            assertThrows(IllegalArgumentException.class, () -> journal.readCommitted(committedPosition + 1, 1024));
+            assertThrows(IllegalArgumentException.class, () -> journal.readCommitted(1, 1024));
+
+            byte[] corrupt = journal.readCommitted(0, recordBytes);
+            corrupt[recordBytes - 1] ^= 1;
+            assertThrows(IllegalArgumentException.class, () -> GroupCommitJournal.decode(ByteBuffer.wrap(corrupt), record -> {
+            }));
+            assertThrows(IllegalArgumentException.class, () -> GroupCommitJournal.decode(
+                    ByteBuffer.wrap(journal.readCommitted(0, 1024), 0, recordBytes + 3), record -> {
+                    }));
+        }
+    }
+
+    @Test
+    void reopenedJournalDropsTornTailAndKeepsAppending() throws Exception {
+        Path journalFile = tempDir.resolve("parking-lot.journal");
+        try (GroupCommitJournal journal = GroupCommitJournal.open(journalFile, 0, 16)) {
+            journal.append(JournalRecord.vehicleParked(0, 1_000L, "BK-1234")).get(5, TimeUnit.SECONDS);
+            journal.append(JournalRecord.vehicleParked(1, 2_000L, "BK-5678")).get(5, TimeUnit.SECONDS);
+        }
+        truncateBy(journalFile, 3);
+        try (GroupCommitJournal journal = GroupCommitJournal.open(journalFile, 0, 16)) {
+            journal.append(JournalRecord.vehicleUnparked(0, 3_000L, "BK-1234")).get(5, TimeUnit.SECONDS);
+        }
+        List<JournalRecord> readRecords = new ArrayList<>();
+        GroupCommitJournal.readAll(journalFile, readRecords::add);
+        assertEquals(List.of(JournalRecord.vehicleParked(0, 1_000L, "BK-1234"),
+                JournalRecord.vehicleUnparked(0, 3_000L, "BK-1234")), readRecords);
+    }
+
+    @Test
+    void reopenedJournalReplaysOnlyRecordsAfterPosition() throws Exception {
+        Path journalFile = tempDir.resolve("parking-lot.journal");
+        long snapshotPosition;
+        try (GroupCommitJournal journal = GroupCommitJournal.open(journalFile, 0, 16)) {
+            assertEquals(0, journal.getCommittedPosition());
+            journal.append(JournalRecord.vehicleParked(0, 1_000L, "BK-1234")).get(5, TimeUnit.SECONDS);
+            snapshotPosition = journal.getCommittedPosition();
+            journal.append(JournalRecord.vehicleParked(1, 2_000L, "BK-5678")).get(5, TimeUnit.SECONDS);
+        }
+        List<JournalRecord> replayedRecords = new ArrayList<>();
+        try (GroupCommitJournal journal = GroupCommitJournal.open(journalFile, snapshotPosition, replayedRecords::add, 0, 16)) {
+            assertEquals(Files.size(journalFile), journal.getCommittedPosition());
+        }
+        assertEquals(List.of(JournalRecord.vehicleParked(1, 2_000L, "BK-5678")), replayedRecords);
+    }
+
+    @Test
+    void corruptRecordEndsReplay() throws Exception {
+        Path journalFile = tempDir.resolve("parking-lot.journal");
+        try (GroupCommitJournal journal = GroupCommitJournal.open(journalFile, 0, 16)) {
+            journal.append(JournalRecord.vehicleParked(0, 1_000L, "BK-1234")).get(5, TimeUnit.SECONDS);
+            journal.append(JournalRecord.vehicleParked(1, 2_000L, "BK-5678")).get(5, TimeUnit.SECONDS);
+        }
+        byte[] journalBytes = Files.readAllBytes(journalFile);
+        journalBytes[journalBytes.length - 6] ^= 1;
+        Files.write(journalFile, journalBytes);
+        assertEquals(1, GroupCommitJournal.readAll(journalFile, journalRecord -> {
+        }));
+    }
+
+    @Test
+    void appendAfterCloseFails() throws Exception {
+        GroupCommitJournal journal = GroupCommitJournal.open(tempDir.resolve("parking-lot.journal"), 0, 16);
+        journal.close();
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> journal.append(JournalRecord.lockReleased(0, 0L)).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void appendsRacingCloseNeverHang() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            GroupCommitJournal journal = GroupCommitJournal.open(tempDir.resolve("parking-lot-" + round + ".journal"), 0, 16);
+            List<CompletableFuture<Void>> commits = new ArrayList<>();
+            Thread appender = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    commits.add(journal.append(JournalRecord.vehicleParked(i, i, "LICENSE_" + i)));
+                }
+            });
+            appender.start();
+            journal.close();
+            appender.join();
+            // Committed or failed, but completed either way
+            CompletableFuture.allOf(commits.toArray(CompletableFuture[]::new))
+                    .handle((ignored, e) -> null).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void tooLongLicenseFailsOnlyItsOwnAppend() throws Exception {
+        Path journalFile = tempDir.resolve("parking-lot.journal");
+        try (GroupCommitJournal journal = GroupCommitJournal.open(journalFile, 5_000, 16)) {
+            CompletableFuture<Void> tooLong = journal.append(
+                    JournalRecord.vehicleParked(0, 1_000L, "L".repeat(JournalRecord.MAX_LICENSE_BYTES + 1)));
+            CompletableFuture<Void> parked = journal.append(JournalRecord.vehicleParked(1, 1_000L, "BK-1234"));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> tooLong.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            parked.get(5, TimeUnit.SECONDS);
+            assertEquals(1, journal.getCommittedRecords());
+        }
+        assertEquals(1, GroupCommitJournal.readAll(journalFile, journalRecord -> {
+        }));
+    }
+
+    @Test
+    void missingJournalReadsNothing() {
+        assertEquals(0, GroupCommitJournal.readAll(tempDir.resolve("missing.journal"), journalRecord -> {
+        }));
+    }
+
+    private static void truncateBy(Path file, int bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - bytes);
+        }
+    }
+}
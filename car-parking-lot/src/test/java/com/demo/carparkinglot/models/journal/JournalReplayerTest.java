@@ -0,0 +1,80 @@
+package com.demo.carparkinglot.models.journal;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.slots.CompactSlotStore;
+import com.demo.carparkinglot.models.slots.SlotStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+class JournalReplayerTest {
+
+    @Test
+    void replayAppliesParksAndUnparks() {
+        SlotStore slotStore = new CompactSlotStore(4);
+        JournalReplayer journalReplayer = new JournalReplayer(slotStore, 2);
+        journalReplayer.accept(JournalRecord.vehicleParked(0, 1_000L, "BK-1"));
+        journalReplayer.accept(JournalRecord.vehicleParked(3, 1_000L, "BK-2"));
+        journalReplayer.accept(JournalRecord.lockReleased(1, 1_500L));
+        journalReplayer.accept(JournalRecord.vehicleUnparked(0, 2_000L, "BK-1"));
+        assertEquals(4, journalReplayer.replay());
+        assertEquals(SlotStatusEnum.AVAILABLE, slotStore.getSlotStatus(0));
+        assertEquals(SlotStatusEnum.AVAILABLE, slotStore.getSlotStatus(1));
+        assertEquals("BK-2", slotStore.getSlotLockVehicleLicenceNumber(3));
+        assertEquals(1, slotStore.countSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+    }
+
+    @Test
+    void replayOverSnapshotAlreadyReflectingRecordsIsIdempotent() {
+        SlotStore slotStore = new CompactSlotStore(2);
+        slotStore.restoreOccupiedSlot(0, "BK-1", 1_000L);
+        JournalReplayer journalReplayer = new JournalReplayer(slotStore, 1);
+        journalReplayer.accept(JournalRecord.vehicleParked(0, 1_000L, "BK-1"));
+        journalReplayer.accept(JournalRecord.vehicleUnparked(1, 1_000L, "BK-2"));
+        journalReplayer.replay();
+        assertEquals(SlotStatusEnum.OCCUPIED, slotStore.getSlotStatus(0));
+        assertEquals("BK-1", slotStore.getSlotLockVehicleLicenceNumber(0));
+        assertEquals(SlotStatusEnum.AVAILABLE, slotStore.getSlotStatus(1));
+    }
+
+    @Test
+    void parksOlderThanSnapshotAreSkipped() {
+        SlotStore slotStore = new CompactSlotStore(1);
+        // Snapshot taken after BK-2 reused the slot, the tail still holds the park and unpark of BK-1 before it
+        slotStore.restoreOccupiedSlot(0, "BK-2", 3_000L);
+        JournalReplayer journalReplayer = new JournalReplayer(slotStore, 1);
+        journalReplayer.accept(JournalRecord.vehicleParked(0, 1_000L, "BK-1"));
+        journalReplayer.accept(JournalRecord.vehicleUnparked(0, 2_000L, "BK-1"));
+        journalReplayer.accept(JournalRecord.vehicleParked(0, 3_000L, "BK-2"));
+        journalReplayer.replay();
+        assertEquals(SlotStatusEnum.OCCUPIED, slotStore.getSlotStatus(0));
+        assertEquals("BK-2", slotStore.getSlotLockVehicleLicenceNumber(0));
+    }
+
+    @Test
+    void slotRangesAreReplayedIndependently() {
+        int totalSlots = 10_000;
+        SlotStore slotStore = new CompactSlotStore(totalSlots);
+        JournalReplayer journalReplayer = new JournalReplayer(slotStore, 8);
+        for (int slotIndex = 0; slotIndex < totalSlots; slotIndex++) {
+            journalReplayer.accept(JournalRecord.vehicleParked(slotIndex, 1_000L, "BK-" + slotIndex));
+            if (slotIndex % 2 == 0) {
+                journalReplayer.accept(JournalRecord.vehicleUnparked(slotIndex, 2_000L, "BK-" + slotIndex));
+            }
+        }
+        assertEquals(totalSlots + totalSlots / 2, journalReplayer.replay());
+        assertEquals(totalSlots / 2, slotStore.countSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+        assertEquals("BK-9999", slotStore.getSlotLockVehicleLicenceNumber(9_999));
+    }
+
+    @Test
+    void recordOutsideOfLotFails() {
+        JournalReplayer journalReplayer = new JournalReplayer(new CompactSlotStore(2), 1);
+        assertThrows(IllegalStateException.class,
+                () -> journalReplayer.accept(JournalRecord.vehicleParked(2, 1_000L, "BK-1")));
+    }
+}
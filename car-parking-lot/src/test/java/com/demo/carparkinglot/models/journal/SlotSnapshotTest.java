@@ -0,0 +1,85 @@
+package com.demo.carparkinglot.models.journal;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.slots.CompactSlotStore;
+import com.demo.carparkinglot.models.slots.ObjectSlotStore;
+import com.demo.carparkinglot.models.slots.SlotStore;
+import com.demo.carparkinglot.models.vehicles.Car;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class SlotSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void restoredSnapshotHoldsOccupiedSlotsOnly() {
+        Path snapshotFile = tempDir.resolve("snapshot/parking-lot.snapshot");
+        SlotStore slotStore = new ObjectSlotStore(5);
+        park(slotStore, 1, "BK-1234");
+        park(slotStore, 4, "BK-5678");
+        slotStore.lockSlot(2, "BK-LOCKED");
+        assertEquals(2, SlotSnapshot.write(snapshotFile, slotStore, 42L));
+        assertFalse(Files.exists(snapshotFile.resolveSibling("parking-lot.snapshot.tmp")));
+
+        SlotStore restoredSlotStore = new CompactSlotStore(5);
+        assertEquals(42L, SlotSnapshot.restore(snapshotFile, restoredSlotStore));
+        assertEquals(2, restoredSlotStore.countSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+        assertEquals(3, restoredSlotStore.countSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+        ParkingSlot restoredSlot = restoredSlotStore.getSlot(4);
+        assertTrue(restoredSlot.isOccupied());
+        assertEquals("BK-5678", restoredSlot.getVehicle().getLicensePlateNo());
+        assertEquals(slotStore.getSlot(4).getParkedOn().withNano(0),
+                restoredSlot.getParkedOn().withNano(0));
+    }
+
+    @Test
+    void newerSnapshotReplacesOlderOne() {
+        Path snapshotFile = tempDir.resolve("parking-lot.snapshot");
+        SlotStore slotStore = new CompactSlotStore(3);
+        park(slotStore, 0, "BK-1234");
+        SlotSnapshot.write(snapshotFile, slotStore, 10L);
+        slotStore.unlockSlot(0, "BK-1234");
+        SlotSnapshot.write(snapshotFile, slotStore, 20L);
+        SlotStore restoredSlotStore = new CompactSlotStore(3);
+        assertEquals(20L, SlotSnapshot.restore(snapshotFile, restoredSlotStore));
+        assertEquals(0, restoredSlotStore.countSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+    }
+
+    @Test
+    void restoringIntoLotOfDifferentSizeFails() {
+        Path snapshotFile = tempDir.resolve("parking-lot.snapshot");
+        SlotSnapshot.write(snapshotFile, new CompactSlotStore(3), 0L);
+        assertThrows(IllegalStateException.class, () -> SlotSnapshot.restore(snapshotFile, new CompactSlotStore(4)));
+    }
+
+    @Test
+    void corruptSnapshotFails() throws Exception {
+        Path snapshotFile = tempDir.resolve("parking-lot.snapshot");
+        SlotStore slotStore = new CompactSlotStore(3);
+        park(slotStore, 0, "BK-1234");
+        SlotSnapshot.write(snapshotFile, slotStore, 0L);
+        byte[] snapshotBytes = Files.readAllBytes(snapshotFile);
+        snapshotBytes[snapshotBytes.length - 9] ^= 1;
+        Files.write(snapshotFile, snapshotBytes);
+        assertThrows(IllegalStateException.class, () -> SlotSnapshot.restore(snapshotFile, new CompactSlotStore(3)));
+    }
+
+    private static void park(SlotStore slotStore, int slotIndex, String licenseNo) {
+        slotStore.lockSlot(slotIndex, licenseNo);
+        slotStore.occupySlot(slotIndex, new Car(licenseNo));
+    }
+}
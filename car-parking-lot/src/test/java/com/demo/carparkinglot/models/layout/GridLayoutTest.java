@@ -0,0 +1,48 @@
+package com.demo.carparkinglot.models.layout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+class GridLayoutTest {
+
+    @Test
+    void slotsFillRowsFloorAfterFloor() {
+        GridLayout gridLayout = new GridLayout();
+        gridLayout.setFloors(2);
+        gridLayout.setSlotsPerRow(3);
+        gridLayout.setGates(List.of(new Gate("entrance", 0, 0, 0), new Gate("roof-exit", 1, 7.5, 6)));
+        SlotLayout slotLayout = gridLayout.toSlotLayout(11);
+        assertEquals(11, slotLayout.getTotalSlots());
+        // 6 slots a floor, the last floor is left short
+        assertEquals(0, slotLayout.getFloor(5));
+        assertEquals(1, slotLayout.getFloor(6));
+        assertEquals(3.75, slotLayout.getX(4));
+        assertEquals(6.0, slotLayout.getY(4));
+        assertEquals(1.25, slotLayout.distance(0, 0));
+        // Same spot one floor up, the ramp counts too
+        assertEquals(41.25, slotLayout.distance(0, 6));
+        assertEquals(3.75, slotLayout.distance(1, 10));
+        assertEquals(1, slotLayout.gateNoOf("roof-exit"));
+        assertEquals(-1, slotLayout.gateNoOf("missing"));
+    }
+
+    @Test
+    void invalidLayoutsAreRejected() {
+        GridLayout gridLayout = new GridLayout();
+        assertFalse(gridLayout.hasGates());
+        assertThrows(IllegalArgumentException.class, () -> gridLayout.toSlotLayout(10));
+        gridLayout.setGates(List.of(new Gate("gate", 0, 0, 0), new Gate("gate", 0, 5, 0)));
+        assertThrows(IllegalArgumentException.class, () -> gridLayout.toSlotLayout(10));
+        gridLayout.setGates(List.of(new Gate("gate", 0, 0, 0)));
+        gridLayout.setSlotsPerRow(0);
+        assertThrows(IllegalArgumentException.class, () -> gridLayout.toSlotLayout(10));
+    }
+}
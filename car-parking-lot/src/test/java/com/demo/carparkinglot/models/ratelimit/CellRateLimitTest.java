@@ -0,0 +1,62 @@
+package com.demo.carparkinglot.models.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class CellRateLimitTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void freshBucketAllowsWholeBurst() {
+        CellRateLimit limit = new CellRateLimit(3, Duration.ofSeconds(3));
+        AtomicLong bucket = new AtomicLong();
+        long now = 10 * SECOND;
+        assertTrue(limit.tryAcquire(bucket, now));
+        assertTrue(limit.tryAcquire(bucket, now));
+        assertTrue(limit.tryAcquire(bucket, now));
+        assertFalse(limit.tryAcquire(bucket, now));
+    }
+
+    @Test
+    void permitsComeBackOneIntervalAtATime() {
+        CellRateLimit limit = new CellRateLimit(3, Duration.ofSeconds(3));
+        AtomicLong bucket = new AtomicLong();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limit.tryAcquire(bucket, 0));
+        }
+        assertFalse(limit.tryAcquire(bucket, SECOND - 1));
+        assertTrue(limit.tryAcquire(bucket, SECOND));
+        assertFalse(limit.tryAcquire(bucket, SECOND));
+        // Idle for a whole period, the burst is back
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limit.tryAcquire(bucket, 5 * SECOND));
+        }
+        assertFalse(limit.tryAcquire(bucket, 5 * SECOND));
+    }
+
+    @Test
+    void releasedPermitCanBeTakenAgain() {
+        CellRateLimit limit = new CellRateLimit(1, Duration.ofMinutes(1));
+        AtomicLong bucket = new AtomicLong();
+        assertTrue(limit.tryAcquire(bucket, SECOND));
+        assertFalse(limit.tryAcquire(bucket, SECOND));
+        limit.release(bucket);
+        assertTrue(limit.tryAcquire(bucket, SECOND));
+    }
+
+    @Test
+    void invalidLimitIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CellRateLimit(0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new CellRateLimit(1, Duration.ZERO));
+    }
+}
@@ -0,0 +1,97 @@
+package com.demo.carparkinglot.models.ratelimit;
+
+import com.demo.carparkinglot.enums.RateLimitDecisionEnum;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class HierarchicalRateLimiterTest {
+
+    private static HierarchicalRateLimiter limiter(int clientPermits, int subnetPermits, int globalPermits) {
+        return new HierarchicalRateLimiter(new CellRateLimit(clientPermits, Duration.ofMinutes(1)),
+                new CellRateLimit(subnetPermits, Duration.ofMinutes(1)),
+                new CellRateLimit(globalPermits, Duration.ofSeconds(1)), 1024);
+    }
+
+    @Test
+    void clientLimitComesFirst() {
+        HierarchicalRateLimiter rateLimiter = limiter(2, 10, 10);
+        AtomicLong client = new AtomicLong();
+        assertEquals(RateLimitDecisionEnum.ADMITTED, rateLimiter.tryAcquire(client, "10.0.0.1", 0));
+        assertEquals(RateLimitDecisionEnum.ADMITTED, rateLimiter.tryAcquire(client, "10.0.0.1", 0));
+        assertEquals(RateLimitDecisionEnum.CLIENT_LIMITED, rateLimiter.tryAcquire(client, "10.0.0.1", 0));
+        assertEquals(RateLimitDecisionEnum.ADMITTED, rateLimiter.tryAcquire(new AtomicLong(), "10.0.0.2", 0));
+    }
+
+    @Test
+    void clientsOfOneSubnetShareItsLimit() {
+        HierarchicalRateLimiter rateLimiter = limiter(2, 3, 100);
+        assertEquals(RateLimitDecisionEnum.ADMITTED, rateLimiter.tryAcquire(new AtomicLong(), "10.0.0.1", 0));
+        assertEquals(RateLimitDecisionEnum.ADMITTED, rateLimiter.tryAcquire(new AtomicLong(), "10.0.0.2", 0));
+        assertEquals(RateLimitDecisionEnum.ADMITTED, rateLimiter.tryAcquire(new AtomicLong(), "10.0.0.3", 0));
+        AtomicLong refused = new AtomicLong();
+        assertEquals(RateLimitDecisionEnum.SUBNET_LIMITED, rateLimiter.tryAcquire(refused, "10.0.0.4", 0));
+        // The refused client was not charged for it
+        assertEquals(0, refused.get());
+        assertEquals(RateLimitDecisionEnum.ADMITTED, rateLimiter.tryAcquire(new AtomicLong(), "10.0.1.1", 0));
+    }
+
+    @Test
+    void globalLimitRefusesDistributedBurst() {
+        HierarchicalRateLimiter rateLimiter = limiter(5, 5, 3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(RateLimitDecisionEnum.ADMITTED, rateLimiter.tryAcquire(new AtomicLong(), "10.0." + i + ".1", 0));
+        }
+        AtomicLong refused = new AtomicLong();
+        assertEquals(RateLimitDecisionEnum.GLOBAL_LIMITED, rateLimiter.tryAcquire(refused, "10.0.9.1", 0));
+        assertEquals(0, refused.get());
+        // Permits come back a third of a second apart
+        assertEquals(RateLimitDecisionEnum.ADMITTED, rateLimiter.tryAcquire(refused, "10.0.9.1", 333_333_334L));
+    }
+
+    @Test
+    void subnetKeysCoverSlash24AndSlash64() {
+        assertEquals(HierarchicalRateLimiter.subnetKey("192.168.7.1"), HierarchicalRateLimiter.subnetKey("192.168.7.254"));
+        assertEquals(0xC0A807L, HierarchicalRateLimiter.subnetKey("192.168.7.1"));
+        assertNotEquals(HierarchicalRateLimiter.subnetKey("192.168.7.1"), HierarchicalRateLimiter.subnetKey("192.168.8.1"));
+        assertEquals(0x20010DB800010002L, HierarchicalRateLimiter.subnetKey("2001:db8:1:2::1"));
+        assertEquals(0x20010DB800010002L, HierarchicalRateLimiter.subnetKey("2001:0db8:0001:0002:ffff:0:0:5"));
+        assertEquals(0x20010DB800000000L, HierarchicalRateLimiter.subnetKey("2001:db8::7"));
+        assertEquals(0x20010DB800000000L, HierarchicalRateLimiter.subnetKey("2001:db8::"));
+        assertEquals(0L, HierarchicalRateLimiter.subnetKey("::1"));
+        assertEquals(0L, HierarchicalRateLimiter.subnetKey("::ffff:10.0.0.1"));
+        assertEquals(0xFE80000000000000L, HierarchicalRateLimiter.subnetKey("fe80::1%eth0"));
+        assertEquals(0x20010DB800010000L, HierarchicalRateLimiter.subnetKey("2001:db8:1::2:3:4:5"));
+        assertEquals("not-an-address".hashCode(), HierarchicalRateLimiter.subnetKey("not-an-address"));
+        assertEquals(":1:2".hashCode(), HierarchicalRateLimiter.subnetKey(":1:2"));
+    }
+
+    @Test
+    void decidingAllocatesNothing() {
+        HierarchicalRateLimiter rateLimiter = limiter(1_000, 1_000, 1_000_000);
+        AtomicLong ipv4Client = new AtomicLong();
+        AtomicLong ipv6Client = new AtomicLong();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // Warm up so the allocation counter itself and class loading are out of the way
+        for (int i = 0; i < 20_000; i++) {
+            rateLimiter.tryAcquire(ipv4Client, "10.0.0.1", 0);
+            rateLimiter.tryAcquire(ipv6Client, "2001:db8:1:2::1", 0);
+        }
+        long allocatedBytes = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 20_000; i++) {
+            rateLimiter.tryAcquire(ipv4Client, "10.0.0.1", 0);
+            rateLimiter.tryAcquire(ipv6Client, "2001:db8:1:2::1", 0);
+        }
+        // Less than a byte per decision, the JVM itself may allocate a little on this thread meanwhile
+        assertTrue(threads.getCurrentThreadAllocatedBytes() - allocatedBytes < 40_000);
+    }
+}
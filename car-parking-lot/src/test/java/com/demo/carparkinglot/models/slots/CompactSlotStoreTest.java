@@ -0,0 +1,149 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.vehicles.Car;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class CompactSlotStoreTest {
+
+    private CompactSlotStore slotStore;
+
+    @BeforeEach
+    void init() {
+        slotStore = new CompactSlotStore(3);
+    }
+
+    @Test
+    void allSlotsAreAvailableInitially() {
+        assertEquals(3, slotStore.getTotalSlots());
+        assertEquals(3, slotStore.countSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+        ParkingSlot parkingSlot = slotStore.getSlot(0);
+        assertEquals(1L, parkingSlot.getId());
+        assertTrue(parkingSlot.isAvailable());
+        assertNull(parkingSlot.getVehicle());
+    }
+
+    @Test
+    void lockOccupyAndUnlockSlot() {
+        String license = "BK-1234";
+        slotStore.lockSlot(1, license);
+        assertEquals(SlotStatusEnum.LOCKED, slotStore.getSlotStatus(1));
+        assertEquals(license, slotStore.getSlotLockVehicleLicenceNumber(1));
+        slotStore.occupySlot(1, new Car(license));
+        ParkingSlot parkingSlot = slotStore.getSlot(1);
+        assertEquals(2L, parkingSlot.getId());
+        assertTrue(parkingSlot.isOccupied());
+        assertEquals(license, parkingSlot.getVehicle().getLicensePlateNo());
+        assertTrue(ChronoUnit.SECONDS.between(parkingSlot.getParkedOn(), LocalDateTime.now()) < 1);
+        assertEquals(1, slotStore.countSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+        slotStore.unlockSlot(1, license);
+        assertEquals(SlotStatusEnum.AVAILABLE, slotStore.getSlotStatus(1));
+        assertNull(slotStore.getSlotLockVehicleLicenceNumber(1));
+    }
+
+    @Test
+    void restoreOccupiedSlotKeepsParkingTime() {
+        slotStore.restoreOccupiedSlot(2, "BK-1234", 1_000L);
+        ParkingSlot parkingSlot = slotStore.getSlot(2);
+        assertTrue(parkingSlot.isOccupied());
+        assertEquals("BK-1234", parkingSlot.getVehicle().getLicensePlateNo());
+        assertEquals(1_000L, parkingSlot.getParkedOn().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        assertThrows(UnsupportedOperationException.class, () -> slotStore.restoreOccupiedSlot(2, "BK-5678", 2_000L));
+    }
+
+    @Test
+    void lockNotAvailableSlotFails() {
+        slotStore.lockSlot(0, "BK-1234");
+        assertThrows(UnsupportedOperationException.class, () -> slotStore.lockSlot(0, "BK-5678"));
+    }
+
+    @Test
+    void releaseLockOnlyOnce() {
+        slotStore.lockSlot(0, "BK-1234");
+        assertTrue(slotStore.releaseLock(0));
+        assertFalse(slotStore.releaseLock(0));
+        assertNull(slotStore.getSlotLockVehicleLicenceNumber(0));
+    }
+
+    @Test
+    void occupySlotLockedByAnotherUserFails() {
+        slotStore.lockSlot(0, "OTHERLICENSE");
+        assertThrows(UnsupportedOperationException.class, () -> slotStore.occupySlot(0, new Car("BK-1234")));
+        assertEquals(SlotStatusEnum.LOCKED, slotStore.getSlotStatus(0));
+    }
+
+    @Test
+    void unlockSlotByAnotherUserFails() {
+        slotStore.lockSlot(0, "BK-1234");
+        slotStore.occupySlot(0, new Car("BK-1234"));
+        assertThrows(UnsupportedOperationException.class, () -> slotStore.unlockSlot(0, "OTHERLICENSE"));
+        assertEquals(SlotStatusEnum.OCCUPIED, slotStore.getSlotStatus(0));
+    }
+
+    @Test
+    void getSlotBuildsDetachedViews() {
+        assertNotSame(slotStore.getSlot(2), slotStore.getSlot(2));
+    }
+
+    @Test
+    void releasingNeverClearsTheNextHoldersLicense() throws Exception {
+        AtomicInteger lostLicenses = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> holders = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String licenseNo = "BK-" + i;
+            Thread holder = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int round = 0; round < 10_000; round++) {
+                    try {
+                        slotStore.lockSlot(0, licenseNo);
+                    } catch (UnsupportedOperationException e) {
+                        continue;
+                    }
+                    if (!licenseNo.equals(slotStore.getSlotLockVehicleLicenceNumber(0))) {
+                        lostLicenses.incrementAndGet();
+                    }
+                    if (round % 2 == 0) {
+                        slotStore.releaseLock(0);
+                    } else {
+                        slotStore.occupySlot(0, new Car(licenseNo));
+                        slotStore.unlockSlot(0, licenseNo);
+                    }
+                }
+            });
+            holder.start();
+            holders.add(holder);
+        }
+        start.countDown();
+        for (Thread holder : holders) {
+            holder.join();
+        }
+        assertEquals(0, lostLicenses.get());
+        assertTrue(slotStore.getSlot(0).isAvailable());
+        assertNull(slotStore.getSlotLockVehicleLicenceNumber(0));
+    }
+}
@@ -0,0 +1,154 @@
+package com.demo.carparkinglot.models.slots;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class FreeSlotStackTest {
+
+    @Test
+    void stackOfFreeIndexesSkipsTakenIndexes() {
+        FreeSlotStack stack = FreeSlotStack.of(5, index -> index % 2 == 0);
+        assertEquals(0, stack.pop());
+        assertEquals(2, stack.pop());
+        assertEquals(4, stack.pop());
+        assertEquals(-1, stack.pop());
+        assertTrue(FreeSlotStack.of(3, index -> false).isEmpty());
+    }
+
+    @Test
+    void fullStackPopsLowestIndexFirst() {
+        FreeSlotStack stack = FreeSlotStack.full(3);
+        assertEquals(0, stack.pop());
+        assertEquals(1, stack.pop());
+        assertEquals(2, stack.pop());
+        assertEquals(-1, stack.pop());
+        assertTrue(stack.isEmpty());
+    }
+
+    @Test
+    void pushedIndexIsPoppedNext() {
+        FreeSlotStack stack = FreeSlotStack.full(3);
+        stack.pop();
+        stack.pop();
+        stack.push(0);
+        assertFalse(stack.isEmpty());
+        assertEquals(0, stack.pop());
+        assertEquals(2, stack.pop());
+    }
+
+    @Test
+    void popBatchTakesTopIndexesInOrder() {
+        FreeSlotStack stack = FreeSlotStack.full(5);
+        int[] indexes = new int[4];
+        assertEquals(3, stack.popBatch(indexes, 1, 3));
+        assertEquals(List.of(0, 1, 2), List.of(indexes[1], indexes[2], indexes[3]));
+        assertEquals(2, stack.popBatch(indexes, 0, 4));
+        assertEquals(List.of(3, 4), List.of(indexes[0], indexes[1]));
+        assertEquals(0, stack.popBatch(indexes, 0, 4));
+    }
+
+    @Test
+    void pushBatchPutsFirstIndexOnTop() {
+        FreeSlotStack stack = FreeSlotStack.full(5);
+        int[] indexes = new int[5];
+        stack.popBatch(indexes, 0, 5);
+        stack.push(4);
+        stack.pushBatch(new int[]{-1, 1, 3}, 1, 2);
+        assertEquals(1, stack.pop());
+        assertEquals(3, stack.pop());
+        assertEquals(4, stack.pop());
+        assertEquals(-1, stack.pop());
+    }
+
+    @Test
+    void emptyStackHasNoFreeSlot() {
+        FreeSlotStack stack = new FreeSlotStack(4);
+        assertTrue(stack.isEmpty());
+        assertEquals(-1, stack.pop());
+        assertEquals(4, stack.capacity());
+    }
+
+    @Test
+    void concurrentBatchPopAndPushNeverHandsOutSameIndexTwice() throws Exception {
+        int capacity = 64;
+        FreeSlotStack stack = FreeSlotStack.full(capacity);
+        Set<Integer> claimed = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            futures.add(executorService.submit(() -> {
+                int[] indexes = new int[5];
+                for (int i = 0; i < 20_000; i++) {
+                    int popped = stack.popBatch(indexes, 0, 1 + i % indexes.length);
+                    for (int j = 0; j < popped; j++) {
+                        assertTrue(claimed.add(indexes[j]));
+                    }
+                    for (int j = 0; j < popped; j++) {
+                        claimed.remove(indexes[j]);
+                    }
+                    stack.pushBatch(indexes, 0, popped);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+        int drained = 0;
+        while (stack.pop() >= 0) {
+            drained++;
+        }
+        assertEquals(capacity, drained);
+    }
+
+    @Test
+    void invalidCapacityFails() {
+        assertThrows(IllegalArgumentException.class, () -> new FreeSlotStack(-1));
+    }
+
+    @Test
+    void concurrentPopAndPushNeverHandsOutSameIndexTwice() throws Exception {
+        int capacity = 64;
+        FreeSlotStack stack = FreeSlotStack.full(capacity);
+        Set<Integer> claimed = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            futures.add(executorService.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    int index = stack.pop();
+                    if (index >= 0) {
+                        assertTrue(claimed.add(index));
+                        claimed.remove(index);
+                        stack.push(index);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+        int drained = 0;
+        while (stack.pop() >= 0) {
+            drained++;
+        }
+        assertEquals(capacity, drained);
+    }
+}
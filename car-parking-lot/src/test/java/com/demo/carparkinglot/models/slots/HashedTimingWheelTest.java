@@ -0,0 +1,90 @@
+package com.demo.carparkinglot.models.slots;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class HashedTimingWheelTest {
+
+    private static final long START = 1_000L;
+
+    @Test
+    void taskExpiresOnlyOnceItsTickHasElapsed() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, START);
+        wheel.schedule("lease", START + 25);
+        List<String> expired = new ArrayList<>();
+        assertEquals(0, wheel.advanceTo(START + 25, expired::add));
+        assertEquals(1, wheel.advanceTo(START + 30, expired::add));
+        assertEquals(List.of("lease"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void taskBeyondOneRevolutionWaitsForItsRound() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 4, START);
+        wheel.schedule("far", START + 95);
+        List<String> expired = new ArrayList<>();
+        wheel.advanceTo(START + 50, expired::add);
+        wheel.advanceTo(START + 90, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advanceTo(START + 100, expired::add);
+        assertEquals(List.of("far"), expired);
+    }
+
+    @Test
+    void overdueTaskExpiresOnNextTick() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, START);
+        wheel.advanceTo(START + 50, task -> {
+        });
+        wheel.schedule("overdue", START + 5);
+        List<String> expired = new ArrayList<>();
+        wheel.advanceTo(START + 60, expired::add);
+        assertEquals(List.of("overdue"), expired);
+    }
+
+    @Test
+    void tasksExpireInDeadlineOrderAcrossTicks() {
+        HashedTimingWheel<Integer> wheel = new HashedTimingWheel<>(10, 8, START);
+        for (int i = 9; i >= 0; i--) {
+            wheel.schedule(i, START + i * 10L);
+        }
+        List<Integer> expired = new ArrayList<>();
+        wheel.advanceTo(START + 200, expired::add);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), expired);
+    }
+
+    @Test
+    void cancelledTaskNeverExpires() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, START);
+        // Cancelled before the wheel moved it into its bucket, then once it is in there
+        assertTrue(wheel.schedule("queued", START + 25).cancel());
+        wheel.advanceTo(START + 10, task -> {
+        });
+        HashedTimingWheel.Timeout<String> linked = wheel.schedule("linked", START + 35);
+        wheel.schedule("kept", START + 35);
+        wheel.advanceTo(START + 20, task -> {
+        });
+        assertTrue(linked.cancel());
+        assertFalse(linked.cancel());
+        assertEquals(1, wheel.size());
+        List<String> expired = new ArrayList<>();
+        wheel.advanceTo(START + 100, expired::add);
+        assertEquals(List.of("kept"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void invalidWheelFails() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<>(0, 8, START));
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<>(10, 6, START));
+    }
+}
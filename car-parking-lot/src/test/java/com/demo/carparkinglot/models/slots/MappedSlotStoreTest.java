@@ -0,0 +1,172 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.vehicles.Car;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class MappedSlotStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path slotFile;
+    private MappedSlotStore slotStore;
+
+    @BeforeEach
+    void init() {
+        slotFile = tempDir.resolve("lot/parking-lot.slots");
+        slotStore = MappedSlotStore.open(slotFile, 3);
+    }
+
+    @Test
+    void newSlotFileDescribesEmptyLot() throws Exception {
+        assertEquals(MappedSlotStore.HEADER_SIZE + 3L * MappedSlotStore.RECORD_SIZE, Files.size(slotFile));
+        assertEquals(3, slotStore.getTotalSlots());
+        assertEquals(3, slotStore.countSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+        ParkingSlot parkingSlot = slotStore.getSlot(0);
+        assertEquals(1L, parkingSlot.getId());
+        assertTrue(parkingSlot.isAvailable());
+        assertNull(parkingSlot.getVehicle());
+    }
+
+    @Test
+    void lockOccupyAndUnlockSlot() {
+        String license = "BK-1234";
+        slotStore.lockSlot(1, license);
+        assertEquals(SlotStatusEnum.LOCKED, slotStore.getSlotStatus(1));
+        assertEquals(license, slotStore.getSlotLockVehicleLicenceNumber(1));
+        slotStore.occupySlot(1, new Car(license));
+        ParkingSlot parkingSlot = slotStore.getSlot(1);
+        assertTrue(parkingSlot.isOccupied());
+        assertEquals(license, parkingSlot.getVehicle().getLicensePlateNo());
+        assertTrue(parkingSlot.getParkedOn() != null);
+        slotStore.unlockSlot(1, license);
+        assertEquals(SlotStatusEnum.AVAILABLE, slotStore.getSlotStatus(1));
+        assertNull(slotStore.getSlotLockVehicleLicenceNumber(1));
+    }
+
+    @Test
+    void lockingTakenSlotFails() {
+        slotStore.lockSlot(0, "BK-1234");
+        assertThrows(UnsupportedOperationException.class, () -> slotStore.lockSlot(0, "BK-5678"));
+        assertEquals("BK-1234", slotStore.getSlotLockVehicleLicenceNumber(0));
+    }
+
+    @Test
+    void occupyingSlotLockedBySomeoneElseFails() {
+        slotStore.lockSlot(0, "BK-1234");
+        assertThrows(UnsupportedOperationException.class, () -> slotStore.occupySlot(0, new Car("BK-5678")));
+        assertEquals(SlotStatusEnum.LOCKED, slotStore.getSlotStatus(0));
+    }
+
+    @Test
+    void onlyOneOfRacingOccupiesWins() throws Exception {
+        for (int round = 0; round < 100; round++) {
+            slotStore.lockSlot(0, "BK-1234");
+            AtomicInteger occupies = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> occupiers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Thread occupier = new Thread(() -> {
+                    try {
+                        start.await();
+                        slotStore.occupySlot(0, new Car("BK-1234"));
+                        occupies.incrementAndGet();
+                    } catch (UnsupportedOperationException | InterruptedException ignored) {
+                    }
+                });
+                occupier.start();
+                occupiers.add(occupier);
+            }
+            start.countDown();
+            for (Thread occupier : occupiers) {
+                occupier.join();
+            }
+            assertEquals(1, occupies.get());
+            assertTrue(slotStore.getSlot(0).isOccupied());
+            assertTrue(slotStore.getSlot(0).getParkedOn() != null);
+            slotStore.unlockSlot(0, "BK-1234");
+        }
+    }
+
+    @Test
+    void occupyCutShortByRestartIsDropped() throws Exception {
+        slotStore.lockSlot(1, "BK-1234");
+        try (FileChannel channel = FileChannel.open(slotFile, StandardOpenOption.WRITE)) {
+            ByteBuffer status = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(MappedSlotStore.OCCUPYING);
+            channel.write(status.flip(), MappedSlotStore.HEADER_SIZE + MappedSlotStore.RECORD_SIZE);
+        }
+        assertEquals(SlotStatusEnum.LOCKED, slotStore.getSlotStatus(1));
+
+        MappedSlotStore reopenedSlotStore = MappedSlotStore.open(slotFile, 3);
+        assertEquals(SlotStatusEnum.AVAILABLE, reopenedSlotStore.getSlotStatus(1));
+        assertNull(reopenedSlotStore.getSlotLockVehicleLicenceNumber(1));
+    }
+
+    @Test
+    void releaseLockOnlyReleasesLockedSlot() {
+        assertFalse(slotStore.releaseLock(0));
+        slotStore.lockSlot(0, "BK-1234");
+        assertTrue(slotStore.releaseLock(0));
+        assertEquals(SlotStatusEnum.AVAILABLE, slotStore.getSlotStatus(0));
+    }
+
+    @Test
+    void licenseLongerThanRecordFails() {
+        String license = "X".repeat(MappedSlotStore.MAX_LICENSE_BYTES + 1);
+        assertThrows(UnsupportedOperationException.class, () -> slotStore.lockSlot(0, license));
+        assertEquals(SlotStatusEnum.AVAILABLE, slotStore.getSlotStatus(0));
+    }
+
+    @Test
+    void reopenedSlotFileKeepsParkedVehiclesAndDropsLocks() {
+        slotStore.lockSlot(0, "BK-1234");
+        slotStore.occupySlot(0, new Car("BK-1234"));
+        slotStore.lockSlot(2, "BK-5678");
+        ParkingSlot parkedSlot = slotStore.getSlot(0);
+        slotStore.flush();
+
+        MappedSlotStore reopenedSlotStore = MappedSlotStore.open(slotFile, 3);
+        ParkingSlot restoredSlot = reopenedSlotStore.getSlot(0);
+        assertTrue(restoredSlot.isOccupied());
+        assertEquals("BK-1234", restoredSlot.getVehicle().getLicensePlateNo());
+        assertEquals(parkedSlot.getParkedOn(), restoredSlot.getParkedOn());
+        assertEquals(SlotStatusEnum.AVAILABLE, reopenedSlotStore.getSlotStatus(2));
+        assertEquals(1, reopenedSlotStore.countSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+    }
+
+    @Test
+    void reopeningWithDifferentSlotCountFails() {
+        assertThrows(IllegalStateException.class, () -> MappedSlotStore.open(slotFile, 4));
+    }
+
+    @Test
+    void reopeningForeignFileFails() throws Exception {
+        Path foreignFile = tempDir.resolve("foreign.slots");
+        Files.write(foreignFile, new byte[MappedSlotStore.HEADER_SIZE + 3 * MappedSlotStore.RECORD_SIZE]);
+        assertThrows(IllegalStateException.class, () -> MappedSlotStore.open(foreignFile, 3));
+    }
+}
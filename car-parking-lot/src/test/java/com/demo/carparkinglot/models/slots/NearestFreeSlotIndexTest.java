@@ -0,0 +1,108 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.models.layout.Gate;
+import com.demo.carparkinglot.models.layout.GridLayout;
+import com.demo.carparkinglot.models.layout.SlotLayout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class NearestFreeSlotIndexTest {
+
+    // One row of slots, gate west at its start and gate east at its end
+    private static SlotLayout row(int totalSlots) {
+        GridLayout gridLayout = new GridLayout();
+        gridLayout.setSlotsPerRow(totalSlots);
+        gridLayout.setGates(List.of(new Gate("west", 0, 0, 0), new Gate("east", 0, totalSlots * 2.5, 0)));
+        return gridLayout.toSlotLayout(totalSlots);
+    }
+
+    @Test
+    void claimsTheFreeSlotNearestToTheGate() {
+        NearestFreeSlotIndex index = new NearestFreeSlotIndex(row(10), slotIndex -> slotIndex != 0);
+        assertEquals(1, index.claimNearest(0));
+        assertEquals(9, index.claimNearest(1));
+        assertEquals(8, index.claimNearest(1));
+        index.release(9);
+        assertEquals(2, index.claimNearest(0));
+        assertEquals(9, index.claimNearest(1));
+        index.release(0);
+        assertEquals(0, index.claimNearest(0));
+    }
+
+    @Test
+    void claimsBatchesNearestFirstUntilTheLotIsFull() {
+        NearestFreeSlotIndex index = new NearestFreeSlotIndex(row(5), slotIndex -> true);
+        int[] slotIndexes = new int[6];
+        assertEquals(2, index.claimNearest(1, slotIndexes, 0, 2));
+        assertEquals(3, index.claimNearest(0, slotIndexes, 2, 4));
+        assertArrayEquals(new int[]{4, 3, 0, 1, 2, 0}, slotIndexes);
+        assertEquals(-1, index.claimNearest(0));
+        assertEquals(-1, index.claimNearest(1));
+        index.release(3);
+        assertEquals(3, index.claimNearest(0));
+    }
+
+    @Test
+    void findsFreeSlotsFarAcrossSummaryWords() {
+        int totalSlots = 10_000;
+        NearestFreeSlotIndex index = new NearestFreeSlotIndex(row(totalSlots), slotIndex -> slotIndex == 9_000);
+        assertEquals(9_000, index.claimNearest(0));
+        assertEquals(-1, index.claimNearest(1));
+        index.release(9_000);
+        assertEquals(9_000, index.claimNearest(1));
+    }
+
+    @Test
+    void concurrentClaimsAndReleasesNeverHandOutASlotTwice() throws Exception {
+        int totalSlots = 5_000;
+        NearestFreeSlotIndex index = new NearestFreeSlotIndex(row(totalSlots), slotIndex -> true);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Integer>>> futures = new ArrayList<>();
+            for (int threadNo = 0; threadNo < 8; threadNo++) {
+                int gateNo = threadNo % 2;
+                futures.add(executorService.submit(() -> {
+                    List<Integer> kept = new ArrayList<>();
+                    int claims = 0;
+                    int slotIndex;
+                    while ((slotIndex = index.claimNearest(gateNo)) >= 0) {
+                        // Every third claim goes straight back, so claims race releases of the same words
+                        if (++claims % 3 == 0) {
+                            index.release(slotIndex);
+                        } else {
+                            kept.add(slotIndex);
+                        }
+                    }
+                    return kept;
+                }));
+            }
+            Set<Integer> keptSlots = new HashSet<>();
+            int keptCount = 0;
+            for (Future<List<Integer>> future : futures) {
+                List<Integer> kept = future.get();
+                keptSlots.addAll(kept);
+                keptCount += kept.size();
+            }
+            assertEquals(keptCount, keptSlots.size());
+            // Threads only stop once the lot is full, so every slot ended up kept by exactly one of them
+            assertEquals(totalSlots, keptSlots.size());
+            assertTrue(keptSlots.stream().allMatch(slotIndex -> slotIndex >= 0 && slotIndex < totalSlots));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.vehicles.Car;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class OccupancySnapshotTest {
+
+    @Test
+    void newVersionsLeavePreviousVersionsUntouched() {
+        OccupancySnapshot empty = OccupancySnapshot.of(new CompactSlotStore(5));
+        OccupancySnapshot locked = empty.withSlot(2, SlotStatusEnum.LOCKED, "BK-1", 0L);
+        OccupancySnapshot parked = locked.withSlot(2, SlotStatusEnum.OCCUPIED, "BK-1", 1_000L);
+        assertEquals(0, empty.getVersion());
+        assertEquals(2, parked.getVersion());
+        assertEquals(SlotStatusEnum.AVAILABLE, empty.getSlotStatus(2));
+        assertEquals(5, empty.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+        assertEquals(SlotStatusEnum.LOCKED, locked.getSlotStatus(2));
+        assertEquals(1, locked.getSlotsHavingStatus(SlotStatusEnum.LOCKED));
+        ParkingSlot parkedSlot = parked.getSlotById(3L).orElseThrow();
+        assertTrue(parkedSlot.isOccupied());
+        assertEquals("BK-1", parkedSlot.getVehicle().getLicensePlateNo());
+        assertEquals(1_000L, parkedSlot.getParkedOn().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        assertEquals(0, parked.getSlotsHavingStatus(SlotStatusEnum.LOCKED));
+        assertEquals(1, parked.getSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+        OccupancySnapshot vacated = parked.withSlot(2, SlotStatusEnum.AVAILABLE, null, 0L);
+        assertNull(vacated.getSlotLockVehicleLicenceNumber(2));
+        assertEquals(5, vacated.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+        assertTrue(parked.getSlotById(3L).orElseThrow().isOccupied());
+        assertNotEquals(parked.getVersionTag(), vacated.getVersionTag());
+    }
+
+    @Test
+    void slotsAcrossSeveralTrieLevelsAreKeptApart() {
+        int totalSlots = 40_000;
+        OccupancySnapshot snapshot = OccupancySnapshot.of(new CompactSlotStore(totalSlots));
+        int[] slotIndexes = {0, 31, 32, 1_023, 1_024, 32_767, 32_768, totalSlots - 1};
+        for (int slotIndex : slotIndexes) {
+            snapshot = snapshot.withSlot(slotIndex, SlotStatusEnum.OCCUPIED, "BK-" + slotIndex, slotIndex);
+        }
+        for (int slotIndex : slotIndexes) {
+            assertEquals("BK-" + slotIndex, snapshot.getSlotLockVehicleLicenceNumber(slotIndex));
+        }
+        assertEquals(SlotStatusEnum.AVAILABLE, snapshot.getSlotStatus(33));
+        assertEquals(slotIndexes.length, snapshot.getSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+        assertTrue(snapshot.getSlotById(0L).isEmpty());
+        assertTrue(snapshot.getSlotById(totalSlots + 1L).isEmpty());
+        OccupancySnapshot fullSnapshot = snapshot;
+        assertThrows(IllegalArgumentException.class,
+                () -> fullSnapshot.withSlot(totalSlots, SlotStatusEnum.LOCKED, "BK-X", 0L));
+    }
+
+    @Test
+    void firstVersionIsTakenFromTheSlotStore() {
+        CompactSlotStore slotStore = new CompactSlotStore(3);
+        slotStore.restoreOccupiedSlot(0, "BK-1", 1_000L);
+        slotStore.lockSlot(2, "BK-2");
+        slotStore.occupySlot(2, new Car("BK-2"));
+        OccupancySnapshot snapshot = OccupancySnapshot.of(slotStore);
+        assertEquals(1, snapshot.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+        assertEquals(2, snapshot.getSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+        assertEquals("BK-2", snapshot.getSlotById(3L).orElseThrow().getVehicle().getLicensePlateNo());
+        // Another lot incarnation starting from the same store never hands out the same tag
+        assertNotEquals(snapshot.getVersionTag(), OccupancySnapshot.of(slotStore).getVersionTag());
+    }
+
+    @Test
+    void shardsArePublishedApartAndComposedOnRead() {
+        CompactSlotStore slotStore = new CompactSlotStore(100);
+        slotStore.restoreOccupiedSlot(70, "BK-70", 1_000L);
+        OccupancySnapshot initial = OccupancySnapshot.of(slotStore, new int[]{0, 33, 66});
+        assertEquals(1, initial.getShardSnapshot(2).getSlotsHavingStatus(SlotStatusEnum.OCCUPIED));
+        assertEquals(34, initial.getShardSnapshot(2).getSlotCount());
+        ShardOccupancySnapshot firstShard = initial.getShardSnapshot(0).withSlot(32, SlotStatusEnum.LOCKED, "BK-32", 0L);
+        ShardOccupancySnapshot secondShard = initial.getShardSnapshot(1)
+                .withSlot(33, SlotStatusEnum.LOCKED, "BK-33", 0L)
+                .withSlot(33, SlotStatusEnum.OCCUPIED, "BK-33", 2_000L);
+        assertThrows(IllegalArgumentException.class,
+                () -> firstShard.withSlot(33, SlotStatusEnum.LOCKED, "BK-33", 0L));
+        OccupancySnapshot composed = OccupancySnapshot.compose(initial.getIncarnation(),
+                new ShardOccupancySnapshot[]{firstShard, secondShard, initial.getShardSnapshot(2)});
+        assertEquals(3, composed.getVersion());
+        assertEquals(100, composed.getTotalSlots());
+        assertEquals(97, composed.getSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+        assertEquals(SlotStatusEnum.LOCKED, composed.getSlotStatus(32));
+        assertEquals("BK-33", composed.getSlotById(34L).orElseThrow().getVehicle().getLicensePlateNo());
+        assertEquals("BK-70", composed.getSlotLockVehicleLicenceNumber(70));
+        assertTrue(composed.getSlotById(100L).orElseThrow().isAvailable());
+        assertEquals(initial.getVersionTag().split("-")[0], composed.getVersionTag().split("-")[0]);
+    }
+
+    @Test
+    void compositionsHavingTheSameVersionSumGetDistinctTags() {
+        OccupancySnapshot initial = OccupancySnapshot.of(new CompactSlotStore(64), new int[]{0, 32});
+        ShardOccupancySnapshot firstShardLocked = initial.getShardSnapshot(0).withSlot(0, SlotStatusEnum.LOCKED, "BK-1", 0L);
+        ShardOccupancySnapshot secondShardLocked = initial.getShardSnapshot(1).withSlot(32, SlotStatusEnum.LOCKED, "BK-2", 0L);
+        OccupancySnapshot firstLocked = OccupancySnapshot.compose(initial.getIncarnation(),
+                new ShardOccupancySnapshot[]{firstShardLocked, initial.getShardSnapshot(1)});
+        OccupancySnapshot secondLocked = OccupancySnapshot.compose(initial.getIncarnation(),
+                new ShardOccupancySnapshot[]{initial.getShardSnapshot(0), secondShardLocked});
+        assertEquals(firstLocked.getVersion(), secondLocked.getVersion());
+        assertNotEquals(firstLocked.getVersionTag(), secondLocked.getVersionTag());
+        assertEquals(firstLocked.getVersionTag(), OccupancySnapshot.compose(initial.getIncarnation(),
+                new ShardOccupancySnapshot[]{firstShardLocked, initial.getShardSnapshot(1)}).getVersionTag());
+    }
+}
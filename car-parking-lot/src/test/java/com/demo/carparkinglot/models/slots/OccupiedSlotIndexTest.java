@@ -0,0 +1,118 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.models.vehicles.LicensePlates;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class OccupiedSlotIndexTest {
+
+    @Test
+    void putGetAndRemovePackedLicense() {
+        OccupiedSlotIndex index = new OccupiedSlotIndex();
+        put(index, "BK-1", 7);
+        assertEquals(7, get(index, "BK-1"));
+        assertEquals(OccupiedSlotIndex.NO_SLOT, get(index, "BK-2"));
+        assertTrue(remove(index, "BK-1", 7));
+        assertEquals(OccupiedSlotIndex.NO_SLOT, get(index, "BK-1"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void removeKeepsLicenseMappedToAnotherSlot() {
+        OccupiedSlotIndex index = new OccupiedSlotIndex();
+        put(index, "BK-1", 7);
+        assertFalse(remove(index, "BK-1", 8));
+        assertFalse(remove(index, "BK-2", 7));
+        assertEquals(7, get(index, "BK-1"));
+    }
+
+    @Test
+    void unpackedLicensesFallBackToLicenseKeys() {
+        OccupiedSlotIndex index = new OccupiedSlotIndex();
+        String longLicense = "VERY-LONG-LICENSE-PLATE";
+        put(index, longLicense, 3);
+        put(index, "MÜ-1", 4);
+        assertEquals(3, get(index, longLicense));
+        assertEquals(4, get(index, "MÜ-1"));
+        assertEquals(2, index.size());
+        assertTrue(remove(index, longLicense, 3));
+        assertEquals(OccupiedSlotIndex.NO_SLOT, get(index, longLicense));
+    }
+
+    @Test
+    void growsAndKeepsEveryLicenseFindableThroughRemovals() {
+        OccupiedSlotIndex index = new OccupiedSlotIndex();
+        int licenses = 10_000;
+        for (int i = 0; i < licenses; i++) {
+            put(index, "L-" + i, i);
+        }
+        // Removing every other license shifts entries back into the holes, the rest must still be found
+        for (int i = 0; i < licenses; i += 2) {
+            assertTrue(remove(index, "L-" + i, i));
+        }
+        for (int i = 0; i < licenses; i++) {
+            assertEquals(i % 2 == 0 ? OccupiedSlotIndex.NO_SLOT : i, get(index, "L-" + i));
+        }
+        assertEquals(licenses / 2, index.size());
+    }
+
+    @Test
+    void concurrentReadersAlwaysFindStableLicenses() throws Exception {
+        OccupiedSlotIndex index = new OccupiedSlotIndex();
+        for (int i = 0; i < 100; i++) {
+            put(index, "STABLE-" + i, i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> {
+                // Churn forces resizes and backward shifts while the readers probe
+                for (int i = 0; i < 20_000; i++) {
+                    put(index, "CHURN-" + i, i);
+                    if (i >= 50) {
+                        assertTrue(remove(index, "CHURN-" + (i - 50), i - 50));
+                    }
+                }
+            }));
+            for (int reader = 0; reader < 3; reader++) {
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 200; round++) {
+                        for (int i = 0; i < 100; i++) {
+                            assertEquals(i, get(index, "STABLE-" + i));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(150, index.size());
+    }
+
+    private static void put(OccupiedSlotIndex index, String licenseNo, int slotIndex) {
+        index.put(LicensePlates.pack(licenseNo), licenseNo, slotIndex);
+    }
+
+    private static int get(OccupiedSlotIndex index, String licenseNo) {
+        return index.get(LicensePlates.pack(licenseNo), licenseNo);
+    }
+
+    private static boolean remove(OccupiedSlotIndex index, String licenseNo, int slotIndex) {
+        return index.remove(LicensePlates.pack(licenseNo), licenseNo, slotIndex);
+    }
+}
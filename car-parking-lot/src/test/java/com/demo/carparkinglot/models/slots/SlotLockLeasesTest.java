@@ -0,0 +1,81 @@
+package com.demo.carparkinglot.models.slots;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class SlotLockLeasesTest {
+
+    private static final long LEASE_MILLIS = 1_000L;
+    private static final long TICK_MILLIS = 10L;
+
+    @Test
+    void expiredLeaseIsReclaimed() {
+        SlotLockLeases leases = new SlotLockLeases(4, LEASE_MILLIS, TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        leases.grant(2, "BK-2", now);
+        List<Integer> reclaimedSlots = new ArrayList<>();
+        assertEquals(0, leases.expire(now + LEASE_MILLIS / 2, reclaimedSlots::add));
+        assertEquals(1, leases.expire(now + LEASE_MILLIS + 2 * TICK_MILLIS, reclaimedSlots::add));
+        assertEquals(List.of(2), reclaimedSlots);
+        assertEquals(1, leases.getReclaimedLeases());
+        assertEquals(0, leases.getOutstandingLeases());
+    }
+
+    @Test
+    void leaseOfEarlierLockDoesNotExpireNewerLock() {
+        SlotLockLeases leases = new SlotLockLeases(4, LEASE_MILLIS, TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        leases.grant(1, "BK-1", now);
+        leases.grant(1, "BK-11", now + LEASE_MILLIS / 2);
+        List<Integer> reclaimedSlots = new ArrayList<>();
+        leases.expire(now + LEASE_MILLIS + 2 * TICK_MILLIS, reclaimedSlots::add);
+        assertEquals(List.of(), reclaimedSlots);
+        leases.expire(now + 2 * LEASE_MILLIS, reclaimedSlots::add);
+        assertEquals(List.of(1), reclaimedSlots);
+    }
+
+    @Test
+    void leaseOfAlreadyParkedSlotIsNotCounted() {
+        SlotLockLeases leases = new SlotLockLeases(4, LEASE_MILLIS, TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        leases.grant(0, "BK-0", now);
+        assertEquals(0, leases.expire(now + 2 * LEASE_MILLIS, slotIndex -> false));
+        assertEquals(0, leases.getReclaimedLeases());
+    }
+
+    @Test
+    void endedLeaseNeverExpiresTheNextLockOfItsSlot() {
+        SlotLockLeases leases = new SlotLockLeases(4, LEASE_MILLIS, TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        leases.grant(3, "BK-3", now);
+        // Parked or released, then locked again by another request not yet granted its own lease
+        assertTrue(leases.end(3, "BK-3"));
+        assertEquals(0, leases.getOutstandingLeases());
+        List<Integer> reclaimedSlots = new ArrayList<>();
+        assertEquals(0, leases.expire(now + 2 * LEASE_MILLIS, reclaimedSlots::add));
+        assertEquals(List.of(), reclaimedSlots);
+        leases.grant(3, "BK-33", now + 2 * LEASE_MILLIS);
+        assertEquals(1, leases.getOutstandingLeases());
+    }
+
+    @Test
+    void leaseIsEndedOnlyOnceAndOnlyByItsLicense() {
+        SlotLockLeases leases = new SlotLockLeases(4, LEASE_MILLIS, TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        leases.grant(2, "BK-2", now);
+        assertFalse(leases.end(2, "BK-22"));
+        assertEquals(1, leases.getOutstandingLeases());
+        assertTrue(leases.end(2, "BK-2"));
+        assertFalse(leases.end(2, "BK-2"));
+        assertEquals(0, leases.getOutstandingLeases());
+    }
+}
@@ -0,0 +1,39 @@
+package com.demo.carparkinglot.models.slots;
+
+import com.demo.carparkinglot.models.vehicles.Car;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+class SlotOccupancyCountersTest {
+
+    @Test
+    void countersStartFromSlotStoreState() {
+        CompactSlotStore slotStore = new CompactSlotStore(4);
+        slotStore.lockSlot(0, "LOCKED");
+        slotStore.lockSlot(1, "OCCUPIED");
+        slotStore.occupySlot(1, new Car("OCCUPIED"));
+        SlotOccupancyCounters counters = SlotOccupancyCounters.of(slotStore);
+        assertEquals(2, counters.getAvailableSlots());
+        assertEquals(1, counters.getLockedSlots());
+        assertEquals(1, counters.getOccupiedSlots());
+    }
+
+    @Test
+    void transitionsMoveOneSlotBetweenCounts() {
+        SlotOccupancyCounters counters = SlotOccupancyCounters.of(new ObjectSlotStore(3));
+        counters.onSlotLocked();
+        counters.onSlotLocked();
+        counters.onSlotOccupied();
+        counters.onLockReleased();
+        assertEquals(2, counters.getAvailableSlots());
+        assertEquals(0, counters.getLockedSlots());
+        assertEquals(1, counters.getOccupiedSlots());
+        counters.onSlotVacated();
+        assertEquals(3, counters.getAvailableSlots());
+        assertEquals(0, counters.getOccupiedSlots());
+    }
+}
@@ -0,0 +1,68 @@
+package com.demo.carparkinglot.models.vehicles;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class LicensePlatesTest {
+
+    @Test
+    void normalizeUpperCasesAndDropsWhitespace() {
+        assertEquals("KA01AB-1234", LicensePlates.normalize(" ka 01 ab-1234\n"));
+        assertEquals(List.of("BK-1", "BK-2"), LicensePlates.normalize(List.of("bk-1", "BK -2")));
+    }
+
+    @Test
+    void nullAndWhitespaceOnlyPlatesAreBlank() {
+        assertTrue(LicensePlates.isBlank(null));
+        assertTrue(LicensePlates.isBlank(LicensePlates.normalize(" \t ")));
+        assertFalse(LicensePlates.isBlank("BK-1"));
+        assertTrue(LicensePlates.anyBlank(LicensePlates.normalize(Arrays.asList("BK-1", null))));
+        assertFalse(LicensePlates.anyBlank(List.of("BK-1", "BK-2")));
+    }
+
+    @Test
+    void normalizeKeepsNormalizedPlateInstance() {
+        String licensePlateNo = "BK-1234";
+        assertSame(licensePlateNo, LicensePlates.normalize(licensePlateNo));
+    }
+
+    @Test
+    void packedPlatesUnpackToThemselves() {
+        for (String licensePlateNo : List.of("0", "Z", "-", "BK-1234", "000000000000", "------------", "ZZZZZZZZZZZZ")) {
+            long key = LicensePlates.pack(licensePlateNo);
+            assertTrue(key > LicensePlates.UNPACKED, licensePlateNo);
+            assertEquals(licensePlateNo, LicensePlates.unpack(key));
+        }
+    }
+
+    @Test
+    void platesDifferingInLengthOrSeparatorsGetDistinctKeys() {
+        Set<Long> keys = new HashSet<>();
+        for (String licensePlateNo : List.of("0", "00", "000", "A", "A0", "0A", "BK1", "BK-1", "B-K1", "-BK1")) {
+            assertTrue(keys.add(LicensePlates.pack(licensePlateNo)), licensePlateNo);
+        }
+    }
+
+    @Test
+    void platesThatDoNotPackAreUnpacked() {
+        assertEquals(LicensePlates.UNPACKED, LicensePlates.pack(""));
+        assertEquals(LicensePlates.UNPACKED, LicensePlates.pack("ABCDEFGHIJKLM"));
+        assertEquals(LicensePlates.UNPACKED, LicensePlates.pack("bk-1"));
+        assertEquals(LicensePlates.UNPACKED, LicensePlates.pack("BK 1"));
+        assertEquals(LicensePlates.UNPACKED, LicensePlates.pack("MÜ-1"));
+        assertThrows(IllegalArgumentException.class, () -> LicensePlates.unpack(LicensePlates.UNPACKED));
+    }
+}
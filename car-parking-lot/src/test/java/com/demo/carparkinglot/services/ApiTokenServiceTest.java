@@ -0,0 +1,83 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.params.SecurityConfigParams;
+import com.demo.carparkinglot.enums.ApiAuthModeEnum;
+import com.demo.carparkinglot.exchanges.response.ApiTokenResponseDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class ApiTokenServiceTest {
+    private static final long NOW = 1_700_000_000L;
+
+    private SecurityConfigParams securityConfigParams;
+
+    private CaffeineCacheManager cacheManager;
+
+    @BeforeEach
+    void init() {
+        securityConfigParams = new SecurityConfigParams();
+        securityConfigParams.setApiAuth(ApiAuthModeEnum.TOKEN);
+        securityConfigParams.setTokenSecret(Base64.getEncoder().encodeToString(new byte[32]));
+        securityConfigParams.setTokenTtlSeconds(60);
+        cacheManager = new CaffeineCacheManager(ApiTokenService.TOKEN_CACHE);
+        cacheManager.setCaffeine(Caffeine.newBuilder().recordStats());
+    }
+
+    @Test
+    void verifiedTokenIsCached() {
+        ApiTokenService apiTokenService = new ApiTokenService(securityConfigParams, cacheManager);
+        ApiTokenResponseDto responseDto = apiTokenService.issueToken("testuser", NOW);
+        assertEquals(NOW + 60, responseDto.getExpiresAtEpochSeconds());
+        assertEquals(ApiTokenService.TOKEN_TYPE, responseDto.getTokenType());
+        Authentication authentication = apiTokenService.authenticate(responseDto.getToken(), NOW);
+        assertEquals("testuser", authentication.getName());
+        assertTrue(authentication.isAuthenticated());
+        assertSame(authentication, apiTokenService.authenticate(responseDto.getToken(), NOW + 1));
+        assertEquals(1, tokenCache().stats().hitCount());
+        assertNull(apiTokenService.authenticate(responseDto.getToken() + "x", NOW));
+        assertEquals(1, tokenCache().estimatedSize());
+    }
+
+    @Test
+    void cachedTokenStopsWorkingAtExpiry() {
+        ApiTokenService apiTokenService = new ApiTokenService(securityConfigParams, cacheManager);
+        String token = apiTokenService.issueToken("testuser", NOW).getToken();
+        assertEquals("testuser", apiTokenService.authenticate(token, NOW + 59).getName());
+        assertNull(apiTokenService.authenticate(token, NOW + 60));
+        assertEquals(0, tokenCache().estimatedSize());
+    }
+
+    @Test
+    void bearerTokenIsTakenFromAuthorizationHeader() {
+        assertEquals("abc.1.def", ApiTokenService.bearerToken("Bearer abc.1.def"));
+        assertEquals("abc.1.def", ApiTokenService.bearerToken("bearer  abc.1.def "));
+        assertNull(ApiTokenService.bearerToken("Basic dGVzdDp0ZXN0"));
+        assertNull(ApiTokenService.bearerToken(null));
+    }
+
+    @Test
+    void missingSecretFailsFast() {
+        securityConfigParams.setTokenSecret("");
+        assertThrows(IllegalStateException.class, () -> new ApiTokenService(securityConfigParams, cacheManager));
+    }
+
+    private Cache<Object, Object> tokenCache() {
+        return ((CaffeineCache) cacheManager.getCache(ApiTokenService.TOKEN_CACHE)).getNativeCache();
+    }
+}
@@ -0,0 +1,113 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.ParkingLotConfig;
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.exceptions.ParkingLotNotFoundException;
+import com.demo.carparkinglot.exchanges.response.SlotStatusDeltaDto;
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.events.SlotStatusSubscription;
+import com.demo.carparkinglot.models.vehicles.Car;
+import com.demo.carparkinglot.repositories.ParkingLotRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.demo.carparkinglot.repositories.ParkingLotRepository.DEFAULT_LOT_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class AvailabilityStreamServiceTest {
+
+    @Mock
+    private ParkingLotConfig parkingLotConfig;
+
+    @Mock
+    private ParkingLotRepository parkingLotRepository;
+
+    private AvailabilityStreamService availabilityStreamService;
+
+    private ParkingLot parkingLot;
+
+    @BeforeEach
+    void setUp() {
+        availabilityStreamService = new AvailabilityStreamService(parkingLotConfig, parkingLotRepository);
+        parkingLot = new ParkingLot("stream", 3);
+        parkingLot.setSlotStatusListener(availabilityStreamService.listenerFor(DEFAULT_LOT_ID));
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot);
+    }
+
+    @AfterEach
+    void tearDown() {
+        availabilityStreamService.closeStreams();
+    }
+
+    @Test
+    void deltasCarrySlotStatusAndAvailableCount() {
+        List<SlotStatusDeltaDto> deltas = new ArrayList<>();
+        availabilityStreamService.subscribe(DEFAULT_LOT_ID, Runnable::run, () -> true, deltas::add);
+        ParkingSlot lockedSlot = parkingLot.getAvailableParkingSlot("BK-1").orElseThrow();
+        parkingLot.parkVehicle(new Car("BK-1"), lockedSlot);
+        assertEquals(2, deltas.size());
+        assertEquals(lockedSlot.getId(), deltas.get(1).getSlotId());
+        assertEquals(SlotStatusEnum.OCCUPIED, deltas.get(1).getSlotStatus());
+        assertEquals(2, deltas.get(1).getAvailableSlots());
+    }
+
+    @Test
+    void currentAvailabilityHasNoSlot() {
+        SlotStatusDeltaDto currentAvailability = availabilityStreamService.currentAvailability(DEFAULT_LOT_ID);
+        assertNull(currentAvailability.getSlotId());
+        assertNull(currentAvailability.getSlotStatus());
+        assertEquals(3, currentAvailability.getAvailableSlots());
+    }
+
+    @Test
+    void unsubscribedAndFailedStreamsAreDropped() {
+        List<SlotStatusDeltaDto> deltas = new ArrayList<>();
+        SlotStatusSubscription subscription = availabilityStreamService.subscribe(DEFAULT_LOT_ID, Runnable::run, () -> true, deltas::add);
+        availabilityStreamService.subscribe(DEFAULT_LOT_ID, Runnable::run, () -> true, delta -> {
+            throw new IllegalStateException("client went away");
+        });
+        assertEquals(2, availabilityStreamService.getSubscriptionCount());
+        parkingLot.getAvailableParkingSlot("BK-1");
+        availabilityStreamService.unsubscribe(subscription);
+        assertTrue(subscription.isCancelled());
+        parkingLot.getAvailableParkingSlot("BK-2");
+        assertEquals(1, deltas.size());
+        assertEquals(0, availabilityStreamService.getSubscriptionCount());
+    }
+
+    @Test
+    void streamsOnlyGetDeltasOfTheirLot() {
+        ParkingLot otherLot = new ParkingLot("other", 3);
+        otherLot.setSlotStatusListener(availabilityStreamService.listenerFor("other"));
+        when(parkingLotRepository.getParkingLot("other")).thenReturn(otherLot);
+        List<SlotStatusDeltaDto> deltas = new ArrayList<>();
+        List<SlotStatusDeltaDto> otherDeltas = new ArrayList<>();
+        availabilityStreamService.subscribe(DEFAULT_LOT_ID, Runnable::run, () -> true, deltas::add);
+        availabilityStreamService.subscribe("other", Runnable::run, () -> true, otherDeltas::add);
+        otherLot.getAvailableParkingSlot("BK-1");
+        assertEquals(0, deltas.size());
+        assertEquals(1, otherDeltas.size());
+        assertEquals(2, otherDeltas.get(0).getAvailableSlots());
+    }
+
+    @Test
+    void unknownLotCannotBeStreamed() {
+        assertThrows(ParkingLotNotFoundException.class, () -> availabilityStreamService.currentAvailability("missing"));
+        assertThrows(ParkingLotNotFoundException.class,
+                () -> availabilityStreamService.subscribe("missing", Runnable::run, () -> true, delta -> {
+                }));
+    }
+}
@@ -0,0 +1,148 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.params.ClusterConfigParams;
+import com.demo.carparkinglot.configuration.params.SecurityConfigParams;
+import com.demo.carparkinglot.enums.ApiAuthModeEnum;
+import com.demo.carparkinglot.exchanges.response.ClusterResponseDto;
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.repositories.ParkingLotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class ClusterServiceTest {
+    private static final String SELF = "http://localhost:8086";
+    private static final String PEER = "http://localhost:8087";
+
+    @Mock
+    private ParkingLotRepository parkingLotRepository;
+
+    private ClusterConfigParams clusterConfigParams;
+
+    private SecurityConfigParams securityConfigParams;
+
+    @BeforeEach
+    void init() {
+        clusterConfigParams = new ClusterConfigParams();
+        clusterConfigParams.setEnabled(true);
+        clusterConfigParams.setSelfUrl(SELF + "/");
+        clusterConfigParams.setNodes(List.of(SELF, PEER));
+        clusterConfigParams.setVirtualNodes(128);
+        clusterConfigParams.setForwardTimeoutMillis(1000);
+        securityConfigParams = new SecurityConfigParams();
+        securityConfigParams.setApiAuth(ApiAuthModeEnum.TOKEN);
+    }
+
+    @Test
+    void disabledClusterOwnsEveryLot() {
+        clusterConfigParams.setEnabled(false);
+        securityConfigParams.setApiAuth(ApiAuthModeEnum.SESSION);
+        ClusterService clusterService = new ClusterService(clusterConfigParams, securityConfigParams, parkingLotRepository);
+        assertFalse(clusterService.isEnabled());
+        assertNull(clusterService.remoteOwnerOf("lot-1"));
+        assertFalse(clusterService.isForwardedByPeer("127.0.0.1", SELF));
+    }
+
+    @Test
+    void enabledClusterNeedsTokenAuthAndSelfAmongNodes() {
+        securityConfigParams.setApiAuth(ApiAuthModeEnum.SESSION);
+        assertThrows(IllegalStateException.class,
+                () -> new ClusterService(clusterConfigParams, securityConfigParams, parkingLotRepository));
+        securityConfigParams.setApiAuth(ApiAuthModeEnum.TOKEN);
+        clusterConfigParams.setNodes(List.of(PEER));
+        assertThrows(IllegalStateException.class,
+                () -> new ClusterService(clusterConfigParams, securityConfigParams, parkingLotRepository));
+        clusterConfigParams.setNodes(List.of(SELF, "localhost:8087"));
+        assertThrows(IllegalStateException.class,
+                () -> new ClusterService(clusterConfigParams, securityConfigParams, parkingLotRepository));
+    }
+
+    @Test
+    void lotsAreSplitBetweenSelfAndPeer() {
+        ClusterService clusterService = new ClusterService(clusterConfigParams, securityConfigParams, parkingLotRepository);
+        long remote = IntStream.range(0, 1000).mapToObj(i -> clusterService.remoteOwnerOf("lot-" + i))
+                .filter(owner -> {
+                    assertTrue(owner == null || owner.equals(PEER));
+                    return owner != null;
+                })
+                .count();
+        assertTrue(remote > 400 && remote < 600, "remote: " + remote);
+        assertTrue(clusterService.isForwardedByPeer("127.0.0.1", SELF));
+        assertFalse(clusterService.isForwardedByPeer("127.0.0.1", null));
+        assertFalse(clusterService.isForwardedByPeer("10.1.2.3", SELF));
+    }
+
+    @Test
+    void membershipChangesMoveOwnership() {
+        Map<String, ParkingLot> lots = new LinkedHashMap<>();
+        IntStream.range(0, 20).forEach(i -> lots.put("lot-" + i, mock(ParkingLot.class)));
+        when(parkingLotRepository.getParkingLots()).thenReturn(lots);
+        ClusterService clusterService = new ClusterService(clusterConfigParams, securityConfigParams, parkingLotRepository);
+        assertFalse(clusterService.getCluster().getLotsOwnedElsewhere().isEmpty());
+
+        ClusterResponseDto responseDto = new ClusterResponseDto();
+        assertEquals(HttpStatus.OK, clusterService.removeNode(PEER + "/", true, null, responseDto));
+        assertEquals(List.of(SELF), responseDto.getNodes());
+        assertTrue(responseDto.getLotsOwnedElsewhere().isEmpty());
+        assertNull(responseDto.getNodesNotUpdated());
+        lots.keySet().forEach(lotId -> assertNull(clusterService.remoteOwnerOf(lotId)));
+
+        responseDto = new ClusterResponseDto();
+        assertEquals(HttpStatus.BAD_REQUEST, clusterService.removeNode(SELF, true, null, responseDto));
+        assertEquals(HttpStatus.BAD_REQUEST, clusterService.addNode("ftp://localhost", true, null, responseDto));
+
+        responseDto = new ClusterResponseDto();
+        assertEquals(HttpStatus.OK, clusterService.addNode(PEER, true, null, responseDto));
+        assertEquals(HttpStatus.OK, clusterService.addNode(PEER, true, null, responseDto));
+        assertEquals(List.of(SELF, PEER), responseDto.getNodes());
+        assertEquals(clusterService.getCluster().getLotsOwnedElsewhere(), responseDto.getLotsOwnedElsewhere());
+        responseDto.getLotsOwnedElsewhere().forEach(lotId -> assertEquals(PEER, clusterService.remoteOwnerOf(lotId)));
+    }
+
+    @Test
+    void requestsAreScopedToLots() {
+        assertEquals(ParkingLotRepository.DEFAULT_LOT_ID, ClusterService.lotIdOfPath("/api/v1/parking-lot"));
+        assertEquals(ParkingLotRepository.DEFAULT_LOT_ID, ClusterService.lotIdOfPath("/api/v1/parking-lot/slot/park"));
+        assertEquals("north", ClusterService.lotIdOfPath("/api/v1/parking-lots/north"));
+        assertEquals("north", ClusterService.lotIdOfPath("/api/v1/parking-lots/north/slot/stream"));
+        assertNull(ClusterService.lotIdOfPath("/api/v1/parking-lots"));
+        assertNull(ClusterService.lotIdOfPath("/api/v1/parking-lots/"));
+        assertNull(ClusterService.lotIdOfPath("/api/v1/cluster"));
+        assertNull(ClusterService.lotIdOfPath("/api/v1/parking-lotx"));
+
+        assertTrue(ClusterService.isLotCreation("POST", "/api/v1/parking-lots"));
+        assertFalse(ClusterService.isLotCreation("GET", "/api/v1/parking-lots"));
+        assertEquals("north", ClusterService.lotIdOfBody("{\"lotId\":\"north\",\"slots\":5}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(ClusterService.lotIdOfBody("{\"lotId\":5}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(ClusterService.lotIdOfBody("not json".getBytes(StandardCharsets.UTF_8)));
+        assertNull(ClusterService.lotIdOfBody(new byte[0]));
+    }
+
+    @Test
+    void nodeUrlsAreNormalized() {
+        assertEquals(SELF, ClusterService.normalize(" http://localhost:8086// "));
+        assertEquals("https://node-1.internal", ClusterService.normalize("https://node-1.internal"));
+        assertNull(ClusterService.normalize("http://localhost:8086/api"));
+        assertNull(ClusterService.normalize("http://localhost:8086?x=1"));
+        assertNull(ClusterService.normalize("localhost:8086"));
+        assertNull(ClusterService.normalize(null));
+    }
+}
@@ -2,31 +2,56 @@ package com.demo.carparkinglot.services;
 
 import com.demo.carparkinglot.configuration.ParkingLotConfig;
 import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.enums.SlotStoreTypeEnum;
+import com.demo.carparkinglot.exceptions.ParkingLotNotFoundException;
+import com.demo.carparkinglot.exceptions.UnknownGateException;
+import com.demo.carparkinglot.exchanges.request.ParkingLotRequestDto;
+import com.demo.carparkinglot.exchanges.response.ParkingLotResponseDto;
+import com.demo.carparkinglot.exchanges.response.SlotOccupancyResponseDto;
 import com.demo.carparkinglot.exchanges.response.VehicleParkingResponseDto;
+import com.demo.carparkinglot.exchanges.response.VehicleUnParkingResponseDto;
 import com.demo.carparkinglot.models.ParkingLot;
 import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.events.SlotStatusListener;
+import com.demo.carparkinglot.models.layout.Gate;
+import com.demo.carparkinglot.models.layout.GridLayout;
+import com.demo.carparkinglot.models.slots.ObjectSlotStore;
+import com.demo.carparkinglot.models.slots.OccupancySnapshot;
+import com.demo.carparkinglot.models.slots.SlotStore;
 import com.demo.carparkinglot.models.vehicles.Car;
 import com.demo.carparkinglot.repositories.ParkingLotRepository;
-import com.demo.carparkinglot.utils.ReflectionTestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
 
+import static com.demo.carparkinglot.enums.SlotAssignmentMessageEnum.INTERNAL_SERVER_ERROR;
 import static com.demo.carparkinglot.enums.SlotAssignmentMessageEnum.NO_SLOTS_AVAILABLE;
 import static com.demo.carparkinglot.enums.SlotAssignmentMessageEnum.SLOT_ASSIGNED_SUCCESSFULLY;
+import static com.demo.carparkinglot.repositories.ParkingLotRepository.DEFAULT_LOT_ID;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
@@ -38,12 +63,27 @@ class ParkingLotServiceTest {
     @Mock
     private ParkingLotRepository parkingLotRepository;
 
+    @Mock
+    private ParkingMetricsService parkingMetricsService;
+
     @Mock
     private VehicleService vehicleService;
 
     @Mock
     private ParkingSlotService parkingSlotService;
 
+    @Mock
+    private JournalService journalService;
+
+    @Mock
+    private SnapshotService snapshotService;
+
+    @Mock
+    private AvailabilityStreamService availabilityStreamService;
+
+    @Mock
+    private EventLogService eventLogService;
+
     @InjectMocks
     private ParkingLotService parkingLotService;
 
@@ -52,30 +92,141 @@ class ParkingLotServiceTest {
     @BeforeEach
     void setUp() {
         parkingLot = mock();
-        when(parkingLotRepository.getParkingLot()).thenReturn(parkingLot);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot);
+        when(parkingLotRepository.getParkingLots()).thenReturn(Map.of(DEFAULT_LOT_ID, parkingLot));
+        when(availabilityStreamService.listenerFor(anyString())).thenReturn(SlotStatusListener.NONE);
+        when(parkingLotConfig.getMaxSlotsPerLot()).thenReturn(1_000);
+        when(parkingLotConfig.getMaxParkingLots()).thenReturn(8);
+        when(journalService.vehicleParked(anyInt(), anyLong(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        when(journalService.vehicleUnparked(anyInt(), anyLong(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
     }
 
     @Test
     void getParkingLot() {
-        assertEquals(parkingLot, parkingLotService.getParkingLot());
+        assertEquals(parkingLot, parkingLotService.getParkingLot(DEFAULT_LOT_ID));
+    }
+
+    @Test
+    void getUnknownParkingLot() {
+        assertThrows(ParkingLotNotFoundException.class, () -> parkingLotService.getParkingLot("missing"));
+        assertThrows(ParkingLotNotFoundException.class, () -> parkingLotService.isVehicleAlreadyParked("missing", "BK-1"));
+    }
+
+    @Test
+    void createParkingLot() {
+        when(parkingLotConfig.getLockLeaseMillis()).thenReturn(60_000L);
+        when(parkingLotConfig.getLockLeaseTickMillis()).thenReturn(100L);
+        when(parkingLotRepository.saveIfAbsent(eq("east"), any())).thenReturn(true);
+        ParkingLotRequestDto requestDto = new ParkingLotRequestDto();
+        requestDto.setLotId("east");
+        requestDto.setSlots(4);
+        requestDto.setShards(2);
+        ParkingLotResponseDto responseDto = new ParkingLotResponseDto();
+        assertEquals(HttpStatus.CREATED, parkingLotService.createParkingLot(requestDto, responseDto));
+        assertEquals("east", responseDto.getName());
+        assertEquals(4, responseDto.getAvailableSlots());
+        assertEquals(2, responseDto.getShards());
+        assertFalse(responseDto.isDurable());
+        ArgumentCaptor<ParkingLot> parkingLotCaptor = ArgumentCaptor.forClass(ParkingLot.class);
+        verify(parkingLotRepository).saveIfAbsent(eq("east"), parkingLotCaptor.capture());
+        verify(parkingMetricsService).registerParkingLot("east", parkingLotCaptor.getValue());
+        verify(availabilityStreamService).listenerFor("east");
+    }
+
+    @Test
+    void createParkingLotRejectsDuplicateAndInvalidLots() {
+        when(parkingLotConfig.getLockLeaseMillis()).thenReturn(60_000L);
+        when(parkingLotConfig.getLockLeaseTickMillis()).thenReturn(100L);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(null, parkingLot);
+        when(parkingLotRepository.saveIfAbsent(eq(DEFAULT_LOT_ID), any())).thenReturn(false);
+        ParkingLotRequestDto requestDto = new ParkingLotRequestDto();
+        requestDto.setLotId(DEFAULT_LOT_ID);
+        requestDto.setSlots(4);
+        assertEquals(HttpStatus.CONFLICT, parkingLotService.createParkingLot(requestDto, new ParkingLotResponseDto()));
+        requestDto.setLotId("east/1");
+        assertEquals(HttpStatus.BAD_REQUEST, parkingLotService.createParkingLot(requestDto, new ParkingLotResponseDto()));
+        requestDto.setLotId("east");
+        requestDto.setShards(5);
+        assertEquals(HttpStatus.BAD_REQUEST, parkingLotService.createParkingLot(requestDto, new ParkingLotResponseDto()));
+        requestDto.setShards(1);
+        requestDto.setSlotStore(SlotStoreTypeEnum.MAPPED);
+        assertEquals(HttpStatus.BAD_REQUEST, parkingLotService.createParkingLot(requestDto, new ParkingLotResponseDto()));
+        verify(parkingLotRepository, times(1)).saveIfAbsent(anyString(), any());
+        verify(parkingMetricsService, never()).registerParkingLot(anyString(), any());
+    }
+
+    @Test
+    void createParkingLotRejectsLotsBeyondLimits() {
+        when(parkingLotConfig.getLockLeaseMillis()).thenReturn(60_000L);
+        when(parkingLotConfig.getLockLeaseTickMillis()).thenReturn(100L);
+        when(parkingLotConfig.getMaxParkingLots()).thenReturn(1);
+        when(parkingLotRepository.saveIfAbsent(anyString(), any())).thenReturn(true);
+        ParkingLotRequestDto requestDto = new ParkingLotRequestDto();
+        requestDto.setLotId("east");
+        requestDto.setSlots(1_001);
+        ParkingLotResponseDto responseDto = new ParkingLotResponseDto();
+        assertEquals(HttpStatus.BAD_REQUEST, parkingLotService.createParkingLot(requestDto, responseDto));
+        assertEquals("Slots: 1001 exceed max slots per lot: 1000", responseDto.getMessage());
+        requestDto.setSlots(1_000);
+        assertEquals(HttpStatus.CREATED, parkingLotService.createParkingLot(requestDto, new ParkingLotResponseDto()));
+        requestDto.setLotId("west");
+        responseDto = new ParkingLotResponseDto();
+        assertEquals(HttpStatus.CONFLICT, parkingLotService.createParkingLot(requestDto, responseDto));
+        assertEquals("Max parking lots: 1 already created", responseDto.getMessage());
+        verify(parkingLotRepository, times(1)).saveIfAbsent(anyString(), any());
+    }
+
+    @Test
+    void createParkingLotHavingGates() {
+        when(parkingLotConfig.getLockLeaseMillis()).thenReturn(60_000L);
+        when(parkingLotConfig.getLockLeaseTickMillis()).thenReturn(100L);
+        when(parkingLotRepository.saveIfAbsent(eq("east"), any())).thenReturn(true);
+        ParkingLotRequestDto requestDto = new ParkingLotRequestDto();
+        requestDto.setLotId("east");
+        requestDto.setSlots(4);
+        GridLayout gridLayout = new GridLayout();
+        gridLayout.setGates(List.of(new Gate("exit", 0, 10, 0)));
+        requestDto.setLayout(gridLayout);
+        assertEquals(HttpStatus.CREATED, parkingLotService.createParkingLot(requestDto, new ParkingLotResponseDto()));
+        ArgumentCaptor<ParkingLot> parkingLotCaptor = ArgumentCaptor.forClass(ParkingLot.class);
+        verify(parkingLotRepository).saveIfAbsent(eq("east"), parkingLotCaptor.capture());
+        ParkingLot eastLot = parkingLotCaptor.getValue();
+        when(parkingLotRepository.getParkingLot("east")).thenReturn(eastLot);
+        when(vehicleService.createCarObjectForParking("BK-1")).thenReturn(new Car("BK-1"));
+        List<VehicleParkingResponseDto> responseDtos = parkingLotService.parkVehicles("east", List.of("BK-1"), "exit");
+        assertEquals(4L, responseDtos.get(0).getSlotId());
+        assertThrows(UnknownGateException.class, () -> parkingLotService.parkVehicles("east", List.of("BK-2"), "entrance"));
+        gridLayout.setGates(List.of(new Gate("exit", 0, 10, 0), new Gate("exit", 0, 0, 0)));
+        requestDto.setLotId("west");
+        assertEquals(HttpStatus.BAD_REQUEST, parkingLotService.createParkingLot(requestDto, new ParkingLotResponseDto()));
+    }
+
+    @Test
+    void lotsAreIsolatedAndOnlyTheDefaultLotIsJournaled() {
+        ParkingLot defaultLot = new ParkingLot("", 2);
+        ParkingLot eastLot = new ParkingLot("east", 2);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(defaultLot);
+        when(parkingLotRepository.getParkingLot("east")).thenReturn(eastLot);
+        ParkingSlot eastSlot = parkingLotService.parkVehicle("east", new Car("BK-1"), eastLot.getAvailableParkingSlot("BK-1").orElseThrow());
+        assertTrue(parkingLotService.isVehicleAlreadyParked("east", "BK-1"));
+        assertFalse(parkingLotService.isVehicleAlreadyParked(DEFAULT_LOT_ID, "BK-1"));
+        assertEquals(2, defaultLot.getTotalAvailableSlots());
+        parkingLotService.unparkVehicle("east", eastSlot, "BK-1");
+        assertEquals(List.of(), parkingLotService.parkVehicles("east", List.of(), null));
+        verify(journalService, never()).vehicleParked(anyInt(), anyLong(), anyString());
+        verify(journalService, never()).vehicleUnparked(anyInt(), anyLong(), anyString());
     }
 
     @Test
     void parkVehicleSuccess() {
         String license = "BK-123";
         ParkingLot parkingLot1 = new ParkingLot("", 2);
-        when(parkingLotRepository.getParkingLot()).thenReturn(parkingLot1);
-        ParkingSlot parkingSlot = new ParkingSlot(7L);
-        parkingSlot.setSlotStatusEnum(SlotStatusEnum.LOCKED);
-        parkingSlot.setSlotLockLicenseNumberRef(new AtomicReference<>(license));
-        Map<Long, ParkingSlot> parkingSlots = new HashMap<>();
-        parkingSlots.put(parkingSlot.getId(), parkingSlot);
-        ReflectionTestUtils.setFieldValue(parkingLot1, "unoccupiedParkingSlots", parkingSlots);
-        ReflectionTestUtils.setFieldValue(parkingLot1, "occupiedParkingSlots", new HashMap<>());
-        when(parkingSlotService.getAvailableParkingSlot(license)).thenReturn(Optional.of(parkingSlot));
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        ParkingSlot parkingSlot = parkingLot1.getAvailableParkingSlot(license).orElseThrow();
+        when(parkingSlotService.getAvailableParkingSlot(DEFAULT_LOT_ID, license, null)).thenReturn(Optional.of(parkingSlot));
         when(vehicleService.createCarObjectForParking(license)).thenReturn(new Car(license));
         VehicleParkingResponseDto responseDto = new VehicleParkingResponseDto();
-        HttpStatus httpStatus = parkingLotService.parkVehicle(license, responseDto);
+        HttpStatus httpStatus = parkingLotService.parkVehicle(DEFAULT_LOT_ID, license, null, responseDto);
         assertEquals(HttpStatus.OK, httpStatus);
         assertEquals(parkingSlot.getId(), responseDto.getSlotId());
         assertNotNull(responseDto.getVehicleParkingTime());
@@ -83,12 +234,251 @@ class ParkingLotServiceTest {
         assertEquals(SLOT_ASSIGNED_SUCCESSFULLY.getMessage(), responseDto.getMessage());
     }
 
+    @Test
+    void initParkingLotRecoversSlotStore() {
+        when(parkingLotConfig.getName()).thenReturn("Recovered Parking Lot");
+        when(parkingLotConfig.getSlots()).thenReturn(3);
+        when(parkingLotConfig.getShards()).thenReturn(2);
+        when(parkingLotConfig.getSlotStore()).thenReturn(SlotStoreTypeEnum.COMPACT);
+        when(parkingLotConfig.getLockLeaseMillis()).thenReturn(60_000L);
+        when(parkingLotConfig.getLockLeaseTickMillis()).thenReturn(100L);
+        when(snapshotService.restoreSnapshot(any())).thenAnswer(invocation -> {
+            invocation.<SlotStore>getArgument(0).restoreOccupiedSlot(1, "BK-123", 1_000L);
+            return 64L;
+        });
+        parkingLotService.initParkingLot();
+        ArgumentCaptor<ParkingLot> parkingLotCaptor = ArgumentCaptor.forClass(ParkingLot.class);
+        verify(parkingLotRepository).saveAndFlush(parkingLotCaptor.capture());
+        verify(journalService).openJournal(any(SlotStore.class), eq(64L), eq(2));
+        ParkingLot recoveredParkingLot = parkingLotCaptor.getValue();
+        assertTrue(recoveredParkingLot.isVehicleAlreadyParked("BK-123"));
+        assertEquals(2, recoveredParkingLot.getTotalAvailableSlots());
+    }
+
+    @Test
+    void parkVehicleIsJournaled() {
+        String license = "BK-123";
+        ParkingLot parkingLot1 = new ParkingLot("", 2);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        ParkingSlot parkingSlot = parkingLot1.getAvailableParkingSlot(license).orElseThrow();
+        ParkingSlot parkedSlot = parkingLotService.parkVehicle(DEFAULT_LOT_ID, new Car(license), parkingSlot);
+        int slotIndex = SlotStore.toSlotIndex(parkedSlot.getId());
+        verify(journalService).vehicleParked(eq(slotIndex), anyLong(), eq(license));
+        parkingLotService.unparkVehicle(DEFAULT_LOT_ID, parkedSlot, license);
+        verify(journalService).vehicleUnparked(eq(slotIndex), anyLong(), eq(license));
+    }
+
+    @Test
+    void parkVehicleFailureWhenJournalFails() {
+        String license = "BK-123";
+        ParkingLot parkingLot1 = new ParkingLot("", 1);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        ParkingSlot parkingSlot = parkingLot1.getAvailableParkingSlot(license).orElseThrow();
+        when(parkingSlotService.getAvailableParkingSlot(DEFAULT_LOT_ID, license, null)).thenReturn(Optional.of(parkingSlot));
+        when(vehicleService.createCarObjectForParking(license)).thenReturn(new Car(license));
+        when(journalService.vehicleParked(anyInt(), anyLong(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new UncheckedIOException(new IOException("disk full"))));
+        VehicleParkingResponseDto responseDto = new VehicleParkingResponseDto();
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, parkingLotService.parkVehicle(DEFAULT_LOT_ID, license, null, responseDto));
+        assertFalse(parkingLot1.isVehicleAlreadyParked(license));
+        assertEquals(1, parkingLot1.getTotalAvailableSlots());
+        // Taken back out by the lot alone, the release after it found no lock left to release
+        assertEquals(1, parkingLot1.getTotalAvailableSlots(true));
+        verify(journalService, never()).recordLockReleased(any());
+        assertTrue(parkingLot1.getAvailableParkingSlot("BK-456").isPresent());
+        assertTrue(parkingLot1.getAvailableParkingSlot("BK-789").isEmpty());
+    }
+
+    @Test
+    void unparkVehicleFailureWhenJournalFails() {
+        ParkingLot parkingLot1 = new ParkingLot("", 1);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        ParkingSlot parkedSlot = parkingLotService.parkVehicle(DEFAULT_LOT_ID,
+                new Car("BK-1"), parkingLot1.getAvailableParkingSlot("BK-1").orElseThrow());
+        when(journalService.vehicleUnparked(anyInt(), anyLong(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new UncheckedIOException(new IOException("disk full"))));
+        assertThrows(UncheckedIOException.class, () -> parkingLotService.unparkVehicle(DEFAULT_LOT_ID, parkedSlot, "BK-1"));
+        assertTrue(parkingLot1.isVehicleAlreadyParked("BK-1"));
+        assertEquals(0, parkingLot1.getTotalAvailableSlots());
+    }
+
+    @Test
+    void releasedLockIsJournaledOnce() {
+        ParkingLot parkingLot1 = new ParkingLot("", 1);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        ParkingSlot parkingSlot = parkingLot1.getAvailableParkingSlot("BK-123").orElseThrow();
+        parkingLotService.releaseLockOnParkingSlot(DEFAULT_LOT_ID, parkingSlot, "BK-123");
+        parkingLotService.releaseLockOnParkingSlot(DEFAULT_LOT_ID, parkingSlot, "BK-123");
+        verify(journalService, times(1)).recordLockReleased(parkingSlot);
+    }
+
+    @Test
+    void parkVehicleAsyncCompletesOnceJournaled() {
+        String license = "BK-123";
+        ParkingLot parkingLot1 = new ParkingLot("", 2);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        when(parkingSlotService.getAvailableParkingSlot(DEFAULT_LOT_ID, license, null)).thenAnswer(invocation -> parkingLot1.getAvailableParkingSlot(license));
+        when(vehicleService.createCarObjectForParking(license)).thenReturn(new Car(license));
+        CompletableFuture<Void> commit = new CompletableFuture<>();
+        when(journalService.vehicleParked(anyInt(), anyLong(), eq(license))).thenReturn(commit);
+        VehicleParkingResponseDto responseDto = new VehicleParkingResponseDto();
+        CompletableFuture<HttpStatus> httpStatus = parkingLotService.parkVehicleAsync(DEFAULT_LOT_ID, license, null, responseDto);
+        assertFalse(httpStatus.isDone());
+        commit.complete(null);
+        assertEquals(HttpStatus.OK, httpStatus.join());
+        assertEquals(SLOT_ASSIGNED_SUCCESSFULLY.getMessage(), responseDto.getMessage());
+        assertNotNull(responseDto.getSlotId());
+        assertTrue(parkingLot1.isVehicleAlreadyParked(license));
+    }
+
+    @Test
+    void parkVehicleAsyncRollsBackWhenJournalFails() {
+        String license = "BK-123";
+        ParkingLot parkingLot1 = new ParkingLot("", 2);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        when(parkingSlotService.getAvailableParkingSlot(DEFAULT_LOT_ID, license, null)).thenAnswer(invocation -> parkingLot1.getAvailableParkingSlot(license));
+        when(vehicleService.createCarObjectForParking(license)).thenReturn(new Car(license));
+        when(journalService.vehicleParked(anyInt(), anyLong(), eq(license)))
+                .thenReturn(CompletableFuture.failedFuture(new UncheckedIOException(new IOException("disk full"))));
+        VehicleParkingResponseDto responseDto = new VehicleParkingResponseDto();
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, parkingLotService.parkVehicleAsync(DEFAULT_LOT_ID, license, null, responseDto).join());
+        assertEquals(INTERNAL_SERVER_ERROR.getMessage(), responseDto.getMessage());
+        assertFalse(parkingLot1.isVehicleAlreadyParked(license));
+        assertEquals(2, parkingLot1.getTotalAvailableSlots());
+    }
+
+    @Test
+    void parkVehicleAsyncNoAvailableSlots() {
+        when(parkingSlotService.getAvailableParkingSlot(eq(DEFAULT_LOT_ID), anyString(), isNull())).thenReturn(Optional.empty());
+        VehicleParkingResponseDto responseDto = new VehicleParkingResponseDto();
+        assertEquals(HttpStatus.OK, parkingLotService.parkVehicleAsync(DEFAULT_LOT_ID, "BK-123", null, responseDto).join());
+        assertEquals(NO_SLOTS_AVAILABLE.getMessage(), responseDto.getMessage());
+    }
+
+    @Test
+    void parkAndUnparkVehiclesAsync() {
+        ParkingLot parkingLot1 = new ParkingLot("", 3, 2);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        when(vehicleService.createCarObjectForParking(anyString()))
+                .thenAnswer(invocation -> new Car(invocation.getArgument(0)));
+        List<VehicleParkingResponseDto> parkedDtos = parkingLotService.parkVehiclesAsync(DEFAULT_LOT_ID, List.of("BK-1", "BK-2"), null).join();
+        assertTrue(parkedDtos.stream().allMatch(VehicleParkingResponseDto::isVehicleParked));
+        List<VehicleUnParkingResponseDto> unparkedDtos = parkingLotService.unparkVehiclesAsync(DEFAULT_LOT_ID, List.of("BK-2", "BK-3")).join();
+        assertEquals("Vehicle unparked!", unparkedDtos.get(0).getMessage());
+        assertEquals("No parked vehicle found having license plate: BK-3", unparkedDtos.get(1).getMessage());
+        verify(journalService).vehicleUnparked(anyInt(), anyLong(), eq("BK-2"));
+        verify(journalService, never()).vehicleUnparked(anyInt(), anyLong(), eq("BK-3"));
+        assertEquals(2, parkingLot1.getTotalAvailableSlots());
+    }
+
+    @Test
+    void unparkVehiclesReportsVehiclesTheJournalFailed() {
+        ParkingLot parkingLot1 = new ParkingLot("", 3, 2);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        when(vehicleService.createCarObjectForParking(anyString()))
+                .thenAnswer(invocation -> new Car(invocation.getArgument(0)));
+        parkingLotService.parkVehiclesAsync(DEFAULT_LOT_ID, List.of("BK-1", "BK-2"), null).join();
+        when(journalService.vehicleUnparked(anyInt(), anyLong(), eq("BK-1")))
+                .thenReturn(CompletableFuture.failedFuture(new UncheckedIOException(new IOException("disk full"))));
+        List<VehicleUnParkingResponseDto> unparkedDtos = parkingLotService.unparkVehicles(DEFAULT_LOT_ID, List.of("BK-1", "BK-2"));
+        assertEquals(INTERNAL_SERVER_ERROR.getMessage(), unparkedDtos.get(0).getMessage());
+        assertEquals("Vehicle unparked!", unparkedDtos.get(1).getMessage());
+        assertTrue(parkingLot1.isVehicleAlreadyParked("BK-1"));
+        assertEquals(2, parkingLot1.getTotalAvailableSlots());
+    }
+
+    @Test
+    void parkVehiclesAsyncKeepsNothingWhenJournalFails() {
+        ParkingLot parkingLot1 = new ParkingLot("", 3);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        when(vehicleService.createCarObjectForParking(anyString()))
+                .thenAnswer(invocation -> new Car(invocation.getArgument(0)));
+        when(journalService.vehicleParked(anyInt(), anyLong(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("journal closed")));
+        List<VehicleParkingResponseDto> responseDtos = parkingLotService.parkVehiclesAsync(DEFAULT_LOT_ID, List.of("BK-1", "BK-2"), null).join();
+        assertTrue(responseDtos.stream().noneMatch(VehicleParkingResponseDto::isVehicleParked));
+        assertEquals(3, parkingLot1.getTotalAvailableSlots());
+    }
+
+    @Test
+    void unparkVehicleAsyncVacatesSlotOnceJournaled() {
+        ParkingLot parkingLot1 = new ParkingLot("", 2);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        ParkingSlot parkedSlot = parkingLotService.parkVehicle(DEFAULT_LOT_ID, 
+                new Car("BK-1"), parkingLot1.getAvailableParkingSlot("BK-1").orElseThrow());
+        CompletableFuture<Void> commit = new CompletableFuture<>();
+        when(journalService.vehicleUnparked(anyInt(), anyLong(), eq("BK-1"))).thenReturn(commit);
+        CompletableFuture<Void> unparked = parkingLotService.unparkVehicleAsync(DEFAULT_LOT_ID, parkedSlot, "BK-1");
+        assertTrue(parkingLot1.isVehicleAlreadyParked("BK-1"));
+        assertFalse(unparked.isDone());
+        commit.complete(null);
+        assertTrue(unparked.isDone());
+        assertFalse(parkingLot1.isVehicleAlreadyParked("BK-1"));
+        assertEquals(2, parkingLot1.getTotalAvailableSlots());
+    }
+
+    @Test
+    void parkVehiclesReportsEveryVehicle() {
+        ParkingLot parkingLot1 = new ParkingLot("", 2, 2);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        when(vehicleService.createCarObjectForParking(anyString()))
+                .thenAnswer(invocation -> new Car(invocation.getArgument(0)));
+        parkingLotService.parkVehicle(DEFAULT_LOT_ID, new Car("BK-PARKED"), parkingLot1.getAvailableParkingSlot("BK-PARKED").orElseThrow());
+
+        List<VehicleParkingResponseDto> responseDtos = parkingLotService.parkVehicles(DEFAULT_LOT_ID, 
+                List.of("BK-1", "BK-PARKED", "BK-1", "BK-2"), null);
+        assertEquals(4, responseDtos.size());
+        assertTrue(responseDtos.get(0).isVehicleParked());
+        assertEquals(SLOT_ASSIGNED_SUCCESSFULLY.getMessage(), responseDtos.get(0).getMessage());
+        assertNotNull(responseDtos.get(0).getSlotId());
+        assertFalse(responseDtos.get(1).isVehicleParked());
+        assertFalse(responseDtos.get(2).isVehicleParked());
+        assertEquals("Vehicle already parked having license plate: BK-1", responseDtos.get(2).getMessage());
+        assertFalse(responseDtos.get(3).isVehicleParked());
+        assertEquals(NO_SLOTS_AVAILABLE.getMessage(), responseDtos.get(3).getMessage());
+        assertEquals("BK-2", responseDtos.get(3).getLicensePlate());
+        verify(journalService).vehicleParked(anyInt(), anyLong(), eq("BK-1"));
+        verify(journalService, never()).vehicleParked(anyInt(), anyLong(), eq("BK-2"));
+    }
+
+    @Test
+    void parkVehiclesKeepsNothingWhenJournalFails() {
+        ParkingLot parkingLot1 = new ParkingLot("", 3);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        when(vehicleService.createCarObjectForParking(anyString()))
+                .thenAnswer(invocation -> new Car(invocation.getArgument(0)));
+        when(journalService.vehicleParked(anyInt(), anyLong(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new UncheckedIOException(new IOException("disk full"))));
+        List<VehicleParkingResponseDto> responseDtos = parkingLotService.parkVehicles(DEFAULT_LOT_ID, List.of("BK-1", "BK-2"), null);
+        assertTrue(responseDtos.stream().noneMatch(VehicleParkingResponseDto::isVehicleParked));
+        assertEquals(INTERNAL_SERVER_ERROR.getMessage(), responseDtos.get(0).getMessage());
+        assertEquals(3, parkingLot1.getTotalAvailableSlots());
+        assertFalse(parkingLot1.isVehicleAlreadyParked("BK-1"));
+    }
+
+    @Test
+    void unparkVehiclesReportsEveryVehicle() {
+        ParkingLot parkingLot1 = new ParkingLot("", 3, 2);
+        when(parkingLotRepository.getParkingLot(DEFAULT_LOT_ID)).thenReturn(parkingLot1);
+        ParkingSlot parkedSlot = parkingLotService.parkVehicle(DEFAULT_LOT_ID, 
+                new Car("BK-1"), parkingLot1.getAvailableParkingSlot("BK-1").orElseThrow());
+        List<VehicleUnParkingResponseDto> responseDtos = parkingLotService.unparkVehicles(DEFAULT_LOT_ID, List.of("BK-1", "BK-2", "BK-1"));
+        assertEquals(3, responseDtos.size());
+        assertEquals(parkedSlot.getId(), responseDtos.get(0).getSlotId());
+        assertEquals("Vehicle unparked!", responseDtos.get(0).getMessage());
+        assertNotNull(responseDtos.get(0).getTotalDurationParked());
+        assertEquals("No parked vehicle found having license plate: BK-2", responseDtos.get(1).getMessage());
+        assertEquals("No parked vehicle found having license plate: BK-1", responseDtos.get(2).getMessage());
+        assertEquals(3, parkingLot1.getTotalAvailableSlots());
+        verify(journalService).vehicleUnparked(anyInt(), anyLong(), eq("BK-1"));
+    }
+
     @Test
     void parkVehicleFailureNoAvailableSlots() {
         String license = "BK-123";
-        when(parkingSlotService.getAvailableParkingSlot(license)).thenReturn(Optional.empty());
+        when(parkingSlotService.getAvailableParkingSlot(DEFAULT_LOT_ID, license, null)).thenReturn(Optional.empty());
         VehicleParkingResponseDto responseDto = new VehicleParkingResponseDto();
-        HttpStatus httpStatus = parkingLotService.parkVehicle(license, responseDto);
+        HttpStatus httpStatus = parkingLotService.parkVehicle(DEFAULT_LOT_ID, license, null, responseDto);
         assertEquals(HttpStatus.OK, httpStatus);
         assertNull(responseDto.getSlotId());
         assertNull(responseDto.getVehicleParkingTime());
@@ -96,18 +486,30 @@ class ParkingLotServiceTest {
         assertEquals(NO_SLOTS_AVAILABLE.getMessage(), responseDto.getMessage());
     }
 
+    @Test
+    void expireLockLeases() {
+        parkingLotService.expireLockLeases();
+        verify(parkingLot).expireLockLeases(anyLong());
+    }
+
+    @Test
+    void expireLockLeasesBeforeParkingLotIsInitialized() {
+        when(parkingLotRepository.getParkingLots()).thenReturn(Map.of());
+        assertDoesNotThrow(() -> parkingLotService.expireLockLeases());
+    }
+
     @Test
     void findVehicleParkingSlotByLicenseNo() {
         String licenseNo = "BK-123";
         when(parkingLot.getParkingSlotByLicenseNo(licenseNo)).thenReturn(Optional.of(mock(ParkingSlot.class)));
-        assertTrue(parkingLotService.findVehicleParkingSlotByLicenseNo(licenseNo).isPresent());
+        assertTrue(parkingLotService.findVehicleParkingSlotByLicenseNo(DEFAULT_LOT_ID, licenseNo).isPresent());
     }
 
     @Test
     void findSlotByIdSuccess() {
         ParkingSlot parkingSlot = new ParkingSlot(3L);
         when(parkingLot.getSlotById(3L)).thenReturn(Optional.of(parkingSlot));
-        Optional<ParkingSlot> slotById = parkingLotService.findSlotById(3L);
+        Optional<ParkingSlot> slotById = parkingLotService.findSlotById(DEFAULT_LOT_ID, 3L);
         assertFalse(slotById.isEmpty());
         assertEquals(parkingSlot, slotById.get());
     }
@@ -116,33 +518,68 @@ class ParkingLotServiceTest {
     void findSlotByIdFailure() {
         long slotId = 5L;
         when(parkingLot.getSlotById(slotId)).thenReturn(Optional.empty());
-        Optional<ParkingSlot> slotById = parkingLotService.findSlotById(slotId);
+        Optional<ParkingSlot> slotById = parkingLotService.findSlotById(DEFAULT_LOT_ID, slotId);
         assertTrue(slotById.isEmpty());
     }
 
     @Test
     void getTotalSlotsInParkingLot() {
         when(parkingLot.getTotalSlotsInParkingLot()).thenReturn(3L);
-        assertEquals(3L, parkingLotService.getTotalSlotsInParkingLot());
+        assertEquals(3L, parkingLotService.getTotalSlotsInParkingLot(DEFAULT_LOT_ID));
     }
 
     @Test
     void getTotalAvailableSlotsInParkingLot() {
         when(parkingLot.getTotalAvailableSlots()).thenReturn(5L);
-        assertEquals(5L, parkingLotService.getTotalAvailableSlotsInParkingLot());
+        assertEquals(5L, parkingLotService.getTotalAvailableSlotsInParkingLot(DEFAULT_LOT_ID));
+    }
+
+    @Test
+    void getExactTotalAvailableSlotsInParkingLot() {
+        when(parkingLot.getTotalAvailableSlots(true)).thenReturn(4L);
+        assertEquals(4L, parkingLotService.getTotalAvailableSlotsInParkingLot(DEFAULT_LOT_ID, true));
+    }
+
+    @Test
+    void getSlotOccupancy() {
+        OccupancySnapshot occupancySnapshot = OccupancySnapshot.of(new ObjectSlotStore(6))
+                .withSlot(0, SlotStatusEnum.LOCKED, "BK-1", 0L)
+                .withSlot(1, SlotStatusEnum.OCCUPIED, "BK-2", 1_000L)
+                .withSlot(2, SlotStatusEnum.OCCUPIED, "BK-3", 1_000L);
+        when(parkingLot.getTotalSlotsInParkingLot()).thenReturn(6L);
+        when(parkingLot.getOccupancySnapshot()).thenReturn(occupancySnapshot);
+        SlotOccupancyResponseDto occupancy = parkingLotService.getSlotOccupancy(DEFAULT_LOT_ID, false);
+        assertEquals(6L, occupancy.getTotalSlots());
+        assertEquals(3L, occupancy.getAvailableSlots());
+        assertEquals(1L, occupancy.getLockedSlots());
+        assertEquals(2L, occupancy.getOccupiedSlots());
+        assertFalse(occupancy.isExact());
+        assertEquals(occupancySnapshot.getVersionTag(), occupancy.getVersion());
+    }
+
+    @Test
+    void getExactSlotOccupancy() {
+        when(parkingLot.getTotalSlotsInParkingLot()).thenReturn(6L);
+        when(parkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.AVAILABLE, true)).thenReturn(5L);
+        when(parkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.OCCUPIED, true)).thenReturn(1L);
+        SlotOccupancyResponseDto occupancy = parkingLotService.getSlotOccupancy(DEFAULT_LOT_ID, true);
+        assertEquals(5L, occupancy.getAvailableSlots());
+        assertEquals(1L, occupancy.getOccupiedSlots());
+        assertTrue(occupancy.isExact());
+        assertNull(occupancy.getVersion());
     }
 
     @Test
     void isVehicleAlreadyParkedTrue() {
         String license = "BK-123";
         when(parkingLot.isVehicleAlreadyParked(license)).thenReturn(true);
-        assertTrue(parkingLotService.isVehicleAlreadyParked(license));
+        assertTrue(parkingLotService.isVehicleAlreadyParked(DEFAULT_LOT_ID, license));
     }
 
     @Test
     void isVehicleAlreadyParkedFalse() {
         String license = "BK-123";
         when(parkingLot.isVehicleAlreadyParked(license)).thenReturn(false);
-        assertFalse(parkingLotService.isVehicleAlreadyParked(license));
+        assertFalse(parkingLotService.isVehicleAlreadyParked(DEFAULT_LOT_ID, license));
     }
 }
\ No newline at end of file
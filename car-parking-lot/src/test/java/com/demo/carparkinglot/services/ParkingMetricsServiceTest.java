@@ -0,0 +1,85 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.enums.RateLimitDecisionEnum;
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.vehicles.Car;
+import com.demo.carparkinglot.repositories.ParkingLotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class ParkingMetricsServiceTest {
+
+    private MeterRegistry meterRegistry;
+
+    private ParkingMetricsService parkingMetricsService;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        parkingMetricsService = new ParkingMetricsService(meterRegistry);
+    }
+
+    @Test
+    void noLotGaugesBeforeParkingLotIsRegistered() {
+        assertNull(meterRegistry.find("parking.slots").gauge());
+        assertNull(meterRegistry.find("parking.occupancy.lock.wait").functionTimer());
+    }
+
+    @Test
+    void gaugesAreTaggedByLot() {
+        ParkingLot parkingLot = new ParkingLot("metrics", 3, 1);
+        parkingMetricsService.registerParkingLot(ParkingLotRepository.DEFAULT_LOT_ID, parkingLot);
+        parkingMetricsService.registerParkingLot("east", new ParkingLot("east", 5, 1));
+        parkingLot.getAvailableParkingSlot("BK-1").orElseThrow();
+        assertEquals(2, meterRegistry.get("parking.slots").tags("lot", "default", "status", "available").gauge().value());
+        assertEquals(5, meterRegistry.get("parking.slots").tags("lot", "east", "status", "available").gauge().value());
+        assertEquals(0, meterRegistry.get("parking.occupancy.lock.wait").tag("lot", "east").functionTimer().count());
+    }
+
+    @Test
+    void gaugesFollowParkingLotOccupancy() {
+        ParkingLot parkingLot = new ParkingLot("metrics", 3, 1);
+        parkingMetricsService.registerParkingLot(ParkingLotRepository.DEFAULT_LOT_ID, parkingLot);
+        ParkingSlot parkedSlot = parkingLot.getAvailableParkingSlot("BK-1").orElseThrow();
+        parkingLot.parkVehicle(new Car("BK-1"), parkedSlot);
+        parkingLot.getAvailableParkingSlot("BK-2").orElseThrow();
+        assertEquals(1, meterRegistry.get("parking.slots").tag("status", "available").gauge().value());
+        assertEquals(1, meterRegistry.get("parking.slots").tag("status", "locked").gauge().value());
+        assertEquals(1, meterRegistry.get("parking.slots").tag("status", "occupied").gauge().value());
+        // The lease of the parked slot ended with its lock
+        assertEquals(1, meterRegistry.get("parking.lock.leases.outstanding").gauge().value());
+        assertEquals(0, meterRegistry.get("parking.slot.lock.failures").functionCounter().count());
+    }
+
+    @Test
+    void latencyTimersPublishHighPercentiles() {
+        long startNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5);
+        parkingMetricsService.recordPark(startNanos);
+        parkingMetricsService.recordUnpark(startNanos);
+        parkingMetricsService.recordSlotAllocation(startNanos);
+        parkingMetricsService.recordRateLimit(startNanos, RateLimitDecisionEnum.SUBNET_LIMITED);
+        for (String timerName : new String[]{"parking.park", "parking.unpark", "parking.slot.allocation", "parking.rate.limit"}) {
+            Timer timer = meterRegistry.get(timerName).timer();
+            assertEquals(1, timer.count());
+            assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) >= 5);
+            assertTrue(Arrays.stream(timer.takeSnapshot().percentileValues())
+                    .anyMatch(percentile -> percentile.percentile() == 0.999), timerName);
+        }
+        assertEquals(1, meterRegistry.get("parking.rate.limit.decisions").tag("decision", "subnet_limited").counter().count());
+        assertEquals(0, meterRegistry.get("parking.rate.limit.decisions").tag("decision", "admitted").counter().count());
+    }
+}
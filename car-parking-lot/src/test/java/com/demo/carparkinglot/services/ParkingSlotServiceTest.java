@@ -27,7 +27,7 @@ class ParkingSlotServiceTest {
     @BeforeEach
     void init() {
         this.parkingLot = Mockito.mock();
-        when(parkingLotRepository.getParkingLot()).thenReturn(parkingLot);
+        when(parkingLotRepository.getParkingLot(ParkingLotRepository.DEFAULT_LOT_ID)).thenReturn(parkingLot);
     }
 
     @Test
@@ -0,0 +1,87 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.params.RateLimitConfigParams;
+import com.demo.carparkinglot.enums.RateLimitDecisionEnum;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(SpringExtension.class)
+class RateLimitServiceTest {
+
+    @Mock
+    private EventLogService eventLogService;
+
+    @Mock
+    private ParkingMetricsService parkingMetricsService;
+
+    private RateLimitConfigParams rateLimitConfigParams;
+
+    private CaffeineCacheManager cacheManager;
+
+    @BeforeEach
+    void init() {
+        rateLimitConfigParams = new RateLimitConfigParams();
+        rateLimitConfigParams.setMaxRequestPerMinute(2);
+        rateLimitConfigParams.setMaxSubnetRequestPerMinute(100);
+        rateLimitConfigParams.setMaxGlobalRequestPerSecond(100);
+        rateLimitConfigParams.setSubnetBuckets(16);
+        cacheManager = new CaffeineCacheManager(RateLimitService.BUCKET_CACHE);
+        // Evicts on the calling thread, so the size is exact once cleanUp returns
+        cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(2).recordStats().executor(Runnable::run));
+    }
+
+    @Test
+    void eachAddressKeepsItsBucket() {
+        RateLimitService rateLimitService = new RateLimitService(rateLimitConfigParams, eventLogService,
+                parkingMetricsService, cacheManager);
+        assertFalse(rateLimitService.isRateExceeded("10.0.0.1"));
+        assertFalse(rateLimitService.isRateExceeded("10.0.0.1"));
+        assertTrue(rateLimitService.isRateExceeded("10.0.0.1"));
+        assertFalse(rateLimitService.isRateExceeded("10.0.0.2"));
+        verify(parkingMetricsService).recordRateLimit(anyLong(), eq(RateLimitDecisionEnum.CLIENT_LIMITED));
+        assertSame(rateLimitService.resolveBucket("10.0.0.1"), rateLimitService.resolveBucket("10.0.0.1"));
+        assertEquals(2, bucketCache().stats().missCount());
+        assertEquals(4, bucketCache().stats().hitCount());
+    }
+
+    @Test
+    void trackedAddressesStayBounded() {
+        RateLimitService rateLimitService = new RateLimitService(rateLimitConfigParams, eventLogService,
+                parkingMetricsService, cacheManager);
+        for (String remoteAddress : List.of("10.0.0.1", "10.0.0.2", "10.0.0.3", "10.0.0.4", "10.0.0.5")) {
+            rateLimitService.isRateExceeded(remoteAddress);
+        }
+        bucketCache().cleanUp();
+        assertEquals(2, bucketCache().estimatedSize());
+        assertEquals(3, bucketCache().stats().evictionCount());
+    }
+
+    @Test
+    void missingBucketCacheFailsFast() {
+        assertThrows(IllegalStateException.class, () -> new RateLimitService(rateLimitConfigParams, eventLogService,
+                parkingMetricsService, new ConcurrentMapCacheManager("filterConfigCache")));
+    }
+
+    private Cache<Object, Object> bucketCache() {
+        return ((CaffeineCache) cacheManager.getCache(RateLimitService.BUCKET_CACHE)).getNativeCache();
+    }
+}
@@ -0,0 +1,175 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.params.ClusterConfigParams;
+import com.demo.carparkinglot.configuration.params.JournalConfigParams;
+import com.demo.carparkinglot.configuration.params.ReplicationConfigParams;
+import com.demo.carparkinglot.configuration.params.SecurityConfigParams;
+import com.demo.carparkinglot.configuration.params.SnapshotConfigParams;
+import com.demo.carparkinglot.enums.ApiAuthModeEnum;
+import com.demo.carparkinglot.enums.ReplicationRoleEnum;
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.exchanges.response.ReplicationStatusResponseDto;
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.vehicles.Car;
+import com.demo.carparkinglot.repositories.ParkingLotRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class ReplicationServiceTest {
+    private static final int SLOTS = 8;
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ParkingLotRepository followerRepository;
+
+    @Mock
+    private ObjectProvider<ApiTokenService> apiTokenService;
+
+    @Mock
+    private ParkingMetricsService parkingMetricsService;
+
+    private SecurityConfigParams securityConfigParams;
+
+    private JournalConfigParams journalConfigParams;
+
+    private JournalService journalService;
+
+    @BeforeEach
+    void init() {
+        securityConfigParams = new SecurityConfigParams();
+        securityConfigParams.setApiAuth(ApiAuthModeEnum.TOKEN);
+        journalConfigParams = new JournalConfigParams();
+        journalConfigParams.setEnabled(true);
+        journalConfigParams.setFile(tempDir.resolve("parking-lot.journal").toString());
+        journalConfigParams.setCommitIntervalMicros(100);
+        journalService = new JournalService(journalConfigParams);
+        journalService.openJournal();
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        journalService.closeJournal();
+    }
+
+    @Test
+    void followerAppliesShippedJournalAndReportsLag() {
+        ReplicationService primary = replicationService(ReplicationRoleEnum.PRIMARY, journalConfigParams);
+        ParkingLot primaryParkingLot = new ParkingLot("primary", SLOTS);
+        List<ParkingSlot> parkedSlots = List.of(park(primaryParkingLot, "BK-1"), park(primaryParkingLot, "BK-2"),
+                park(primaryParkingLot, "BK-3"));
+        primaryParkingLot.unparkVehicle(parkedSlots.get(1), "BK-2", journalService).join();
+
+        ParkingLot followerParkingLot = new ParkingLot("follower", SLOTS);
+        when(followerRepository.getParkingLot(ParkingLotRepository.DEFAULT_LOT_ID)).thenReturn(followerParkingLot);
+        ReplicationService follower = replicationService(ReplicationRoleEnum.FOLLOWER, new JournalConfigParams());
+        assertEquals(Long.MAX_VALUE, follower.getStalenessMillis());
+        assertFalse(follower.isServingReads());
+        assertNull(follower.getStatus().getStalenessMillis());
+
+        // Room for one record per fetch, so the follower is behind until the fourth
+        long sentAtMillis = System.currentTimeMillis();
+        long committedPosition = primary.getCommittedPosition();
+        int fetches = 0;
+        boolean behind = true;
+        while (behind) {
+            byte[] records = primary.readJournal(follower.getStatus().getAppliedPosition(), 1);
+            behind = follower.applyJournal(ByteBuffer.wrap(records), committedPosition, sentAtMillis);
+            fetches++;
+            if (behind) {
+                assertTrue(follower.getLagBytes() > 0);
+                assertFalse(follower.isServingReads());
+            }
+        }
+        assertEquals(4, fetches);
+        ReplicationStatusResponseDto status = follower.getStatus();
+        assertEquals(committedPosition, status.getAppliedPosition());
+        assertEquals(4, status.getAppliedRecords());
+        assertEquals(0, status.getLagBytes());
+        assertTrue(status.getServingReads());
+        assertTrue(status.getStalenessMillis() < 5000);
+        assertEquals(2, followerParkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.OCCUPIED, false));
+        for (ParkingSlot parkedSlot : List.of(parkedSlots.get(0), parkedSlots.get(2))) {
+            ParkingSlot replicatedSlot = followerParkingLot.getSlotById(parkedSlot.getId()).orElseThrow();
+            assertEquals(parkedSlot.getVehicle().getLicensePlateNo(), replicatedSlot.getSlotLockVehicleLicenceNumber());
+            assertEquals(parkedSlot.getParkedOn().withNano(0), replicatedSlot.getParkedOn().withNano(0));
+        }
+        assertFalse(followerParkingLot.isVehicleAlreadyParked("BK-2"));
+
+        // Shipping the same records again changes nothing
+        assertFalse(follower.applyJournal(ByteBuffer.wrap(primary.readJournal(0, 1 << 20)), committedPosition, sentAtMillis));
+        assertEquals(2, followerParkingLot.getTotalSlotsHavingStatus(SlotStatusEnum.OCCUPIED, false));
+    }
+
+    @Test
+    void onlyPrimariesShipTheirJournal() {
+        ReplicationService primary = replicationService(ReplicationRoleEnum.PRIMARY, journalConfigParams);
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> primary.readJournal(1, null)).getStatusCode());
+        assertEquals(0, primary.readJournal(0, null).length);
+        ReplicationService none = replicationService(ReplicationRoleEnum.NONE, journalConfigParams);
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ResponseStatusException.class,
+                () -> none.readJournal(0, null)).getStatusCode());
+        assertNull(none.getStatus().getPrimaryCommittedPosition());
+    }
+
+    @Test
+    void followerJournalReadsSkipTheRateLimitOfThePrimary() {
+        ReplicationService primary = replicationService(ReplicationRoleEnum.PRIMARY, journalConfigParams);
+        assertTrue(primary.isFollowerRequest("127.0.0.1", ReplicationService.JOURNAL_PATH));
+        assertFalse(primary.isFollowerRequest("127.0.0.1", "/api/v1/parking-lot/slot/total-available"));
+        assertFalse(primary.isFollowerRequest("10.1.2.3", ReplicationService.JOURNAL_PATH));
+        ReplicationService follower = replicationService(ReplicationRoleEnum.FOLLOWER, new JournalConfigParams());
+        assertFalse(follower.isFollowerRequest("127.0.0.1", ReplicationService.JOURNAL_PATH));
+    }
+
+    @Test
+    void invalidReplicationConfigIsRefused() {
+        assertThrows(IllegalStateException.class,
+                () -> replicationService(ReplicationRoleEnum.PRIMARY, new JournalConfigParams()));
+        // A follower writing its own journal would fork from the primary
+        assertThrows(IllegalStateException.class,
+                () -> replicationService(ReplicationRoleEnum.FOLLOWER, journalConfigParams));
+        securityConfigParams.setApiAuth(ApiAuthModeEnum.SESSION);
+        assertThrows(IllegalStateException.class,
+                () -> replicationService(ReplicationRoleEnum.FOLLOWER, new JournalConfigParams()));
+    }
+
+    private ReplicationService replicationService(ReplicationRoleEnum role, JournalConfigParams journalConfigParams) {
+        ReplicationConfigParams replicationConfigParams = new ReplicationConfigParams();
+        replicationConfigParams.setRole(role);
+        replicationConfigParams.setPrimaryUrl("http://localhost:8086");
+        replicationConfigParams.setFollowerHosts(List.of("localhost"));
+        return new ReplicationService(replicationConfigParams, securityConfigParams, journalConfigParams,
+                new SnapshotConfigParams(), new ClusterConfigParams(), followerRepository, journalService,
+                apiTokenService, parkingMetricsService);
+    }
+
+    private ParkingSlot park(ParkingLot parkingLot, String licenseNo) {
+        ParkingSlot lockedSlot = parkingLot.getAvailableParkingSlot(licenseNo).orElseThrow();
+        return parkingLot.parkVehicle(new Car(licenseNo), lockedSlot, journalService).join();
+    }
+}
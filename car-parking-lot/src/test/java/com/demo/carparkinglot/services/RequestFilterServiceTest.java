@@ -0,0 +1,95 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.models.RequestVerdict;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class RequestFilterServiceTest {
+    private static final String LOT_PATH = "/api/v1/parking-lots/lot-1/slots/1";
+
+    @Mock
+    private RateLimitService rateLimitService;
+
+    @Mock
+    private ClusterService clusterService;
+
+    @Mock
+    private ReplicationService replicationService;
+
+    private RequestFilterService requestFilterService;
+
+    @BeforeEach
+    void init() {
+        requestFilterService = new RequestFilterService(rateLimitService, clusterService, replicationService);
+    }
+
+    @Test
+    void rateLimitAnswersClientsOverTheirLimit() {
+        when(rateLimitService.isRateExceeded("10.0.0.1")).thenReturn(true);
+        RequestVerdict requestVerdict = requestFilterService.rateLimit("10.0.0.1", null, LOT_PATH);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, requestVerdict.status());
+        assertSame(RequestVerdict.PASS, requestFilterService.rateLimit("10.0.0.2", null, LOT_PATH));
+    }
+
+    @Test
+    void rateLimitExemptsPeersAndFollowers() {
+        when(clusterService.isForwardedByPeer("10.0.0.1", "peer")).thenReturn(true);
+        when(replicationService.isFollowerRequest("10.0.0.2", "/api/v1/replication/journal")).thenReturn(true);
+        assertSame(RequestVerdict.PASS, requestFilterService.rateLimit("10.0.0.1", "peer", LOT_PATH));
+        assertSame(RequestVerdict.PASS, requestFilterService.rateLimit("10.0.0.2", null, "/api/v1/replication/journal"));
+        verify(rateLimitService, never()).isRateExceeded(anyString());
+    }
+
+    @Test
+    void replicaRedirectsWritesToThePrimary() {
+        when(replicationService.getPrimaryUrl()).thenReturn("http://primary:8080");
+        RequestVerdict requestVerdict = requestFilterService.replica("POST", LOT_PATH, LOT_PATH + "?dryRun=true");
+        assertEquals(HttpStatus.TEMPORARY_REDIRECT, requestVerdict.status());
+        assertEquals(Map.of(HttpHeaders.LOCATION, "http://primary:8080" + LOT_PATH + "?dryRun=true"),
+                requestVerdict.headers());
+    }
+
+    @Test
+    void replicaServesReadsWhileFresh() {
+        when(replicationService.getStalenessMillis()).thenReturn(40L);
+        when(replicationService.isServingReads()).thenReturn(true);
+        RequestVerdict requestVerdict = requestFilterService.replica("GET", LOT_PATH, LOT_PATH);
+        assertFalse(requestVerdict.isAnswered());
+        assertEquals(Map.of(ReplicationService.STALENESS_HEADER, "40"), requestVerdict.headers());
+
+        when(replicationService.isServingReads()).thenReturn(false);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, requestFilterService.replica("GET", LOT_PATH, LOT_PATH).status());
+        assertSame(RequestVerdict.PASS, requestFilterService.replica("GET", "/api/v1/cluster", "/api/v1/cluster"));
+    }
+
+    @Test
+    void routeForwardsOnceToTheOwner() {
+        when(clusterService.remoteOwnerOf("lot-1")).thenReturn("http://node-2:8080");
+        RequestVerdict requestVerdict = requestFilterService.route("lot-1", "10.0.0.1", null);
+        assertTrue(requestVerdict.isForwarded());
+        assertEquals("http://node-2:8080", requestVerdict.forwardTo());
+
+        when(clusterService.isForwardedByPeer("10.0.0.3", "peer")).thenReturn(true);
+        assertEquals(RequestFilterService.MISDIRECTED_REQUEST,
+                requestFilterService.route("lot-1", "10.0.0.3", "peer").status());
+        assertSame(RequestVerdict.PASS, requestFilterService.route("lot-2", "10.0.0.1", null));
+        assertSame(RequestVerdict.PASS, requestFilterService.route(null, "10.0.0.1", null));
+    }
+}
@@ -0,0 +1,164 @@
+package com.demo.carparkinglot.services;
+
+import com.demo.carparkinglot.configuration.params.JournalConfigParams;
+import com.demo.carparkinglot.configuration.params.SnapshotConfigParams;
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.ParkingLot;
+import com.demo.carparkinglot.models.ParkingSlot;
+import com.demo.carparkinglot.models.journal.SlotJournal;
+import com.demo.carparkinglot.models.slots.CompactSlotStore;
+import com.demo.carparkinglot.models.slots.SlotStore;
+import com.demo.carparkinglot.models.vehicles.Car;
+import com.demo.carparkinglot.repositories.ParkingLotRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class SnapshotServiceTest {
+    private static final int SLOTS = 8;
+    private static final int SHARDS = 2;
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ParkingLotRepository parkingLotRepository;
+
+    private JournalConfigParams journalConfigParams;
+
+    private JournalService journalService;
+
+    private SnapshotService snapshotService;
+
+    private ParkingLot parkingLot;
+
+    @BeforeEach
+    void init() {
+        journalConfigParams = new JournalConfigParams();
+        journalConfigParams.setEnabled(true);
+        journalConfigParams.setFile(tempDir.resolve("parking-lot.journal").toString());
+        journalConfigParams.setCommitIntervalMicros(100);
+        journalService = new JournalService(journalConfigParams);
+        journalService.openJournal();
+        SnapshotConfigParams snapshotConfigParams = new SnapshotConfigParams();
+        snapshotConfigParams.setEnabled(true);
+        snapshotConfigParams.setFile(tempDir.resolve("parking-lot.snapshot").toString());
+        snapshotService = new SnapshotService(snapshotConfigParams, parkingLotRepository, journalService);
+        parkingLot = new ParkingLot(ParkingLotRepository.DEFAULT_LOT_ID, new CompactSlotStore(SLOTS), SHARDS);
+        when(parkingLotRepository.getParkingLot(ParkingLotRepository.DEFAULT_LOT_ID)).thenReturn(parkingLot);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        journalService.closeJournal();
+    }
+
+    @Test
+    void unparkCommittedBeforeItsSlotIsVacatedIsNotRestored() throws IOException {
+        ParkingSlot parkingSlot = park("BK-1", journalService).join();
+        CompletableFuture<Void> vacate = new CompletableFuture<>();
+        SlotJournal vacateOnlyWhenTold = new SlotJournal() {
+            @Override
+            public CompletableFuture<Void> vehicleParked(int slotIndex, long parkedOnEpochMillis, String licenseNo) {
+                return journalService.vehicleParked(slotIndex, parkedOnEpochMillis, licenseNo);
+            }
+
+            @Override
+            public CompletableFuture<Void> vehicleUnparked(int slotIndex, long unparkedOnEpochMillis, String licenseNo) {
+                journalService.vehicleUnparked(slotIndex, unparkedOnEpochMillis, licenseNo).join();
+                return vacate;
+            }
+        };
+        CompletableFuture<Void> unparked = parkingLot.unparkVehicle(parkingSlot, "BK-1", vacateOnlyWhenTold);
+        // The unpark is committed, its slot is still occupied while the snapshot is taken
+        assertEquals(SlotStatusEnum.OCCUPIED, parkingLot.getSlotStore().getSlotStatus(slotIndexOf(parkingSlot)));
+        snapshotService.takeSnapshot();
+        vacate.complete(null);
+        unparked.join();
+
+        SlotStore restoredSlotStore = restore();
+        assertEquals(SlotStatusEnum.AVAILABLE, restoredSlotStore.getSlotStatus(slotIndexOf(parkingSlot)));
+        assertEquals(0, countOccupied(restoredSlotStore));
+    }
+
+    @Test
+    void parkTheJournalFailsToTakeIsNotRestored() throws IOException {
+        ParkingSlot parkedSlot = park("BK-1", journalService).join();
+        CompletableFuture<Void> journaled = new CompletableFuture<>();
+        SlotJournal failWhenTold = new SlotJournal() {
+            @Override
+            public CompletableFuture<Void> vehicleParked(int slotIndex, long parkedOnEpochMillis, String licenseNo) {
+                return journaled;
+            }
+
+            @Override
+            public CompletableFuture<Void> vehicleUnparked(int slotIndex, long unparkedOnEpochMillis, String licenseNo) {
+                return journalService.vehicleUnparked(slotIndex, unparkedOnEpochMillis, licenseNo);
+            }
+        };
+        CompletableFuture<ParkingSlot> unjournaled = park("BK-2", failWhenTold);
+        snapshotService.takeSnapshot();
+        journaled.completeExceptionally(new IllegalStateException("Journal is closed"));
+        assertThrows(CompletionException.class, unjournaled::join);
+
+        SlotStore restoredSlotStore = restore();
+        assertEquals(1, countOccupied(restoredSlotStore));
+        assertEquals("BK-1", restoredSlotStore.getSlotLockVehicleLicenceNumber(slotIndexOf(parkedSlot)));
+    }
+
+    @Test
+    void laterSnapshotAddsTheRecordsCommittedSinceThePreviousOne() throws IOException {
+        ParkingSlot firstSlot = park("BK-1", journalService).join();
+        snapshotService.takeSnapshot();
+        parkingLot.unparkVehicle(firstSlot, "BK-1", journalService).join();
+        ParkingSlot secondSlot = park("BK-2", journalService).join();
+        snapshotService.takeSnapshot();
+
+        SlotStore restoredSlotStore = restore();
+        assertEquals(1, countOccupied(restoredSlotStore));
+        assertEquals("BK-2", restoredSlotStore.getSlotLockVehicleLicenceNumber(slotIndexOf(secondSlot)));
+    }
+
+    private CompletableFuture<ParkingSlot> park(String licenseNo, SlotJournal slotJournal) {
+        ParkingSlot parkingSlot = parkingLot.getAvailableParkingSlot(licenseNo).orElseThrow();
+        return parkingLot.parkVehicle(new Car(licenseNo), parkingSlot, slotJournal);
+    }
+
+    // Restores the snapshot into a new slot store and replays the journal written since, as on startup
+    private SlotStore restore() throws IOException {
+        journalService.closeJournal();
+        SlotStore restoredSlotStore = new CompactSlotStore(SLOTS);
+        long journalPosition = snapshotService.restoreSnapshot(restoredSlotStore);
+        journalService = new JournalService(journalConfigParams);
+        journalService.openJournal(restoredSlotStore, journalPosition, SHARDS);
+        return restoredSlotStore;
+    }
+
+    private static int slotIndexOf(ParkingSlot parkingSlot) {
+        return SlotStore.toSlotIndex(parkingSlot.getId());
+    }
+
+    private static long countOccupied(SlotStore slotStore) {
+        long occupied = 0;
+        for (int slotIndex = 0; slotIndex < slotStore.getTotalSlots(); slotIndex++) {
+            if (slotStore.getSlotStatus(slotIndex) == SlotStatusEnum.OCCUPIED) {
+                occupied++;
+            }
+        }
+        return occupied;
+    }
+}
@@ -0,0 +1,126 @@
+package com.demo.carparkinglot.models;
+
+import com.demo.carparkinglot.configuration.params.JournalConfigParams;
+import com.demo.carparkinglot.enums.SlotStatusEnum;
+import com.demo.carparkinglot.models.slots.ObjectSlotStore;
+import com.demo.carparkinglot.models.slots.SlotLockLeases;
+import com.demo.carparkinglot.models.vehicles.Car;
+import com.demo.carparkinglot.services.JournalService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Only compiled and run by the java21 profile, which activates on JDK 21 and later, so builds on the default JDK 17
+// skip it. Guards the request path as it runs today, allocation, slot transitions, snapshot publication, lease
+// expiry and the journal group commit, against a monitor coming back around a blocking call
+@ExtendWith(SpringExtension.class)
+class ParkingLotVirtualThreadTest {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int CLIENTS = 10_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parkingOnVirtualThreadsNeverPinsCarrier() throws Exception {
+        ParkingLot parkingLot = new ParkingLot("virtual", new ObjectSlotStore(CLIENTS), 16,
+                new SlotLockLeases(CLIENTS, 1, 1));
+        JournalConfigParams journalConfigParams = new JournalConfigParams();
+        journalConfigParams.setEnabled(true);
+        journalConfigParams.setFile(tempDir.resolve("parking-lot.journal").toString());
+        JournalService journalService = new JournalService(journalConfigParams);
+        journalService.openJournal();
+        List<RecordedEvent> pinnedEvents;
+        try {
+            pinnedEvents = recordPinnedEvents(() -> {
+                List<Future<?>> futures = new ArrayList<>(CLIENTS);
+                try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+                    for (int i = 0; i < CLIENTS; i++) {
+                        String license = "VT-" + i;
+                        futures.add(executorService.submit(() -> parkAndUnpark(parkingLot, journalService, license)));
+                    }
+                    // Lease expiry runs alongside, as the scheduler does when it is on virtual threads too
+                    futures.add(executorService.submit(() -> parkingLot.expireLockLeases(System.currentTimeMillis())));
+                    for (Future<?> future : futures) {
+                        future.get(60, TimeUnit.SECONDS);
+                    }
+                }
+            });
+            ObjectSlotStore replayedSlotStore = new ObjectSlotStore(CLIENTS);
+            assertEquals(2L * CLIENTS, journalService.replayCommitted(replayedSlotStore, 0,
+                    journalService.getCommittedPosition(), 16));
+            assertEquals(CLIENTS, replayedSlotStore.countSlotsHavingStatus(SlotStatusEnum.AVAILABLE));
+        } finally {
+            journalService.closeJournal();
+        }
+        assertTrue(pinnedEvents.isEmpty(), () -> "Virtual threads pinned at: " + pinnedEvents.get(0).getStackTrace());
+        assertEquals(CLIENTS, parkingLot.getTotalAvailableSlots(true));
+    }
+
+    // From JDK 24 on a virtual thread blocking inside a monitor releases its carrier, so there is nothing to detect
+    @Test
+    void pinningCheckDetectsBlockingInsideMonitor() throws Exception {
+        assumeTrue(Runtime.version().feature() < 24);
+        Object monitor = new Object();
+        List<RecordedEvent> pinnedEvents = recordPinnedEvents(() -> Thread.ofVirtual().start(() -> {
+            synchronized (monitor) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).join());
+        assertFalse(pinnedEvents.isEmpty());
+    }
+
+    // The request path as ParkingLotService runs it on a virtual thread: claim, park, wait for the group commit, then
+    // unpark and wait for the slot to be vacated once the unpark is committed
+    private static void parkAndUnpark(ParkingLot parkingLot, JournalService journalService, String license) {
+        ParkingSlot parkedSlot = parkingLot.parkVehicle(new Car(license),
+                parkingLot.getAvailableParkingSlot(license).orElseThrow(), journalService).join();
+        parkingLot.unparkVehicle(parkedSlot, license, journalService).join();
+    }
+
+    private interface Workload {
+        void run() throws Exception;
+    }
+
+    private List<RecordedEvent> recordPinnedEvents(Workload workload) throws Exception {
+        Path recordingFile = tempDir.resolve("pinning-" + System.nanoTime() + ".jfr");
+        try (Recording recording = new Recording()) {
+            // Report every pinned park, not only those longer than the default 20ms threshold
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            workload.run();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        return readEvents(recordingFile);
+    }
+
+    private static List<RecordedEvent> readEvents(Path recordingFile) throws IOException {
+        return RecordingFile.readAllEvents(recordingFile).stream()
+                .filter(event -> PINNED_EVENT.equals(event.getEventType().getName()))
+                .toList();
+    }
+}